@@ -1,9 +1,299 @@
 require('zone.js/dist/zone-node');
 
-const socketEngine = require('@nguniversal/socket-engine');
-const {AppServerModuleNgFactory} = require('./dist/angular-server/main');
+import * as net from 'net';
 
-const port: Number = parseInt(process.env.NODEPORT) || 9090;
+const {AppServerModuleNgFactory, renderModuleFactory} = require('./dist/angular-server/main');
+
+const port: number = parseInt(process.env.NODEPORT, 10) || 9090;
+
+/**
+ * Render request sent by the Java render engine. Each request is one line of JSON or one frame. A request of the type
+ * 'register' stores the document under the template hash, all following render requests of the connection can then
+ * refer to the template by its hash instead of sending the document again. A request of the type 'cancel' abandons the
+ * render with the same ID.
+ */
+interface RenderRequest {
+  type?: string;
+  id: number;
+  url: string;
+  document?: string;
+  template?: string;
+}
+
+/**
+ * Render response sent back to the Java render engine. Each response is one line of JSON or one frame and carries the
+ * ID of its request, so responses can be sent in the order the renders finish.
+ */
+interface RenderResponse {
+  id: number;
+  html: string | null;
+  error?: string;
+  missingTemplate?: boolean;
+}
+
+function render(request: RenderRequest, templates: Map<string, string>): Promise<RenderResponse> {
+  let document = request.document;
+  if (request.template) {
+    document = templates.get(request.template);
+    if (document === undefined) {
+      return Promise.resolve({id: request.id, html: null, error: 'Unknown template: ' + request.template, missingTemplate: true});
+    }
+  }
+
+  return renderModuleFactory(AppServerModuleNgFactory, {document: document, url: request.url})
+    .then((html: string) => ({id: request.id, html: html}))
+    .catch((error: any) => ({id: request.id, html: null, error: String((error && error.message) || error)}));
+}
+
+/**
+ * Decode the CBOR subset written by Jackson: maps (also of indefinite length), text strings, integers, booleans, null
+ * and floats. The first element of the result is the decoded value, the second one the offset after it.
+ */
+function decodeCbor(data: Buffer, offset: number): [any, number] {
+  const initial = data[offset++];
+  const major = initial >> 5;
+  const info = initial & 0x1f;
+
+  if (initial === 0xf4 || initial === 0xf5) {
+    return [initial === 0xf5, offset];
+  } else if (initial === 0xf6 || initial === 0xf7) {
+    return [null, offset];
+  } else if (initial === 0xf9) {
+    return [decodeHalfFloat(data.readUInt16BE(offset)), offset + 2];
+  } else if (initial === 0xfa) {
+    return [data.readFloatBE(offset), offset + 4];
+  } else if (initial === 0xfb) {
+    return [data.readDoubleBE(offset), offset + 8];
+  }
+
+  let argument = info;
+  if (info === 24) {
+    argument = data[offset];
+    offset += 1;
+  } else if (info === 25) {
+    argument = data.readUInt16BE(offset);
+    offset += 2;
+  } else if (info === 26) {
+    argument = data.readUInt32BE(offset);
+    offset += 4;
+  } else if (info === 27) {
+    argument = data.readUInt32BE(offset) * 0x100000000 + data.readUInt32BE(offset + 4);
+    offset += 8;
+  }
+
+  switch (major) {
+    case 0:
+      return [argument, offset];
+    case 1:
+      return [-1 - argument, offset];
+    case 3:
+      return [data.toString('utf8', offset, offset + argument), offset + argument];
+    case 5: {
+      const map: any = {};
+      for (let index = 0; info === 31 ? data[offset] !== 0xff : index < argument; index++) {
+        const [key, keyOffset] = decodeCbor(data, offset);
+        const [value, valueOffset] = decodeCbor(data, keyOffset);
+        map[key] = value;
+        offset = valueOffset;
+      }
+      return [map, info === 31 ? offset + 1 : offset];
+    }
+    default:
+      throw new Error('Unsupported CBOR type: ' + initial);
+  }
+}
+
+function decodeHalfFloat(half: number): number {
+  const exponent = (half >> 10) & 0x1f;
+  const mantissa = half & 0x3ff;
+  const value = exponent === 0 ? mantissa * Math.pow(2, -24) : exponent === 31 ? (mantissa ? NaN : Infinity) : (mantissa + 1024) * Math.pow(2, exponent - 25);
+  return half & 0x8000 ? -value : value;
+}
+
+function encodeCborHeader(major: number, argument: number): Buffer {
+  if (argument < 24) {
+    return Buffer.from([(major << 5) | argument]);
+  } else if (argument < 0x100) {
+    return Buffer.from([(major << 5) | 24, argument]);
+  } else if (argument < 0x10000) {
+    const header = Buffer.alloc(3);
+    header[0] = (major << 5) | 25;
+    header.writeUInt16BE(argument, 1);
+    return header;
+  } else if (argument < 0x100000000) {
+    const header = Buffer.alloc(5);
+    header[0] = (major << 5) | 26;
+    header.writeUInt32BE(argument, 1);
+    return header;
+  }
+  const header = Buffer.alloc(9);
+  header[0] = (major << 5) | 27;
+  header.writeUInt32BE(Math.floor(argument / 0x100000000), 1);
+  header.writeUInt32BE(argument % 0x100000000, 5);
+  return header;
+}
+
+/**
+ * Encode the response metadata as CBOR map. Only integers, text strings and booleans are required.
+ */
+function encodeCbor(metadata: any): Buffer {
+  const keys = Object.keys(metadata).filter((key: string) => metadata[key] !== undefined);
+  const parts: Buffer[] = [encodeCborHeader(5, keys.length)];
+  for (const key of keys) {
+    for (const value of [key, metadata[key]]) {
+      if (typeof value === 'boolean') {
+        parts.push(Buffer.from([value ? 0xf5 : 0xf4]));
+      } else if (typeof value === 'number') {
+        parts.push(value < 0 ? encodeCborHeader(1, -1 - value) : encodeCborHeader(0, value));
+      } else {
+        const text = Buffer.from(String(value), 'utf8');
+        parts.push(encodeCborHeader(3, text.length), text);
+      }
+    }
+  }
+  return Buffer.concat(parts);
+}
+
+/**
+ * Connection to the Java render engine. The wire format is detected by the first received byte: A line of JSON starts
+ * with '{', a frame starts with the high byte of the metadata length, which is always 0. A frame consists of the
+ * metadata length and the body length (-1 for a missing body) as 32 bit big endian integers, followed by the metadata
+ * (JSON or CBOR) and the raw UTF-8 body with the document or page. Responses are sent in the format of the requests.
+ */
+class Connection {
+
+  private readonly templates = new Map<string, string>();
+
+  // IDs of the renders in progress and of the ones the Java side abandoned, their responses are not sent anymore
+  private readonly rendering = new Set<number>();
+
+  private readonly cancelled = new Set<number>();
+
+  private buffer: Buffer = Buffer.alloc(0);
+
+  private framed: boolean | undefined;
+
+  private cbor = false;
+
+  constructor(private readonly socket: net.Socket) {
+  }
+
+  // Requests are pipelined, so a chunk can contain several requests or only a part of one
+  receive(chunk: Buffer): void {
+    this.buffer = this.buffer.length === 0 ? chunk : Buffer.concat([this.buffer, chunk]);
+    if (this.framed === undefined) {
+      this.framed = this.buffer[0] === 0;
+    }
+
+    if (this.framed) {
+      this.receiveFrames();
+    } else {
+      this.receiveLines();
+    }
+  }
+
+  private receiveLines(): void {
+    let index = this.buffer.indexOf(0x0a);
+    while (index >= 0) {
+      const message = this.buffer.toString('utf8', 0, index);
+      this.buffer = this.buffer.slice(index + 1);
+      if (message.trim().length > 0) {
+        let request: RenderRequest;
+        try {
+          request = JSON.parse(message);
+        } catch (error) {
+          console.error('Unable to parse the render request: ' + error);
+          request = undefined;
+        }
+        if (request) {
+          this.handleRequest(request);
+        }
+      }
+      index = this.buffer.indexOf(0x0a);
+    }
+  }
+
+  private receiveFrames(): void {
+    while (this.buffer.length >= 8) {
+      const metadataLength = this.buffer.readInt32BE(0);
+      const bodyLength = this.buffer.readInt32BE(4);
+      const frameLength = 8 + metadataLength + Math.max(bodyLength, 0);
+      if (this.buffer.length < frameLength) {
+        return;
+      }
+
+      const metadata = this.buffer.slice(8, 8 + metadataLength);
+      let request: RenderRequest;
+      try {
+        this.cbor = metadata[0] !== 0x7b;
+        request = this.cbor ? decodeCbor(metadata, 0)[0] : JSON.parse(metadata.toString('utf8'));
+        if (bodyLength >= 0) {
+          request.document = this.buffer.toString('utf8', 8 + metadataLength, frameLength);
+        }
+      } catch (error) {
+        console.error('Unable to parse the render request: ' + error);
+        request = undefined;
+      }
+      this.buffer = this.buffer.slice(frameLength);
+      if (request) {
+        this.handleRequest(request);
+      }
+    }
+  }
+
+  private handleRequest(request: RenderRequest): void {
+    // Registrations are handled synchronously, so they are known to all following requests and are not answered
+    if (request.type === 'register') {
+      this.templates.set(request.template, request.document);
+      return;
+    }
+
+    // A render of Angular can't be aborted, but its result is dropped
+    if (request.type === 'cancel') {
+      if (this.rendering.has(request.id)) {
+        this.cancelled.add(request.id);
+      }
+      return;
+    }
+
+    this.rendering.add(request.id);
+    render(request, this.templates).then((response: RenderResponse) => {
+      this.rendering.delete(request.id);
+      if (this.cancelled.delete(request.id)) {
+        return;
+      }
+      if (!this.socket.destroyed) {
+        this.socket.write(this.framed ? this.encodeFrame(response) : JSON.stringify(response) + '\n');
+      }
+    });
+  }
+
+  private encodeFrame(response: RenderResponse): Buffer {
+    const metadata = {id: response.id, error: response.error, missingTemplate: response.missingTemplate};
+    const metadataBytes = this.cbor ? encodeCbor(metadata) : Buffer.from(JSON.stringify(metadata), 'utf8');
+    const body = response.html !== null ? Buffer.from(response.html, 'utf8') : Buffer.alloc(0);
+    const header = Buffer.alloc(8);
+    header.writeInt32BE(metadataBytes.length, 0);
+    header.writeInt32BE(response.html !== null ? body.length : -1, 4);
+    return Buffer.concat([header, metadataBytes, body]);
+  }
+}
+
+const server = net.createServer((socket: net.Socket) => {
+  const connection = new Connection(socket);
+  socket.setNoDelay(true);
+  socket.on('data', (chunk: Buffer) => connection.receive(chunk));
+  socket.on('error', (error: Error) => console.error('Connection error: ' + error.message));
+});
+
+// The Java render engine only sends render requests after it read the ready line
+server.on('listening', () => console.log('angularj-universal:ready'));
+
+// A server that can't listen exits, so the Java render engine restarts it
+server.on('error', (error: Error) => {
+  console.error('Unable to start the server on port ' + port + ': ' + error.message);
+  process.exit(1);
+});
 
 console.log('Going to start the server on port: ' + port);
-socketEngine.startSocketEngine(AppServerModuleNgFactory, [], 'localhost', port);
+server.listen(port, 'localhost');
@@ -7,3 +7,4 @@ if (environment.production) {
 }
 
 export {AppServerModule} from './app/app.server.module';
+export {renderModuleFactory} from '@angular/platform-server';
@@ -0,0 +1,343 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngineFactory;
+import ch.swaechter.angularjuniversal.tcprenderer.NioRenderEngineFactory;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpRenderEngineFactory;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This class drives a render target at a fixed concurrency and measures the throughput and the latency. Each of the
+ * concurrent clients sends a request, waits for the page and sends the next one (closed loop), so the concurrency is
+ * the number of requests in flight. The requests of the warm-up are not measured.
+ * <p>
+ * Started as program, it either drives a renderer with TCP or NIO render engines against stub render servers in the
+ * same JVM, or a running application over HTTP:
+ * <pre>
+ * java -cp angularj-universal-benchmarks/target/benchmarks.jar ch.swaechter.angularjuniversal.benchmarks.LoadGenerator concurrency=64 engines=2 pipeline=4 latency=20 pagesize=65536
+ * java -cp angularj-universal-benchmarks/target/benchmarks.jar ch.swaechter.angularjuniversal.benchmarks.LoadGenerator url=http://localhost:8080 concurrency=64
+ * </pre>
+ *
+ * @author Simon Wächter
+ */
+public class LoadGenerator {
+
+    /**
+     * Number of attempts to find free consecutive ports for the stub render servers.
+     */
+    private static final int PORT_ATTEMPTS = 10;
+
+    /**
+     * Target that renders a URI and returns a future with the page.
+     */
+    @NotNull
+    private final Function<String, CompletableFuture<String>> target;
+
+    /**
+     * Number of concurrent clients.
+     */
+    private final int concurrency;
+
+    /**
+     * Number of distinct URIs the clients request at random.
+     */
+    private final int uriCount;
+
+    /**
+     * Create a new load generator.
+     *
+     * @param target      Target that renders a URI and returns a future with the page
+     * @param concurrency Number of concurrent clients
+     * @param uriCount    Number of distinct URIs the clients request at random
+     */
+    public LoadGenerator(@NotNull Function<String, CompletableFuture<String>> target, int concurrency, int uriCount) {
+        if (concurrency < 1 || uriCount < 1) {
+            throw new IllegalArgumentException("At least one client and one URI are required");
+        }
+        this.target = target;
+        this.concurrency = concurrency;
+        this.uriCount = uriCount;
+    }
+
+    /**
+     * Run the load test.
+     *
+     * @param warmup   Duration of the warm-up in milliseconds
+     * @param duration Duration of the measurement in milliseconds
+     * @return Report of the measurement
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting for the clients
+     */
+    @NotNull
+    public LoadReport run(long warmup, long duration) throws InterruptedException {
+        long measurementStart = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(warmup);
+        long measurementEnd = measurementStart + TimeUnit.MILLISECONDS.toNanos(duration);
+        @NotNull
+        AtomicLong errorCount = new AtomicLong();
+
+        @NotNull
+        List<Client> clients = new ArrayList<>();
+        @NotNull
+        List<Thread> threads = new ArrayList<>();
+        for (int index = 0; index < concurrency; index++) {
+            @NotNull
+            Client client = new Client(measurementStart, measurementEnd, errorCount);
+            @NotNull
+            Thread thread = new Thread(client, "load-generator-" + index);
+            thread.start();
+            clients.add(client);
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int count = clients.stream().mapToInt(client -> client.count).sum();
+        @NotNull
+        long[] latencies = new long[count];
+        int position = 0;
+        for (Client client : clients) {
+            System.arraycopy(client.latencies, 0, latencies, position, client.count);
+            position += client.count;
+        }
+        return new LoadReport(latencies, errorCount.get(), measurementEnd - measurementStart, concurrency);
+    }
+
+    /**
+     * Create a target that requests the pages of a running application over HTTP. The request blocks the client until
+     * the page is read, a status other than 200 fails the request.
+     *
+     * @param baseUrl Base URL of the application without trailing slash
+     * @return Target that requests the pages over HTTP
+     */
+    @NotNull
+    public static Function<String, CompletableFuture<String>> createHttpTarget(@NotNull String baseUrl) {
+        return uri -> {
+            @NotNull
+            CompletableFuture<String> future = new CompletableFuture<>();
+            try {
+                @NotNull
+                HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + uri).openConnection();
+                int status = connection.getResponseCode();
+                try (InputStream inputStream = status == HttpURLConnection.HTTP_OK ? connection.getInputStream() : connection.getErrorStream()) {
+                    // Read the whole page, so the connection can be reused by the next request
+                    @NotNull
+                    byte[] buffer = new byte[16 * 1024];
+                    long length = 0;
+                    int read;
+                    while (inputStream != null && (read = inputStream.read(buffer)) >= 0) {
+                        length += read;
+                    }
+                    if (status == HttpURLConnection.HTTP_OK) {
+                        future.complete(String.valueOf(length));
+                    } else {
+                        future.completeExceptionally(new IOException("Received the status " + status + " for " + uri));
+                    }
+                }
+            } catch (IOException exception) {
+                future.completeExceptionally(exception);
+            }
+            return future;
+        };
+    }
+
+    /**
+     * Run a load test with the arguments given as key=value pairs and print the report. Without a URL, a renderer is
+     * started against stub render servers in the same JVM.
+     *
+     * @param arguments Arguments as key=value pairs
+     * @throws Exception Exception in case of a problem
+     */
+    public static void main(@NotNull String[] arguments) throws Exception {
+        @NotNull
+        Map<String, String> options = new HashMap<>();
+        for (String argument : arguments) {
+            @NotNull
+            String[] pair = argument.split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("The argument " + argument + " is not a key=value pair");
+            }
+            options.put(pair[0].toLowerCase(), pair[1]);
+        }
+
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        int uriCount = Integer.parseInt(options.getOrDefault("uris", "1000"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "5000"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30000"));
+
+        if (options.containsKey("url")) {
+            @NotNull
+            LoadReport loadReport = new LoadGenerator(createHttpTarget(options.get("url")), concurrency, uriCount).run(warmup, duration);
+            System.out.println(loadReport);
+            return;
+        }
+
+        int engines = Integer.parseInt(options.getOrDefault("engines", "1"));
+        int pageSize = Integer.parseInt(options.getOrDefault("pagesize", "65536"));
+        long latency = Long.parseLong(options.getOrDefault("latency", "20"));
+        double errorRate = Double.parseDouble(options.getOrDefault("errorrate", "0"));
+        @NotNull
+        List<StubRenderServer> servers = startStubRenderServers(engines, pageSize, latency, errorRate);
+        try {
+            @NotNull
+            RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", servers.get(0).getPort(), new File("server.js"), TcpCodecBenchmark.createDocument(Integer.parseInt(options.getOrDefault("templatesize", "2048"))))
+                .externalRenderServer(true)
+                .engines(engines)
+                .connectionPool(1, Integer.parseInt(options.getOrDefault("pool", "4")))
+                .pipelineDepth(Integer.parseInt(options.getOrDefault("pipeline", "1")))
+                .templateRegistration(Boolean.parseBoolean(options.getOrDefault("templateregistration", "false")))
+                .wireFormat(WireFormat.valueOf(options.getOrDefault("wireformat", WireFormat.JSON.name()).toUpperCase()))
+                .renderQueue(Integer.parseInt(options.getOrDefault("queuecapacity", "0")), 0)
+                .build();
+            @NotNull
+            RenderEngineFactory renderEngineFactory = "nio".equalsIgnoreCase(options.get("engine")) ? new NioRenderEngineFactory() : new TcpRenderEngineFactory();
+            @NotNull
+            Renderer renderer = new Renderer(renderConfiguration, renderEngineFactory);
+            renderer.startRenderer();
+            try {
+                @NotNull
+                LoadReport loadReport = new LoadGenerator(renderer::addRenderRequest, concurrency, uriCount).run(warmup, duration);
+                System.out.println(loadReport);
+                System.out.println("shed=" + renderer.getShedRequestCount() + " coalesced=" + renderer.getCoalescedRequestCount() + " rendered=" + servers.stream().mapToLong(StubRenderServer::getRenderCount).sum());
+            } finally {
+                renderer.stopRenderer();
+            }
+        } finally {
+            servers.forEach(StubRenderServer::close);
+        }
+    }
+
+    /**
+     * Start one stub render server per render engine on consecutive ports, because each engine connects to the
+     * Node.js port plus its index.
+     *
+     * @param engines   Number of render engines
+     * @param pageSize  Size of the rendered pages in characters
+     * @param latency   Latency of a render in milliseconds
+     * @param errorRate Share of the renders that fail
+     * @return Started stub render servers, ordered by their port
+     * @throws IOException Exception in case no free consecutive ports were found
+     */
+    @NotNull
+    static List<StubRenderServer> startStubRenderServers(int engines, int pageSize, long latency, double errorRate) throws IOException {
+        @NotNull
+        IOException lastException = new IOException("No free consecutive ports found");
+        for (int attempt = 0; attempt < PORT_ATTEMPTS; attempt++) {
+            int basePort;
+            try (ServerSocket serverSocket = new ServerSocket(0)) {
+                basePort = serverSocket.getLocalPort();
+            }
+
+            @NotNull
+            List<StubRenderServer> servers = new ArrayList<>();
+            try {
+                for (int engine = 0; engine < engines; engine++) {
+                    servers.add(new StubRenderServer(basePort + engine, pageSize, latency, errorRate));
+                }
+                return servers;
+            } catch (IOException exception) {
+                // Another process uses one of the ports, try again with other ports
+                servers.forEach(StubRenderServer::close);
+                lastException = exception;
+            }
+        }
+        throw lastException;
+    }
+
+    /**
+     * The class Client sends a request after the other and records the latencies of the successful requests within the
+     * measurement.
+     */
+    private class Client implements Runnable {
+
+        /**
+         * Start of the measurement in nanoseconds.
+         */
+        private final long measurementStart;
+
+        /**
+         * End of the measurement in nanoseconds.
+         */
+        private final long measurementEnd;
+
+        /**
+         * Number of failed requests of all clients.
+         */
+        @NotNull
+        private final AtomicLong errorCount;
+
+        /**
+         * Recorded latencies in nanoseconds, grown as required.
+         */
+        @NotNull
+        private long[] latencies = new long[1024];
+
+        /**
+         * Number of recorded latencies.
+         */
+        private int count;
+
+        /**
+         * Create a new client.
+         *
+         * @param measurementStart Start of the measurement in nanoseconds
+         * @param measurementEnd   End of the measurement in nanoseconds
+         * @param errorCount       Number of failed requests of all clients
+         */
+        Client(long measurementStart, long measurementEnd, @NotNull AtomicLong errorCount) {
+            this.measurementStart = measurementStart;
+            this.measurementEnd = measurementEnd;
+            this.errorCount = errorCount;
+        }
+
+        /**
+         * Send requests until the measurement ended.
+         */
+        @Override
+        public void run() {
+            long start;
+            while ((start = System.nanoTime()) < measurementEnd) {
+                @NotNull
+                String uri = "/page/" + ThreadLocalRandom.current().nextInt(uriCount);
+                boolean success;
+                try {
+                    target.apply(uri).join();
+                    success = true;
+                } catch (RuntimeException exception) {
+                    success = false;
+                }
+
+                // Only requests that started within the measurement are recorded
+                if (start < measurementStart) {
+                    continue;
+                }
+                if (!success) {
+                    errorCount.incrementAndGet();
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents the result of a load test: The throughput and the latency distribution of the successful
+ * requests, and the number of failed requests.
+ *
+ * @author Simon Wächter
+ */
+public class LoadReport {
+
+    /**
+     * Sorted latencies of the successful requests in nanoseconds.
+     */
+    @NotNull
+    private final long[] latencies;
+
+    /**
+     * Number of failed requests.
+     */
+    private final long errorCount;
+
+    /**
+     * Duration of the measurement in nanoseconds.
+     */
+    private final long duration;
+
+    /**
+     * Concurrency of the load test.
+     */
+    private final int concurrency;
+
+    /**
+     * Create a new report.
+     *
+     * @param latencies   Latencies of the successful requests in nanoseconds, which are sorted in place
+     * @param errorCount  Number of failed requests
+     * @param duration    Duration of the measurement in nanoseconds
+     * @param concurrency Concurrency of the load test
+     */
+    LoadReport(@NotNull long[] latencies, long errorCount, long duration, int concurrency) {
+        Arrays.sort(latencies);
+        this.latencies = latencies;
+        this.errorCount = errorCount;
+        this.duration = duration;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Get the number of successful requests.
+     *
+     * @return Number of successful requests
+     */
+    public long getRequestCount() {
+        return latencies.length;
+    }
+
+    /**
+     * Get the number of failed requests.
+     *
+     * @return Number of failed requests
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Get the number of successful requests per second.
+     *
+     * @return Throughput in requests per second
+     */
+    public double getThroughput() {
+        return duration > 0 ? latencies.length * (double) TimeUnit.SECONDS.toNanos(1) / duration : 0;
+    }
+
+    /**
+     * Get a percentile of the latency of the successful requests by the nearest rank method.
+     *
+     * @param percentile Percentile between 0 and 100
+     * @param timeUnit   Unit of the latency
+     * @return Latency of the percentile or 0 if there were no successful requests
+     */
+    public double getLatency(double percentile, @NotNull TimeUnit timeUnit) {
+        if (latencies.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+        long latency = latencies[Math.min(Math.max(rank, 1), latencies.length) - 1];
+        return latency / (double) timeUnit.toNanos(1);
+    }
+
+    /**
+     * Get the report as human readable text.
+     *
+     * @return Report as text
+     */
+    @Override
+    @NotNull
+    public String toString() {
+        return String.format(Locale.ROOT, "concurrency=%d requests=%d errors=%d throughput=%.1f/s latency p50=%.3fms p90=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms",
+            concurrency, getRequestCount(), errorCount, getThroughput(),
+            getLatency(50, TimeUnit.MILLISECONDS), getLatency(90, TimeUnit.MILLISECONDS), getLatency(99, TimeUnit.MILLISECONDS),
+            getLatency(99.9, TimeUnit.MILLISECONDS), getLatency(100, TimeUnit.MILLISECONDS));
+    }
+}
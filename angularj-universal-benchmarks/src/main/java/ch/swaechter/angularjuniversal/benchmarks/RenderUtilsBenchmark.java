@@ -0,0 +1,80 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.utils.RenderUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the stream helpers that read the template and the server bundle, and the hash that identifies the
+ * template on the wire. The input streams are held in memory, so only the copying is measured and not the disk.
+ *
+ * @author Simon Wächter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderUtilsBenchmark {
+
+    /**
+     * Size of the content in characters, from a small template to a server bundle.
+     */
+    @Param({"2048", "262144", "2097152"})
+    public int contentSize;
+
+    /**
+     * Content as string.
+     */
+    private String content;
+
+    /**
+     * Content as encoded bytes.
+     */
+    private byte[] contentBytes;
+
+    /**
+     * Create the content.
+     */
+    @Setup
+    public void setup() {
+        content = TcpCodecBenchmark.createDocument(contentSize);
+        contentBytes = content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read the content of an input stream as string.
+     *
+     * @return Content as string
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public String getStringFromInputStream() throws IOException {
+        return RenderUtils.getStringFromInputStream(new ByteArrayInputStream(contentBytes), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hash the content.
+     *
+     * @return Hash of the content
+     */
+    @Benchmark
+    public String getHash() {
+        return RenderUtils.getHash(content, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,165 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class measures the overhead of the renderer itself: Coalescing, queueing, dispatching to the least loaded render
+ * engine and completing the future. The render engines answer at once from memory, so no Node.js server is involved
+ * and only the Java side of a render request is measured. Run it with the GC profiler to see the bytes allocated per
+ * render request:
+ * <pre>
+ * java -jar angularj-universal-benchmarks/target/benchmarks.jar RendererBenchmark -prof gc
+ * </pre>
+ *
+ * @author Simon Wächter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RendererBenchmark {
+
+    /**
+     * Number of render engines of the renderer.
+     */
+    @Param({"1", "4"})
+    public int engines;
+
+    /**
+     * Size of the rendered page in characters.
+     */
+    @Param({"16384"})
+    public int documentSize;
+
+    /**
+     * Renderer without page cache, so each request is dispatched.
+     */
+    private Renderer renderer;
+
+    /**
+     * Renderer with page cache, so each request is answered from the cache.
+     */
+    private Renderer cachingRenderer;
+
+    /**
+     * Sequence of the URIs, so the requests are never coalesced.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Create and start the renderers.
+     */
+    @Setup
+    public void setup() {
+        String document = TcpCodecBenchmark.createDocument(documentSize);
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), document).engines(engines).build();
+        renderer = new Renderer(renderConfiguration, () -> new MemoryRenderEngine(document));
+        renderer.startRenderer();
+
+        RenderConfiguration cachingRenderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), document).engines(engines).pageCache(64 * 1024 * 1024, TimeUnit.HOURS.toMillis(1)).build();
+        cachingRenderer = new Renderer(cachingRenderConfiguration, () -> new MemoryRenderEngine(document));
+        cachingRenderer.startRenderer();
+        cachingRenderer.addRenderRequest("/home").join();
+    }
+
+    /**
+     * Stop the renderers.
+     */
+    @TearDown
+    public void tearDown() {
+        renderer.stopRenderer();
+        cachingRenderer.stopRenderer();
+    }
+
+    /**
+     * Render a unique URI and wait for the page, from a single thread.
+     *
+     * @return Rendered page
+     */
+    @Benchmark
+    public String dispatch() {
+        return renderer.addRenderRequest("/page/" + sequence.incrementAndGet()).join();
+    }
+
+    /**
+     * Render unique URIs and wait for the pages, from several threads that contend for the render queue.
+     *
+     * @return Rendered page
+     */
+    @Benchmark
+    @Threads(8)
+    public String dispatchContended() {
+        return renderer.addRenderRequest("/page/" + sequence.incrementAndGet()).join();
+    }
+
+    /**
+     * Request a page that is answered from the page cache.
+     *
+     * @return Cached page
+     */
+    @Benchmark
+    public String dispatchCached() {
+        return cachingRenderer.addRenderRequest("/home").join();
+    }
+
+    /**
+     * Render engine that answers each render request at once with the same page.
+     */
+    static class MemoryRenderEngine implements RenderEngine {
+
+        /**
+         * Page of each render request.
+         */
+        @NotNull
+        private final String document;
+
+        /**
+         * Create a new render engine that answers with the given page.
+         *
+         * @param document Page of each render request
+         */
+        MemoryRenderEngine(@NotNull String document) {
+            this.document = document;
+        }
+
+        @Override
+        public void startWorking(@NotNull BlockingQueue<Optional<RenderRequest>> renderRequests, @NotNull RenderConfiguration renderConfiguration) {
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    renderRequestItem.get().getFuture().complete(document);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
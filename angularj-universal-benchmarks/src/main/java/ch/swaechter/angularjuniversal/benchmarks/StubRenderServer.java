@@ -0,0 +1,443 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpCodec;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpRequest;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class imitates the Node.js render server of the application in the JVM, so the render engines, the renderer and
+ * a running Spring Boot application can be load tested without Node.js or a built Angular application. It speaks the
+ * same protocol: The wire format is detected by the first byte of a connection, requests are pipelined and answered in
+ * the order they finish, templates are registered per connection and cancelled renders are not answered.
+ * <p>
+ * Instead of rendering Angular, each render is answered with a synthetic page of the configured size after the
+ * configured latency, or with an error at the configured error rate.
+ *
+ * @author Simon Wächter
+ */
+public class StubRenderServer implements AutoCloseable {
+
+    /**
+     * Delimiter of the JSON lines.
+     */
+    private static final int DELIMITER = '\n';
+
+    /**
+     * Error message of a failed render.
+     */
+    @NotNull
+    static final String RENDER_ERROR = "Synthetic render error";
+
+    /**
+     * Server socket that accepts the connections of the render engines.
+     */
+    @NotNull
+    private final ServerSocket serverSocket;
+
+    /**
+     * Body of each rendered page after the comment with its URL.
+     */
+    @NotNull
+    private final String page;
+
+    /**
+     * Latency of a render in milliseconds.
+     */
+    private final long latency;
+
+    /**
+     * Share of the renders that fail, between 0 and 1.
+     */
+    private final double errorRate;
+
+    /**
+     * Executor with one thread per connection that reads the requests.
+     */
+    @NotNull
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+
+    /**
+     * Executor that sends the responses as soon their latency passed.
+     */
+    @NotNull
+    private final ScheduledExecutorService responseExecutor = Executors.newScheduledThreadPool(2);
+
+    /**
+     * Open connections.
+     */
+    @NotNull
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of answered renders.
+     */
+    @NotNull
+    private final AtomicLong renderCount = new AtomicLong();
+
+    /**
+     * Number of renders answered with an error.
+     */
+    @NotNull
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Number of renders that were cancelled before they were answered.
+     */
+    @NotNull
+    private final AtomicLong cancelCount = new AtomicLong();
+
+    /**
+     * Start a stub render server on the given port of the loopback interface.
+     *
+     * @param port      Port to listen on or 0 for any free port
+     * @param pageSize  Size of the rendered pages in characters
+     * @param latency   Latency of a render in milliseconds
+     * @param errorRate Share of the renders that fail, between 0 and 1
+     * @throws IOException Exception in case the port can't be bound
+     */
+    public StubRenderServer(int port, int pageSize, long latency, double errorRate) throws IOException {
+        if (pageSize < 0 || latency < 0 || errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("The page size and latency can't be negative and the error rate has to be between 0 and 1");
+        }
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        this.page = TcpCodecBenchmark.createDocument(pageSize);
+        this.latency = latency;
+        this.errorRate = errorRate;
+        connectionExecutor.execute(this::acceptConnections);
+    }
+
+    /**
+     * Get the port the server listens on.
+     *
+     * @return Port of the server
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get the number of answered renders, including the failed ones.
+     *
+     * @return Number of answered renders
+     */
+    public long getRenderCount() {
+        return renderCount.get();
+    }
+
+    /**
+     * Get the number of renders answered with an error.
+     *
+     * @return Number of failed renders
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * Get the number of renders that were cancelled before they were answered.
+     *
+     * @return Number of cancelled renders
+     */
+    public long getCancelCount() {
+        return cancelCount.get();
+    }
+
+    /**
+     * Stop accepting connections and close all open connections.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException exception) {
+            // The server is stopped anyway
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException exception) {
+                // The connection is dropped anyway
+            }
+        }
+        connectionExecutor.shutdownNow();
+        responseExecutor.shutdownNow();
+    }
+
+    /**
+     * Accept connections until the server socket is closed and handle each one on its own thread.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                @NotNull
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                connectionExecutor.execute(new StubConnection(socket));
+            } catch (IOException exception) {
+                // The server socket was closed
+            }
+        }
+    }
+
+    /**
+     * The class StubConnection reads the requests of one connection and answers them.
+     */
+    private class StubConnection implements Runnable {
+
+        /**
+         * Socket of the connection.
+         */
+        @NotNull
+        private final Socket socket;
+
+        /**
+         * Templates registered on this connection, mapped by their hash.
+         */
+        @NotNull
+        private final Map<String, String> templates = new ConcurrentHashMap<>();
+
+        /**
+         * IDs of the renders that were not answered yet.
+         */
+        @NotNull
+        private final Set<Long> rendering = ConcurrentHashMap.newKeySet();
+
+        /**
+         * IDs of the renders that were cancelled before they were answered.
+         */
+        @NotNull
+        private final Set<Long> cancelled = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Stream of the responses, guarded by the connection.
+         */
+        @Nullable
+        private OutputStream outputStream;
+
+        /**
+         * Encoder of the responses in the wire format of the requests, guarded by the connection.
+         */
+        @Nullable
+        private TcpCodec.Encoder encoder;
+
+        /**
+         * Create a new connection.
+         *
+         * @param socket Socket of the connection
+         */
+        StubConnection(@NotNull Socket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Detect the wire format by the first byte, then read and handle the requests until the connection is closed.
+         * A frame starts with the high byte of the metadata length, which is always 0.
+         */
+        @Override
+        public void run() {
+            try (Socket socket = this.socket) {
+                @NotNull
+                DataInputStream inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+                outputStream = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+                inputStream.mark(1);
+                int first = inputStream.read();
+                inputStream.reset();
+                if (first == 0) {
+                    readFrames(inputStream);
+                } else if (first >= 0) {
+                    readLines(inputStream);
+                }
+            } catch (IOException exception) {
+                // The connection was closed by the render engine or the server
+            } finally {
+                sockets.remove(socket);
+            }
+        }
+
+        /**
+         * Read requests as lines of JSON.
+         *
+         * @param inputStream Stream of the requests
+         * @throws IOException Exception in case the connection is closed or a request can't be parsed
+         */
+        private void readLines(@NotNull DataInputStream inputStream) throws IOException {
+            setWireFormat(WireFormat.JSON);
+            @NotNull
+            ObjectMapper objectMapper = createObjectMapper(new ObjectMapper());
+            @NotNull
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            @NotNull
+            byte[] chunk = new byte[64 * 1024];
+            int length;
+            while ((length = inputStream.read(chunk)) >= 0) {
+                int start = 0;
+                for (int index = 0; index < length; index++) {
+                    if (chunk[index] != DELIMITER) {
+                        continue;
+                    }
+                    line.write(chunk, start, index - start);
+                    if (line.size() > 0) {
+                        handleRequest(objectMapper.readValue(line.toByteArray(), TcpRequest.class));
+                    }
+                    line.reset();
+                    start = index + 1;
+                }
+                line.write(chunk, start, length - start);
+            }
+        }
+
+        /**
+         * Read requests as frames with JSON or CBOR metadata.
+         *
+         * @param inputStream Stream of the requests
+         * @throws IOException Exception in case the connection is closed or a request can't be parsed
+         */
+        private void readFrames(@NotNull DataInputStream inputStream) throws IOException {
+            @Nullable
+            ObjectMapper objectMapper = null;
+            while (true) {
+                int metadataLength;
+                try {
+                    metadataLength = inputStream.readInt();
+                } catch (EOFException exception) {
+                    return;
+                }
+                int bodyLength = inputStream.readInt();
+                @NotNull
+                byte[] metadata = new byte[metadataLength];
+                inputStream.readFully(metadata);
+
+                // The metadata format is detected by the first frame, JSON metadata starts with '{'
+                if (objectMapper == null) {
+                    boolean cbor = metadataLength > 0 && metadata[0] != '{';
+                    setWireFormat(cbor ? WireFormat.FRAMED_CBOR : WireFormat.FRAMED_JSON);
+                    objectMapper = createObjectMapper(cbor ? new ObjectMapper(new CBORFactory()) : new ObjectMapper());
+                }
+
+                @NotNull
+                TcpRequest tcpRequest = objectMapper.readValue(metadata, TcpRequest.class);
+                if (bodyLength >= 0) {
+                    @NotNull
+                    byte[] body = new byte[bodyLength];
+                    inputStream.readFully(body);
+                    tcpRequest.setDocument(new String(body, StandardCharsets.UTF_8));
+                } else {
+                    tcpRequest.setDocument(null);
+                }
+                handleRequest(tcpRequest);
+            }
+        }
+
+        /**
+         * Register a template, cancel a render or schedule the response of a render.
+         *
+         * @param tcpRequest Received request
+         */
+        private void handleRequest(@NotNull TcpRequest tcpRequest) {
+            long id = tcpRequest.getId();
+            if (TcpRequest.TYPE_REGISTER.equals(tcpRequest.getType())) {
+                templates.put(tcpRequest.getTemplate(), tcpRequest.getDocument() != null ? tcpRequest.getDocument() : "");
+                return;
+            }
+            if (TcpRequest.TYPE_CANCEL.equals(tcpRequest.getType())) {
+                if (rendering.contains(id)) {
+                    cancelled.add(id);
+                }
+                return;
+            }
+
+            @NotNull
+            TcpResponse tcpResponse = new TcpResponse();
+            tcpResponse.setId(id);
+            if (tcpRequest.getTemplate() != null && !templates.containsKey(tcpRequest.getTemplate())) {
+                tcpResponse.setError("Unknown template: " + tcpRequest.getTemplate());
+                tcpResponse.setMissingTemplate(true);
+            } else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                tcpResponse.setError(RENDER_ERROR);
+            } else {
+                tcpResponse.setHtml("<!-- " + tcpRequest.getUrl() + " -->\n" + page);
+            }
+
+            rendering.add(id);
+            if (latency > 0) {
+                responseExecutor.schedule(() -> sendResponse(tcpResponse), latency, TimeUnit.MILLISECONDS);
+            } else {
+                sendResponse(tcpResponse);
+            }
+        }
+
+        /**
+         * Send a response, unless its render was cancelled.
+         *
+         * @param tcpResponse Response to send
+         */
+        private void sendResponse(@NotNull TcpResponse tcpResponse) {
+            rendering.remove(tcpResponse.getId());
+            if (cancelled.remove(tcpResponse.getId())) {
+                cancelCount.incrementAndGet();
+                return;
+            }
+
+            renderCount.incrementAndGet();
+            if (tcpResponse.getError() != null) {
+                errorCount.incrementAndGet();
+            }
+            try {
+                synchronized (this) {
+                    encoder.encode(tcpResponse, outputStream);
+                    outputStream.flush();
+                }
+            } catch (IOException exception) {
+                // The connection was closed, the render engine fails the request
+            }
+        }
+
+        /**
+         * Set the wire format of the responses.
+         *
+         * @param wireFormat Wire format of the requests
+         */
+        private synchronized void setWireFormat(@NotNull WireFormat wireFormat) {
+            encoder = new TcpCodec(wireFormat).createEncoder();
+        }
+
+        /**
+         * Configure an object mapper to ignore fields that the render server doesn't know.
+         *
+         * @param objectMapper Object mapper to configure
+         * @return Configured object mapper
+         */
+        @NotNull
+        private ObjectMapper createObjectMapper(@NotNull ObjectMapper objectMapper) {
+            return objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        }
+    }
+}
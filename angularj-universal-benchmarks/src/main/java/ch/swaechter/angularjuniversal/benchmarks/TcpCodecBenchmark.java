@@ -0,0 +1,239 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpCodec;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpRequest;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.jetbrains.annotations.NotNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class compares the data binding serialization of the TCP messages with the streaming codec. The data binding
+ * methods replay the former implementation, which serialized each request into a string and printed it, and which read
+ * each response as line before binding it. Run it with the GC profiler to see the bytes allocated per message
+ * (gc.alloc.rate.norm):
+ * <pre>
+ * java -jar angularj-universal-benchmarks/target/benchmarks.jar TcpCodecBenchmark -prof gc
+ * </pre>
+ *
+ * @author Simon Wächter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TcpCodecBenchmark {
+
+    /**
+     * Size of the template and the rendered page in characters.
+     */
+    @Param({"16384", "262144"})
+    public int documentSize;
+
+    /**
+     * Object mapper of the data binding serialization.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writer of the data binding serialization, which discards all data like a socket that never blocks.
+     */
+    private PrintWriter printWriter;
+
+    /**
+     * Stream of the streaming codec, which discards all data like a socket that never blocks.
+     */
+    private OutputStream outputStream;
+
+    /**
+     * Encoder of the JSON lines.
+     */
+    private TcpCodec.Encoder lineEncoder;
+
+    /**
+     * Decoder of the JSON lines.
+     */
+    private TcpCodec.Decoder lineDecoder;
+
+    /**
+     * Encoder of the frames with CBOR metadata.
+     */
+    private TcpCodec.Encoder frameEncoder;
+
+    /**
+     * Decoder of the frames with CBOR metadata.
+     */
+    private TcpCodec.Decoder frameDecoder;
+
+    /**
+     * Request with the template.
+     */
+    private TcpRequest tcpRequest;
+
+    /**
+     * Response with the page as received line of JSON.
+     */
+    private byte[] responseLine;
+
+    /**
+     * Response with the page as received frame.
+     */
+    private byte[] responseFrame;
+
+    /**
+     * Create the messages and the codecs.
+     *
+     * @throws IOException Exception in case of a problem
+     */
+    @Setup
+    public void setup() throws IOException {
+        String document = createDocument(documentSize);
+        tcpRequest = new TcpRequest(1, "/home", document);
+
+        objectMapper = new ObjectMapper();
+        printWriter = new PrintWriter(new OutputStreamWriter(new BufferedOutputStream(new NullOutputStream()), StandardCharsets.UTF_8));
+        outputStream = new BufferedOutputStream(new NullOutputStream(), 64 * 1024);
+
+        TcpCodec lineCodec = new TcpCodec(WireFormat.JSON);
+        lineEncoder = lineCodec.createEncoder();
+        lineDecoder = lineCodec.createDecoder();
+        TcpCodec frameCodec = new TcpCodec(WireFormat.FRAMED_CBOR);
+        frameEncoder = frameCodec.createEncoder();
+        frameDecoder = frameCodec.createDecoder();
+
+        TcpResponse tcpResponse = new TcpResponse();
+        tcpResponse.setId(1L);
+        tcpResponse.setHtml(document);
+        byte[] json = objectMapper.writeValueAsBytes(tcpResponse);
+        responseLine = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').array();
+
+        byte[] metadata = new ObjectMapper(new CBORFactory()).writeValueAsBytes(Collections.singletonMap("id", 1L));
+        byte[] body = document.getBytes(StandardCharsets.UTF_8);
+        responseFrame = ByteBuffer.allocate(8 + metadata.length + body.length).putInt(metadata.length).putInt(body.length).put(metadata).put(body).array();
+    }
+
+    /**
+     * Serialize a request into a string and print it, like the data binding implementation.
+     *
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public void encodeDataBinding() throws IOException {
+        printWriter.println(objectMapper.writeValueAsString(tcpRequest));
+        printWriter.flush();
+    }
+
+    /**
+     * Stream a request as line of JSON.
+     *
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public void encodeStreaming() throws IOException {
+        lineEncoder.encode(tcpRequest, outputStream);
+        outputStream.flush();
+    }
+
+    /**
+     * Stream a request as frame with CBOR metadata.
+     *
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public void encodeStreamingFramed() throws IOException {
+        frameEncoder.encode(tcpRequest, outputStream);
+        outputStream.flush();
+    }
+
+    /**
+     * Read a response as line and bind it, like the data binding implementation.
+     *
+     * @return Decoded response
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public TcpResponse decodeDataBinding() throws IOException {
+        String line = new String(responseLine, 0, responseLine.length - 1, StandardCharsets.UTF_8);
+        return objectMapper.readValue(line, TcpResponse.class);
+    }
+
+    /**
+     * Decode a response from a line of JSON.
+     *
+     * @param blackhole Blackhole that consumes the response
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public void decodeStreaming(Blackhole blackhole) throws IOException {
+        lineDecoder.decode(responseLine, 0, responseLine.length, blackhole::consume);
+    }
+
+    /**
+     * Decode a response from a frame with CBOR metadata.
+     *
+     * @param blackhole Blackhole that consumes the response
+     * @throws IOException Exception in case of a problem
+     */
+    @Benchmark
+    public void decodeStreamingFramed(Blackhole blackhole) throws IOException {
+        frameDecoder.decode(responseFrame, 0, responseFrame.length, blackhole::consume);
+    }
+
+    /**
+     * Create an HTML document of the given size with characters that have to be escaped in JSON.
+     *
+     * @param size Size in characters
+     * @return HTML document
+     */
+    @NotNull
+    static String createDocument(int size) {
+        StringBuilder builder = new StringBuilder(size);
+        builder.append("<!doctype html>\n<html lang=\"de\"><head><title>Universal</title></head><body>\n");
+        while (builder.length() < size - 20) {
+            builder.append("<p class=\"content\">Grüezi Welt</p>\n");
+        }
+        while (builder.length() < size) {
+            builder.append(' ');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Stream that discards all data.
+     */
+    static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int value) {
+        }
+
+        @Override
+        public void write(@NotNull byte[] data, int offset, int length) {
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.springboot.starter.AngularJUniversalViewResolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the route matching of the view resolver, which runs for each page request before the view is
+ * resolved. The last route matches the view name, so all routes are checked.
+ *
+ * @author Simon Wächter
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViewResolverBenchmark {
+
+    /**
+     * Number of routes of the application.
+     */
+    @Param({"5", "50"})
+    public int routeCount;
+
+    /**
+     * View resolver with the routes.
+     */
+    private AngularJUniversalViewResolver viewResolver;
+
+    /**
+     * Create the view resolver with the routes. The renderer is never started, because no view is rendered.
+     */
+    @Setup
+    public void setup() {
+        List<String> routes = new ArrayList<>();
+        for (int i = 0; i < routeCount - 1; i++) {
+            routes.add("/section" + i + "/**");
+        }
+        routes.add("/blog/{year}/{slug}");
+
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").routes(routes).build();
+        viewResolver = new AngularJUniversalViewResolver(new Renderer(renderConfiguration, () -> (renderRequests, configuration) -> {
+        }), renderConfiguration);
+    }
+
+    /**
+     * Match a view name against the last route.
+     *
+     * @return Status if the view name matched
+     */
+    @Benchmark
+    public boolean canHandleMatch() {
+        return viewResolver.canHandle("/blog/2018/angular-universal", Locale.ROOT);
+    }
+
+    /**
+     * Match a view name against all routes without a match.
+     *
+     * @return Status if the view name matched
+     */
+    @Benchmark
+    public boolean canHandleMiss() {
+        return viewResolver.canHandle("/unknown/page", Locale.ROOT);
+    }
+}
@@ -0,0 +1,113 @@
+package ch.swaechter.angularjuniversal.benchmarks;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngineFactory;
+import ch.swaechter.angularjuniversal.tcprenderer.NioRenderEngineFactory;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpRenderEngineFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for testing the renderer end to end against the stub render server and the load generator.
+ *
+ * @author Simon Wächter
+ */
+public class LoadGeneratorTest {
+
+    /**
+     * Test the TCP render engines with JSON lines and template registration against two stub render servers.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testTcpRenderEngineWithStubRenderServer() throws Exception {
+        testRendererWithStubRenderServer(new TcpRenderEngineFactory(), WireFormat.JSON, true);
+    }
+
+    /**
+     * Test the NIO render engines with CBOR frames against two stub render servers.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testNioRenderEngineWithStubRenderServer() throws Exception {
+        testRendererWithStubRenderServer(new NioRenderEngineFactory(), WireFormat.FRAMED_CBOR, false);
+    }
+
+    /**
+     * Test the percentiles of the load report.
+     */
+    @Test
+    public void testLoadReport() {
+        long[] latencies = new long[100];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = TimeUnit.MILLISECONDS.toNanos(100 - i);
+        }
+        LoadReport loadReport = new LoadReport(latencies, 5, TimeUnit.SECONDS.toNanos(2), 4);
+        Assert.assertEquals(100, loadReport.getRequestCount());
+        Assert.assertEquals(5, loadReport.getErrorCount());
+        Assert.assertEquals(50, loadReport.getThroughput(), 0.001);
+        Assert.assertEquals(50, loadReport.getLatency(50, TimeUnit.MILLISECONDS), 0.001);
+        Assert.assertEquals(99, loadReport.getLatency(99, TimeUnit.MILLISECONDS), 0.001);
+        Assert.assertEquals(100, loadReport.getLatency(100, TimeUnit.MILLISECONDS), 0.001);
+        Assert.assertEquals(0, new LoadReport(new long[0], 0, 0, 1).getLatency(99, TimeUnit.MILLISECONDS), 0);
+    }
+
+    /**
+     * Render pages through a renderer with two engines, each connected to its own stub render server, and drive it
+     * with the load generator.
+     *
+     * @param renderEngineFactory  Factory of the render engines
+     * @param wireFormat           Wire format of the render engines
+     * @param templateRegistration Status of the template registration
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    private void testRendererWithStubRenderServer(RenderEngineFactory renderEngineFactory, WireFormat wireFormat, boolean templateRegistration) throws Exception {
+        List<StubRenderServer> servers = LoadGenerator.startStubRenderServers(2, 4096, 2, 0.1);
+        try {
+            RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", servers.get(0).getPort(), new File("server.js"), "<app-root></app-root>")
+                .externalRenderServer(true)
+                .engines(2)
+                .pipelineDepth(4)
+                .wireFormat(wireFormat)
+                .templateRegistration(templateRegistration)
+                .build();
+            Renderer renderer = new Renderer(renderConfiguration, renderEngineFactory);
+            renderer.startRenderer();
+            try {
+                // A single page carries the URL and the synthetic content, or fails with the synthetic error
+                CompletableFuture<String> future = renderer.addRenderRequest("/home");
+                try {
+                    String page = future.get(10, TimeUnit.SECONDS);
+                    Assert.assertTrue(page.startsWith("<!-- /home -->"));
+                    Assert.assertTrue(page.length() > 4096);
+                } catch (Exception exception) {
+                    Assert.assertTrue(future.isCompletedExceptionally());
+                }
+
+                LoadReport loadReport = new LoadGenerator(renderer::addRenderRequest, 8, 100).run(100, 500);
+                Assert.assertTrue(loadReport.getRequestCount() > 0);
+                Assert.assertTrue(loadReport.getThroughput() > 0);
+                Assert.assertTrue(loadReport.getLatency(50, TimeUnit.MILLISECONDS) >= 2);
+                Assert.assertTrue(loadReport.getLatency(99, TimeUnit.MILLISECONDS) >= loadReport.getLatency(50, TimeUnit.MILLISECONDS));
+                Assert.assertTrue(loadReport.getErrorCount() > 0);
+
+                // Both engines rendered against their own stub render server
+                Assert.assertTrue(servers.get(0).getRenderCount() > 0);
+                Assert.assertTrue(servers.get(1).getRenderCount() > 0);
+                Assert.assertTrue(servers.get(0).getErrorCount() + servers.get(1).getErrorCount() > 0);
+            } finally {
+                renderer.stopRenderer();
+            }
+        } finally {
+            servers.forEach(StubRenderServer::close);
+        }
+    }
+}
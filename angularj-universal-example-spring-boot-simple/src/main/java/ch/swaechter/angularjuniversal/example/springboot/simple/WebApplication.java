@@ -21,7 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 @SpringBootApplication
 public class WebApplication {
@@ -44,29 +44,29 @@ public class WebApplication {
         @ResponseBody
         @GetMapping({"/", "/home"})
         @NotNull
-        public String showHome() throws Exception {
-            return renderService.renderPage("/home").get();
+        public CompletableFuture<String> showHome() {
+            return renderService.renderPage("/home");
         }
 
         @ResponseBody
         @GetMapping("/keywords")
         @NotNull
-        public String showLogin() throws Exception {
-            return renderService.renderPage("/keywords").get();
+        public CompletableFuture<String> showLogin() {
+            return renderService.renderPage("/keywords");
         }
 
         @ResponseBody
         @GetMapping("/keywords/{id}")
         @NotNull
-        public String showLogout(@PathVariable("id") int id) throws Exception {
-            return renderService.renderPage("/keywords/" + id).get();
+        public CompletableFuture<String> showLogout(@PathVariable("id") int id) {
+            return renderService.renderPage("/keywords/" + id);
         }
 
         @ResponseBody
         @GetMapping("/about")
         @NotNull
-        public String showPage() throws Exception {
-            return renderService.renderPage("/about").get();
+        public CompletableFuture<String> showPage() {
+            return renderService.renderPage("/about");
         }
     }
 
@@ -116,8 +116,8 @@ public class WebApplication {
         }
 
         @NotNull
-        Future<String> renderPage(@NotNull String uri) {
-            // Render a request and return a resolvable future
+        CompletableFuture<String> renderPage(@NotNull String uri) {
+            // Render a request and return a future, Spring MVC releases the request thread until it is completed
             return renderer.addRenderRequest(uri);
         }
     }
@@ -0,0 +1,219 @@
+package ch.swaechter.angularjuniversal.mavenplugin;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.prerender.Prerenderer;
+import ch.swaechter.angularjuniversal.renderer.utils.RenderUtils;
+import ch.swaechter.angularjuniversal.tcprenderer.TcpRenderEngineFactory;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class pre-renders the pages of an application during the build, so the artifact ships with the rendered HTML
+ * and the production nodes don't have to render these pages at all. The server bundle and the template are taken from
+ * the build output, the pages are rendered by Node.js render engines in parallel and written to the output directory,
+ * for example /about to prerendered/about/index.html.
+ *
+ * @author Simon Wächter
+ */
+@Mojo(name = "prerender", defaultPhase = LifecyclePhase.PROCESS_RESOURCES, threadSafe = true)
+public class PrerenderMojo extends AbstractMojo {
+
+    /**
+     * Status if the pre-rendering is skipped.
+     */
+    @Parameter(property = "angularjuniversal.prerender.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * Path or executable name of the Node.js executable.
+     */
+    @Parameter(property = "angularjuniversal.prerender.nodePath", defaultValue = "node")
+    private String nodePath;
+
+    /**
+     * First port of the Node.js render engines, each engine uses its own port.
+     */
+    @Parameter(property = "angularjuniversal.prerender.nodePort", defaultValue = "9090")
+    private int nodePort;
+
+    /**
+     * Number of render engines that render the pages in parallel or 0 for one per processor.
+     */
+    @Parameter(property = "angularjuniversal.prerender.engines", defaultValue = "0")
+    private int engines;
+
+    /**
+     * Server bundle of the application.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/server.js", required = true)
+    private File serverBundle;
+
+    /**
+     * Template of the application.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/public/index.html", required = true)
+    private File template;
+
+    /**
+     * Charset of the template and the pages.
+     */
+    @Parameter(defaultValue = "UTF-8")
+    private String charset;
+
+    /**
+     * Routes of the application. Only the concrete routes are pre-rendered, routes with wildcards or parameters are
+     * skipped.
+     */
+    @Parameter
+    private List<String> routes = new ArrayList<>();
+
+    /**
+     * Optional sitemap whose pages are pre-rendered in addition to the routes.
+     */
+    @Parameter
+    private File sitemap;
+
+    /**
+     * Directory the pages are written to. It is not the directory of the template, so the page of / doesn't replace
+     * the template.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}/prerendered", required = true)
+    private File outputDirectory;
+
+    /**
+     * Status if the build fails in case a page can't be pre-rendered.
+     */
+    @Parameter(property = "angularjuniversal.prerender.failOnError", defaultValue = "true")
+    private boolean failOnError;
+
+    /**
+     * Pre-render all pages and stop the render engines afterwards.
+     *
+     * @throws MojoExecutionException Exception in case the renderer can't be set up
+     * @throws MojoFailureException   Exception in case a page can't be pre-rendered and the build has to fail
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping the pre-rendering");
+            return;
+        }
+
+        // Get the pages
+        @NotNull
+        List<String> uris;
+        try {
+            uris = getUris(routes, sitemap);
+        } catch (IOException exception) {
+            throw new MojoExecutionException("Unable to read the sitemap " + sitemap, exception);
+        }
+        if (uris.isEmpty()) {
+            getLog().info("No pages to pre-render");
+            return;
+        }
+
+        // Build the render configuration
+        @NotNull
+        RenderConfiguration renderConfiguration = getRenderConfiguration(uris);
+
+        // Pre-render the pages, the start blocks until all render engines are ready
+        @NotNull
+        Renderer renderer = new Renderer(renderConfiguration, new TcpRenderEngineFactory());
+        @NotNull
+        Map<String, File> pageFiles;
+        getLog().info("Pre-rendering " + uris.size() + " pages with " + renderConfiguration.getEngines() + " render engines to " + outputDirectory);
+        try {
+            renderer.startRenderer();
+            pageFiles = new Prerenderer(renderer, renderConfiguration, outputDirectory).prerender(uris).get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException("The pre-rendering was interrupted", exception);
+        } catch (ExecutionException exception) {
+            throw new MojoExecutionException("Unable to pre-render the pages", exception.getCause());
+        } finally {
+            renderer.stopRenderer();
+        }
+
+        // Check that all pages were written
+        @NotNull
+        List<String> missingUris = new ArrayList<>(uris);
+        missingUris.removeAll(pageFiles.keySet());
+        getLog().info("Pre-rendered " + pageFiles.size() + " of " + uris.size() + " pages");
+        if (!missingUris.isEmpty()) {
+            @NotNull
+            String message = "Unable to pre-render the pages " + missingUris;
+            if (failOnError) {
+                throw new MojoFailureException(message);
+            }
+            getLog().warn(message);
+        }
+    }
+
+    /**
+     * Get the render configuration for the server bundle and the template of the build output.
+     *
+     * @param uris URIs of the pages
+     * @return Render configuration
+     * @throws MojoExecutionException Exception in case the server bundle or the template can't be read
+     */
+    @NotNull
+    private RenderConfiguration getRenderConfiguration(@NotNull List<String> uris) throws MojoExecutionException {
+        if (!serverBundle.isFile()) {
+            throw new MojoExecutionException("The server bundle " + serverBundle + " doesn't exist");
+        }
+
+        @NotNull
+        Charset templateCharset = Charset.forName(charset);
+        @NotNull
+        String templateContent;
+        try {
+            templateContent = RenderUtils.getStringFromInputStream(new FileInputStream(template), templateCharset);
+        } catch (IOException exception) {
+            throw new MojoExecutionException("Unable to read the template " + template, exception);
+        }
+
+        int engineCount = engines > 0 ? engines : Runtime.getRuntime().availableProcessors();
+        return new RenderConfiguration.RenderConfigurationBuilder(nodePath, nodePort, serverBundle, templateContent)
+            .charset(templateCharset)
+            .engines(Math.min(engineCount, uris.size()))
+            .routes(routes.isEmpty() ? Collections.singletonList("/") : routes)
+            .build();
+    }
+
+    /**
+     * Get the URIs of the pages, which are the concrete routes and the pages of the sitemap, without duplicates.
+     *
+     * @param routes  Routes of the application
+     * @param sitemap Sitemap or null if there is none
+     * @return URIs of the pages
+     * @throws IOException Exception in case the sitemap can't be read
+     */
+    @NotNull
+    static List<String> getUris(@NotNull List<String> routes, @Nullable File sitemap) throws IOException {
+        @NotNull
+        Set<String> uris = new LinkedHashSet<>(RenderUtils.getConcreteRoutes(routes));
+        if (sitemap != null) {
+            uris.addAll(Prerenderer.getSitemapUris(new FileInputStream(sitemap)));
+        }
+        return new ArrayList<>(uris);
+    }
+}
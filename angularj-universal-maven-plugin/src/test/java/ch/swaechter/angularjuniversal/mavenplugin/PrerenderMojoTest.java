@@ -0,0 +1,38 @@
+package ch.swaechter.angularjuniversal.mavenplugin;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * This class is responsible for testing the selection of the pages that are pre-rendered during the build.
+ *
+ * @author Simon Wächter
+ */
+public class PrerenderMojoTest {
+
+    /**
+     * Test that the concrete routes and the sitemap pages are pre-rendered once each.
+     *
+     * @throws IOException Exception in case of an unexpected problem
+     */
+    @Test
+    public void testUris() throws IOException {
+        Assert.assertEquals(Arrays.asList("/", "/about"), PrerenderMojo.getUris(Arrays.asList("/", "/about", "/blog/*", "/user/{id}"), null));
+
+        File sitemap = Files.createTempFile("sitemap", ".xml").toFile();
+        sitemap.deleteOnExit();
+        String content = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n"
+            + "  <url><loc>https://example.com/about</loc></url>\n"
+            + "  <url><loc>https://example.com/blog/first</loc></url>\n"
+            + "</urlset>";
+        Files.write(sitemap.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(Arrays.asList("/", "/about", "/blog/first"), PrerenderMojo.getUris(Arrays.asList("/", "/about"), sitemap));
+    }
+}
@@ -0,0 +1,125 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+/**
+ * The class CircuitBreaker keeps track of the health of a render server. After the given number of consecutive
+ * failures, or as soon it is tripped because the render server exited, the circuit breaker opens and the render engine
+ * fails its requests fast instead of waiting for a render server that doesn't respond. After the open duration, one
+ * trial request is let through per open duration: A success closes the circuit breaker again, a failure keeps it open.
+ * Failures before the render server answered for the first time don't count, as it is still starting.
+ *
+ * @author Simon Wächter
+ */
+public class CircuitBreaker {
+
+    /**
+     * Number of consecutive failures that open the circuit breaker or 0 if it never opens.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Time in milliseconds the circuit breaker stays open before a trial request.
+     */
+    private final long openDuration;
+
+    /**
+     * Number of consecutive failures, guarded by the circuit breaker.
+     */
+    private int failures;
+
+    /**
+     * Status if the render server answered at least once, guarded by the circuit breaker.
+     */
+    private boolean answered;
+
+    /**
+     * Status if the circuit breaker is open, guarded by the circuit breaker.
+     */
+    private boolean open;
+
+    /**
+     * Time in milliseconds since the epoch when the circuit breaker was opened or the last trial request was let
+     * through, guarded by the circuit breaker.
+     */
+    private long openedTime;
+
+    /**
+     * Create a new closed circuit breaker.
+     *
+     * @param failureThreshold Number of consecutive failures that open the circuit breaker or 0 if it never opens
+     * @param openDuration     Time in milliseconds the circuit breaker stays open before a trial request
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Check if a request is allowed to reach the render server. An open circuit breaker lets one trial request through
+     * per open duration.
+     *
+     * @return Status of the check
+     */
+    public synchronized boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        long currentTime = System.currentTimeMillis();
+        if (currentTime - openedTime >= openDuration) {
+            openedTime = currentTime;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if the circuit breaker would let a request through, without counting it as trial request.
+     *
+     * @return Status of the check
+     */
+    public synchronized boolean isAvailable() {
+        return !open || System.currentTimeMillis() - openedTime >= openDuration;
+    }
+
+    /**
+     * Record a request that reached the render server or a restarted render server that signalled its readiness, which
+     * closes the circuit breaker.
+     */
+    public synchronized void recordSuccess() {
+        answered = true;
+        failures = 0;
+        open = false;
+    }
+
+    /**
+     * Record a request that failed to reach the render server. The circuit breaker opens as soon the failure threshold
+     * is reached and stays open if a trial request failed.
+     */
+    public synchronized void recordFailure() {
+        if (!answered && !open) {
+            return;
+        }
+        failures++;
+        if (open || failures >= failureThreshold) {
+            trip();
+        }
+    }
+
+    /**
+     * Open the circuit breaker at once, for example because the render server exited.
+     */
+    public synchronized void trip() {
+        if (failureThreshold > 0) {
+            open = true;
+            openedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Check if the circuit breaker is open.
+     *
+     * @return Status of the check
+     */
+    public synchronized boolean isOpen() {
+        return open;
+    }
+}
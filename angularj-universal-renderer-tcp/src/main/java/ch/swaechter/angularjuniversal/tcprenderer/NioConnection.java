@@ -0,0 +1,471 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The class NioConnection represents a persistent connection to the Node.js render server that is driven by the I/O
+ * threads of an asynchronous channel group. No thread waits for a response: Requests are serialized into a reusable
+ * buffer and written through a reusable direct buffer, responses are read through another reusable direct buffer and
+ * matched to their requests by the request ID.
+ *
+ * @author Simon Wächter
+ */
+public class NioConnection implements RenderConnection {
+
+    /**
+     * Size of the direct read and write buffers.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Channel of the connection.
+     */
+    @NotNull
+    private final AsynchronousSocketChannel channel;
+
+    /**
+     * Encoder used to encode the requests, guarded by itself.
+     */
+    @NotNull
+    private final TcpCodec.Encoder encoder;
+
+    /**
+     * Reusable buffer the requests are encoded into and the write buffer is filled from, guarded by the encoder. It
+     * only grows if more bytes are waiting to be written than it is able to hold.
+     */
+    @NotNull
+    private final EncodeBuffer encodeBuffer = new EncodeBuffer();
+
+    /**
+     * Decoder used to split the received bytes into responses. It is only used by one I/O thread at a time.
+     */
+    @NotNull
+    private final TcpCodec.Decoder decoder;
+
+    /**
+     * Reusable direct buffer for reading the responses.
+     */
+    @NotNull
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Reusable heap copy of the read buffer passed to the decoder.
+     */
+    @NotNull
+    private final byte[] readChunk = new byte[BUFFER_SIZE];
+
+    /**
+     * Reusable direct buffer for writing the requests.
+     */
+    @NotNull
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Status if a write is in progress. Only one write can be pending on a channel at the same time.
+     */
+    @NotNull
+    private final AtomicBoolean writing = new AtomicBoolean();
+
+    /**
+     * Futures of all requests that were sent but not answered yet, mapped by their request ID.
+     */
+    @NotNull
+    private final Map<Long, CompletableFuture<TcpResponse>> pendingResponses = new ConcurrentHashMap<>();
+
+    /**
+     * Hashes of all templates that were registered on this connection.
+     */
+    @NotNull
+    private final Set<String> registeredTemplates = new HashSet<>();
+
+    /**
+     * Number of requests in flight, managed by the render engine.
+     */
+    @NotNull
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+
+    /**
+     * Status if the connection is broken and has to be closed.
+     */
+    private volatile boolean broken;
+
+    /**
+     * Open a new connection to the Node.js render server and start reading its responses.
+     *
+     * @param host         Host of the render server
+     * @param port         Port of the render server
+     * @param channelGroup Channel group with the I/O threads that drive the connection
+     * @param codec        Codec used to encode the requests and decode the responses
+     * @throws IOException Exception in case the connection can't be opened
+     */
+    public NioConnection(@NotNull String host, int port, @NotNull AsynchronousChannelGroup channelGroup, @NotNull TcpCodec codec) throws IOException {
+        this.channel = AsynchronousSocketChannel.open(channelGroup);
+        this.encoder = codec.createEncoder();
+        this.decoder = codec.createDecoder();
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.connect(new InetSocketAddress(host, port)).get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            channel.close();
+            throw new IOException(exception);
+        } catch (ExecutionException | IOException exception) {
+            channel.close();
+            throw exception instanceof IOException ? (IOException) exception : new IOException(exception.getCause());
+        }
+
+        readResponses();
+    }
+
+    /**
+     * Send a request without waiting for its response. The request is queued and written by an I/O thread.
+     *
+     * @param tcpRequest TCP request that will be sent
+     * @return Future that will contain the TCP response of the render server
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<TcpResponse> send(@NotNull TcpRequest tcpRequest) {
+        @NotNull
+        CompletableFuture<TcpResponse> future = new CompletableFuture<>();
+        pendingResponses.put(tcpRequest.getId(), future);
+        try {
+            write(tcpRequest);
+        } catch (IOException exception) {
+            fail(exception);
+        }
+
+        // The connection could have been broken while the future was registered
+        if (broken && pendingResponses.remove(tcpRequest.getId()) != null) {
+            future.completeExceptionally(new IOException("The connection to the render server is broken"));
+        }
+        return future;
+    }
+
+    /**
+     * Register a template under its hash, unless it was already registered on this connection. The registration is
+     * queued before any request that is sent afterwards. The render server doesn't answer a registration.
+     *
+     * @param template Hash of the template
+     * @param document Content of the template
+     * @throws IOException Exception in case the registration can't be serialized
+     */
+    @Override
+    public void ensureTemplate(@NotNull String template, @NotNull String document) throws IOException {
+        synchronized (registeredTemplates) {
+            if (!registeredTemplates.contains(template)) {
+                write(TcpRequest.registerTemplate(template, document));
+                registeredTemplates.add(template);
+            }
+        }
+    }
+
+    /**
+     * Forget a registered template, so it will be registered again on the next usage.
+     *
+     * @param template Hash of the template
+     */
+    @Override
+    public void forgetTemplate(@NotNull String template) {
+        synchronized (registeredTemplates) {
+            registeredTemplates.remove(template);
+        }
+    }
+
+    /**
+     * Abandon a request that was sent but not answered yet. Its future is cancelled at once and the cancellation is
+     * queued for the render server. This has no impact if the response already arrived.
+     *
+     * @param id ID of the request
+     */
+    @Override
+    public void cancel(long id) {
+        @Nullable
+        CompletableFuture<TcpResponse> future = pendingResponses.remove(id);
+        if (future == null) {
+            return;
+        }
+
+        try {
+            write(TcpRequest.cancelRender(id));
+        } catch (IOException exception) {
+            fail(exception);
+        }
+        future.cancel(false);
+    }
+
+    /**
+     * Check if the connection can still be used.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isUsable() {
+        return !broken && channel.isOpen();
+    }
+
+    /**
+     * Get the number of requests in flight. This value is managed by the render engine.
+     *
+     * @return Number of requests in flight
+     */
+    @NotNull
+    AtomicInteger getRequestsInFlight() {
+        return requestsInFlight;
+    }
+
+    /**
+     * Close the connection and fail all pending requests.
+     */
+    @Override
+    public void close() {
+        fail(new IOException("The connection to the render server was closed"));
+    }
+
+    /**
+     * Serialize a request behind the ones that were not written yet and start writing if no write is in progress.
+     *
+     * @param tcpRequest TCP request that will be written
+     * @throws IOException Exception in case the request can't be serialized
+     */
+    private void write(@NotNull TcpRequest tcpRequest) throws IOException {
+        synchronized (encoder) {
+            encodeBuffer.encode(tcpRequest);
+        }
+        flush();
+    }
+
+    /**
+     * Move as many serialized requests as possible into the write buffer and write it, as long no other write is in
+     * progress. A request that doesn't fit is split, the rest follows with the next write.
+     */
+    private void flush() {
+        if (broken || !writing.compareAndSet(false, true)) {
+            return;
+        }
+
+        writeBuffer.clear();
+        synchronized (encoder) {
+            encodeBuffer.drainTo(writeBuffer);
+        }
+        writeBuffer.flip();
+
+        if (!writeBuffer.hasRemaining()) {
+            // A request could have been serialized after the buffer was drained but before the flag was reset, then its
+            // own flush found the flag still set
+            writing.set(false);
+            boolean pending;
+            synchronized (encoder) {
+                pending = encodeBuffer.hasPending();
+            }
+            if (pending) {
+                flush();
+            }
+            return;
+        }
+
+        channel.write(writeBuffer, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer result, Void attachment) {
+                if (writeBuffer.hasRemaining()) {
+                    channel.write(writeBuffer, null, this);
+                    return;
+                }
+                writing.set(false);
+                flush();
+            }
+
+            @Override
+            public void failed(Throwable throwable, Void attachment) {
+                fail(throwable instanceof IOException ? (IOException) throwable : new IOException(throwable));
+            }
+        });
+    }
+
+    /**
+     * Start reading into the read buffer. Each completed read parses all complete responses and starts the next read.
+     */
+    private void readResponses() {
+        readBuffer.clear();
+        channel.read(readBuffer, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer result, Void attachment) {
+                if (result < 0) {
+                    fail(new EOFException("The render server closed the connection"));
+                    return;
+                }
+
+                try {
+                    readBuffer.flip();
+                    int length = readBuffer.remaining();
+                    readBuffer.get(readChunk, 0, length);
+                    decoder.decode(readChunk, 0, length, NioConnection.this::handleResponse);
+                } catch (IOException exception) {
+                    fail(exception);
+                    return;
+                }
+                readResponses();
+            }
+
+            @Override
+            public void failed(Throwable throwable, Void attachment) {
+                fail(throwable instanceof IOException ? (IOException) throwable : new IOException(throwable));
+            }
+        });
+    }
+
+    /**
+     * Complete the future of the request of a response.
+     *
+     * @param tcpResponse TCP response of the render server
+     */
+    private void handleResponse(@NotNull TcpResponse tcpResponse) {
+        @Nullable
+        CompletableFuture<TcpResponse> future = pendingResponses.remove(tcpResponse.getId());
+        if (future != null) {
+            future.complete(tcpResponse);
+        }
+    }
+
+    /**
+     * Mark the connection as broken, close the channel and fail all pending requests.
+     *
+     * @param exception Exception that broke the connection
+     */
+    private void fail(@NotNull IOException exception) {
+        broken = true;
+        try {
+            channel.close();
+        } catch (IOException closeException) {
+            // The connection is dropped anyway
+        }
+
+        for (Long id : pendingResponses.keySet()) {
+            @Nullable
+            CompletableFuture<TcpResponse> future = pendingResponses.remove(id);
+            if (future != null) {
+                future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * The class EncodeBuffer collects the serialized requests that were not written yet in a single reusable heap
+     * buffer, so no buffer is allocated per request. It is not thread safe.
+     */
+    private class EncodeBuffer extends OutputStream {
+
+        /**
+         * Buffer with the serialized requests in write mode.
+         */
+        @NotNull
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        /**
+         * Serialize a request behind the pending ones. If the request can't be serialized, its partial bytes are
+         * discarded, so the following requests are not corrupted.
+         *
+         * @param tcpRequest TCP request that will be serialized
+         * @throws IOException Exception in case the request can't be serialized
+         */
+        void encode(@NotNull TcpRequest tcpRequest) throws IOException {
+            int position = buffer.position();
+            try {
+                encoder.encode(tcpRequest, this);
+            } catch (IOException | RuntimeException exception) {
+                buffer.position(position);
+                throw exception;
+            }
+        }
+
+        /**
+         * Move as many pending bytes as fit into the target buffer.
+         *
+         * @param target Buffer that is filled
+         */
+        void drainTo(@NotNull ByteBuffer target) {
+            buffer.flip();
+            if (buffer.remaining() <= target.remaining()) {
+                target.put(buffer);
+            } else {
+                int limit = buffer.limit();
+                buffer.limit(buffer.position() + target.remaining());
+                target.put(buffer);
+                buffer.limit(limit);
+            }
+            buffer.compact();
+        }
+
+        /**
+         * Check if bytes are waiting to be written.
+         *
+         * @return Status of the check
+         */
+        boolean hasPending() {
+            return buffer.position() > 0;
+        }
+
+        /**
+         * Write a single byte.
+         *
+         * @param value Byte to write
+         */
+        @Override
+        public void write(int value) {
+            ensureCapacity(1);
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Write a part of a byte array.
+         *
+         * @param bytes  Byte array
+         * @param offset Offset of the part
+         * @param length Length of the part
+         */
+        @Override
+        public void write(@NotNull byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            buffer.put(bytes, offset, length);
+        }
+
+        /**
+         * Grow the buffer by doubling its capacity until the given number of bytes fits.
+         *
+         * @param length Number of bytes that will be written
+         */
+        private void ensureCapacity(int length) {
+            if (buffer.remaining() >= length) {
+                return;
+            }
+            int capacity = buffer.capacity();
+            while (capacity - buffer.position() < length) {
+                capacity *= 2;
+            }
+            @NotNull
+            ByteBuffer grownBuffer = ByteBuffer.allocate(capacity);
+            buffer.flip();
+            grownBuffer.put(buffer);
+            buffer = grownBuffer;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderUnavailableException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPhase;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The class NioRenderEngine provides a NodeJS and TCP based implementation of the render engine that uses asynchronous
+ * channels. The I/O threads of a shared channel group drive all connections, so hundreds of renders can be in flight
+ * without a thread per connection or render.
+ *
+ * @author Simon Wächter
+ */
+public class NioRenderEngine implements RenderEngine {
+
+    /**
+     * Channel group with the I/O threads that drive all connections.
+     */
+    @NotNull
+    private final AsynchronousChannelGroup channelGroup;
+
+    /**
+     * Circuit breaker of the render server or null if the engine didn't start working yet.
+     */
+    @Nullable
+    private volatile CircuitBreaker circuitBreaker;
+
+    /**
+     * Node.js process of the render server or null if the engine didn't start working yet.
+     */
+    @Nullable
+    private volatile NodeProcess nodeProcess;
+
+    /**
+     * Create a new asynchronous TCP based render engine that will access a NodeJS server for rendering.
+     *
+     * @param channelGroup Channel group with the I/O threads that drive all connections
+     */
+    public NioRenderEngine(@NotNull AsynchronousChannelGroup channelGroup) {
+        this.channelGroup = channelGroup;
+    }
+
+    /**
+     * Start working and handle all incoming requests and resolve them. The engine will work as long it receives a valid
+     * and non optional request and will shutdown itself as soon it received an optional request from the queue. Up to
+     * the maximum connection pool size times the pipeline depth renders are in flight at the same time, connections are
+     * opened on demand and kept until the engine shuts down. Abandoned requests are dropped or cancelled on the render
+     * server. Requests that don't reach the render server are retried on another render engine and the circuit breaker
+     * makes the engine fail fast until a crashed render server is restarted and ready again. Until the render server
+     * signalled that it is listening, the requests fail fast as well, so they don't run into refused connections.
+     *
+     * @param renderRequests      Blocking queue with requests to read from
+     * @param renderConfiguration Render configuration with the all required information
+     */
+    @Override
+    public void startWorking(@NotNull BlockingQueue<Optional<RenderRequest>> renderRequests, @NotNull RenderConfiguration renderConfiguration) {
+        // Start the Node.js render service, a crash opens the circuit breaker until the restarted render server is ready
+        @NotNull
+        CircuitBreaker engineCircuitBreaker = TcpRenderEngine.createCircuitBreaker(renderConfiguration);
+        circuitBreaker = engineCircuitBreaker;
+        try (NodeProcess engineNodeProcess = new NodeProcess(renderConfiguration, engineCircuitBreaker::trip, engineCircuitBreaker::recordSuccess)) {
+            nodeProcess = engineNodeProcess;
+
+            // Limit the number of renders in flight over all connections
+            int maximumRequestsInFlight = renderConfiguration.getConnectionPoolMaxSize() * renderConfiguration.getPipelineDepth();
+            @NotNull
+            Semaphore slots = new Semaphore(maximumRequestsInFlight);
+            @NotNull
+            List<NioConnection> connections = new ArrayList<>();
+            @NotNull
+            TcpCodec codec = new TcpCodec(renderConfiguration.getWireFormat());
+
+            // Hash the template once, so it is only registered once per connection instead of being sent with every request
+            @Nullable
+            String templateHash = TcpRenderEngine.getTemplateHash(renderConfiguration);
+
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+
+                    if (renderRequestItem.isPresent()) {
+                        // Get the render request item
+                        @NotNull
+                        RenderRequest renderRequest = renderRequestItem.get();
+
+                        // Drop requests that were cancelled or passed their deadline while they were queued
+                        if (renderRequest.isAbandoned()) {
+                            continue;
+                        }
+
+                        // Fail fast while the render server is starting, restarting or unhealthy
+                        if (!engineNodeProcess.isReady() || !engineCircuitBreaker.allowRequest()) {
+                            TcpRenderEngine.failRenderRequest(renderRequest, new RenderUnavailableException("The render server on port " + renderConfiguration.getNodePort() + " is unavailable"));
+                            continue;
+                        }
+
+                        // Wait for a free slot, this blocks as long the maximum number of renders is in flight
+                        slots.acquire();
+                        if (renderRequest.isAbandoned()) {
+                            slots.release();
+                            continue;
+                        }
+                        @NotNull
+                        NioConnection connection;
+                        try {
+                            connection = selectConnection(connections, codec, renderConfiguration);
+                        } catch (IOException exception) {
+                            slots.release();
+                            engineCircuitBreaker.recordFailure();
+                            TcpRenderEngine.failRenderRequest(renderRequest, exception);
+                            continue;
+                        }
+
+                        renderRequest.getTimings().mark(RenderPhase.CONNECTED);
+
+                        // Send the request without waiting, the response completes the render request outside of the I/O threads
+                        connection.getRequestsInFlight().incrementAndGet();
+                        @NotNull
+                        CompletableFuture<TcpResponse> responseFuture = TcpRenderEngine.sendRenderRequest(connection, renderRequest, renderConfiguration, templateHash);
+                        responseFuture.whenCompleteAsync((tcpResponse, throwable) -> {
+                            connection.getRequestsInFlight().decrementAndGet();
+                            slots.release();
+                            TcpRenderEngine.completeRenderRequest(renderRequest, tcpResponse, throwable, engineCircuitBreaker);
+                        });
+                        TcpRenderEngine.cancelWhenAbandoned(connection, renderRequest, responseFuture);
+                    } else {
+                        break;
+                    }
+                }
+            } finally {
+                // Finish the renders in flight, the connections are closed even if the wait is interrupted
+                try {
+                    slots.tryAcquire(maximumRequestsInFlight, renderConfiguration.getShutdownTimeout(), TimeUnit.MILLISECONDS);
+                } finally {
+                    connections.forEach(NioConnection::close);
+                }
+            }
+        } catch (Exception exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Check if the render server is able to render at the moment, which is the case as long it is ready and its circuit
+     * breaker lets requests through.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isAvailable() {
+        @Nullable
+        CircuitBreaker currentCircuitBreaker = circuitBreaker;
+        return isReady() && (currentCircuitBreaker == null || currentCircuitBreaker.isAvailable());
+    }
+
+    /**
+     * Check if the render server signalled that it is listening. A render server that is restarted after a crash is
+     * not ready until it signalled it again.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isReady() {
+        @Nullable
+        NodeProcess currentNodeProcess = nodeProcess;
+        return currentNodeProcess != null && currentNodeProcess.isReady();
+    }
+
+    /**
+     * Select the usable connection with the fewest requests in flight. A new connection is opened if all connections are
+     * busy and the maximum pool size allows it. Broken connections are dropped.
+     *
+     * @param connections         All open connections of the engine
+     * @param codec               Codec used by all connections
+     * @param renderConfiguration Render configuration with the pool size and pipeline depth
+     * @return Connection that is able to carry another request
+     * @throws IOException Exception in case a new connection can't be opened
+     */
+    @NotNull
+    private NioConnection selectConnection(@NotNull List<NioConnection> connections, @NotNull TcpCodec codec, @NotNull RenderConfiguration renderConfiguration) throws IOException {
+        connections.removeIf(connection -> !connection.isUsable());
+
+        @Nullable
+        NioConnection leastLoadedConnection = null;
+        for (NioConnection connection : connections) {
+            int requestsInFlight = connection.getRequestsInFlight().get();
+            if (requestsInFlight < renderConfiguration.getPipelineDepth() && (leastLoadedConnection == null || requestsInFlight < leastLoadedConnection.getRequestsInFlight().get())) {
+                leastLoadedConnection = connection;
+            }
+        }
+
+        // Prefer a new connection over queueing behind requests in flight, as long the maximum allows it
+        if (leastLoadedConnection != null && (leastLoadedConnection.getRequestsInFlight().get() == 0 || connections.size() >= renderConfiguration.getConnectionPoolMaxSize())) {
+            return leastLoadedConnection;
+        }
+
+        @NotNull
+        NioConnection connection = new NioConnection(TcpRenderEngine.NODE_HOST, renderConfiguration.getNodePort(), channelGroup, codec);
+        connections.add(connection);
+        return connection;
+    }
+}
@@ -0,0 +1,72 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngineFactory;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provide an asynchronous TCP render engine factory which is able to create new asynchronous TCP render engines. All
+ * engines of the factory share the same I/O threads.
+ *
+ * @author Simon Wächter
+ */
+public class NioRenderEngineFactory implements RenderEngineFactory {
+
+    /**
+     * Default number of I/O threads.
+     */
+    public static final int DEFAULT_IO_THREADS = 2;
+
+    /**
+     * Channel group with the I/O threads shared by all engines.
+     */
+    @NotNull
+    private final AsynchronousChannelGroup channelGroup;
+
+    /**
+     * Create a new factory with the default number of I/O threads.
+     */
+    public NioRenderEngineFactory() {
+        this(DEFAULT_IO_THREADS);
+    }
+
+    /**
+     * Create a new factory with the given number of I/O threads.
+     *
+     * @param ioThreads Number of I/O threads shared by all engines
+     */
+    public NioRenderEngineFactory(int ioThreads) {
+        if (ioThreads < 1) {
+            throw new IllegalArgumentException("At least one I/O thread is required");
+        }
+
+        @NotNull
+        AtomicInteger threadIndex = new AtomicInteger();
+        try {
+            this.channelGroup = AsynchronousChannelGroup.withFixedThreadPool(ioThreads, runnable -> {
+                @NotNull
+                Thread thread = new Thread(runnable, "angularj-universal-io-" + threadIndex.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Create a new asynchronous TCP render engine.
+     *
+     * @return New asynchronous TCP render engine
+     */
+    @Override
+    @NotNull
+    public RenderEngine createRenderEngine() {
+        return new NioRenderEngine(channelGroup);
+    }
+}
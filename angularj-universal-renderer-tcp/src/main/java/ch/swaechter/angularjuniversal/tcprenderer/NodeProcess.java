@@ -0,0 +1,428 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class NodeProcess represents the Node.js render server process of a render engine. The process is supervised by
+ * a monitor thread: If it exits before it was closed, for example because it crashed, the exit listener is notified
+ * and the process is restarted with an exponential backoff, so a crash loop doesn't keep the machine busy. A started
+ * process is ready as soon it printed the ready line, which the render server prints once it is listening. Server
+ * bundles that don't print the ready line are probed by connecting to their port with an exponential backoff instead.
+ * The standard output of the process is passed to the Node.js output consumer of the render configuration, its error
+ * output is inherited. Restarts and failed restarts are not printed but counted, together with the last exit code.
+ *
+ * @author Simon Wächter
+ */
+public class NodeProcess implements AutoCloseable {
+
+    /**
+     * Name of the environment variable passed to Node.js to indicate the port.
+     */
+    @NotNull
+    private static final String NODE_PORT_ENVIRONMENT_VARIABLE_NAME = "NODEPORT";
+
+    /**
+     * Line the render server prints to its standard output as soon it is listening.
+     */
+    @NotNull
+    static final String READY_LINE = "angularj-universal:ready";
+
+    /**
+     * Time in milliseconds the Node.js process has to exit after it was asked to, before it is killed.
+     */
+    private static final long PROCESS_EXIT_TIMEOUT = 5000;
+
+    /**
+     * Time in milliseconds before the first restart of a crashed process, doubled for each consecutive crash.
+     */
+    private static final long RESTART_INITIAL_DELAY = 250;
+
+    /**
+     * Maximum time in milliseconds before the restart of a crashed process.
+     */
+    private static final long RESTART_MAXIMUM_DELAY = 30000;
+
+    /**
+     * Time in milliseconds a process has to run to not count as consecutive crash, which resets the backoff.
+     */
+    private static final long RESTART_RESET_UPTIME = 60000;
+
+    /**
+     * Time in milliseconds before the port of a started process is probed again, doubled for each probe.
+     */
+    private static final long PROBE_INITIAL_DELAY = 25;
+
+    /**
+     * Maximum time in milliseconds between two probes of the port of a started process.
+     */
+    private static final long PROBE_MAXIMUM_DELAY = 1000;
+
+    /**
+     * Time in milliseconds a probe waits for its connection to the render server.
+     */
+    private static final int PROBE_CONNECT_TIMEOUT = 1000;
+
+    /**
+     * Render configuration with the server bundle and the port.
+     */
+    @NotNull
+    private final RenderConfiguration renderConfiguration;
+
+    /**
+     * Listener that is notified as soon the process exited before it was closed.
+     */
+    @NotNull
+    private final Runnable exitListener;
+
+    /**
+     * Listener that is notified as soon a started or restarted process is ready.
+     */
+    @NotNull
+    private final Runnable readyListener;
+
+    /**
+     * Number of restarts of the process.
+     */
+    @NotNull
+    private final AtomicLong restarts = new AtomicLong();
+
+    /**
+     * Number of restarts of the process that failed because the process couldn't be started.
+     */
+    @NotNull
+    private final AtomicLong failedRestarts = new AtomicLong();
+
+    /**
+     * Exit code of the last process that exited before it was closed or null if no process exited yet.
+     */
+    @Nullable
+    private volatile Integer lastExitCode;
+
+    /**
+     * Running Node.js process or null if the render server is started outside of the renderer, guarded by the
+     * process.
+     */
+    @Nullable
+    private Process process;
+
+    /**
+     * Thread that restarts the process as soon it exits or null if the render server is started outside of the
+     * renderer.
+     */
+    @Nullable
+    private final Thread monitorThread;
+
+    /**
+     * Status if the process was closed, guarded by the process.
+     */
+    private boolean closed;
+
+    /**
+     * Status if the current process is ready, guarded by the process.
+     */
+    private boolean ready;
+
+    /**
+     * Start the Node.js render server with the server bundle and port of the render configuration. Nothing is started
+     * if the render configuration uses an external render server.
+     *
+     * @param renderConfiguration Render configuration with the all required information
+     * @throws IOException Exception in case the process can't be started
+     */
+    public NodeProcess(@NotNull RenderConfiguration renderConfiguration) throws IOException {
+        this(renderConfiguration, () -> {
+        }, () -> {
+        });
+    }
+
+    /**
+     * Start the Node.js render server with the server bundle and port of the render configuration and restart it as
+     * soon it exits. Nothing is started if the render configuration uses an external render server, which is
+     * considered ready at once.
+     *
+     * @param renderConfiguration Render configuration with the all required information
+     * @param exitListener        Listener that is notified as soon the process exited before it was closed
+     * @param readyListener       Listener that is notified as soon a started or restarted process is ready
+     * @throws IOException Exception in case the process can't be started
+     */
+    public NodeProcess(@NotNull RenderConfiguration renderConfiguration, @NotNull Runnable exitListener, @NotNull Runnable readyListener) throws IOException {
+        this.renderConfiguration = renderConfiguration;
+        this.exitListener = exitListener;
+        this.readyListener = readyListener;
+        if (renderConfiguration.getExternalRenderServer()) {
+            this.process = null;
+            this.monitorThread = null;
+            this.ready = true;
+            return;
+        }
+
+        // Assign the process while locked, so a ready line that is read at once isn't dropped
+        synchronized (this) {
+            this.process = startProcess();
+        }
+        this.monitorThread = new Thread(this::superviseProcess, "angularj-universal-node-" + renderConfiguration.getNodePort());
+        this.monitorThread.setDaemon(true);
+        this.monitorThread.start();
+    }
+
+    /**
+     * Start a new Node.js process and a thread that reads its output. The error output is inherited.
+     *
+     * @return Started process
+     * @throws IOException Exception in case the process can't be started
+     */
+    @NotNull
+    private Process startProcess() throws IOException {
+        @NotNull
+        ProcessBuilder processBuilder = new ProcessBuilder(renderConfiguration.getNodePath(), renderConfiguration.getServerBundleFile().getAbsolutePath());
+        @NotNull
+        Map<String, String> processEnvironment = processBuilder.environment();
+        processEnvironment.put(NODE_PORT_ENVIRONMENT_VARIABLE_NAME, String.valueOf(renderConfiguration.getNodePort()));
+        processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+
+        @NotNull
+        Process startedProcess = processBuilder.start();
+        @NotNull
+        Thread outputThread = new Thread(() -> readOutput(startedProcess), "angularj-universal-node-" + renderConfiguration.getNodePort() + "-output");
+        outputThread.setDaemon(true);
+        outputThread.start();
+        return startedProcess;
+    }
+
+    /**
+     * Read the output of a process until it exits. The ready line marks the process as ready, all other lines are
+     * passed to the Node.js output consumer. Reading the output also prevents the process from blocking on a full pipe.
+     *
+     * @param startedProcess Process whose output is read
+     */
+    private void readOutput(@NotNull Process startedProcess) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(startedProcess.getInputStream(), StandardCharsets.UTF_8))) {
+            @Nullable
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.equals(READY_LINE)) {
+                    markReady(startedProcess);
+                } else {
+                    renderConfiguration.getNodeOutput().accept(line);
+                }
+            }
+        } catch (IOException exception) {
+            // The process exited
+        }
+    }
+
+    /**
+     * Wait until a started process is ready, either because it printed the ready line or because its port accepts
+     * connections. The port is probed with an exponential backoff, the ready line ends the wait at once. The wait ends
+     * as well as soon the process exited.
+     *
+     * @param startedProcess Process that was started
+     * @throws InterruptedException Exception in case the process was closed
+     */
+    private void awaitReady(@NotNull Process startedProcess) throws InterruptedException {
+        long probeDelay = PROBE_INITIAL_DELAY;
+        while (startedProcess.isAlive() && !isReady()) {
+            if (isListening()) {
+                markReady(startedProcess);
+                return;
+            }
+
+            synchronized (this) {
+                if (!ready) {
+                    wait(probeDelay);
+                }
+            }
+            probeDelay = Math.min(probeDelay * 2, PROBE_MAXIMUM_DELAY);
+        }
+    }
+
+    /**
+     * Check if the port of the render server accepts connections.
+     *
+     * @return Status of the check
+     */
+    private boolean isListening() {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(TcpRenderEngine.NODE_HOST, renderConfiguration.getNodePort()), PROBE_CONNECT_TIMEOUT);
+            return true;
+        } catch (IOException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Mark a process as ready and notify the ready listener, unless the process was replaced, closed or is already
+     * ready.
+     *
+     * @param startedProcess Process that is ready
+     */
+    private void markReady(@NotNull Process startedProcess) {
+        synchronized (this) {
+            if (closed || ready || process != startedProcess) {
+                return;
+            }
+            ready = true;
+            notifyAll();
+        }
+        readyListener.run();
+    }
+
+    /**
+     * Wait until the process is ready and until it exits and restart it, until the process is closed. Each consecutive
+     * crash doubles the delay before the restart, a process that ran long enough resets it.
+     */
+    private void superviseProcess() {
+        long restartDelay = RESTART_INITIAL_DELAY;
+        try {
+            while (true) {
+                @Nullable
+                Process currentProcess = getProcess();
+                long startTime = System.currentTimeMillis();
+                if (currentProcess != null) {
+                    awaitReady(currentProcess);
+                    int exitCode = currentProcess.waitFor();
+                    synchronized (this) {
+                        ready = false;
+                    }
+                    if (isClosed()) {
+                        return;
+                    }
+
+                    // A process that ran long enough didn't crash in a loop, so the backoff starts over
+                    if (System.currentTimeMillis() - startTime >= RESTART_RESET_UPTIME) {
+                        restartDelay = RESTART_INITIAL_DELAY;
+                    }
+                    lastExitCode = exitCode;
+                    exitListener.run();
+                }
+                Thread.sleep(restartDelay);
+                restartDelay = Math.min(restartDelay * 2, RESTART_MAXIMUM_DELAY);
+
+                synchronized (this) {
+                    if (closed) {
+                        return;
+                    }
+                    try {
+                        process = startProcess();
+                        restarts.incrementAndGet();
+                    } catch (IOException exception) {
+                        // The next attempt follows after a longer backoff
+                        failedRestarts.incrementAndGet();
+                        process = null;
+                    }
+                }
+            }
+        } catch (InterruptedException exception) {
+            // The process was closed
+        }
+    }
+
+    /**
+     * Get the current process.
+     *
+     * @return Current process or null if it couldn't be restarted or the render server is external
+     */
+    @Nullable
+    private synchronized Process getProcess() {
+        return process;
+    }
+
+    /**
+     * Check if the process was closed.
+     *
+     * @return Status of the check
+     */
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Check if the current process is ready, which means the render server is listening. An external render server is
+     * considered ready.
+     *
+     * @return Status of the check
+     */
+    public synchronized boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Check if the process is still running. An external render server is considered running.
+     *
+     * @return Status of the check
+     */
+    public synchronized boolean isAlive() {
+        return monitorThread == null || (process != null && process.isAlive());
+    }
+
+    /**
+     * Get the number of restarts of the process after it exited.
+     *
+     * @return Number of restarts
+     */
+    public long getRestartCount() {
+        return restarts.get();
+    }
+
+    /**
+     * Get the number of restarts of the process that failed because the process couldn't be started.
+     *
+     * @return Number of failed restarts
+     */
+    public long getFailedRestartCount() {
+        return failedRestarts.get();
+    }
+
+    /**
+     * Get the exit code of the last process that exited before it was closed.
+     *
+     * @return Exit code or null if no process exited yet
+     */
+    @Nullable
+    public Integer getLastExitCode() {
+        return lastExitCode;
+    }
+
+    /**
+     * Stop the process and wait until it exited, unless the render server is started outside of the renderer. A process
+     * that doesn't exit in time is killed. The process is not restarted anymore.
+     */
+    @Override
+    public void close() {
+        @Nullable
+        Process currentProcess;
+        synchronized (this) {
+            closed = true;
+            ready = false;
+            currentProcess = process;
+            notifyAll();
+        }
+        if (monitorThread != null) {
+            monitorThread.interrupt();
+        }
+
+        if (currentProcess != null) {
+            currentProcess.destroy();
+            try {
+                if (!currentProcess.waitFor(PROCESS_EXIT_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    currentProcess.destroyForcibly();
+                }
+            } catch (InterruptedException exception) {
+                currentProcess.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
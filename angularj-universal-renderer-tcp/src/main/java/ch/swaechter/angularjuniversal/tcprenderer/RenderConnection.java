@@ -0,0 +1,63 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The interface RenderConnection represents a connection to the Node.js render server that is able to send several
+ * requests without waiting for their responses.
+ *
+ * @author Simon Wächter
+ */
+public interface RenderConnection extends AutoCloseable {
+
+    /**
+     * Send a request without waiting for its response. The returned future is completed as soon the response with the
+     * same ID arrives, or completed exceptionally if the connection breaks before.
+     *
+     * @param tcpRequest TCP request that will be sent
+     * @return Future that will contain the TCP response of the render server
+     */
+    @NotNull
+    CompletableFuture<TcpResponse> send(@NotNull TcpRequest tcpRequest);
+
+    /**
+     * Register a template under its hash, unless it was already registered on this connection. The registration is
+     * written before any request that is sent afterwards.
+     *
+     * @param template Hash of the template
+     * @param document Content of the template
+     * @throws IOException Exception in case the registration can't be written
+     */
+    void ensureTemplate(@NotNull String template, @NotNull String document) throws IOException;
+
+    /**
+     * Forget a registered template, so it will be registered again on the next usage.
+     *
+     * @param template Hash of the template
+     */
+    void forgetTemplate(@NotNull String template);
+
+    /**
+     * Abandon a request that was sent but not answered yet. Its future is cancelled at once and the render server is
+     * told to cancel the render. This has no impact if the response already arrived.
+     *
+     * @param id ID of the request
+     */
+    void cancel(long id);
+
+    /**
+     * Check if the connection can still be used.
+     *
+     * @return Status of the check
+     */
+    boolean isUsable();
+
+    /**
+     * Close the connection and fail all pending requests.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,670 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * The class TcpCodec encodes the requests and decodes the responses of the Node.js render server in the configured
+ * wire format. A line of JSON is delimited by a newline. A frame consists of a header with the metadata length and the
+ * body length as 32 bit big endian integers, followed by the metadata (JSON or CBOR) and the raw UTF-8 body with the
+ * template or page. A body length of -1 represents a missing body.
+ * <p>
+ * The messages are streamed with a JSON generator and parser instead of data binding, so neither an intermediate
+ * string of the template nor a copy of a received page is created. Each connection uses its own encoder and decoder,
+ * which keep their buffers for all messages of the connection.
+ *
+ * @author Simon Wächter
+ */
+public class TcpCodec {
+
+    /**
+     * Delimiter of the JSON lines.
+     */
+    private static final byte DELIMITER = '\n';
+
+    /**
+     * Length of the frame header in bytes.
+     */
+    private static final int HEADER_LENGTH = 8;
+
+    /**
+     * Maximum length of the metadata or body of a frame, used to detect a corrupt stream.
+     */
+    private static final int MAXIMUM_LENGTH = 256 * 1024 * 1024;
+
+    /**
+     * Size of the buffer used to encode a body as UTF-8.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    /**
+     * Replacement of an unpaired surrogate, the same as used by String.getBytes.
+     */
+    private static final byte REPLACEMENT = '?';
+
+    /**
+     * Wire format of the codec.
+     */
+    @NotNull
+    private final WireFormat wireFormat;
+
+    /**
+     * Factory used to create the generators and parsers of the JSON lines or the metadata of the frames.
+     */
+    @NotNull
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Create a new codec for the given wire format.
+     *
+     * @param wireFormat Wire format of the codec
+     */
+    public TcpCodec(@NotNull WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+        this.jsonFactory = wireFormat == WireFormat.FRAMED_CBOR ? new CBORFactory() : new JsonFactory();
+        this.jsonFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.jsonFactory.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    }
+
+    /**
+     * Get the wire format of the codec.
+     *
+     * @return Wire format of the codec
+     */
+    @NotNull
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Encode a request including its delimiter or frame header. This copies the whole message, connections should use
+     * an encoder that writes to their stream instead.
+     *
+     * @param tcpRequest TCP request that will be encoded
+     * @return Encoded request
+     * @throws IOException Exception in case the request can't be serialized
+     */
+    @NotNull
+    public byte[] encode(@NotNull TcpRequest tcpRequest) throws IOException {
+        @NotNull
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        createEncoder().encode(tcpRequest, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Encode a response including its delimiter or frame header. This is used by test servers that imitate the Node.js
+     * render server.
+     *
+     * @param tcpResponse TCP response that will be encoded
+     * @return Encoded response
+     * @throws IOException Exception in case the response can't be serialized
+     */
+    @NotNull
+    byte[] encode(@NotNull TcpResponse tcpResponse) throws IOException {
+        @NotNull
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        createEncoder().encode(tcpResponse, outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Create a new encoder for the requests of a single connection.
+     *
+     * @return New encoder
+     */
+    @NotNull
+    public Encoder createEncoder() {
+        return new Encoder();
+    }
+
+    /**
+     * Create a new decoder for the responses of a single connection.
+     *
+     * @return New decoder
+     */
+    @NotNull
+    public Decoder createDecoder() {
+        return new Decoder();
+    }
+
+    /**
+     * Get the length of a string encoded as UTF-8 without encoding it.
+     *
+     * @param value String to measure
+     * @return Length in bytes
+     */
+    static int getUtf8Length(@NotNull String value) {
+        int length = 0;
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            if (character < 0x80) {
+                length += 1;
+            } else if (character < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(character) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+                length += 4;
+                index++;
+            } else if (Character.isSurrogate(character)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * The class Encoder writes the requests of a connection directly to its stream. An encoder is not thread safe.
+     */
+    public class Encoder {
+
+        /**
+         * Reusable buffer for the metadata of a frame, which has to be measured before it is written.
+         */
+        @NotNull
+        private final ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+
+        /**
+         * Reusable buffer for the frame header.
+         */
+        @NotNull
+        private final byte[] header = new byte[HEADER_LENGTH];
+
+        /**
+         * Reusable buffer used to encode a body as UTF-8.
+         */
+        @NotNull
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+
+        /**
+         * Reusable stream that counts the bytes of a line of JSON.
+         */
+        @NotNull
+        private final CountingOutputStream countingOutputStream = new CountingOutputStream();
+
+        /**
+         * Write a request including its delimiter or frame header to the stream and set its encoded length. The stream
+         * is not flushed.
+         *
+         * @param tcpRequest   TCP request that will be written
+         * @param outputStream Stream to write to
+         * @throws IOException Exception in case the request can't be written
+         */
+        public void encode(@NotNull TcpRequest tcpRequest, @NotNull OutputStream outputStream) throws IOException {
+            if (wireFormat == WireFormat.JSON) {
+                countingOutputStream.reset(outputStream);
+                try (JsonGenerator generator = jsonFactory.createGenerator(countingOutputStream)) {
+                    writeRequest(generator, tcpRequest, true);
+                }
+                countingOutputStream.write(DELIMITER);
+                tcpRequest.setEncodedLength(countingOutputStream.getCount());
+                return;
+            }
+
+            // The document is sent as raw body, so it is left out of the metadata
+            metadata.reset();
+            try (JsonGenerator generator = jsonFactory.createGenerator(metadata)) {
+                writeRequest(generator, tcpRequest, false);
+            }
+            tcpRequest.setEncodedLength(writeFrame(outputStream, tcpRequest.getDocument()));
+        }
+
+        /**
+         * Write a response including its delimiter or frame header to the stream. This is used by test and stub
+         * servers that imitate the Node.js render server.
+         *
+         * @param tcpResponse  TCP response that will be written
+         * @param outputStream Stream to write to
+         * @throws IOException Exception in case the response can't be written
+         */
+        public void encode(@NotNull TcpResponse tcpResponse, @NotNull OutputStream outputStream) throws IOException {
+            if (wireFormat == WireFormat.JSON) {
+                try (JsonGenerator generator = jsonFactory.createGenerator(outputStream)) {
+                    writeResponse(generator, tcpResponse, true);
+                }
+                outputStream.write(DELIMITER);
+                return;
+            }
+
+            // The page is sent as raw body, so it is left out of the metadata
+            metadata.reset();
+            try (JsonGenerator generator = jsonFactory.createGenerator(metadata)) {
+                writeResponse(generator, tcpResponse, false);
+            }
+            writeFrame(outputStream, tcpResponse.getHtml());
+        }
+
+        /**
+         * Write the fields of a request.
+         *
+         * @param generator       Generator to write to
+         * @param tcpRequest      TCP request that will be written
+         * @param includeDocument Status if the document is written as field
+         * @throws IOException Exception in case the request can't be written
+         */
+        private void writeRequest(@NotNull JsonGenerator generator, @NotNull TcpRequest tcpRequest, boolean includeDocument) throws IOException {
+            generator.writeStartObject();
+            if (tcpRequest.getType() != null) {
+                generator.writeStringField("type", tcpRequest.getType());
+            }
+            if (tcpRequest.getId() != null) {
+                generator.writeNumberField("id", tcpRequest.getId());
+            }
+            if (tcpRequest.getUrl() != null) {
+                generator.writeStringField("url", tcpRequest.getUrl());
+            }
+            if (includeDocument && tcpRequest.getDocument() != null) {
+                generator.writeStringField("document", tcpRequest.getDocument());
+            }
+            if (tcpRequest.getTemplate() != null) {
+                generator.writeStringField("template", tcpRequest.getTemplate());
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Write the fields of a response.
+         *
+         * @param generator   Generator to write to
+         * @param tcpResponse TCP response that will be written
+         * @param includeHtml Status if the page is written as field
+         * @throws IOException Exception in case the response can't be written
+         */
+        private void writeResponse(@NotNull JsonGenerator generator, @NotNull TcpResponse tcpResponse, boolean includeHtml) throws IOException {
+            generator.writeStartObject();
+            if (tcpResponse.getId() != null) {
+                generator.writeNumberField("id", tcpResponse.getId());
+            }
+            if (includeHtml) {
+                generator.writeStringField("html", tcpResponse.getHtml());
+            }
+            if (tcpResponse.getError() != null) {
+                generator.writeStringField("error", tcpResponse.getError());
+            }
+            if (tcpResponse.isMissingTemplate()) {
+                generator.writeBooleanField("missingTemplate", true);
+            }
+            generator.writeEndObject();
+        }
+
+        /**
+         * Write the frame header, the buffered metadata and the body.
+         *
+         * @param outputStream Stream to write to
+         * @param body         Body of the frame or null if the message has no body
+         * @return Length of the frame in bytes
+         * @throws IOException Exception in case the frame can't be written
+         */
+        private int writeFrame(@NotNull OutputStream outputStream, @Nullable String body) throws IOException {
+            int bodyLength = body != null ? getUtf8Length(body) : -1;
+            writeInt(metadata.size(), 0);
+            writeInt(bodyLength, 4);
+            outputStream.write(header);
+            metadata.writeTo(outputStream);
+            if (body != null) {
+                writeUtf8(outputStream, body);
+            }
+            return HEADER_LENGTH + metadata.size() + Math.max(bodyLength, 0);
+        }
+
+        /**
+         * Write a big endian integer into the header.
+         *
+         * @param value  Value to write
+         * @param offset Offset in the header
+         */
+        private void writeInt(int value, int offset) {
+            header[offset] = (byte) (value >>> 24);
+            header[offset + 1] = (byte) (value >>> 16);
+            header[offset + 2] = (byte) (value >>> 8);
+            header[offset + 3] = (byte) value;
+        }
+
+        /**
+         * Encode a string as UTF-8 through the reusable chunk buffer.
+         *
+         * @param outputStream Stream to write to
+         * @param value        String to write
+         * @throws IOException Exception in case the string can't be written
+         */
+        private void writeUtf8(@NotNull OutputStream outputStream, @NotNull String value) throws IOException {
+            int position = 0;
+            for (int index = 0; index < value.length(); index++) {
+                if (position > CHUNK_SIZE - 4) {
+                    outputStream.write(chunk, 0, position);
+                    position = 0;
+                }
+
+                char character = value.charAt(index);
+                if (character < 0x80) {
+                    chunk[position++] = (byte) character;
+                } else if (character < 0x800) {
+                    chunk[position++] = (byte) (0xc0 | (character >> 6));
+                    chunk[position++] = (byte) (0x80 | (character & 0x3f));
+                } else if (Character.isHighSurrogate(character) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+                    int codePoint = Character.toCodePoint(character, value.charAt(++index));
+                    chunk[position++] = (byte) (0xf0 | (codePoint >> 18));
+                    chunk[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                    chunk[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                    chunk[position++] = (byte) (0x80 | (codePoint & 0x3f));
+                } else if (Character.isSurrogate(character)) {
+                    chunk[position++] = REPLACEMENT;
+                } else {
+                    chunk[position++] = (byte) (0xe0 | (character >> 12));
+                    chunk[position++] = (byte) (0x80 | ((character >> 6) & 0x3f));
+                    chunk[position++] = (byte) (0x80 | (character & 0x3f));
+                }
+            }
+            outputStream.write(chunk, 0, position);
+        }
+    }
+
+    /**
+     * The class Decoder splits the received bytes of a connection into responses. The bytes can arrive in chunks of
+     * any size, incomplete responses are kept in a reusable buffer until the rest arrives. A decoder is not thread safe.
+     */
+    public class Decoder {
+
+        /**
+         * Reusable buffer with the bytes of a response that was not completely received yet.
+         */
+        @NotNull
+        private byte[] pending = new byte[CHUNK_SIZE];
+
+        /**
+         * Number of bytes in the pending buffer.
+         */
+        private int pendingLength;
+
+        /**
+         * Reusable buffer with the header of the current frame.
+         */
+        @NotNull
+        private final byte[] header = new byte[HEADER_LENGTH];
+
+        /**
+         * Number of bytes in the header buffer.
+         */
+        private int headerLength;
+
+        /**
+         * Length of the metadata of the current frame or -1 if the header is not complete yet.
+         */
+        private int metadataLength = -1;
+
+        /**
+         * Length of the body of the current frame, -1 for a missing body.
+         */
+        private int bodyLength;
+
+        /**
+         * Decode a chunk of received bytes and pass each complete response to the consumer.
+         *
+         * @param data     Received bytes
+         * @param offset   Offset of the chunk
+         * @param length   Length of the chunk
+         * @param consumer Consumer of the complete responses
+         * @throws IOException Exception in case a response can't be parsed
+         */
+        public void decode(@NotNull byte[] data, int offset, int length, @NotNull Consumer<TcpResponse> consumer) throws IOException {
+            if (wireFormat == WireFormat.JSON) {
+                decodeLines(data, offset, length, consumer);
+            } else {
+                decodeFrames(data, offset, length, consumer);
+            }
+        }
+
+        /**
+         * Split the chunk at the delimiters and parse each complete line.
+         *
+         * @param data     Received bytes
+         * @param offset   Offset of the chunk
+         * @param length   Length of the chunk
+         * @param consumer Consumer of the complete responses
+         * @throws IOException Exception in case a response can't be parsed
+         */
+        private void decodeLines(@NotNull byte[] data, int offset, int length, @NotNull Consumer<TcpResponse> consumer) throws IOException {
+            int start = offset;
+            int end = offset + length;
+            for (int index = offset; index < end; index++) {
+                if (data[index] != DELIMITER) {
+                    continue;
+                }
+
+                if (pendingLength == 0) {
+                    parseLine(data, start, index - start, consumer);
+                } else {
+                    append(data, start, index - start);
+                    parseLine(pending, 0, pendingLength, consumer);
+                    pendingLength = 0;
+                }
+                start = index + 1;
+            }
+            append(data, start, end - start);
+        }
+
+        /**
+         * Parse a line of JSON unless it is blank.
+         *
+         * @param data     Data that contains the line
+         * @param offset   Offset of the line
+         * @param length   Length of the line
+         * @param consumer Consumer of the response
+         * @throws IOException Exception in case the response can't be parsed
+         */
+        private void parseLine(@NotNull byte[] data, int offset, int length, @NotNull Consumer<TcpResponse> consumer) throws IOException {
+            for (int index = offset; index < offset + length; index++) {
+                if (!Character.isWhitespace(data[index])) {
+                    long receivedTime = System.nanoTime();
+                    @NotNull
+                    TcpResponse tcpResponse = parseResponse(data, offset, length);
+                    tcpResponse.setReception(receivedTime, System.nanoTime(), length + 1);
+                    consumer.accept(tcpResponse);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Read the frame headers and pass each frame to the consumer as soon its metadata and body are complete.
+         *
+         * @param data     Received bytes
+         * @param offset   Offset of the chunk
+         * @param length   Length of the chunk
+         * @param consumer Consumer of the complete responses
+         * @throws IOException Exception in case a response can't be parsed
+         */
+        private void decodeFrames(@NotNull byte[] data, int offset, int length, @NotNull Consumer<TcpResponse> consumer) throws IOException {
+            int position = offset;
+            int end = offset + length;
+            while (position < end) {
+                if (metadataLength < 0) {
+                    int count = Math.min(HEADER_LENGTH - headerLength, end - position);
+                    System.arraycopy(data, position, header, headerLength, count);
+                    headerLength += count;
+                    position += count;
+                    if (headerLength < HEADER_LENGTH) {
+                        return;
+                    }
+
+                    metadataLength = readInt(0);
+                    bodyLength = readInt(4);
+                    headerLength = 0;
+                    if (metadataLength < 0 || metadataLength > MAXIMUM_LENGTH || bodyLength < -1 || bodyLength > MAXIMUM_LENGTH) {
+                        throw new IOException("Received an invalid frame header from the render server");
+                    }
+                }
+
+                int frameLength = metadataLength + Math.max(bodyLength, 0);
+                int count = Math.min(frameLength - pendingLength, end - position);
+                if (pendingLength == 0 && count == frameLength) {
+                    // The whole frame is part of the chunk, so it is parsed without copying
+                    parseFrame(data, position, consumer);
+                    metadataLength = -1;
+                } else {
+                    append(data, position, count);
+                    if (pendingLength == frameLength) {
+                        parseFrame(pending, 0, consumer);
+                        pendingLength = 0;
+                        metadataLength = -1;
+                    }
+                }
+                position += count;
+            }
+        }
+
+        /**
+         * Parse the metadata and body of a complete frame.
+         *
+         * @param data     Data that contains the frame without its header
+         * @param offset   Offset of the metadata
+         * @param consumer Consumer of the response
+         * @throws IOException Exception in case the response can't be parsed
+         */
+        private void parseFrame(@NotNull byte[] data, int offset, @NotNull Consumer<TcpResponse> consumer) throws IOException {
+            long receivedTime = System.nanoTime();
+            @NotNull
+            TcpResponse tcpResponse = parseResponse(data, offset, metadataLength);
+            if (bodyLength >= 0) {
+                tcpResponse.setHtml(new String(data, offset + metadataLength, bodyLength, StandardCharsets.UTF_8));
+            }
+            tcpResponse.setReception(receivedTime, System.nanoTime(), HEADER_LENGTH + metadataLength + Math.max(bodyLength, 0));
+            consumer.accept(tcpResponse);
+        }
+
+        /**
+         * Parse the fields of a response. Unknown fields are skipped.
+         *
+         * @param data   Data that contains the response
+         * @param offset Offset of the response
+         * @param length Length of the response
+         * @return Parsed response
+         * @throws IOException Exception in case the response can't be parsed
+         */
+        @NotNull
+        private TcpResponse parseResponse(@NotNull byte[] data, int offset, int length) throws IOException {
+            try (JsonParser parser = jsonFactory.createParser(data, offset, length)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IOException("Received an invalid response from the render server");
+                }
+
+                @NotNull
+                TcpResponse tcpResponse = new TcpResponse();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    @NotNull
+                    String field = parser.getCurrentName();
+                    @Nullable
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "id":
+                            if (value != JsonToken.VALUE_NULL) {
+                                tcpResponse.setId(parser.getLongValue());
+                            }
+                            break;
+                        case "html":
+                            tcpResponse.setHtml(parser.getValueAsString());
+                            break;
+                        case "error":
+                            tcpResponse.setError(parser.getValueAsString());
+                            break;
+                        case "missingTemplate":
+                            tcpResponse.setMissingTemplate(parser.getValueAsBoolean());
+                            break;
+                        default:
+                            parser.skipChildren();
+                    }
+                }
+                return tcpResponse;
+            }
+        }
+
+        /**
+         * Append bytes to the pending buffer, which grows as required and is kept for the following responses.
+         *
+         * @param data   Data to append
+         * @param offset Offset of the bytes
+         * @param length Number of bytes
+         */
+        private void append(@NotNull byte[] data, int offset, int length) {
+            if (pendingLength + length > pending.length) {
+                @NotNull
+                byte[] buffer = new byte[Math.max(pendingLength + length, pending.length * 2)];
+                System.arraycopy(pending, 0, buffer, 0, pendingLength);
+                pending = buffer;
+            }
+            System.arraycopy(data, offset, pending, pendingLength, length);
+            pendingLength += length;
+        }
+
+        /**
+         * Read a big endian integer from the header.
+         *
+         * @param offset Offset in the header
+         * @return Read value
+         */
+        private int readInt(int offset) {
+            return (header[offset] & 0xff) << 24 | (header[offset + 1] & 0xff) << 16 | (header[offset + 2] & 0xff) << 8 | (header[offset + 3] & 0xff);
+        }
+    }
+
+    /**
+     * The class CountingOutputStream passes all bytes to another stream and counts them.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        /**
+         * Stream the bytes are passed to.
+         */
+        @Nullable
+        private OutputStream outputStream;
+
+        /**
+         * Number of bytes passed on since the last reset.
+         */
+        private long count;
+
+        /**
+         * Pass the following bytes to another stream and restart counting.
+         *
+         * @param outputStream Stream the bytes are passed to
+         */
+        void reset(@NotNull OutputStream outputStream) {
+            this.outputStream = outputStream;
+            this.count = 0;
+        }
+
+        /**
+         * Get the number of bytes passed on since the last reset.
+         *
+         * @return Number of bytes
+         */
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            outputStream.write(value);
+            count++;
+        }
+
+        @Override
+        public void write(@NotNull byte[] data, int offset, int length) throws IOException {
+            outputStream.write(data, offset, length);
+            count += length;
+        }
+    }
+}
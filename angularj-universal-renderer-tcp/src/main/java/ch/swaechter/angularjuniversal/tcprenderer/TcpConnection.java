@@ -0,0 +1,331 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class TcpConnection represents a persistent connection to the Node.js render server. Requests are written
+ * back-to-back without waiting for the previous response, a reader thread matches the responses to their requests by
+ * the request ID in whatever order they arrive.
+ *
+ * @author Simon Wächter
+ */
+public class TcpConnection implements RenderConnection {
+
+    /**
+     * Socket of the connection.
+     */
+    @NotNull
+    private final Socket socket;
+
+    /**
+     * Size of the buffer used to read the responses.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Stream used to send the requests.
+     */
+    @NotNull
+    private final OutputStream outputStream;
+
+    /**
+     * Stream used to read the responses.
+     */
+    @NotNull
+    private final InputStream inputStream;
+
+    /**
+     * Codec used to encode the requests and decode the responses.
+     */
+    @NotNull
+    private final TcpCodec codec;
+
+    /**
+     * Encoder that writes the requests directly to the output stream, guarded by the output stream.
+     */
+    @NotNull
+    private final TcpCodec.Encoder encoder;
+
+    /**
+     * Futures of all requests that were sent but not answered yet, mapped by their request ID.
+     */
+    @NotNull
+    private final Map<Long, CompletableFuture<TcpResponse>> pendingResponses = new ConcurrentHashMap<>();
+
+    /**
+     * Hashes of all templates that were registered on this connection, guarded by the output stream.
+     */
+    @NotNull
+    private final Set<String> registeredTemplates = new HashSet<>();
+
+    /**
+     * Number of requests in flight, managed by the connection pool.
+     */
+    private int requestsInFlight;
+
+    /**
+     * Time in milliseconds when the connection was used the last time.
+     */
+    private volatile long lastUsed;
+
+    /**
+     * Status if the connection is broken and has to be closed.
+     */
+    private volatile boolean broken;
+
+    /**
+     * Open a new connection to the Node.js render server and start reading its responses.
+     *
+     * @param host         Host of the render server
+     * @param port         Port of the render server
+     * @param codec        Codec used to encode the requests and decode the responses
+     * @throws IOException Exception in case the connection can't be opened
+     */
+    public TcpConnection(@NotNull String host, int port, @NotNull TcpCodec codec) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.outputStream = new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE);
+        this.inputStream = socket.getInputStream();
+        this.codec = codec;
+        this.encoder = codec.createEncoder();
+        this.lastUsed = System.currentTimeMillis();
+
+        @NotNull
+        Thread readerThread = new Thread(this::readResponses, "angularj-universal-connection-" + port);
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Send a request without waiting for its response. The returned future is completed as soon the response with the
+     * same ID arrives, or completed exceptionally if the connection breaks before.
+     *
+     * @param tcpRequest TCP request that will be sent
+     * @return Future that will contain the TCP response of the render server
+     */
+    @Override
+    @NotNull
+    public CompletableFuture<TcpResponse> send(@NotNull TcpRequest tcpRequest) {
+        @NotNull
+        CompletableFuture<TcpResponse> future = new CompletableFuture<>();
+        if (broken) {
+            future.completeExceptionally(new IOException("The connection to the render server is broken"));
+            return future;
+        }
+
+        pendingResponses.put(tcpRequest.getId(), future);
+        try {
+            synchronized (outputStream) {
+                encoder.encode(tcpRequest, outputStream);
+                outputStream.flush();
+            }
+        } catch (IOException exception) {
+            fail(exception);
+        }
+
+        // The connection could have been broken while the future was registered
+        if (broken) {
+            pendingResponses.remove(tcpRequest.getId());
+            future.completeExceptionally(new IOException("The connection to the render server is broken"));
+        }
+
+        lastUsed = System.currentTimeMillis();
+        return future;
+    }
+
+    /**
+     * Register a template under its hash, unless it was already registered on this connection. The registration is
+     * written before any request that is sent afterwards, so the render server knows the template when the request
+     * arrives. The render server doesn't answer a registration.
+     *
+     * @param template Hash of the template
+     * @param document Content of the template
+     * @throws IOException Exception in case the registration can't be written
+     */
+    @Override
+    public void ensureTemplate(@NotNull String template, @NotNull String document) throws IOException {
+        synchronized (outputStream) {
+            if (registeredTemplates.contains(template)) {
+                return;
+            }
+
+            try {
+                encoder.encode(TcpRequest.registerTemplate(template, document), outputStream);
+                outputStream.flush();
+            } catch (IOException exception) {
+                fail(exception);
+                throw exception;
+            }
+            registeredTemplates.add(template);
+        }
+    }
+
+    /**
+     * Forget a registered template, so it will be registered again on the next usage. This is required in case the
+     * render server lost the template.
+     *
+     * @param template Hash of the template
+     */
+    @Override
+    public void forgetTemplate(@NotNull String template) {
+        synchronized (outputStream) {
+            registeredTemplates.remove(template);
+        }
+    }
+
+    /**
+     * Abandon a request that was sent but not answered yet. Its future is cancelled at once and the render server is
+     * told to cancel the render. This has no impact if the response already arrived.
+     *
+     * @param id ID of the request
+     */
+    @Override
+    public void cancel(long id) {
+        @Nullable
+        CompletableFuture<TcpResponse> future = pendingResponses.remove(id);
+        if (future == null) {
+            return;
+        }
+
+        try {
+            synchronized (outputStream) {
+                encoder.encode(TcpRequest.cancelRender(id), outputStream);
+                outputStream.flush();
+            }
+        } catch (IOException exception) {
+            fail(exception);
+        }
+        future.cancel(false);
+    }
+
+    /**
+     * Send a request and wait for its response.
+     *
+     * @param tcpRequest TCP request that will be sent
+     * @return TCP response of the render server
+     * @throws IOException Exception in case of an IO problem
+     */
+    @NotNull
+    public TcpResponse render(@NotNull TcpRequest tcpRequest) throws IOException {
+        try {
+            return send(tcpRequest).get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (Exception exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            throw new IOException(exception);
+        }
+    }
+
+    /**
+     * Check if the connection can still be used.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isUsable() {
+        return !broken && !socket.isClosed();
+    }
+
+    /**
+     * Get the time in milliseconds when the connection was used the last time.
+     *
+     * @return Time of the last usage
+     */
+    public long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Get the number of requests in flight. This value is managed by the connection pool.
+     *
+     * @return Number of requests in flight
+     */
+    int getRequestsInFlight() {
+        return requestsInFlight;
+    }
+
+    /**
+     * Set the number of requests in flight. This value is managed by the connection pool.
+     *
+     * @param requestsInFlight New number of requests in flight
+     */
+    void setRequestsInFlight(int requestsInFlight) {
+        this.requestsInFlight = requestsInFlight;
+    }
+
+    /**
+     * Close the connection and fail all pending requests.
+     */
+    @Override
+    public void close() {
+        fail(new IOException("The connection to the render server was closed"));
+    }
+
+    /**
+     * Read all responses and complete the futures of their requests until the connection is closed.
+     */
+    private void readResponses() {
+        @NotNull
+        TcpCodec.Decoder decoder = codec.createDecoder();
+        @NotNull
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            while (true) {
+                int length = inputStream.read(buffer);
+                if (length < 0) {
+                    throw new EOFException("The render server closed the connection");
+                }
+
+                decoder.decode(buffer, 0, length, tcpResponse -> {
+                    @Nullable
+                    CompletableFuture<TcpResponse> future = pendingResponses.remove(tcpResponse.getId());
+                    if (future != null) {
+                        lastUsed = System.currentTimeMillis();
+                        future.complete(tcpResponse);
+                    }
+                });
+            }
+        } catch (IOException exception) {
+            fail(exception);
+        }
+    }
+
+    /**
+     * Mark the connection as broken, close the socket and fail all pending requests.
+     *
+     * @param exception Exception that broke the connection
+     */
+    private void fail(@NotNull IOException exception) {
+        broken = true;
+        try {
+            socket.close();
+        } catch (IOException closeException) {
+            // The connection is dropped anyway
+        }
+
+        for (Long id : pendingResponses.keySet()) {
+            @Nullable
+            CompletableFuture<TcpResponse> future = pendingResponses.remove(id);
+            if (future != null) {
+                future.completeExceptionally(exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The class TcpConnectionPool keeps warm and reusable connections to the Node.js render server. The pool keeps at least
+ * the minimum number of connections open, opens up to the maximum number of connections on demand and closes idle
+ * connections above the minimum size after the idle timeout. Each connection carries up to the pipeline depth of
+ * requests at the same time.
+ *
+ * @author Simon Wächter
+ */
+public class TcpConnectionPool implements AutoCloseable {
+
+    /**
+     * Host of the render server.
+     */
+    @NotNull
+    private final String host;
+
+    /**
+     * Port of the render server.
+     */
+    private final int port;
+
+    /**
+     * Minimum number of connections kept open.
+     */
+    private final int minSize;
+
+    /**
+     * Maximum number of connections opened at the same time.
+     */
+    private final int maxSize;
+
+    /**
+     * Maximum number of requests in flight on a single connection.
+     */
+    private final int pipelineDepth;
+
+    /**
+     * Time in milliseconds after which an idle connection above the minimum size is closed.
+     */
+    private final long idleTimeout;
+
+    /**
+     * Codec used by all connections.
+     */
+    @NotNull
+    private final TcpCodec codec;
+
+    /**
+     * All open connections.
+     */
+    @NotNull
+    private final List<TcpConnection> connections = new ArrayList<>();
+
+    /**
+     * Number of connections that are currently being opened.
+     */
+    private int pendingConnections;
+
+    /**
+     * Status if the pool was closed.
+     */
+    private boolean closed;
+
+    /**
+     * Create a new connection pool. No connection is opened until the pool is used or maintained.
+     *
+     * @param host          Host of the render server
+     * @param port          Port of the render server
+     * @param minSize       Minimum number of connections kept open
+     * @param maxSize       Maximum number of connections opened at the same time
+     * @param pipelineDepth Maximum number of requests in flight on a single connection
+     * @param idleTimeout   Time in milliseconds after which an idle connection above the minimum size is closed
+     * @param codec         Codec used by all connections
+     */
+    public TcpConnectionPool(@NotNull String host, int port, int minSize, int maxSize, int pipelineDepth, long idleTimeout, @NotNull TcpCodec codec) {
+        this.host = host;
+        this.port = port;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.pipelineDepth = pipelineDepth;
+        this.idleTimeout = idleTimeout;
+        this.codec = codec;
+    }
+
+    /**
+     * Borrow a request slot on a connection. The usable connection with the fewest requests in flight is used, a new
+     * connection is opened if all connections are at their pipeline depth. If all slots of the maximum number of
+     * connections are in use, the call blocks until a slot is released.
+     *
+     * @return Connection with a reserved slot that has to be released afterwards
+     * @throws IOException          Exception in case a new connection can't be opened
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    @NotNull
+    public TcpConnection borrowConnection() throws IOException, InterruptedException {
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new IOException("The connection pool is closed");
+                }
+
+                removeBrokenConnections();
+
+                @Nullable
+                TcpConnection leastLoadedConnection = null;
+                for (TcpConnection connection : connections) {
+                    if (connection.isUsable() && connection.getRequestsInFlight() < pipelineDepth && (leastLoadedConnection == null || connection.getRequestsInFlight() < leastLoadedConnection.getRequestsInFlight())) {
+                        leastLoadedConnection = connection;
+                    }
+                }
+
+                // Prefer a new connection over queueing behind requests in flight, as long the maximum allows it
+                if (leastLoadedConnection != null && (leastLoadedConnection.getRequestsInFlight() == 0 || connections.size() + pendingConnections >= maxSize)) {
+                    leastLoadedConnection.setRequestsInFlight(leastLoadedConnection.getRequestsInFlight() + 1);
+                    return leastLoadedConnection;
+                }
+
+                if (connections.size() + pendingConnections < maxSize) {
+                    pendingConnections++;
+                    break;
+                }
+
+                wait();
+            }
+        }
+
+        // Open the connection outside of the lock, so other threads are able to release their slots
+        @Nullable
+        TcpConnection connection = null;
+        try {
+            connection = new TcpConnection(host, port, codec);
+            return connection;
+        } finally {
+            synchronized (this) {
+                pendingConnections--;
+                if (connection != null) {
+                    connection.setRequestsInFlight(1);
+                    connections.add(connection);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Release a borrowed request slot. Broken connections are closed as soon they have no requests in flight.
+     *
+     * @param connection Connection with the borrowed slot
+     */
+    public synchronized void releaseConnection(@NotNull TcpConnection connection) {
+        connection.setRequestsInFlight(connection.getRequestsInFlight() - 1);
+        if (closed && connection.getRequestsInFlight() == 0) {
+            connections.remove(connection);
+            connection.close();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Close all connections that were idle for longer than the idle timeout, as long the pool stays at its minimum size,
+     * and open new connections until the minimum size is reached. This method is called periodically.
+     */
+    public void maintain() {
+        synchronized (this) {
+            removeBrokenConnections();
+
+            long now = System.currentTimeMillis();
+            @NotNull
+            Iterator<TcpConnection> iterator = connections.iterator();
+            while (iterator.hasNext() && connections.size() > minSize) {
+                @NotNull
+                TcpConnection connection = iterator.next();
+                if (connection.getRequestsInFlight() == 0 && now - connection.getLastUsed() > idleTimeout) {
+                    iterator.remove();
+                    connection.close();
+                }
+            }
+        }
+
+        while (true) {
+            synchronized (this) {
+                if (closed || connections.size() + pendingConnections >= minSize) {
+                    return;
+                }
+                pendingConnections++;
+            }
+
+            @Nullable
+            TcpConnection connection = null;
+            try {
+                connection = new TcpConnection(host, port, codec);
+            } catch (IOException exception) {
+                // The render server is not reachable yet, try again during the next maintenance
+                return;
+            } finally {
+                synchronized (this) {
+                    pendingConnections--;
+                    if (connection != null && closed) {
+                        connection.close();
+                    } else if (connection != null) {
+                        connections.add(connection);
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until no request is in flight anymore or the timeout is reached.
+     *
+     * @param timeout Timeout in milliseconds
+     * @return Status if all requests were completed
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    public synchronized boolean awaitRequestsInFlight(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (getRequestsInFlight() > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of open connections.
+     *
+     * @return Number of open connections
+     */
+    public synchronized int getOpenConnections() {
+        return connections.size();
+    }
+
+    /**
+     * Get the number of open connections without any request in flight.
+     *
+     * @return Number of idle connections
+     */
+    public synchronized int getIdleConnections() {
+        int idleConnections = 0;
+        for (TcpConnection connection : connections) {
+            if (connection.getRequestsInFlight() == 0) {
+                idleConnections++;
+            }
+        }
+        return idleConnections;
+    }
+
+    /**
+     * Get the number of requests in flight over all connections.
+     *
+     * @return Number of requests in flight
+     */
+    public synchronized int getRequestsInFlight() {
+        int requestsInFlight = 0;
+        for (TcpConnection connection : connections) {
+            requestsInFlight += connection.getRequestsInFlight();
+        }
+        return requestsInFlight;
+    }
+
+    /**
+     * Close the pool and all idle connections. Connections with requests in flight are closed as soon their last slot
+     * is released.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        @NotNull
+        Iterator<TcpConnection> iterator = connections.iterator();
+        while (iterator.hasNext()) {
+            @NotNull
+            TcpConnection connection = iterator.next();
+            if (connection.getRequestsInFlight() == 0) {
+                iterator.remove();
+                connection.close();
+            }
+        }
+        notifyAll();
+    }
+
+    /**
+     * Remove all broken connections without requests in flight.
+     */
+    private void removeBrokenConnections() {
+        @NotNull
+        Iterator<TcpConnection> iterator = connections.iterator();
+        while (iterator.hasNext()) {
+            @NotNull
+            TcpConnection connection = iterator.next();
+            if (!connection.isUsable() && connection.getRequestsInFlight() == 0) {
+                iterator.remove();
+                connection.close();
+            }
+        }
+    }
+}
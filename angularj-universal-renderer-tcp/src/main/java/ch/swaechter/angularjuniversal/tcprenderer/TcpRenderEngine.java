@@ -3,18 +3,21 @@ package ch.swaechter.angularjuniversal.tcprenderer;
 import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
 import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
 import ch.swaechter.angularjuniversal.renderer.exception.RenderException;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderUnavailableException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPhase;
 import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import ch.swaechter.angularjuniversal.renderer.request.RenderTimings;
+import ch.swaechter.angularjuniversal.renderer.utils.RenderUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.Socket;
-import java.util.Map;
+import java.io.IOException;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class TcpRenderEngine provides a NodeJS and TCP  based implementation of the render engine.
@@ -24,16 +27,22 @@ import java.util.concurrent.BlockingQueue;
 public class TcpRenderEngine implements RenderEngine {
 
     /**
-     * Name of the environment variable passed to Node.js to indicate the port.
+     * Host of the Node.js render server.
      */
     @NotNull
-    private static final String NODE_PORT_ENVIRONMENT_VARIABLE_NAME = "NODEPORT";
+    static final String NODE_HOST = "localhost";
 
     /**
-     * Object mapper used to serialize/deserialize TCP request and responses.
+     * Circuit breaker of the render server or null if the engine didn't start working yet.
      */
-    @NotNull
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Nullable
+    private volatile CircuitBreaker circuitBreaker;
+
+    /**
+     * Node.js process of the render server or null if the engine didn't start working yet.
+     */
+    @Nullable
+    private volatile NodeProcess nodeProcess;
 
     /**
      * Create a new TCP based render engine that will access a NodeJS server for rendering
@@ -44,74 +53,290 @@ public class TcpRenderEngine implements RenderEngine {
     /**
      * Start working and handle all incoming requests and resolve them. The engine will work as long it receives a valid
      * and non optional request and will shutdown itself as soon it received an optional request from the queue.
+     * Requests are sent over pooled connections without waiting for their responses, so several renders can be in
+     * flight at the same time. Requests that are abandoned before they are sent are dropped, renders that are abandoned
+     * while they are in flight are cancelled on the render server. If the render server can't be reached or its process
+     * crashed, which restarts it, the failed requests are retried on another render engine and the circuit breaker
+     * makes the engine fail fast until the render server answers again. Until the render server signalled that it is
+     * listening, the requests fail fast as well, so they don't run into refused connections.
      *
      * @param renderRequests      Blocking queue with requests to read from
      * @param renderConfiguration Render configuration with the all required information
      */
     @Override
     public void startWorking(@NotNull BlockingQueue<Optional<RenderRequest>> renderRequests, @NotNull RenderConfiguration renderConfiguration) {
-        try {
-            // Start the Node.js render service
-            @NotNull
-            ProcessBuilder processBuilder = new ProcessBuilder(renderConfiguration.getNodePath(), renderConfiguration.getServerBundleFile().getAbsolutePath());
-            @NotNull
-            Map<String, String> processEnvironment = processBuilder.environment();
-            processEnvironment.put(NODE_PORT_ENVIRONMENT_VARIABLE_NAME, String.valueOf(renderConfiguration.getNodePort()));
+        // Start the Node.js render service, a crash opens the circuit breaker until the restarted render server is ready
+        @NotNull
+        CircuitBreaker engineCircuitBreaker = createCircuitBreaker(renderConfiguration);
+        circuitBreaker = engineCircuitBreaker;
+        try (NodeProcess engineNodeProcess = new NodeProcess(renderConfiguration, engineCircuitBreaker::trip, engineCircuitBreaker::recordSuccess)) {
+            nodeProcess = engineNodeProcess;
 
+            // Create the connection pool and keep it at its minimum size while evicting idle connections
+            @NotNull
+            TcpConnectionPool connectionPool = new TcpConnectionPool(NODE_HOST, renderConfiguration.getNodePort(), renderConfiguration.getConnectionPoolMinSize(), renderConfiguration.getConnectionPoolMaxSize(), renderConfiguration.getPipelineDepth(), renderConfiguration.getConnectionIdleTimeout(), new TcpCodec(renderConfiguration.getWireFormat()));
             @NotNull
-            Process process = processBuilder.start();
+            ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor();
+            long maintenancePeriod = Math.max(1, renderConfiguration.getConnectionIdleTimeout() / 2);
+            maintenanceExecutor.scheduleWithFixedDelay(connectionPool::maintain, 0, maintenancePeriod, TimeUnit.MILLISECONDS);
 
-            while (true) {
-                Optional<RenderRequest> renderRequestItem = renderRequests.take();
+            // Hash the template once, so it is only registered once per connection instead of being sent with every request
+            @Nullable
+            String templateHash = getTemplateHash(renderConfiguration);
 
-                if (renderRequestItem.isPresent()) {
-                    // Get the render request item
-                    @NotNull
-                    RenderRequest renderRequest = renderRequestItem.get();
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
 
-                    try {
-                        // Create the socket and initialize the writer reader
-                        @NotNull
-                        Socket socket = new Socket("localhost", renderConfiguration.getNodePort());
+                    if (renderRequestItem.isPresent()) {
+                        // Get the render request item
                         @NotNull
-                        PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
-                        @NotNull
-                        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                        RenderRequest renderRequest = renderRequestItem.get();
 
-                        // Write the request
-                        @NotNull
-                        TcpRequest tcpRequest = new TcpRequest(renderRequest.getId(), renderRequest.getUri(), renderConfiguration.getTemplateContent());
-                        writer.println(objectMapper.writeValueAsString(tcpRequest));
-                        writer.flush();
+                        // Drop requests that were cancelled or passed their deadline while they were queued
+                        if (renderRequest.isAbandoned()) {
+                            continue;
+                        }
 
-                        // Read the response
-                        @NotNull
-                        TcpResponse tcpResponse = objectMapper.readValue(reader, TcpResponse.class);
+                        // Fail fast while the render server is starting, restarting or unhealthy
+                        if (!engineNodeProcess.isReady() || !engineCircuitBreaker.allowRequest()) {
+                            failRenderRequest(renderRequest, new RenderUnavailableException("The render server on port " + renderConfiguration.getNodePort() + " is unavailable"));
+                            continue;
+                        }
 
-                        // Get the error message if an error occurred on the render server
+                        // Borrow a slot on a connection, this blocks as long the maximum number of renders is in flight
                         @Nullable
-                        String errorMessage = tcpResponse.getError();
-
-                        // check if an error occurred
-                        if (errorMessage == null) {
-                            renderRequest.getFuture().complete(tcpResponse.getHtml());
-                        } else {
-                            throw new RenderException(errorMessage);
+                        TcpConnection connection;
+                        try {
+                            connection = connectionPool.borrowConnection();
+                        } catch (IOException exception) {
+                            engineCircuitBreaker.recordFailure();
+                            failRenderRequest(renderRequest, exception);
+                            continue;
                         }
-                    } catch (Throwable exception) {
-                        exception.printStackTrace();
-                        if (exception instanceof RenderException) {
-                            renderRequest.getFuture().completeExceptionally(exception);
-                        } else {
-                            renderRequest.getFuture().completeExceptionally(new RenderException(exception));
+
+                        // The request could have been abandoned while waiting for a slot
+                        if (renderRequest.isAbandoned()) {
+                            connectionPool.releaseConnection(connection);
+                            continue;
                         }
+                        renderRequest.getTimings().mark(RenderPhase.CONNECTED);
+
+                        // Send the request without waiting, the response completes the render request outside of the
+                        // reader thread, so a slow client doesn't hold up the other responses of the connection
+                        @NotNull
+                        CompletableFuture<TcpResponse> responseFuture = sendRenderRequest(connection, renderRequest, renderConfiguration, templateHash);
+                        responseFuture.whenCompleteAsync((tcpResponse, throwable) -> {
+                            connectionPool.releaseConnection(connection);
+                            completeRenderRequest(renderRequest, tcpResponse, throwable, engineCircuitBreaker);
+                        });
+                        cancelWhenAbandoned(connection, renderRequest, responseFuture);
+                    } else {
+                        break;
                     }
-                } else {
-                    process.destroy();
+                }
+            } finally {
+                // Finish the renders in flight, the connections are closed even if the wait is interrupted
+                try {
+                    connectionPool.awaitRequestsInFlight(renderConfiguration.getShutdownTimeout());
+                } finally {
+                    maintenanceExecutor.shutdownNow();
+                    connectionPool.close();
                 }
             }
         } catch (Exception exception) {
             exception.printStackTrace();
         }
     }
+
+    /**
+     * Check if the render server is able to render at the moment, which is the case as long it is ready and its circuit
+     * breaker lets requests through.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isAvailable() {
+        @Nullable
+        CircuitBreaker currentCircuitBreaker = circuitBreaker;
+        return isReady() && (currentCircuitBreaker == null || currentCircuitBreaker.isAvailable());
+    }
+
+    /**
+     * Check if the render server signalled that it is listening. A render server that is restarted after a crash is
+     * not ready until it signalled it again.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isReady() {
+        @Nullable
+        NodeProcess currentNodeProcess = nodeProcess;
+        return currentNodeProcess != null && currentNodeProcess.isReady();
+    }
+
+    /**
+     * Create the circuit breaker of a render server.
+     *
+     * @param renderConfiguration Render configuration with the failure threshold and the open duration
+     * @return New circuit breaker
+     */
+    @NotNull
+    static CircuitBreaker createCircuitBreaker(@NotNull RenderConfiguration renderConfiguration) {
+        return new CircuitBreaker(renderConfiguration.getCircuitBreakerThreshold(), renderConfiguration.getCircuitBreakerOpenDuration());
+    }
+
+    /**
+     * Send a render request, either with the whole template or with the hash of the registered template.
+     *
+     * @param connection          Connection with a borrowed slot
+     * @param renderRequest       Render request that will be sent
+     * @param renderConfiguration Render configuration with the template
+     * @param templateHash        Hash of the template or null if the template registration is disabled
+     * @return Future that will contain the TCP response of the render server
+     */
+    @NotNull
+    static CompletableFuture<TcpResponse> sendRenderRequest(@NotNull RenderConnection connection, @NotNull RenderRequest renderRequest, @NotNull RenderConfiguration renderConfiguration, @Nullable String templateHash) {
+        if (templateHash == null) {
+            return send(connection, renderRequest, new TcpRequest(renderRequest.getId(), renderRequest.getUri(), renderConfiguration.getTemplateContent()));
+        }
+        return sendWithTemplate(connection, renderRequest, renderConfiguration.getTemplateContent(), templateHash, true);
+    }
+
+    /**
+     * Get the hash of the template if the template registration is enabled.
+     *
+     * @param renderConfiguration Render configuration with the template
+     * @return Hash of the template or null if the template registration is disabled
+     */
+    @Nullable
+    static String getTemplateHash(@NotNull RenderConfiguration renderConfiguration) {
+        return renderConfiguration.getTemplateRegistration() ? RenderUtils.getHash(renderConfiguration.getTemplateContent(), renderConfiguration.getCharset()) : null;
+    }
+
+    /**
+     * Send a render request that refers to the registered template by its hash. The template is registered on the
+     * connection first if required. In case the render server lost the template, it is registered and the request is
+     * sent again once.
+     *
+     * @param connection       Connection with a borrowed slot
+     * @param renderRequest    Render request that will be sent
+     * @param templateContent  Content of the template
+     * @param templateHash     Hash of the template
+     * @param retryOnMissing   Status if the request is sent again in case the template is missing
+     * @return Future that will contain the TCP response of the render server
+     */
+    @NotNull
+    private static CompletableFuture<TcpResponse> sendWithTemplate(@NotNull RenderConnection connection, @NotNull RenderRequest renderRequest, @NotNull String templateContent, @NotNull String templateHash, boolean retryOnMissing) {
+        try {
+            connection.ensureTemplate(templateHash, templateContent);
+        } catch (IOException exception) {
+            @NotNull
+            CompletableFuture<TcpResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(exception);
+            return future;
+        }
+
+        return send(connection, renderRequest, TcpRequest.withTemplate(renderRequest.getId(), renderRequest.getUri(), templateHash)).thenCompose(tcpResponse -> {
+            if (tcpResponse.isMissingTemplate() && retryOnMissing) {
+                connection.forgetTemplate(templateHash);
+                return sendWithTemplate(connection, renderRequest, templateContent, templateHash, false);
+            }
+            return CompletableFuture.completedFuture(tcpResponse);
+        });
+    }
+
+    /**
+     * Send a request of a render request and record when it was sent and how large it was.
+     *
+     * @param connection    Connection with a borrowed slot
+     * @param renderRequest Render request the request belongs to
+     * @param tcpRequest    TCP request that will be sent
+     * @return Future that will contain the TCP response of the render server
+     */
+    @NotNull
+    private static CompletableFuture<TcpResponse> send(@NotNull RenderConnection connection, @NotNull RenderRequest renderRequest, @NotNull TcpRequest tcpRequest) {
+        @NotNull
+        CompletableFuture<TcpResponse> future = connection.send(tcpRequest);
+        renderRequest.getTimings().setRequestBytes(tcpRequest.getEncodedLength());
+        renderRequest.getTimings().mark(RenderPhase.SENT);
+        return future;
+    }
+
+    /**
+     * Cancel the render on the connection as soon the render request is completed before its response arrived, which
+     * happens if the render request is cancelled or passes its deadline. The slot of the render is freed at once.
+     *
+     * @param connection     Connection the render request was sent on
+     * @param renderRequest  Render request that was sent
+     * @param responseFuture Future that will contain the TCP response of the render server
+     */
+    static void cancelWhenAbandoned(@NotNull RenderConnection connection, @NotNull RenderRequest renderRequest, @NotNull CompletableFuture<TcpResponse> responseFuture) {
+        renderRequest.getFuture().whenComplete((content, throwable) -> {
+            if (!responseFuture.isDone()) {
+                connection.cancel(renderRequest.getId());
+            }
+        });
+    }
+
+    /**
+     * Fail a render request that didn't reach the render server, unless it is retried on another render engine.
+     *
+     * @param renderRequest Render request that failed
+     * @param throwable     Problem that occurred
+     */
+    static void failRenderRequest(@NotNull RenderRequest renderRequest, @NotNull Throwable throwable) {
+        if (renderRequest.retry()) {
+            return;
+        }
+
+        if (!(throwable instanceof RenderUnavailableException)) {
+            throwable.printStackTrace();
+        }
+        renderRequest.getFuture().completeExceptionally(throwable instanceof RenderException ? throwable : new RenderException(throwable));
+    }
+
+    /**
+     * Complete a render request with the response of the render server or the problem that occurred and record the
+     * reception of the response in the circuit breaker. A render request whose connection failed is retried on another
+     * render engine if possible. A render request that was already abandoned is left as it is.
+     *
+     * @param renderRequest  Render request that will be completed
+     * @param tcpResponse    TCP response of the render server or null in case of a problem
+     * @param throwable      Problem that occurred or null in case of a response
+     * @param circuitBreaker Circuit breaker of the render server
+     */
+    static void completeRenderRequest(@NotNull RenderRequest renderRequest, @Nullable TcpResponse tcpResponse, @Nullable Throwable throwable, @NotNull CircuitBreaker circuitBreaker) {
+        if (renderRequest.getFuture().isDone()) {
+            return;
+        }
+
+        // The render server wasn't reached or the connection broke, the page itself could be fine
+        if (throwable != null) {
+            circuitBreaker.recordFailure();
+            failRenderRequest(renderRequest, throwable);
+            return;
+        }
+        circuitBreaker.recordSuccess();
+
+        @NotNull
+        RenderTimings timings = renderRequest.getTimings();
+        if (tcpResponse != null && tcpResponse.getReceivedTime() != 0) {
+            timings.mark(RenderPhase.RECEIVED, tcpResponse.getReceivedTime());
+            timings.mark(RenderPhase.PARSED, tcpResponse.getParsedTime());
+            timings.setResponseBytes(tcpResponse.getEncodedLength());
+        }
+        timings.mark(RenderPhase.COMPLETED);
+
+        // Get the error message if an error occurred on the render server
+        @Nullable
+        String errorMessage = tcpResponse != null ? tcpResponse.getError() : "The render server sent no response";
+
+        // check if an error occurred
+        if (errorMessage == null) {
+            renderRequest.getFuture().complete(tcpResponse.getHtml());
+        } else {
+            renderRequest.getFuture().completeExceptionally(new RenderException(errorMessage));
+        }
+    }
 }
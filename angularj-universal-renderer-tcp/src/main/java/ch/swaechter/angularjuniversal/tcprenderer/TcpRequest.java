@@ -1,16 +1,38 @@
 package ch.swaechter.angularjuniversal.tcprenderer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import org.jetbrains.annotations.NotNull;
-
-import java.util.UUID;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * TCP request representing the JSON object sent to the render server.
+ * TCP request representing the JSON object sent to the render server. A request either renders a page or, if the type
+ * is {@value #TYPE_REGISTER}, registers a template under its hash for all following requests of the connection. A
+ * request of the type {@value #TYPE_CANCEL} abandons the render with the same ID.
  *
  * @author Simon Wächter
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class TcpRequest {
 
+    /**
+     * Type of a request that registers a template.
+     */
+    @NotNull
+    public static final String TYPE_REGISTER = "register";
+
+    /**
+     * Type of a request that cancels a render.
+     */
+    @NotNull
+    public static final String TYPE_CANCEL = "cancel";
+
+    /**
+     * Type of the request or null for a render request.
+     */
+    @Nullable
+    private String type;
+
     /**
      * ID of the render request.
      */
@@ -24,11 +46,23 @@ public class TcpRequest {
     private String url = "";
 
     /**
-     * Fallback document template.
+     * Fallback document template or null if a registered template is used.
      */
-    @NotNull
+    @Nullable
     private String document = "";
 
+    /**
+     * Hash of the registered template or null if the document is sent with the request.
+     */
+    @Nullable
+    private String template;
+
+    /**
+     * Size of the encoded request in bytes, set by the encoder and not part of the request itself.
+     */
+    @JsonIgnore
+    private long encodedLength;
+
     /**
      * Default constructor for Jackson
      */
@@ -89,9 +123,9 @@ public class TcpRequest {
     /**
      * Get the fallback document template of the request.
      *
-     * @return Fallback document template of the request
+     * @return Fallback document template of the request or null if a registered template is used
      */
-    @NotNull
+    @Nullable
     public String getDocument() {
         return document;
     }
@@ -101,7 +135,113 @@ public class TcpRequest {
      *
      * @param document New fallback document template of the request
      */
-    public void setDocument(@NotNull String document) {
+    public void setDocument(@Nullable String document) {
         this.document = document;
     }
+
+    /**
+     * Get the type of the request.
+     *
+     * @return Type of the request or null for a render request
+     */
+    @Nullable
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Set the type of the request.
+     *
+     * @param type New type of the request or null for a render request
+     */
+    public void setType(@Nullable String type) {
+        this.type = type;
+    }
+
+    /**
+     * Get the hash of the registered template.
+     *
+     * @return Hash of the registered template or null if the document is sent with the request
+     */
+    @Nullable
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Set the hash of the registered template.
+     *
+     * @param template New hash of the registered template or null if the document is sent with the request
+     */
+    public void setTemplate(@Nullable String template) {
+        this.template = template;
+    }
+
+    /**
+     * Get the size of the encoded request.
+     *
+     * @return Size in bytes or 0 if the request was not encoded yet
+     */
+    @JsonIgnore
+    public long getEncodedLength() {
+        return encodedLength;
+    }
+
+    /**
+     * Set the size of the encoded request.
+     *
+     * @param encodedLength Size in bytes
+     */
+    @JsonIgnore
+    public void setEncodedLength(long encodedLength) {
+        this.encodedLength = encodedLength;
+    }
+
+    /**
+     * Create a new TCP request that renders a page with a template that was registered before.
+     *
+     * @param id       ID of the render request
+     * @param url      URL of the render request
+     * @param template Hash of the registered template
+     * @return New TCP request without document
+     */
+    @NotNull
+    public static TcpRequest withTemplate(long id, @NotNull String url, @NotNull String template) {
+        @NotNull
+        TcpRequest tcpRequest = new TcpRequest(id, url, "");
+        tcpRequest.setDocument(null);
+        tcpRequest.setTemplate(template);
+        return tcpRequest;
+    }
+
+    /**
+     * Create a new TCP request that registers a template under its hash.
+     *
+     * @param template Hash of the template
+     * @param document Content of the template
+     * @return New TCP request for the registration
+     */
+    @NotNull
+    public static TcpRequest registerTemplate(@NotNull String template, @NotNull String document) {
+        @NotNull
+        TcpRequest tcpRequest = new TcpRequest(0, "", document);
+        tcpRequest.setType(TYPE_REGISTER);
+        tcpRequest.setTemplate(template);
+        return tcpRequest;
+    }
+
+    /**
+     * Create a new TCP request that cancels a render, so the render server doesn't send its response.
+     *
+     * @param id ID of the render request
+     * @return New TCP request for the cancellation
+     */
+    @NotNull
+    public static TcpRequest cancelRender(long id) {
+        @NotNull
+        TcpRequest tcpRequest = new TcpRequest(id, "", "");
+        tcpRequest.setDocument(null);
+        tcpRequest.setType(TYPE_CANCEL);
+        return tcpRequest;
+    }
 }
@@ -1,5 +1,7 @@
 package ch.swaechter.angularjuniversal.tcprenderer;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -8,6 +10,7 @@ import org.jetbrains.annotations.Nullable;
  *
  * @author Simon Wächter
  */
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class TcpResponse {
 
     /**
@@ -28,6 +31,29 @@ public class TcpResponse {
     @Nullable
     private String error;
 
+    /**
+     * Status if the render server doesn't know the template of the request and it has to be registered again.
+     */
+    private boolean missingTemplate;
+
+    /**
+     * Time in nanoseconds of {@link System#nanoTime()} when the response was completely received or 0 if unknown.
+     */
+    @JsonIgnore
+    private long receivedTime;
+
+    /**
+     * Time in nanoseconds of {@link System#nanoTime()} when the response was parsed or 0 if unknown.
+     */
+    @JsonIgnore
+    private long parsedTime;
+
+    /**
+     * Size of the encoded response in bytes or 0 if unknown.
+     */
+    @JsonIgnore
+    private long encodedLength;
+
     /**
      * Default constructor for Jackson
      */
@@ -90,4 +116,66 @@ public class TcpResponse {
     public void setError(@Nullable String error) {
         this.error = error;
     }
+
+    /**
+     * Check if the render server doesn't know the template of the request and it has to be registered again.
+     *
+     * @return Status if the template is missing
+     */
+    public boolean isMissingTemplate() {
+        return missingTemplate;
+    }
+
+    /**
+     * Set if the render server doesn't know the template of the request.
+     *
+     * @param missingTemplate Status if the template is missing
+     */
+    public void setMissingTemplate(boolean missingTemplate) {
+        this.missingTemplate = missingTemplate;
+    }
+
+    /**
+     * Get the time when the response was completely received, set by the decoder.
+     *
+     * @return Time in nanoseconds of {@link System#nanoTime()} or 0 if unknown
+     */
+    @JsonIgnore
+    public long getReceivedTime() {
+        return receivedTime;
+    }
+
+    /**
+     * Get the time when the response was parsed, set by the decoder.
+     *
+     * @return Time in nanoseconds of {@link System#nanoTime()} or 0 if unknown
+     */
+    @JsonIgnore
+    public long getParsedTime() {
+        return parsedTime;
+    }
+
+    /**
+     * Get the size of the encoded response, set by the decoder.
+     *
+     * @return Size in bytes or 0 if unknown
+     */
+    @JsonIgnore
+    public long getEncodedLength() {
+        return encodedLength;
+    }
+
+    /**
+     * Set when the response was received and parsed and how large it was.
+     *
+     * @param receivedTime  Time in nanoseconds of {@link System#nanoTime()} when the response was completely received
+     * @param parsedTime    Time in nanoseconds of {@link System#nanoTime()} when the response was parsed
+     * @param encodedLength Size of the encoded response in bytes
+     */
+    @JsonIgnore
+    void setReception(long receivedTime, long parsedTime, long encodedLength) {
+        this.receivedTime = receivedTime;
+        this.parsedTime = parsedTime;
+        this.encodedLength = encodedLength;
+    }
 }
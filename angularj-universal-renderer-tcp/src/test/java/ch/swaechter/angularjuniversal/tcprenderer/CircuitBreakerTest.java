@@ -0,0 +1,74 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This class is responsible for testing the circuit breaker of a render server.
+ *
+ * @author Simon Wächter
+ */
+public class CircuitBreakerTest {
+
+    /**
+     * Test that the circuit breaker opens after consecutive failures, lets one trial request through per open duration
+     * and closes again after a success.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, 200);
+
+        // Failures of a render server that is still starting don't count
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        Assert.assertFalse(circuitBreaker.isOpen());
+
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        Assert.assertFalse(circuitBreaker.isOpen());
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        Assert.assertFalse(circuitBreaker.isOpen());
+        circuitBreaker.recordFailure();
+        Assert.assertTrue(circuitBreaker.isOpen());
+        Assert.assertFalse(circuitBreaker.isAvailable());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+
+        // A failed trial request keeps the circuit breaker open
+        Thread.sleep(250);
+        Assert.assertTrue(circuitBreaker.isAvailable());
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+        circuitBreaker.recordFailure();
+        Assert.assertTrue(circuitBreaker.isOpen());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+
+        // A successful trial request closes it
+        Thread.sleep(250);
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        circuitBreaker.recordSuccess();
+        Assert.assertFalse(circuitBreaker.isOpen());
+        Assert.assertTrue(circuitBreaker.allowRequest());
+        Assert.assertTrue(circuitBreaker.allowRequest());
+    }
+
+    /**
+     * Test that a tripped circuit breaker opens at once and that a disabled one never opens.
+     */
+    @Test
+    public void testTrippedCircuitBreaker() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(5, 60000);
+        circuitBreaker.trip();
+        Assert.assertTrue(circuitBreaker.isOpen());
+        Assert.assertFalse(circuitBreaker.allowRequest());
+
+        CircuitBreaker disabledCircuitBreaker = new CircuitBreaker(0, 60000);
+        disabledCircuitBreaker.recordSuccess();
+        disabledCircuitBreaker.recordFailure();
+        disabledCircuitBreaker.trip();
+        Assert.assertFalse(disabledCircuitBreaker.isOpen());
+        Assert.assertTrue(disabledCircuitBreaker.allowRequest());
+    }
+}
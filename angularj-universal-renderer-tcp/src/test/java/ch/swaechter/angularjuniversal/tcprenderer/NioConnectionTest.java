@@ -0,0 +1,165 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class provides a test to guarantee that a single I/O thread drives many pipelined requests.
+ *
+ * @author Simon Wächter
+ */
+public class NioConnectionTest {
+
+    /**
+     * Test that hundreds of requests are in flight on one connection and their responses are matched by ID in reverse
+     * order, including requests and responses larger than the direct buffers.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AsynchronousChannelGroup channelGroup = AsynchronousChannelGroup.withFixedThreadPool(1, Executors.defaultThreadFactory());
+        String largeDocument = new String(new char[100 * 1024]).replace('\0', 'x');
+        int requests = 300;
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            // Read all requests first, then answer them in reverse order
+            Thread serverThread = new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter writer = new PrintWriter(socket.getOutputStream(), false);
+                    List<JsonNode> pendingRequests = new ArrayList<>();
+                    while (pendingRequests.size() < requests) {
+                        pendingRequests.add(objectMapper.readTree(reader.readLine()));
+                    }
+                    for (int i = pendingRequests.size() - 1; i >= 0; i--) {
+                        TcpResponse response = new TcpResponse();
+                        response.setId(pendingRequests.get(i).get("id").asLong());
+                        response.setHtml(pendingRequests.get(i).get("url").asText() + ":" + pendingRequests.get(i).get("document").asText().length());
+                        writer.println(objectMapper.writeValueAsString(response));
+                    }
+                    writer.flush();
+                    reader.readLine();
+                } catch (Exception exception) {
+                    // Connection closed by the client
+                }
+            });
+            serverThread.start();
+
+            NioConnection connection = new NioConnection("localhost", serverSocket.getLocalPort(), channelGroup, new TcpCodec(WireFormat.JSON));
+            List<CompletableFuture<TcpResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                String document = i % 100 == 0 ? largeDocument : "<app-root></app-root>";
+                futures.add(connection.send(new TcpRequest(i, "/page" + i, document)));
+            }
+
+            for (int i = 0; i < requests; i++) {
+                TcpResponse response = futures.get(i).get();
+                int length = i % 100 == 0 ? largeDocument.length() : "<app-root></app-root>".length();
+                Assert.assertEquals(Long.valueOf(i), response.getId());
+                Assert.assertEquals("/page" + i + ":" + length, response.getHtml());
+            }
+
+            // Pending requests fail as soon the connection is closed
+            CompletableFuture<TcpResponse> pendingFuture = connection.send(new TcpRequest(1000, "/", ""));
+            connection.close();
+            Assert.assertFalse(connection.isUsable());
+            try {
+                pendingFuture.get();
+                Assert.fail("The pending request should fail");
+            } catch (ExecutionException exception) {
+                Assert.assertTrue(pendingFuture.isCompletedExceptionally());
+            }
+            serverThread.join();
+        } finally {
+            channelGroup.shutdownNow();
+        }
+    }
+
+    /**
+     * Test that requests sent by many threads at the same time are all written, even if they are serialized while
+     * another thread finishes a write.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AsynchronousChannelGroup channelGroup = AsynchronousChannelGroup.withFixedThreadPool(1, Executors.defaultThreadFactory());
+        int threads = 8;
+        int requestsPerThread = 2000;
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            // Answer each request as soon it was received
+            Thread serverThread = new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        TcpResponse response = new TcpResponse();
+                        response.setId(objectMapper.readTree(line).get("id").asLong());
+                        response.setHtml("");
+                        writer.println(objectMapper.writeValueAsString(response));
+                    }
+                } catch (Exception exception) {
+                    // Connection closed by the client
+                }
+            });
+            serverThread.start();
+
+            NioConnection connection = new NioConnection("localhost", serverSocket.getLocalPort(), channelGroup, new TcpCodec(WireFormat.JSON));
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            Queue<CompletableFuture<TcpResponse>> futures = new ConcurrentLinkedQueue<>();
+            List<Thread> writerThreads = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread * requestsPerThread;
+                writerThreads.add(new Thread(() -> {
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < requestsPerThread; i++) {
+                            futures.add(connection.send(new TcpRequest(offset + i, "/", "")));
+                        }
+                    } catch (Exception exception) {
+                        throw new IllegalStateException(exception);
+                    }
+                }));
+            }
+            writerThreads.forEach(Thread::start);
+            for (Thread writerThread : writerThreads) {
+                writerThread.join();
+            }
+
+            Assert.assertEquals(threads * requestsPerThread, futures.size());
+            for (CompletableFuture<TcpResponse> future : futures) {
+                Assert.assertNotNull(future.get(10, TimeUnit.SECONDS));
+            }
+
+            connection.close();
+            serverThread.join();
+        } finally {
+            channelGroup.shutdownNow();
+        }
+    }
+}
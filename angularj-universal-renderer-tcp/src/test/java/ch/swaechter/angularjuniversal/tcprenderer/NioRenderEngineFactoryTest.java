@@ -0,0 +1,24 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngineFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This class provides a test to guarantee the asynchronous factory functionality.
+ *
+ * @author Simon Wächter
+ */
+public class NioRenderEngineFactoryTest {
+
+    /**
+     * Test the render engine factory functionality.
+     */
+    @Test
+    public void testRenderEngineFactory() {
+        RenderEngineFactory renderEngineFactory = new NioRenderEngineFactory(1);
+        RenderEngine renderEngine = renderEngineFactory.createRenderEngine();
+        Assert.assertEquals(NioRenderEngine.class.getName(), renderEngine.getClass().getName());
+    }
+}
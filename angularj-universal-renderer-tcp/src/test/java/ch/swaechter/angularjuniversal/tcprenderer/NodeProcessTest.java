@@ -0,0 +1,175 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This class is responsible for testing the supervision and the readiness of the Node.js process. Shell scripts stand
+ * in for the render server.
+ *
+ * @author Simon Wächter
+ */
+public class NodeProcessTest {
+
+    /**
+     * Test that a crashed process is restarted and reported with its exit code, and that a closed process is not
+     * restarted anymore.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testNodeProcessRestart() throws Exception {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+        File serverBundleFile = File.createTempFile("crashing", ".sh");
+        serverBundleFile.deleteOnExit();
+        Files.write(serverBundleFile.toPath(), "exit 3\n".getBytes(StandardCharsets.UTF_8));
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("/bin/sh", 9090, serverBundleFile, "<app-root></app-root>").build();
+
+        AtomicInteger exits = new AtomicInteger();
+        NodeProcess nodeProcess = new NodeProcess(renderConfiguration, exits::incrementAndGet, () -> {
+        });
+        long deadline = System.currentTimeMillis() + 10000;
+        while (nodeProcess.getRestartCount() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        nodeProcess.close();
+        Assert.assertTrue(nodeProcess.getRestartCount() >= 2);
+        Assert.assertTrue(exits.get() >= 2);
+        Assert.assertEquals(Integer.valueOf(3), nodeProcess.getLastExitCode());
+        Assert.assertEquals(0, nodeProcess.getFailedRestartCount());
+
+        long restarts = nodeProcess.getRestartCount();
+        Thread.sleep(1500);
+        Assert.assertEquals(restarts, nodeProcess.getRestartCount());
+        Assert.assertFalse(nodeProcess.isAlive());
+    }
+
+    /**
+     * Test that a process is ready as soon it printed the ready line and not anymore after it was closed, and that its
+     * other output is passed to the Node.js output consumer.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testNodeProcessReadyLine() throws Exception {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+        List<String> output = new CopyOnWriteArrayList<>();
+        RenderConfiguration renderConfiguration = createRenderConfiguration(getFreePort(), "echo starting\necho " + NodeProcess.READY_LINE + "\nexec sleep 30\n", output::add);
+
+        AtomicInteger readies = new AtomicInteger();
+        try (NodeProcess nodeProcess = new NodeProcess(renderConfiguration, () -> {
+        }, readies::incrementAndGet)) {
+            awaitReady(nodeProcess);
+            Assert.assertTrue(nodeProcess.isReady());
+            Assert.assertEquals(1, readies.get());
+            Assert.assertEquals(Collections.singletonList("starting"), output);
+            nodeProcess.close();
+            Assert.assertFalse(nodeProcess.isReady());
+        }
+    }
+
+    /**
+     * Test that a process that doesn't print the ready line is ready as soon its port accepts connections.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testNodeProcessProbe() throws Exception {
+        Assume.assumeTrue(new File("/bin/sh").canExecute());
+        try (ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getByName(TcpRenderEngine.NODE_HOST))) {
+            RenderConfiguration renderConfiguration = createRenderConfiguration(serverSocket.getLocalPort(), "exec sleep 30\n");
+
+            AtomicInteger readies = new AtomicInteger();
+            try (NodeProcess nodeProcess = new NodeProcess(renderConfiguration, () -> {
+            }, readies::incrementAndGet)) {
+                awaitReady(nodeProcess);
+                Assert.assertTrue(nodeProcess.isReady());
+                Assert.assertEquals(1, readies.get());
+            }
+        }
+    }
+
+    /**
+     * Test that an external render server is neither started nor supervised.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testExternalNodeProcess() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("missing-node", 9090, new File("server.js"), "<app-root></app-root>").externalRenderServer(true).build();
+        try (NodeProcess nodeProcess = new NodeProcess(renderConfiguration)) {
+            Assert.assertTrue(nodeProcess.isAlive());
+            Assert.assertTrue(nodeProcess.isReady());
+            Assert.assertEquals(0, nodeProcess.getRestartCount());
+        }
+    }
+
+    /**
+     * Create a render configuration that runs the given shell script as server bundle.
+     *
+     * @param nodePort Port of the render server
+     * @param script   Content of the shell script
+     * @return Render configuration
+     * @throws IOException Exception in case the script can't be written
+     */
+    private static RenderConfiguration createRenderConfiguration(int nodePort, String script) throws IOException {
+        return createRenderConfiguration(nodePort, script, line -> {
+        });
+    }
+
+    /**
+     * Create a render configuration that runs the given shell script as server bundle and passes its output to the
+     * given consumer.
+     *
+     * @param nodePort   Port of the render server
+     * @param script     Content of the shell script
+     * @param nodeOutput Consumer of the output of the shell script
+     * @return Render configuration
+     * @throws IOException Exception in case the script can't be written
+     */
+    private static RenderConfiguration createRenderConfiguration(int nodePort, String script, Consumer<String> nodeOutput) throws IOException {
+        File serverBundleFile = File.createTempFile("server", ".sh");
+        serverBundleFile.deleteOnExit();
+        Files.write(serverBundleFile.toPath(), script.getBytes(StandardCharsets.UTF_8));
+        return new RenderConfiguration.RenderConfigurationBuilder("/bin/sh", nodePort, serverBundleFile, "<app-root></app-root>").nodeOutput(nodeOutput).build();
+    }
+
+    /**
+     * Get a port that is not in use at the moment.
+     *
+     * @return Free port
+     * @throws IOException Exception in case no port is free
+     */
+    private static int getFreePort() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    /**
+     * Wait up to ten seconds until the process is ready.
+     *
+     * @param nodeProcess Process to wait for
+     * @throws InterruptedException Exception in case the thread was interrupted
+     */
+    private static void awaitReady(NodeProcess nodeProcess) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!nodeProcess.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class provides a test to guarantee that all wire formats encode and decode the messages.
+ *
+ * @author Simon Wächter
+ */
+public class TcpCodecTest {
+
+    /**
+     * Test that responses of all wire formats are decoded, even if they arrive in single bytes.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testResponseDecoding() throws Exception {
+        String html = "<p>Hallo Welt! Здравствуй, мир! \"quoted\"\n</p>";
+        for (WireFormat wireFormat : WireFormat.values()) {
+            TcpCodec codec = new TcpCodec(wireFormat);
+
+            TcpResponse response1 = new TcpResponse();
+            response1.setId(1L);
+            response1.setHtml(html);
+            TcpResponse response2 = new TcpResponse();
+            response2.setId(Long.MAX_VALUE);
+            response2.setError("Unknown template");
+            response2.setMissingTemplate(true);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] encodedResponse1 = codec.encode(response1);
+            outputStream.write(encodedResponse1);
+            outputStream.write(codec.encode(response2));
+            byte[] data = outputStream.toByteArray();
+
+            // Decode everything at once and byte by byte
+            for (int chunkSize : new int[]{data.length, 1}) {
+                TcpCodec.Decoder decoder = codec.createDecoder();
+                List<TcpResponse> responses = new ArrayList<>();
+                for (int offset = 0; offset < data.length; offset += chunkSize) {
+                    decoder.decode(data, offset, Math.min(chunkSize, data.length - offset), responses::add);
+                }
+
+                Assert.assertEquals(wireFormat.name(), 2, responses.size());
+                Assert.assertEquals(Long.valueOf(1), responses.get(0).getId());
+                Assert.assertEquals(html, responses.get(0).getHtml());
+                Assert.assertNull(responses.get(0).getError());
+                Assert.assertEquals(Long.valueOf(Long.MAX_VALUE), responses.get(1).getId());
+                Assert.assertNull(responses.get(1).getHtml());
+                Assert.assertEquals("Unknown template", responses.get(1).getError());
+                Assert.assertTrue(responses.get(1).isMissingTemplate());
+
+                // The decoder records the reception of each response
+                Assert.assertEquals(encodedResponse1.length, responses.get(0).getEncodedLength());
+                Assert.assertEquals(data.length - encodedResponse1.length, responses.get(1).getEncodedLength());
+                Assert.assertTrue(responses.get(0).getReceivedTime() != 0);
+                Assert.assertTrue(responses.get(0).getParsedTime() - responses.get(0).getReceivedTime() >= 0);
+            }
+        }
+    }
+
+    /**
+     * Test that the encoder sets the encoded length of each request in all wire formats.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testEncodedLength() throws Exception {
+        for (WireFormat wireFormat : WireFormat.values()) {
+            TcpCodec.Encoder encoder = new TcpCodec(wireFormat).createEncoder();
+            for (TcpRequest tcpRequest : Arrays.asList(new TcpRequest(1, "/home", "<app-root>Grüezi</app-root>"), TcpRequest.withTemplate(2, "/", "hash"))) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                encoder.encode(tcpRequest, outputStream);
+                Assert.assertEquals(wireFormat.name(), outputStream.size(), tcpRequest.getEncodedLength());
+            }
+        }
+    }
+
+    /**
+     * Test that a framed request carries the document as raw UTF-8 body and not in its metadata.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testFramedRequestEncoding() throws Exception {
+        String document = "<app-root>Здравствуй</app-root>";
+        byte[] frame = new TcpCodec(WireFormat.FRAMED_CBOR).encode(new TcpRequest(42, "/home", document));
+
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        int metadataLength = buffer.getInt();
+        int bodyLength = buffer.getInt();
+        Assert.assertEquals(frame.length, 8 + metadataLength + bodyLength);
+
+        JsonNode metadata = new ObjectMapper(new CBORFactory()).readTree(Arrays.copyOfRange(frame, 8, 8 + metadataLength));
+        Assert.assertEquals(42, metadata.get("id").asLong());
+        Assert.assertEquals("/home", metadata.get("url").asText());
+        Assert.assertFalse(metadata.has("document"));
+        Assert.assertEquals(document, new String(frame, 8 + metadataLength, bodyLength, StandardCharsets.UTF_8));
+
+        // A request with a registered template has no body at all
+        byte[] templateFrame = new TcpCodec(WireFormat.FRAMED_JSON).encode(TcpRequest.withTemplate(43, "/", "hash"));
+        ByteBuffer templateBuffer = ByteBuffer.wrap(templateFrame);
+        int templateMetadataLength = templateBuffer.getInt();
+        Assert.assertEquals(-1, templateBuffer.getInt());
+        JsonNode templateMetadata = new ObjectMapper().readTree(new String(templateFrame, 8, templateMetadataLength, StandardCharsets.UTF_8));
+        Assert.assertEquals("hash", templateMetadata.get("template").asText());
+    }
+
+    /**
+     * Test that the streamed UTF-8 body matches the encoding of the JDK, also across the chunk boundaries.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testUtf8Encoding() throws Exception {
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 5000; index++) {
+            builder.append("a\u00e4\u20ac\ud83d\ude00");
+        }
+        builder.append('\ud800');
+        String document = builder.toString();
+        byte[] expected = document.getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(expected.length, TcpCodec.getUtf8Length(document));
+
+        TcpCodec.Encoder encoder = new TcpCodec(WireFormat.FRAMED_JSON).createEncoder();
+        for (int round = 0; round < 2; round++) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            encoder.encode(new TcpRequest(round, "/", document), outputStream);
+            byte[] frame = outputStream.toByteArray();
+            int metadataLength = ByteBuffer.wrap(frame).getInt();
+            Assert.assertArrayEquals(expected, Arrays.copyOfRange(frame, 8 + metadataLength, frame.length));
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class provides a test to guarantee the connection pool functionality against a simple echo server.
+ *
+ * @author Simon Wächter
+ */
+public class TcpConnectionPoolTest {
+
+    /**
+     * Object mapper used by the echo server and the pool.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Number of accepted connections of the echo server.
+     */
+    private final AtomicInteger acceptedConnections = new AtomicInteger();
+
+    /**
+     * Server socket of the echo server.
+     */
+    private ServerSocket serverSocket;
+
+    /**
+     * Start an echo server that answers each request line with the requested URL as HTML.
+     *
+     * @throws IOException Exception in case of a problem
+     */
+    @Before
+    public void startServer() throws IOException {
+        serverSocket = new ServerSocket(0);
+        Thread serverThread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    acceptedConnections.incrementAndGet();
+                    new Thread(() -> handleConnection(socket)).start();
+                } catch (IOException exception) {
+                    return;
+                }
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    /**
+     * Stop the echo server.
+     *
+     * @throws IOException Exception in case of a problem
+     */
+    @After
+    public void stopServer() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Test that connections are reused, limited and evicted.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testConnectionPool() throws Exception {
+        TcpConnectionPool connectionPool = new TcpConnectionPool("localhost", serverSocket.getLocalPort(), 1, 2, 1, 1, new TcpCodec(WireFormat.JSON));
+
+        // Reuse the same connection for several requests
+        for (int i = 0; i < 5; i++) {
+            TcpConnection connection = connectionPool.borrowConnection();
+            TcpResponse response = connection.render(new TcpRequest(i, "/page" + i, "<app-root></app-root>"));
+            Assert.assertEquals(Long.valueOf(i), response.getId());
+            Assert.assertEquals("/page" + i, response.getHtml());
+            connectionPool.releaseConnection(connection);
+        }
+        Assert.assertEquals(1, acceptedConnections.get());
+        Assert.assertEquals(1, connectionPool.getOpenConnections());
+
+        // Open a second connection on demand
+        TcpConnection connection1 = connectionPool.borrowConnection();
+        TcpConnection connection2 = connectionPool.borrowConnection();
+        Assert.assertNotSame(connection1, connection2);
+        Assert.assertEquals(2, connectionPool.getOpenConnections());
+        connectionPool.releaseConnection(connection1);
+        connectionPool.releaseConnection(connection2);
+
+        // Evict the idle connection above the minimum size
+        Thread.sleep(10);
+        connectionPool.maintain();
+        Assert.assertEquals(1, connectionPool.getOpenConnections());
+        Assert.assertEquals(1, connectionPool.getIdleConnections());
+
+        connectionPool.close();
+        Assert.assertEquals(0, connectionPool.getOpenConnections());
+    }
+
+    /**
+     * Test that a connection carries several requests up to the pipeline depth before a new one is opened.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testPipelinedConnectionPool() throws Exception {
+        TcpConnectionPool connectionPool = new TcpConnectionPool("localhost", serverSocket.getLocalPort(), 0, 2, 3, 60000, new TcpCodec(WireFormat.JSON));
+
+        TcpConnection connection1 = connectionPool.borrowConnection();
+        TcpConnection connection2 = connectionPool.borrowConnection();
+        Assert.assertNotSame(connection1, connection2);
+        for (int i = 0; i < 4; i++) {
+            TcpConnection connection = connectionPool.borrowConnection();
+            Assert.assertTrue(connection == connection1 || connection == connection2);
+        }
+        Assert.assertEquals(2, connectionPool.getOpenConnections());
+        Assert.assertEquals(6, connectionPool.getRequestsInFlight());
+
+        for (int i = 0; i < 3; i++) {
+            connectionPool.releaseConnection(connection1);
+            connectionPool.releaseConnection(connection2);
+        }
+        Assert.assertEquals(0, connectionPool.getRequestsInFlight());
+        Assert.assertTrue(connectionPool.awaitRequestsInFlight(1));
+        connectionPool.close();
+    }
+
+    /**
+     * Answer all requests of the connection.
+     *
+     * @param socket Socket of the connection
+     */
+    private void handleConnection(Socket socket) {
+        try (Socket client = socket) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter writer = new PrintWriter(client.getOutputStream(), true);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JsonNode request = objectMapper.readTree(line);
+                TcpResponse response = new TcpResponse();
+                response.setId(request.get("id").asLong());
+                response.setHtml(request.get("url").asText());
+                writer.println(objectMapper.writeValueAsString(response));
+                writer.flush();
+            }
+        } catch (IOException exception) {
+            // Connection closed by the client
+        }
+    }
+}
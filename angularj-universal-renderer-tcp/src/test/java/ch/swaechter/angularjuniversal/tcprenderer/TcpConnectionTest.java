@@ -0,0 +1,186 @@
+package ch.swaechter.angularjuniversal.tcprenderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class provides a test to guarantee that pipelined responses are matched to their requests.
+ *
+ * @author Simon Wächter
+ */
+public class TcpConnectionTest {
+
+    /**
+     * Test that several requests are sent back-to-back and their responses are matched by ID in reverse order.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        int requests = 5;
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            // Read all requests first, then answer them in reverse order
+            Thread serverThread = new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+                    List<JsonNode> pendingRequests = new ArrayList<>();
+                    while (pendingRequests.size() < requests) {
+                        pendingRequests.add(objectMapper.readTree(reader.readLine()));
+                    }
+                    for (int i = pendingRequests.size() - 1; i >= 0; i--) {
+                        TcpResponse response = new TcpResponse();
+                        response.setId(pendingRequests.get(i).get("id").asLong());
+                        response.setHtml("<p>" + pendingRequests.get(i).get("url").asText() + "</p>");
+                        writer.println(objectMapper.writeValueAsString(response));
+                    }
+                    reader.readLine();
+                } catch (Exception exception) {
+                    // Connection closed by the client
+                }
+            });
+            serverThread.start();
+
+            TcpConnection connection = new TcpConnection("localhost", serverSocket.getLocalPort(), new TcpCodec(WireFormat.JSON));
+            List<CompletableFuture<TcpResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                futures.add(connection.send(new TcpRequest(100 + i, "/page" + i, "<app-root></app-root>")));
+            }
+
+            for (int i = 0; i < requests; i++) {
+                TcpResponse response = futures.get(i).get();
+                Assert.assertEquals(Long.valueOf(100 + i), response.getId());
+                Assert.assertEquals("<p>/page" + i + "</p>", response.getHtml());
+            }
+
+            // Pending requests fail as soon the connection is closed
+            CompletableFuture<TcpResponse> pendingFuture = connection.send(new TcpRequest(200, "/", ""));
+            connection.close();
+            Assert.assertFalse(connection.isUsable());
+            try {
+                pendingFuture.get();
+                Assert.fail("The pending request should fail");
+            } catch (ExecutionException exception) {
+                Assert.assertTrue(pendingFuture.isCompletedExceptionally());
+            }
+            serverThread.join();
+        }
+    }
+
+    /**
+     * Test that a template is registered only once per connection and again after it was forgotten.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testTemplateRegistration() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<JsonNode> receivedMessages = new ArrayList<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            // Answer each render request with the template hash it refers to
+            Thread serverThread = new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter writer = new PrintWriter(socket.getOutputStream(), true);
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        JsonNode message = objectMapper.readTree(line);
+                        synchronized (receivedMessages) {
+                            receivedMessages.add(message);
+                        }
+                        if (!message.has("type")) {
+                            TcpResponse response = new TcpResponse();
+                            response.setId(message.get("id").asLong());
+                            response.setHtml(message.get("template").asText());
+                            writer.println(objectMapper.writeValueAsString(response));
+                        }
+                    }
+                } catch (Exception exception) {
+                    // Connection closed by the client
+                }
+            });
+            serverThread.start();
+
+            TcpConnection connection = new TcpConnection("localhost", serverSocket.getLocalPort(), new TcpCodec(WireFormat.JSON));
+            for (int i = 0; i < 3; i++) {
+                connection.ensureTemplate("hash", "<app-root></app-root>");
+                Assert.assertEquals("hash", connection.render(TcpRequest.withTemplate(i, "/page" + i, "hash")).getHtml());
+            }
+            connection.forgetTemplate("hash");
+            connection.ensureTemplate("hash", "<app-root></app-root>");
+            Assert.assertEquals("hash", connection.render(TcpRequest.withTemplate(3, "/page3", "hash")).getHtml());
+            connection.close();
+            serverThread.join();
+        }
+
+        Assert.assertEquals(6, receivedMessages.size());
+        Assert.assertEquals(TcpRequest.TYPE_REGISTER, receivedMessages.get(0).get("type").asText());
+        Assert.assertEquals("<app-root></app-root>", receivedMessages.get(0).get("document").asText());
+        Assert.assertFalse(receivedMessages.get(1).has("document"));
+        Assert.assertEquals("hash", receivedMessages.get(1).get("template").asText());
+        Assert.assertEquals(TcpRequest.TYPE_REGISTER, receivedMessages.get(4).get("type").asText());
+    }
+
+    /**
+     * Test that a cancelled request fails at once and the render server is told to cancel it.
+     *
+     * @throws Exception Exception in case of a problem
+     */
+    @Test
+    public void testCancelledRequest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CompletableFuture<JsonNode> cancelMessage = new CompletableFuture<>();
+
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            // Never answer a render request, only record the cancellation
+            Thread serverThread = new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        JsonNode message = objectMapper.readTree(line);
+                        if (message.has("type")) {
+                            cancelMessage.complete(message);
+                        }
+                    }
+                } catch (Exception exception) {
+                    // Connection closed by the client
+                }
+            });
+            serverThread.start();
+
+            TcpConnection connection = new TcpConnection("localhost", serverSocket.getLocalPort(), new TcpCodec(WireFormat.JSON));
+            CompletableFuture<TcpResponse> future = connection.send(new TcpRequest(300, "/slow", "<app-root></app-root>"));
+            connection.cancel(300);
+            Assert.assertTrue(future.isCancelled());
+
+            JsonNode message = cancelMessage.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(TcpRequest.TYPE_CANCEL, message.get("type").asText());
+            Assert.assertEquals(300, message.get("id").asLong());
+            Assert.assertFalse(message.has("document"));
+
+            // The connection stays usable
+            Assert.assertTrue(connection.isUsable());
+            connection.close();
+            serverThread.join();
+        }
+    }
+}
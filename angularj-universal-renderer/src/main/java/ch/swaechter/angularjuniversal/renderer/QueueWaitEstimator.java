@@ -0,0 +1,73 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class estimates how long a new render request has to wait before a render engine picks it up. It keeps a moving
+ * average of the time between two completed renders while the render engines are busy, which already includes the
+ * number of renders in parallel. Following Little's law, a request that is queued behind n other requests waits about
+ * n times this interval. Idle times are not counted, so a quiet period doesn't make the estimate too optimistic.
+ *
+ * @author Simon Wächter
+ */
+class QueueWaitEstimator {
+
+    /**
+     * Weight of the newest interval in the moving average.
+     */
+    private static final double SMOOTHING_FACTOR = 0.2;
+
+    /**
+     * Number of render requests that were passed to a render engine but are not completed yet.
+     */
+    private int rendersInProgress;
+
+    /**
+     * Time in nanoseconds of the last completed render or of the start of the current busy period.
+     */
+    private long lastCompletion;
+
+    /**
+     * Moving average of the time in nanoseconds between two completed renders or 0 if nothing was measured yet.
+     */
+    private double averageInterval;
+
+    /**
+     * Record a render request that was passed to a render engine.
+     */
+    synchronized void renderStarted() {
+        if (rendersInProgress++ == 0) {
+            lastCompletion = System.nanoTime();
+        }
+    }
+
+    /**
+     * Record a render request whose render completed, failed or was abandoned.
+     */
+    synchronized void renderCompleted() {
+        long now = System.nanoTime();
+        long interval = now - lastCompletion;
+        averageInterval = averageInterval == 0 ? interval : averageInterval + SMOOTHING_FACTOR * (interval - averageInterval);
+        lastCompletion = now;
+        rendersInProgress--;
+    }
+
+    /**
+     * Get the number of render requests that were passed to a render engine but are not completed yet.
+     *
+     * @return Number of renders in progress
+     */
+    synchronized int getRendersInProgress() {
+        return rendersInProgress;
+    }
+
+    /**
+     * Estimate the wait of a new render request that is queued behind the given number of requests.
+     *
+     * @param queuedRequests Number of render requests that are waiting for a render engine
+     * @return Estimated wait in milliseconds
+     */
+    synchronized long estimateWait(int queuedRequests) {
+        return TimeUnit.NANOSECONDS.toMillis((long) ((queuedRequests + 1) * averageInterval));
+    }
+}
@@ -0,0 +1,185 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This class represents the bounded queue of the render requests that wait for a render engine, with one first-in
+ * first-out queue per priority class. The requests are taken in smooth weighted round robin order: Each waiting class
+ * earns its weight on every take and the class with the most credit is served and pays the weights of all waiting
+ * classes. This interleaves the classes according to their weights, while a class without waiting requests doesn't
+ * earn credit and leaves its share to the others.
+ *
+ * @author Simon Wächter
+ */
+class RenderQueue {
+
+    /**
+     * Maximum number of queued render requests over all priority classes.
+     */
+    private final int capacity;
+
+    /**
+     * Queued render requests of each priority class, guarded by the render queue.
+     */
+    @NotNull
+    private final Map<RenderPriority, ArrayDeque<RenderRequest>> queues = new EnumMap<>(RenderPriority.class);
+
+    /**
+     * Current credit of each priority class, guarded by the render queue.
+     */
+    @NotNull
+    private final int[] credits = new int[RenderPriority.values().length];
+
+    /**
+     * Number of queued render requests over all priority classes.
+     */
+    private int size;
+
+    /**
+     * Status if the render queue was closed and the consumer stops as soon the queue is empty.
+     */
+    private boolean closed;
+
+    /**
+     * Create a new render queue with the given capacity.
+     *
+     * @param capacity Maximum number of queued render requests or 0 for no limit
+     */
+    RenderQueue(int capacity) {
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+        for (RenderPriority priority : RenderPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Queue a render request in the queue of its priority class, unless the render queue is full.
+     *
+     * @param renderRequest Render request to queue
+     * @return Status if the render request was queued
+     */
+    synchronized boolean offer(@NotNull RenderRequest renderRequest) {
+        if (size >= capacity) {
+            return false;
+        }
+        queues.get(renderRequest.getPriority()).add(renderRequest);
+        size++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Take the next render request in weighted round robin order. This blocks as long the queue is empty and open.
+     *
+     * @return Next render request or an empty optional as soon the queue is closed and empty
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    @NotNull
+    synchronized Optional<RenderRequest> take() throws InterruptedException {
+        while (size == 0) {
+            if (closed) {
+                closed = false;
+                notifyAll();
+                return Optional.empty();
+            }
+            wait();
+        }
+
+        int totalWeight = 0;
+        @Nullable
+        RenderPriority selectedPriority = null;
+        for (RenderPriority priority : RenderPriority.values()) {
+            if (queues.get(priority).isEmpty()) {
+                continue;
+            }
+            credits[priority.ordinal()] += priority.getWeight();
+            totalWeight += priority.getWeight();
+            if (selectedPriority == null || credits[priority.ordinal()] > credits[selectedPriority.ordinal()]) {
+                selectedPriority = priority;
+            }
+        }
+
+        credits[selectedPriority.ordinal()] -= totalWeight;
+        @NotNull
+        RenderRequest renderRequest = queues.get(selectedPriority).poll();
+        size--;
+        if (queues.get(selectedPriority).isEmpty()) {
+            // An idle class starts over, so it can't save credit for a later burst
+            credits[selectedPriority.ordinal()] = 0;
+        }
+        return Optional.of(renderRequest);
+    }
+
+    /**
+     * Close the render queue, so the consumer receives an empty optional as soon all queued requests were taken. The
+     * queue opens again afterwards.
+     */
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    /**
+     * Wait until the consumer took all queued requests and noticed the closed queue.
+     *
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    synchronized void awaitClosed() throws InterruptedException {
+        while (closed) {
+            wait();
+        }
+    }
+
+    /**
+     * Wait until the consumer took all queued requests and noticed the closed queue, but not longer than the timeout.
+     *
+     * @param timeout Maximum time to wait in milliseconds
+     * @return Status if the consumer noticed the closed queue in time
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    synchronized boolean awaitClosed(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (closed) {
+            long remainingTime = deadline - System.currentTimeMillis();
+            if (remainingTime <= 0) {
+                return false;
+            }
+            wait(remainingTime);
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of queued render requests over all priority classes.
+     *
+     * @return Number of queued render requests
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of queued render requests that are served before or alongside a request of the given priority
+     * class, which are the requests of the same or a higher priority class.
+     *
+     * @param priority Priority class of the new request
+     * @return Number of queued render requests ahead
+     */
+    synchronized int sizeAhead(@NotNull RenderPriority priority) {
+        int sizeAhead = 0;
+        for (RenderPriority otherPriority : RenderPriority.values()) {
+            if (otherPriority.ordinal() <= priority.ordinal()) {
+                sizeAhead += queues.get(otherPriority).size();
+            }
+        }
+        return sizeAhead;
+    }
+}
@@ -0,0 +1,31 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+/**
+ * This enum represents the outcome of the start of the renderer. The renderer takes traffic after every start, but only
+ * a ready renderer has render engines that are ready and warmed up. Otherwise the render requests are answered with the
+ * template as long no render engine is available.
+ *
+ * @author Simon Wächter
+ */
+public enum RenderStartStatus {
+
+    /**
+     * All render engines became ready and finished the warm-up, if one is configured.
+     */
+    READY,
+
+    /**
+     * The render engines didn't become ready within the ready timeout or the start was interrupted.
+     */
+    NOT_READY,
+
+    /**
+     * The render engines became ready, but didn't finish the warm-up within the ready timeout.
+     */
+    WARM_UP_INCOMPLETE,
+
+    /**
+     * A render engine terminated before it became ready, for example because its Node.js process couldn't be started.
+     */
+    ENGINE_TERMINATED
+}
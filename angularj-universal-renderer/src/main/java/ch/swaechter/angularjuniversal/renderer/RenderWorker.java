@@ -0,0 +1,191 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * This class represents a single render engine of the renderer with its own request queue, configuration and thread.
+ * The worker keeps track of the number of outstanding render requests, so the renderer is able to pass new requests
+ * to the least loaded worker.
+ *
+ * @author Simon Wächter
+ */
+class RenderWorker {
+
+    /**
+     * Render engine of the worker.
+     */
+    @NotNull
+    private final RenderEngine renderEngine;
+
+    /**
+     * Render configuration of the worker with its own Node.js port.
+     */
+    @NotNull
+    private final RenderConfiguration renderConfiguration;
+
+    /**
+     * Queue with all render requests that were passed to this worker.
+     */
+    @NotNull
+    private final BlockingQueue<Optional<RenderRequest>> renderRequests;
+
+    /**
+     * Render requests that were passed to this worker but are neither completed nor handed off to another worker yet.
+     */
+    @NotNull
+    private final Set<RenderRequest> outstandingRequests;
+
+    /**
+     * Thread the render engine is working in.
+     */
+    @NotNull
+    private final Thread engineThread;
+
+    /**
+     * Status if the render engine was told to shut down, guarded by the worker.
+     */
+    private boolean stopped;
+
+    /**
+     * Create a new worker for the given render engine and render configuration.
+     *
+     * @param renderEngine        Render engine of the worker
+     * @param renderConfiguration Render configuration of the worker
+     * @param index               Index of the worker, used to name the thread
+     */
+    RenderWorker(@NotNull RenderEngine renderEngine, @NotNull RenderConfiguration renderConfiguration, int index) {
+        this.renderEngine = renderEngine;
+        this.renderConfiguration = renderConfiguration;
+        this.renderRequests = new LinkedBlockingDeque<>();
+        this.outstandingRequests = ConcurrentHashMap.newKeySet();
+        this.engineThread = new Thread(() -> renderEngine.startWorking(renderRequests, renderConfiguration), "angularj-universal-engine-" + index);
+    }
+
+    /**
+     * Start the render engine of the worker.
+     */
+    void start() {
+        engineThread.start();
+    }
+
+    /**
+     * Pass a render request to the worker, unless the worker was already stopped. The request counts as outstanding
+     * until its future is completed or it is handed off to another worker.
+     *
+     * @param renderRequest Render request that will be rendered by this worker
+     * @return Status if the worker accepted the render request
+     */
+    synchronized boolean addRenderRequest(@NotNull RenderRequest renderRequest) {
+        if (stopped) {
+            return false;
+        }
+        outstandingRequests.add(renderRequest);
+        renderRequest.getFuture().whenComplete((content, throwable) -> outstandingRequests.remove(renderRequest));
+        renderRequests.add(Optional.of(renderRequest));
+        return true;
+    }
+
+    /**
+     * Stop counting a render request as outstanding, because the render engine of the worker failed it and it is
+     * retried on another worker.
+     *
+     * @param renderRequest Render request that is handed off
+     */
+    void handOffRenderRequest(@NotNull RenderRequest renderRequest) {
+        outstandingRequests.remove(renderRequest);
+    }
+
+    /**
+     * Tell the render engine of the worker to shut down as soon all previous requests were handled. Following render
+     * requests are not accepted anymore.
+     */
+    synchronized void stop() {
+        if (!stopped) {
+            stopped = true;
+            renderRequests.add(Optional.empty());
+        }
+    }
+
+    /**
+     * Wait until the render engine of the worker finished working. If it is still working after the timeout, its
+     * thread is interrupted, which makes a render engine that waits for requests or connections give up.
+     *
+     * @param timeout Maximum time to wait in milliseconds
+     * @return Status if the render engine finished working in time
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    boolean awaitTermination(long timeout) throws InterruptedException {
+        engineThread.join(Math.max(1, timeout));
+        if (engineThread.isAlive()) {
+            engineThread.interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of render requests that were passed to this worker but are neither completed nor handed off yet.
+     *
+     * @return Number of outstanding render requests
+     */
+    int getOutstandingRequests() {
+        return outstandingRequests.size();
+    }
+
+    /**
+     * Check if the render engine of the worker is able to render at the moment. A render engine whose thread
+     * terminated, for example because its start failed, is never available.
+     *
+     * @return Status of the check
+     */
+    boolean isAvailable() {
+        return engineThread.isAlive() && renderEngine.isAvailable();
+    }
+
+    /**
+     * Check if the thread of the render engine was started and is still working.
+     *
+     * @return Status of the check
+     */
+    boolean isAlive() {
+        return engineThread.isAlive();
+    }
+
+    /**
+     * Check if the render engine of the worker finished its start and accepts render requests.
+     *
+     * @return Status of the check
+     */
+    boolean isReady() {
+        return renderEngine.isReady();
+    }
+
+    /**
+     * Get the render engine of the worker.
+     *
+     * @return Render engine of the worker
+     */
+    @NotNull
+    RenderEngine getRenderEngine() {
+        return renderEngine;
+    }
+
+    /**
+     * Get the render configuration of the worker.
+     *
+     * @return Render configuration of the worker
+     */
+    @NotNull
+    RenderConfiguration getRenderConfiguration() {
+        return renderConfiguration;
+    }
+}
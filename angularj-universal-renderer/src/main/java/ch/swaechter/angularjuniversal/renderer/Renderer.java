@@ -1,18 +1,50 @@
 package ch.swaechter.angularjuniversal.renderer;
 
+import ch.swaechter.angularjuniversal.renderer.cache.PageCache;
 import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
 import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
 import ch.swaechter.angularjuniversal.renderer.engine.RenderEngineFactory;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderException;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderTimeoutException;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderUnavailableException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPhase;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
 import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import ch.swaechter.angularjuniversal.renderer.utils.RenderUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.util.Date;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * The class Render provides a manager to render requests with the render engine and the render configuration.
@@ -22,10 +54,44 @@ import java.util.concurrent.LinkedBlockingDeque;
 public class Renderer {
 
     /**
-     * Queue with all active render requests.
+     * Maximum time in milliseconds for new render engines to become ready, to render their first page and for each
+     * warm-up iteration.
+     */
+    private static final long READY_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Time in milliseconds without further file events before a changed server bundle is considered completely written.
+     */
+    private static final long RELOAD_SETTLE_DELAY = 200;
+
+    /**
+     * Time in milliseconds between two attempts of a new render engine to render its first page.
+     */
+    private static final long READY_RETRY_DELAY = 250;
+
+    /**
+     * Time in milliseconds before the readiness of new render engines is checked again, doubled for each check up to
+     * the ready retry delay.
+     */
+    private static final long READY_CHECK_INITIAL_DELAY = 10;
+
+    /**
+     * Time in milliseconds the render engines have to terminate after all pending render requests were completed or
+     * failed, which includes stopping their Node.js processes.
+     */
+    private static final long ENGINE_TERMINATION_TIMEOUT = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * URI of the page rendered to check that a new render engine is ready.
+     */
+    @NotNull
+    private static final String PROBE_URI = "/";
+
+    /**
+     * Queue with all render requests that wait for a render engine, bounded by the render queue capacity.
      */
     @NotNull
-    private final BlockingQueue<Optional<RenderRequest>> renderRequests;
+    private final RenderQueue renderRequests;
 
     /**
      * Render configuration with all important information.
@@ -40,16 +106,89 @@ public class Renderer {
     private final RenderEngineFactory renderEngineFactory;
 
     /**
-     * Current render engine.
+     * Cache with the rendered pages or null if the page cache is disabled.
+     */
+    @Nullable
+    private final PageCache pageCache;
+
+    /**
+     * All renders that are queued or in progress, mapped by their URI.
+     */
+    @NotNull
+    private final ConcurrentMap<String, PendingRender> pendingRenders = new ConcurrentHashMap<>();
+
+    /**
+     * Timer that completes the futures of the callers whose deadline passed.
+     */
+    @NotNull
+    private final ScheduledThreadPoolExecutor deadlineTimer;
+
+    /**
+     * Number of render requests that shared the render of an identical pending request.
+     */
+    @NotNull
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
+    /**
+     * Number of render requests that were answered with the template because the render queue was overloaded or no
+     * render engine was available.
+     */
+    @NotNull
+    private final AtomicLong shedRequests = new AtomicLong();
+
+    /**
+     * Number of retries of render requests whose render engine failed.
+     */
+    @NotNull
+    private final AtomicLong retriedRequests = new AtomicLong();
+
+    /**
+     * Estimator of the wait of a new render request.
+     */
+    @NotNull
+    private final QueueWaitEstimator queueWaitEstimator = new QueueWaitEstimator();
+
+    /**
+     * Listeners that are notified about each completed render request.
+     */
+    @NotNull
+    private final List<Consumer<RenderRequest>> completionListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Number of server bundle reloads that replaced the render workers.
+     */
+    @NotNull
+    private final AtomicLong reloads = new AtomicLong();
+
+    /**
+     * Number of server bundle reloads whose render workers didn't become ready, so the previous ones stayed in use.
+     */
+    @NotNull
+    private final AtomicLong failedReloads = new AtomicLong();
+
+    /**
+     * Render workers of the current renderer run, each with its own render engine, or null if the renderer is stopped.
+     * A reload of the server bundle replaces the workers within the same run.
      */
     @Nullable
-    private RenderEngine renderEngine;
+    private volatile AtomicReference<List<RenderWorker>> renderWorkers;
 
     /**
-     * Date of the server bundle file, used for live reloading.
+     * Watch service of the server bundle directory or null if live reload is disabled or the renderer is stopped.
      */
     @Nullable
-    private Date startDate;
+    private WatchService reloadWatchService;
+
+    /**
+     * Status if the renderer is being stopped and doesn't accept new render requests anymore.
+     */
+    private volatile boolean draining;
+
+    /**
+     * Status of the last start of the renderer or null if it was never started.
+     */
+    @Nullable
+    private volatile RenderStartStatus startStatus;
 
     /**
      * Create a new render that uses the render engine factory to for creating a render engine based on the given
@@ -59,80 +198,1016 @@ public class Renderer {
      * @param renderEngineFactory Render engine factory used for creating new render engines
      */
     public Renderer(@NotNull RenderConfiguration renderConfiguration, @NotNull RenderEngineFactory renderEngineFactory) {
-        this.renderRequests = new LinkedBlockingDeque<>();
+        this.renderRequests = new RenderQueue(renderConfiguration.getRenderQueueCapacity());
         this.renderConfiguration = renderConfiguration;
         this.renderEngineFactory = renderEngineFactory;
+        this.pageCache = renderConfiguration.getPageCacheSize() > 0 ? new PageCache(renderConfiguration.getPageCacheSize(), renderConfiguration.getPageCacheTtl(), renderConfiguration.getPageCacheMaxStale()) : null;
+        this.deadlineTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            @NotNull
+            Thread thread = new Thread(runnable, "angularj-universal-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.deadlineTimer.setRemoveOnCancelPolicy(true);
     }
 
     /**
-     * Start the renderer. If the renderer is already running, this has no impact.
+     * Start the renderer with the configured number of render engines. This blocks until the render engines are ready,
+     * for example until their Node.js servers are listening, and if a warm-up is configured, until they are warmed up.
+     * Render requests that are added in the meantime are queued. A render engine that terminates during its start
+     * ends the wait at once. The renderer takes traffic anyway, the returned status tells if it is ready. If the
+     * renderer is already running, this has no impact and the status of its start is returned.
+     *
+     * @return Status of the start
      */
-    public synchronized void startRenderer() {
-        if (renderEngine != null) {
-            return;
+    @NotNull
+    public synchronized RenderStartStatus startRenderer() {
+        if (renderWorkers != null) {
+            return Objects.requireNonNull(startStatus);
+        }
+
+        // Pages rendered by a previous server bundle are outdated
+        if (pageCache != null) {
+            pageCache.clear();
         }
 
-        startDate = new Date();
-        renderEngine = renderEngineFactory.createRenderEngine();
         @NotNull
-        Thread engineThread = new Thread(() -> renderEngine.startWorking(renderRequests, renderConfiguration));
-        engineThread.start();
+        List<RenderWorker> workers = createRenderWorkers(0);
+        workers.forEach(RenderWorker::start);
+        @NotNull
+        RenderStartStatus status = RenderStartStatus.NOT_READY;
+        try {
+            if (!awaitReadyRenderWorkers(workers)) {
+                if (!workers.stream().allMatch(RenderWorker::isAlive)) {
+                    status = RenderStartStatus.ENGINE_TERMINATED;
+                }
+            } else if (renderConfiguration.getWarmUpIterations() > 0 && (!awaitRenderWorkers(workers) || !warmUpRenderWorkers(workers))) {
+                status = RenderStartStatus.WARM_UP_INCOMPLETE;
+            } else {
+                status = RenderStartStatus.READY;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        startStatus = status;
+        @NotNull
+        AtomicReference<List<RenderWorker>> currentWorkers = new AtomicReference<>(workers);
+        renderWorkers = currentWorkers;
+
+        // Pass all queued render requests to the least loaded worker
+        @NotNull
+        Thread dispatcherThread = new Thread(() -> dispatchRenderRequests(currentWorkers), "angularj-universal-dispatcher");
+        dispatcherThread.start();
 
         if (renderConfiguration.getLiveReload()) {
+            startReloadWatcher(currentWorkers);
+        }
+        return status;
+    }
+
+    /**
+     * Create a worker for each render engine, each with its own Node.js port.
+     *
+     * @param portOffset Offset of the Node.js ports of the workers
+     * @return New workers that are not started yet
+     */
+    @NotNull
+    private List<RenderWorker> createRenderWorkers(int portOffset) {
+        @NotNull
+        List<RenderWorker> workers = new ArrayList<>();
+        for (int index = 0; index < renderConfiguration.getEngines(); index++) {
+            @NotNull
+            RenderEngine renderEngine = renderEngineFactory.createRenderEngine();
+            @NotNull
+            RenderConfiguration workerConfiguration = renderConfiguration.withNodePort(renderConfiguration.getNodePort() + portOffset + index);
+            workers.add(new RenderWorker(renderEngine, workerConfiguration, index));
+        }
+        return Collections.unmodifiableList(workers);
+    }
+
+    /**
+     * Watch the directory of the server bundle for changes. The watch service is notified by the file system, so no
+     * thread polls the modification date.
+     *
+     * @param currentWorkers Workers of the current renderer run
+     */
+    private void startReloadWatcher(@NotNull AtomicReference<List<RenderWorker>> currentWorkers) {
+        @NotNull
+        File serverBundleFile = renderConfiguration.getServerBundleFile().getAbsoluteFile();
+        try {
+            @NotNull
+            String serverBundleHash = RenderUtils.getHash(serverBundleFile);
+            @NotNull
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            serverBundleFile.getParentFile().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            reloadWatchService = watchService;
+
             @NotNull
-            Thread reloadThread = new Thread(() -> {
-                while (isRendererRunning()) {
-                    @Nullable
-                    File file = renderConfiguration.getServerBundleFile();
-                    if (startDate.before(new Date(file.lastModified()))) {
-                        stopRenderer();
-                        startRenderer();
+            Thread reloadThread = new Thread(() -> watchServerBundle(watchService, serverBundleFile, serverBundleHash, currentWorkers), "angularj-universal-reload");
+            reloadThread.setDaemon(true);
+            reloadThread.start();
+        } catch (IOException exception) {
+            exception.printStackTrace();
+        }
+    }
+
+    /**
+     * Reload the server bundle as soon its content changed. Several file events in a row, like the ones of a build
+     * that writes the file in parts, are collected into a single check. A touch that doesn't change the content is
+     * ignored. This runs until the renderer is stopped and the watch service closed.
+     *
+     * @param watchService     Watch service of the server bundle directory
+     * @param serverBundleFile Server bundle file
+     * @param serverBundleHash Hash of the server bundle the current workers use
+     * @param currentWorkers   Workers of the current renderer run
+     */
+    private void watchServerBundle(@NotNull WatchService watchService, @NotNull File serverBundleFile, @NotNull String serverBundleHash, @NotNull AtomicReference<List<RenderWorker>> currentWorkers) {
+        @NotNull
+        Path fileName = serverBundleFile.toPath().getFileName();
+        try {
+            while (true) {
+                boolean changed = false;
+                @Nullable
+                WatchKey watchKey = watchService.take();
+                while (watchKey != null) {
+                    for (WatchEvent<?> watchEvent : watchKey.pollEvents()) {
+                        changed |= watchEvent.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(watchEvent.context());
                     }
+                    watchKey.reset();
+                    watchKey = watchService.poll(RELOAD_SETTLE_DELAY, TimeUnit.MILLISECONDS);
                 }
-            });
-            reloadThread.start();
+                if (!changed) {
+                    continue;
+                }
+
+                @NotNull
+                String newServerBundleHash;
+                try {
+                    newServerBundleHash = RenderUtils.getHash(serverBundleFile);
+                } catch (IOException exception) {
+                    // The file is being replaced, the following event triggers another check
+                    continue;
+                }
+
+                // A failed reload is retried with the next change
+                if (!newServerBundleHash.equals(serverBundleHash) && reloadRenderer(currentWorkers)) {
+                    serverBundleHash = newServerBundleHash;
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException exception) {
+            // The renderer was stopped
+        }
+    }
+
+    /**
+     * Replace the render workers without downtime: New workers with the changed server bundle are started next to the
+     * current ones and have to become ready, render a page and finish the warm-up before they take over. Only then the
+     * dispatcher passes new requests to them, while the previous workers finish the requests they already received and
+     * shut down. The new workers use the other half of the Node.js ports, so both generations are able to run at the
+     * same time. If the new workers don't become ready in time, they are stopped and the previous ones keep running.
+     *
+     * @param currentWorkers Workers of the current renderer run
+     * @return Status if the workers were replaced
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting for the new workers
+     */
+    private boolean reloadRenderer(@NotNull AtomicReference<List<RenderWorker>> currentWorkers) throws InterruptedException {
+        @NotNull
+        List<RenderWorker> previousWorkers = currentWorkers.get();
+        boolean usesBasePorts = previousWorkers.get(0).getRenderConfiguration().getNodePort().equals(renderConfiguration.getNodePort());
+        int portOffset = !renderConfiguration.getExternalRenderServer() && usesBasePorts ? renderConfiguration.getEngines() : 0;
+
+        @NotNull
+        List<RenderWorker> workers = createRenderWorkers(portOffset);
+        workers.forEach(RenderWorker::start);
+        if (!awaitReadyRenderWorkers(workers) || !awaitRenderWorkers(workers) || !warmUpRenderWorkers(workers)) {
+            workers.forEach(RenderWorker::stop);
+            failedReloads.incrementAndGet();
+            return false;
+        }
+
+        synchronized (this) {
+            if (renderWorkers != currentWorkers) {
+                workers.forEach(RenderWorker::stop);
+                return false;
+            }
+            currentWorkers.set(workers);
+        }
+
+        // The previous workers render the requests they already accepted and shut down afterwards
+        previousWorkers.forEach(RenderWorker::stop);
+        if (pageCache != null) {
+            pageCache.clear();
+        }
+        reloads.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Wait until all new workers report that their render engines are ready, but not longer than the ready timeout.
+     * The readiness is checked with an exponential backoff, so fast render engines are picked up at once. A render
+     * engine whose thread terminated before it became ready will never become ready, so the wait ends at once.
+     *
+     * @param workers New workers that were started
+     * @return Status if all workers became ready
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    private boolean awaitReadyRenderWorkers(@NotNull List<RenderWorker> workers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT;
+        long checkDelay = READY_CHECK_INITIAL_DELAY;
+        while (!workers.stream().allMatch(RenderWorker::isReady)) {
+            if (workers.stream().anyMatch(worker -> !worker.isReady() && !worker.isAlive())) {
+                return false;
+            }
+            long remainingTime = deadline - System.currentTimeMillis();
+            if (remainingTime <= 0) {
+                return false;
+            }
+            Thread.sleep(Math.min(checkDelay, remainingTime));
+            checkDelay = Math.min(checkDelay * 2, READY_RETRY_DELAY);
+        }
+        return true;
+    }
+
+    /**
+     * Check new workers by rendering a page with each one, until it succeeds or the ready timeout passed. A render
+     * engine can fail the first attempts while its server bundle is still initializing.
+     *
+     * @param workers New workers that were started
+     * @return Status if all workers rendered a page
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting for a render
+     */
+    private boolean awaitRenderWorkers(@NotNull List<RenderWorker> workers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT;
+        for (RenderWorker worker : workers) {
+            while (true) {
+                long remainingTime = deadline - System.currentTimeMillis();
+                if (remainingTime <= 0) {
+                    return false;
+                }
+
+                @NotNull
+                RenderRequest renderRequest = new RenderRequest(PROBE_URI, deadline, RenderPriority.BACKGROUND);
+                if (!worker.addRenderRequest(renderRequest)) {
+                    return false;
+                }
+                try {
+                    renderRequest.getFuture().get(remainingTime, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (ExecutionException | TimeoutException exception) {
+                    renderRequest.getFuture().cancel(false);
+                    Thread.sleep(READY_RETRY_DELAY);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Warm up new workers with the configured number of iterations. In each iteration, every worker renders every
+     * warm-up URI, all of them in parallel. A URI that fails to render doesn't stop the warm-up, as the purpose is to
+     * exercise the render engines. The warm-up renders don't pass the page cache or the completion listeners.
+     *
+     * @param workers New workers that are ready
+     * @return Status if all iterations finished in time
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting for a render
+     */
+    private boolean warmUpRenderWorkers(@NotNull List<RenderWorker> workers) throws InterruptedException {
+        @NotNull
+        Set<String> uris = getWarmUpUris();
+        for (int iteration = 0; iteration < renderConfiguration.getWarmUpIterations(); iteration++) {
+            long deadline = System.currentTimeMillis() + READY_TIMEOUT;
+            @NotNull
+            List<CompletableFuture<String>> futures = new ArrayList<>();
+            for (RenderWorker worker : workers) {
+                for (String uri : uris) {
+                    @NotNull
+                    RenderRequest renderRequest = new RenderRequest(uri, deadline, RenderPriority.BACKGROUND);
+                    if (!worker.addRenderRequest(renderRequest)) {
+                        return false;
+                    }
+                    futures.add(renderRequest.getFuture());
+                }
+            }
+
+            for (CompletableFuture<String> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                } catch (ExecutionException | CancellationException exception) {
+                    // A failed render warms up the render engine as well
+                } catch (TimeoutException exception) {
+                    futures.forEach(pendingFuture -> pendingFuture.cancel(false));
+                    return false;
+                }
+            }
         }
+        return true;
+    }
+
+    /**
+     * Get the URIs of the warm-up, which are the concrete routes of the application and the configured sample URIs.
+     *
+     * @return URIs of the warm-up
+     */
+    @NotNull
+    private Set<String> getWarmUpUris() {
+        @NotNull
+        Set<String> uris = new LinkedHashSet<>(RenderUtils.getConcreteRoutes(renderConfiguration.getRoutes()));
+        uris.addAll(renderConfiguration.getWarmUpUris());
+        return uris;
     }
 
     /**
-     * Stop the render engine while waiting for rendering all render requests. If the renderer is already stopped,
-     * this has no impact.
+     * Stop the renderer with a bounded drain. New render requests are answered with the unrendered template at once,
+     * while the queued requests and the renders in progress are finished within the configured shutdown timeout. The
+     * render requests that are still pending afterwards fail with a render exception, so no caller waits forever.
+     * Finally the render engines are told to shut down, which stops their Node.js processes, and their threads are
+     * awaited. If the renderer is already stopped, this has no impact.
      */
     public synchronized void stopRenderer() {
-        if (renderEngine == null) {
+        if (renderWorkers == null) {
             return;
         }
 
-        renderRequests.add(Optional.empty());
+        // A reload can't replace the workers while the renderer is locked
+        @NotNull
+        List<RenderWorker> workers = renderWorkers.get();
+        long deadline = System.currentTimeMillis() + renderConfiguration.getShutdownTimeout();
+        draining = true;
+        try {
+            // Stop watching the server bundle, a reload in progress is discarded
+            if (reloadWatchService != null) {
+                try {
+                    reloadWatchService.close();
+                } catch (IOException exception) {
+                    exception.printStackTrace();
+                }
+                reloadWatchService = null;
+            }
+
+            // Finish the accepted render requests in time and fail the rest, which frees the slots of their renders
+            renderRequests.close();
+            awaitPendingRenders(deadline);
+            failPendingRenders();
 
-        // Wait for an empty request queue
-        while (renderRequests.size() != 0) {
-            Thread.yield();
+            // The dispatcher drops the failed requests that are still queued and tells the workers to shut down
+            renderRequests.awaitClosed();
+            for (RenderWorker worker : workers) {
+                worker.awaitTermination(ENGINE_TERMINATION_TIMEOUT);
+            }
+        } catch (InterruptedException exception) {
+            failPendingRenders();
+            Thread.currentThread().interrupt();
+        } finally {
+            renderWorkers = null;
+            draining = false;
         }
+    }
 
-        renderEngine = null;
+    /**
+     * Wait until all pending render requests are completed, but not longer than the deadline.
+     *
+     * @param deadline Time in milliseconds since the epoch when the wait ends
+     * @return Status if all pending render requests were completed in time
+     * @throws InterruptedException Exception in case the thread was interrupted while waiting
+     */
+    private boolean awaitPendingRenders(long deadline) throws InterruptedException {
+        for (PendingRender pendingRender : pendingRenders.values()) {
+            long remainingTime = deadline - System.currentTimeMillis();
+            if (remainingTime <= 0) {
+                return pendingRenders.isEmpty();
+            }
+            try {
+                pendingRender.getRenderRequest().getFuture().get(remainingTime, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | CancellationException exception) {
+                // A failed render is completed as well
+            } catch (TimeoutException exception) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
-     * Check if the render engine is already running.
+     * Fail all pending render requests with a render exception. Queued requests are dropped by the dispatcher and the
+     * renders in progress are cancelled on the render server.
+     */
+    private void failPendingRenders() {
+        for (PendingRender pendingRender : pendingRenders.values()) {
+            @NotNull
+            RenderRequest renderRequest = pendingRender.getRenderRequest();
+            renderRequest.getFuture().completeExceptionally(new RenderException("The renderer was stopped before the render request for " + renderRequest.getUri() + " completed"));
+        }
+    }
+
+    /**
+     * Check if the render engine is already running. This doesn't lock the renderer, so it answers at once while the
+     * renderer is being started or stopped.
      *
      * @return Status of the check
      */
-    public synchronized boolean isRendererRunning() {
-        return renderEngine != null;
+    public boolean isRendererRunning() {
+        return renderWorkers != null;
+    }
+
+    /**
+     * Get the status of the last start of the renderer, which tells if the render engines became ready and finished the
+     * warm-up in time.
+     *
+     * @return Status of the last start or null if the renderer was never started
+     */
+    @Nullable
+    public RenderStartStatus getStartStatus() {
+        return startStatus;
+    }
+
+    /**
+     * Get the page cache of the renderer, for example to access its statistics.
+     *
+     * @return Page cache or null if the page cache is disabled
+     */
+    @Nullable
+    public PageCache getPageCache() {
+        return pageCache;
+    }
+
+    /**
+     * Add a listener that is notified about each render request as soon its render completed, failed or was abandoned.
+     * The timings of the render request show where the time of the render went. The listener is called by the thread
+     * that completed the render request, so it must not block.
+     *
+     * @param completionListener Listener of the completed render requests
+     */
+    public void addCompletionListener(@NotNull Consumer<RenderRequest> completionListener) {
+        completionListeners.add(completionListener);
+    }
+
+    /**
+     * Get the number of server bundle reloads that replaced the render engines since the renderer was created.
+     *
+     * @return Number of reloads
+     */
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    /**
+     * Get the number of server bundle reloads whose render engines didn't become ready, so the previous server bundle
+     * stayed in use. A failed reload is retried with the next change of the server bundle.
+     *
+     * @return Number of failed reloads
+     */
+    public long getFailedReloadCount() {
+        return failedReloads.get();
+    }
+
+    /**
+     * Get the number of render requests that shared the render of an identical pending request instead of being
+     * rendered on their own.
+     *
+     * @return Number of coalesced render requests
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * Get the number of render requests that were answered with the template instead of being rendered, because the
+     * render queue was full, the estimated wait was too long, no render engine was available or the renderer was being
+     * stopped.
+     *
+     * @return Number of shed render requests
+     */
+    public long getShedRequestCount() {
+        return shedRequests.get();
+    }
+
+    /**
+     * Get the number of retries of render requests whose render engine failed, for example because its Node.js process
+     * crashed.
+     *
+     * @return Number of retries
+     */
+    public long getRetriedRequestCount() {
+        return retriedRequests.get();
+    }
+
+    /**
+     * Check if at least one render engine is able to render at the moment. A renderer that is not started yet queues
+     * the render requests, so it counts as available.
+     *
+     * @return Status of the check
+     */
+    public boolean isRenderEngineAvailable() {
+        @Nullable
+        AtomicReference<List<RenderWorker>> workers = renderWorkers;
+        return workers == null || workers.get().stream().anyMatch(RenderWorker::isAvailable);
+    }
+
+    /**
+     * Get the number of render engines that are ready and available, which means they are able to render a page at
+     * once. A renderer that is not started or being stopped has no ready render engines.
+     *
+     * @return Number of ready render engines
+     */
+    public int getReadyRenderEngineCount() {
+        @Nullable
+        AtomicReference<List<RenderWorker>> workers = renderWorkers;
+        if (workers == null || draining) {
+            return 0;
+        }
+        return (int) workers.get().stream().filter(worker -> worker.isReady() && worker.isAvailable()).count();
+    }
+
+    /**
+     * Check if the renderer is able to render pages, which is the case as long it is running, not being stopped and at
+     * least one render engine is ready and available. A load balancer should only send traffic to a ready renderer.
+     *
+     * @return Status of the check
+     */
+    public boolean isRendererReady() {
+        return getReadyRenderEngineCount() > 0;
+    }
+
+    /**
+     * Get the number of render requests that wait for a render engine.
+     *
+     * @return Number of queued render requests
+     */
+    public int getQueuedRequestCount() {
+        return renderRequests.size();
+    }
+
+    /**
+     * Get the number of render requests that were passed to a render engine but are not completed yet.
+     *
+     * @return Number of renders in progress
+     */
+    public int getRenderInProgressCount() {
+        return queueWaitEstimator.getRendersInProgress();
+    }
+
+    /**
+     * Get the estimated wait of a new render request until a render engine picks it up.
+     *
+     * @return Estimated wait in milliseconds
+     */
+    public long getEstimatedQueueWait() {
+        return queueWaitEstimator.estimateWait(renderRequests.size());
+    }
+
+    /**
+     * Get the number of distinct URIs that are queued or being rendered.
+     *
+     * @return Number of pending renders
+     */
+    public int getPendingRenderCount() {
+        return pendingRenders.size();
     }
 
     /**
      * Add a new render request and receive a future, that can be resolved as soon the render request has been rendered.
+     * The render request expires after the configured render timeout.
      *
      * @param uri URI of the render request
      * @return Future that can be accessed later on to get the rendered content
+     * @see #addRenderRequest(String, long)
      */
     @NotNull
-    public Future<String> addRenderRequest(String uri) {
+    public CompletableFuture<String> addRenderRequest(String uri) {
+        return addRenderRequest(uri, RenderPriority.INTERACTIVE);
+    }
+
+    /**
+     * Add a new render request of the given priority class and receive a future, that can be resolved as soon the
+     * render request has been rendered. The render request expires after the configured render timeout.
+     *
+     * @param uri      URI of the render request
+     * @param priority Priority class of the render request
+     * @return Future that can be accessed later on to get the rendered content
+     * @see #addRenderRequest(String, long, RenderPriority)
+     */
+    @NotNull
+    public CompletableFuture<String> addRenderRequest(String uri, @NotNull RenderPriority priority) {
+        return addRenderRequest(uri, getDefaultDeadline(), priority);
+    }
+
+    /**
+     * Add a new interactive render request with the given deadline and receive a future, that can be resolved as soon
+     * the render request has been rendered.
+     *
+     * @param uri      URI of the render request
+     * @param deadline Time in milliseconds since the epoch when the request expires or {@link RenderRequest#NO_DEADLINE}
+     * @return Future that can be accessed later on to get the rendered content
+     * @see #addRenderRequest(String, long, RenderPriority)
+     */
+    @NotNull
+    public CompletableFuture<String> addRenderRequest(String uri, long deadline) {
+        return addRenderRequest(uri, deadline, RenderPriority.INTERACTIVE);
+    }
+
+    /**
+     * Add a new render request and receive a future, that can be resolved as soon the render request has been rendered.
+     * If the page cache is enabled and contains the page, the future is already completed. A stale page is returned at
+     * once as well while a single render refreshes it in the background. If the same URI is already queued or being
+     * rendered, the request shares the pending render instead of being rendered again.
+     * <p>
+     * Queued render requests are served by their priority class with weighted fairness, so background and crawler
+     * requests use the spare capacity without delaying interactive requests much. Stale pages are refreshed in the
+     * background class.
+     * <p>
+     * If the render queue is full or the estimated wait exceeds the configured maximum, the future is completed at once
+     * with the unrendered template, so the page is rendered on the client side. This content is never cached.
+     * <p>
+     * While the renderer is being stopped, new render requests are answered with the template as well.
+     * <p>
+     * The future is completed with a render timeout exception as soon the deadline passes. Cancelling the future or
+     * passing the deadline cancels the render, unless another request still waits for it: A queued render is dropped
+     * without being sent, a render in progress is abandoned and cancelled on the render server.
+     *
+     * @param uri      URI of the render request
+     * @param deadline Time in milliseconds since the epoch when the request expires or {@link RenderRequest#NO_DEADLINE}
+     * @param priority Priority class of the render request
+     * @return Future that can be accessed later on to get the rendered content
+     */
+    @NotNull
+    public CompletableFuture<String> addRenderRequest(String uri, long deadline, @NotNull RenderPriority priority) {
+        if (pageCache != null) {
+            @Nullable
+            PageCache.CachedPage cachedPage = pageCache.lookup(uri);
+            if (cachedPage != null) {
+                if (cachedPage.isStale()) {
+                    queueRender(uri, getDefaultDeadline(), RenderPriority.BACKGROUND, true);
+                }
+                return CompletableFuture.completedFuture(cachedPage.getContent());
+            }
+        }
+
+        return queueRender(uri, deadline, priority, false);
+    }
+
+    /**
+     * Get the deadline of a new render request based on the configured render timeout.
+     *
+     * @return Time in milliseconds since the epoch when the request expires or {@link RenderRequest#NO_DEADLINE}
+     */
+    private long getDefaultDeadline() {
+        long renderTimeout = renderConfiguration.getRenderTimeout();
+        return renderTimeout > 0 ? System.currentTimeMillis() + renderTimeout : RenderRequest.NO_DEADLINE;
+    }
+
+    /**
+     * Queue a render of the URI or share an identical pending render. A new render is shed if the render queue is
+     * overloaded or the renderer is being stopped.
+     *
+     * @param uri          URI of the render request
+     * @param deadline     Time in milliseconds since the epoch when the request expires
+     * @param priority     Priority class of the render request
+     * @param revalidation Status if the render refreshes a stale page, so sharing a pending render is not counted
+     * @return Future that can be accessed later on to get the rendered content
+     */
+    @NotNull
+    private CompletableFuture<String> queueRender(@NotNull String uri, long deadline, @NotNull RenderPriority priority, boolean revalidation) {
+        // A stopping renderer doesn't accept new work and unavailable render engines would only fail it
+        if (draining || !isRenderEngineAvailable()) {
+            return shedRenderRequest();
+        }
+
+        while (true) {
+            @Nullable
+            PendingRender pendingRender = pendingRenders.get(uri);
+            if (pendingRender == null) {
+                if (isRenderQueueOverloaded(priority)) {
+                    return shedRenderRequest();
+                }
+
+                // Cache the page before the caller is able to see it, so a following request is a hit. The future of
+                // the callers is derived even without a page cache, so a shed render is not completed with the template
+                @NotNull
+                RenderRequest renderRequest = new RenderRequest(uri, deadline, priority);
+                @NotNull
+                CompletableFuture<String> future = renderRequest.getFuture().thenApply(content -> {
+                    if (pageCache != null) {
+                        pageCache.put(uri, content);
+                    }
+                    return content;
+                });
+
+                @NotNull
+                PendingRender newPendingRender = new PendingRender(renderRequest, future);
+                if (pendingRenders.putIfAbsent(uri, newPendingRender) != null) {
+                    continue;
+                }
+
+                future.whenComplete((content, throwable) -> pendingRenders.remove(uri, newPendingRender));
+                @NotNull
+                CompletableFuture<String> callerFuture = subscribe(newPendingRender, deadline);
+
+                // The queue could have been filled up in the meantime, so all callers that joined the render get the
+                // template. The shed render is not passed to the completion listeners, it only counts as shed
+                if (!renderRequests.offer(renderRequest)) {
+                    shedRequests.incrementAndGet();
+                    pendingRenders.remove(uri, newPendingRender);
+                    future.complete(renderConfiguration.getTemplateContent());
+                    renderRequest.getFuture().cancel(false);
+                    return callerFuture;
+                }
+                renderRequest.getFuture().whenComplete((content, throwable) -> notifyCompletionListeners(renderRequest));
+                return callerFuture;
+            }
+
+            // Share an identical pending render, unless all of its callers already abandoned it
+            if (pendingRender.join(deadline)) {
+                if (!revalidation) {
+                    coalescedRequests.incrementAndGet();
+                }
+                return subscribe(pendingRender, deadline);
+            }
+            pendingRenders.remove(uri, pendingRender);
+        }
+    }
+
+    /**
+     * Check if a new render request would exceed the capacity or the maximum wait of the render queue. The wait only
+     * counts the queued requests of the same or a higher priority class.
+     *
+     * @param priority Priority class of the new render request
+     * @return Status of the check
+     */
+    private boolean isRenderQueueOverloaded(@NotNull RenderPriority priority) {
+        int capacity = renderConfiguration.getRenderQueueCapacity();
+        long maximumWait = renderConfiguration.getRenderQueueMaxWait();
+        return (capacity > 0 && renderRequests.size() >= capacity) || (maximumWait > 0 && queueWaitEstimator.estimateWait(renderRequests.sizeAhead(priority)) > maximumWait);
+    }
+
+    /**
+     * Answer a render request with the unrendered template instead of rendering it.
+     *
+     * @return Completed future with the template
+     */
+    @NotNull
+    private CompletableFuture<String> shedRenderRequest() {
+        shedRequests.incrementAndGet();
+        return CompletableFuture.completedFuture(renderConfiguration.getTemplateContent());
+    }
+
+    /**
+     * Record the completion of a render request, unless the render engine already did, and notify all listeners.
+     *
+     * @param renderRequest Completed render request
+     */
+    private void notifyCompletionListeners(@NotNull RenderRequest renderRequest) {
+        renderRequest.getTimings().markIfAbsent(RenderPhase.COMPLETED);
+        for (Consumer<RenderRequest> completionListener : completionListeners) {
+            try {
+                completionListener.accept(renderRequest);
+            } catch (RuntimeException exception) {
+                exception.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Create the future of a caller of a pending render. Each caller gets its own future, so a cancellation or a passed
+     * deadline only affects the render as soon all callers abandoned it.
+     *
+     * @param pendingRender Pending render the caller joined
+     * @param deadline      Time in milliseconds since the epoch when the caller abandons the render
+     * @return Future of the caller
+     */
+    @NotNull
+    private CompletableFuture<String> subscribe(@NotNull PendingRender pendingRender, long deadline) {
+        @NotNull
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pendingRender.getFuture().whenComplete((content, throwable) -> {
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(content);
+            }
+        });
+
+        if (deadline != RenderRequest.NO_DEADLINE && !future.isDone()) {
+            @NotNull
+            String uri = pendingRender.getRenderRequest().getUri();
+            @NotNull
+            ScheduledFuture<?> timeout = deadlineTimer.schedule(() -> future.completeExceptionally(new RenderTimeoutException("The render request for " + uri + " passed its deadline")), Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            future.whenComplete((content, throwable) -> timeout.cancel(false));
+        }
+
+        future.whenComplete((content, throwable) -> {
+            if (!pendingRender.getFuture().isDone()) {
+                pendingRender.leave();
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Take all queued render requests in weighted round robin order of their priority classes and pass each one to the
+     * worker with the fewest outstanding render requests. The next request is only taken as soon the workers are able
+     * to render it, which are the connection pool size times the pipeline depth requests per worker. Waiting requests
+     * stay in the bounded render queue, so its size reflects the actual backlog and the priority classes decide which
+     * request gets the next free slot. Abandoned render requests are dropped. As soon the queue was closed and is empty,
+     * all workers are told to shut down and the dispatching ends.
+     *
+     * @param workers Workers of the current renderer run, which a reload replaces
+     */
+    private void dispatchRenderRequests(@NotNull AtomicReference<List<RenderWorker>> workers) {
         @NotNull
-        RenderRequest renderRequest = new RenderRequest(uri);
-        renderRequests.add(Optional.of(renderRequest));
-        return renderRequest.getFuture();
+        Semaphore slots = new Semaphore(renderConfiguration.getEngines() * renderConfiguration.getConnectionPoolMaxSize() * renderConfiguration.getPipelineDepth());
+        try {
+            while (true) {
+                // Wait for a free slot, this blocks as long all workers are busy
+                slots.acquire();
+                @NotNull
+                Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                if (!renderRequestItem.isPresent()) {
+                    workers.get().forEach(RenderWorker::stop);
+                    return;
+                }
+
+                // Drop requests that were cancelled or passed their deadline while they were queued
+                @NotNull
+                RenderRequest renderRequest = renderRequestItem.get();
+                if (renderRequest.isAbandoned()) {
+                    slots.release();
+                    continue;
+                }
+                queueWaitEstimator.renderStarted();
+                renderRequest.getFuture().whenComplete((content, throwable) -> {
+                    queueWaitEstimator.renderCompleted();
+                    slots.release();
+                });
+
+                // A reload could have stopped the selected worker in the meantime, then its successors take the request.
+                // A reload replaces the workers before it stops them, so a stopped worker of unchanged workers won't
+                // accept the request anymore
+                renderRequest.getTimings().mark(RenderPhase.DISPATCHED);
+                @NotNull
+                List<RenderWorker> currentWorkers = workers.get();
+                while (!passRenderRequest(renderRequest, getLeastLoadedWorker(currentWorkers, null), workers)) {
+                    @NotNull
+                    List<RenderWorker> latestWorkers = workers.get();
+                    if (latestWorkers == currentWorkers) {
+                        renderRequest.getFuture().completeExceptionally(new RenderUnavailableException("No render engine accepted the render request for " + renderRequest.getUri()));
+                        break;
+                    }
+                    currentWorkers = latestWorkers;
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Pass a render request to a worker. If the render engine of the worker fails the request, it is retried on
+     * another worker.
+     *
+     * @param renderRequest Render request that will be rendered
+     * @param worker        Worker that renders the render request
+     * @param workers       Workers of the current renderer run
+     * @return Status if the worker accepted the render request
+     */
+    private boolean passRenderRequest(@NotNull RenderRequest renderRequest, @NotNull RenderWorker worker, @NotNull AtomicReference<List<RenderWorker>> workers) {
+        renderRequest.setRetryHandler(retriedRequest -> retryRenderRequest(retriedRequest, worker, workers));
+        return worker.addRenderRequest(renderRequest);
+    }
+
+    /**
+     * Pass a render request whose render engine failed to the least loaded available worker again, preferably to
+     * another one, as long it has retries left. The request is not retried if no worker is available or if the workers
+     * were stopped in the meantime.
+     *
+     * @param renderRequest Render request that is retried
+     * @param failedWorker  Worker whose render engine failed the render request
+     * @param workers       Workers of the current renderer run
+     * @return Status if a worker accepted the render request
+     */
+    private boolean retryRenderRequest(@NotNull RenderRequest renderRequest, @NotNull RenderWorker failedWorker, @NotNull AtomicReference<List<RenderWorker>> workers) {
+        if (renderRequest.getRetries() > renderConfiguration.getRenderRetries()) {
+            return false;
+        }
+
+        @NotNull
+        List<RenderWorker> currentWorkers = workers.get();
+        if (currentWorkers.stream().noneMatch(RenderWorker::isAvailable)) {
+            return false;
+        }
+
+        // The failed worker doesn't render the request anymore, so it shouldn't count as load of a recovered worker
+        failedWorker.handOffRenderRequest(renderRequest);
+        if (!passRenderRequest(renderRequest, getLeastLoadedWorker(currentWorkers, failedWorker), workers)) {
+            return false;
+        }
+        retriedRequests.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Get the available worker with the fewest outstanding render requests. If no worker is available, the least
+     * loaded one of all workers is taken, its render engine fails the request fast.
+     *
+     * @param workers        Workers to choose from
+     * @param excludedWorker Worker that is only taken if it is the only one or null to consider all workers
+     * @return Least loaded worker
+     */
+    @NotNull
+    private static RenderWorker getLeastLoadedWorker(@NotNull List<RenderWorker> workers, @Nullable RenderWorker excludedWorker) {
+        @Nullable
+        RenderWorker leastLoadedWorker = null;
+        boolean available = false;
+        for (RenderWorker worker : workers) {
+            if (worker == excludedWorker && workers.size() > 1) {
+                continue;
+            }
+            boolean workerAvailable = worker.isAvailable();
+            if (leastLoadedWorker == null || (workerAvailable && !available) || (workerAvailable == available && worker.getOutstandingRequests() < leastLoadedWorker.getOutstandingRequests())) {
+                leastLoadedWorker = worker;
+                available = workerAvailable;
+            }
+        }
+        return Objects.requireNonNull(leastLoadedWorker);
+    }
+
+    /**
+     * The class PendingRender represents a render that is queued or in progress together with the number of callers
+     * that still wait for it.
+     */
+    private static class PendingRender {
+
+        /**
+         * Render request of the render.
+         */
+        @NotNull
+        private final RenderRequest renderRequest;
+
+        /**
+         * Future that will contain the rendered content, after it was put into the page cache.
+         */
+        @NotNull
+        private final CompletableFuture<String> future;
+
+        /**
+         * Number of callers that still wait for the render.
+         */
+        @NotNull
+        private final AtomicInteger callers = new AtomicInteger(1);
+
+        /**
+         * Create a new pending render with its first caller.
+         *
+         * @param renderRequest Render request of the render
+         * @param future        Future that will contain the rendered content
+         */
+        PendingRender(@NotNull RenderRequest renderRequest, @NotNull CompletableFuture<String> future) {
+            this.renderRequest = renderRequest;
+            this.future = future;
+        }
+
+        /**
+         * Get the render request of the render.
+         *
+         * @return Render request of the render
+         */
+        @NotNull
+        RenderRequest getRenderRequest() {
+            return renderRequest;
+        }
+
+        /**
+         * Get the future that will contain the rendered content.
+         *
+         * @return Future of the render
+         */
+        @NotNull
+        CompletableFuture<String> getFuture() {
+            return future;
+        }
+
+        /**
+         * Add a caller to the render and extend the deadline of the render to the one of the caller.
+         *
+         * @param deadline Time in milliseconds since the epoch when the caller abandons the render
+         * @return Status if the caller was added or the render was already abandoned by all callers
+         */
+        boolean join(long deadline) {
+            if (callers.updateAndGet(count -> count > 0 ? count + 1 : 0) == 0) {
+                return false;
+            }
+            renderRequest.extendDeadline(deadline);
+            return true;
+        }
+
+        /**
+         * Remove a caller that abandoned the render. As soon no caller is left, the render is cancelled.
+         */
+        void leave() {
+            if (callers.decrementAndGet() == 0) {
+                renderRequest.getFuture().cancel(false);
+            }
+        }
     }
 }
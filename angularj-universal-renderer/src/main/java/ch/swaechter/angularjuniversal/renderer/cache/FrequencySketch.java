@@ -0,0 +1,132 @@
+package ch.swaechter.angularjuniversal.renderer.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The class FrequencySketch provides a count-min sketch with small saturating counters to estimate how often a key was
+ * accessed recently. All counters are halved after a sample period, so old popularity fades out over time.
+ *
+ * @author Simon Wächter
+ */
+class FrequencySketch {
+
+    /**
+     * Number of hash functions and counter rows.
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Maximum value of a counter.
+     */
+    private static final int MAXIMUM_FREQUENCY = 15;
+
+    /**
+     * Seeds of the hash functions, one per row.
+     */
+    @NotNull
+    private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0xc3a5c85c};
+
+    /**
+     * Counter rows of the sketch.
+     */
+    @NotNull
+    private final byte[][] counters;
+
+    /**
+     * Mask used to map a hash to a counter index.
+     */
+    private final int mask;
+
+    /**
+     * Number of increments after which all counters are halved.
+     */
+    private final int samplePeriod;
+
+    /**
+     * Number of increments since the last halving.
+     */
+    private int increments;
+
+    /**
+     * Create a new frequency sketch for the expected number of distinct keys.
+     *
+     * @param expectedKeys Expected number of distinct keys
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(16, Math.min(expectedKeys, 1 << 24)) - 1) << 1;
+        this.counters = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.samplePeriod = 10 * width;
+    }
+
+    /**
+     * Record an access of the key.
+     *
+     * @param key Key that was accessed
+     */
+    void increment(@NotNull Object key) {
+        int hash = spread(key.hashCode());
+        boolean incremented = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if (counters[row][index] < MAXIMUM_FREQUENCY) {
+                counters[row][index]++;
+                incremented = true;
+            }
+        }
+
+        if (incremented && ++increments >= samplePeriod) {
+            reset();
+        }
+    }
+
+    /**
+     * Get the estimated number of recent accesses of the key.
+     *
+     * @param key Key to look up
+     * @return Estimated frequency between 0 and 15
+     */
+    int frequency(@NotNull Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAXIMUM_FREQUENCY;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[row][indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Halve all counters, so the sketch adapts to a changing popularity of the keys.
+     */
+    private void reset() {
+        for (byte[] row : counters) {
+            for (int index = 0; index < row.length; index++) {
+                row[index] >>>= 1;
+            }
+        }
+        increments /= 2;
+    }
+
+    /**
+     * Get the counter index of the hash in the given row.
+     *
+     * @param hash Spread hash of the key
+     * @param row  Row of the counter
+     * @return Index of the counter
+     */
+    private int indexOf(int hash, int row) {
+        int rowHash = (hash ^ SEEDS[row]) * 0x9e3779b9;
+        return (rowHash ^ (rowHash >>> 16)) & mask;
+    }
+
+    /**
+     * Spread the bits of a hash code, so keys with similar hash codes end up in different counters.
+     *
+     * @param hashCode Hash code of the key
+     * @return Spread hash
+     */
+    private static int spread(int hashCode) {
+        int hash = hashCode * 0x85ebca6b;
+        return hash ^ (hash >>> 15);
+    }
+}
@@ -0,0 +1,511 @@
+package ch.swaechter.angularjuniversal.renderer.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The class PageCache keeps rendered pages by their URI. The cache is bounded by the estimated memory of its pages in
+ * bytes and evicts the least recently used pages first. A new page is only admitted in place of other pages if it was
+ * requested more often than the pages it would evict (TinyLFU), so a burst of one-off URIs can't flush the hot pages.
+ * Each page is fresh for its time to live. Afterwards, it can still be served as stale page for the maximum staleness
+ * while it is rendered again in the background (stale-while-revalidate), before it finally expires.
+ *
+ * @author Simon Wächter
+ */
+public class PageCache {
+
+    /**
+     * Estimated memory of a cache entry without the URI and the page, in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    /**
+     * Estimated average page size used to size the frequency sketch, in bytes.
+     */
+    private static final int AVERAGE_PAGE_SIZE = 8 * 1024;
+
+    /**
+     * Maximum memory of all pages in bytes.
+     */
+    private final long maximumWeight;
+
+    /**
+     * Default time to live of a page in milliseconds.
+     */
+    private final long timeToLive;
+
+    /**
+     * Time in milliseconds a page can be served stale after its time to live.
+     */
+    private final long maximumStaleness;
+
+    /**
+     * All cached pages in the order of their last access.
+     */
+    @NotNull
+    private final LinkedHashMap<String, PageCacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Sketch with the recent access frequency of all requested URIs, including the ones that are not cached.
+     */
+    @NotNull
+    private final FrequencySketch frequencySketch;
+
+    /**
+     * Memory of all cached pages in bytes.
+     */
+    private long weightedSize;
+
+    /**
+     * Number of requests answered by the cache.
+     */
+    private long hitCount;
+
+    /**
+     * Number of requests answered by the cache with a stale page.
+     */
+    private long staleHitCount;
+
+    /**
+     * Number of requests not answered by the cache.
+     */
+    private long missCount;
+
+    /**
+     * Number of pages that were evicted to make room for other pages.
+     */
+    private long evictionCount;
+
+    /**
+     * Number of pages that were not admitted because they were requested less often than the pages they would evict.
+     */
+    private long rejectionCount;
+
+    /**
+     * Create a new page cache.
+     *
+     * @param maximumWeight Maximum memory of all pages in bytes
+     * @param timeToLive    Default time to live of a page in milliseconds
+     */
+    public PageCache(long maximumWeight, long timeToLive) {
+        this(maximumWeight, timeToLive, 0);
+    }
+
+    /**
+     * Create a new page cache that serves stale pages after their time to live.
+     *
+     * @param maximumWeight    Maximum memory of all pages in bytes
+     * @param timeToLive       Default time to live of a page in milliseconds
+     * @param maximumStaleness Time in milliseconds a page can be served stale after its time to live
+     */
+    public PageCache(long maximumWeight, long timeToLive, long maximumStaleness) {
+        if (maximumWeight < 1 || timeToLive < 1 || maximumStaleness < 0) {
+            throw new IllegalArgumentException("The page cache requires a positive maximum weight and time to live and a non-negative staleness");
+        }
+        this.maximumWeight = maximumWeight;
+        this.timeToLive = timeToLive;
+        this.maximumStaleness = maximumStaleness;
+        this.frequencySketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maximumWeight / AVERAGE_PAGE_SIZE));
+    }
+
+    /**
+     * Get the fresh cached page of the URI. Each call counts as an access of the URI, whether the page is cached or
+     * not.
+     *
+     * @param uri URI of the page
+     * @return Cached page or null if the page is not cached or not fresh anymore
+     */
+    @Nullable
+    public String get(@NotNull String uri) {
+        @Nullable
+        CachedPage cachedPage = lookup(uri, false);
+        return cachedPage != null ? cachedPage.getContent() : null;
+    }
+
+    /**
+     * Get the cached page of the URI, including a stale page within the maximum staleness. Each call counts as an
+     * access of the URI, whether the page is cached or not.
+     *
+     * @param uri URI of the page
+     * @return Cached page or null if the page is not cached or expired
+     */
+    @Nullable
+    public CachedPage lookup(@NotNull String uri) {
+        return lookup(uri, true);
+    }
+
+    /**
+     * Look up the cached page of the URI and update the statistics.
+     *
+     * @param uri        URI of the page
+     * @param allowStale Status if a stale page is returned
+     * @return Cached page or null if no usable page is cached
+     */
+    @Nullable
+    private synchronized CachedPage lookup(@NotNull String uri, boolean allowStale) {
+        frequencySketch.increment(uri);
+
+        long now = System.currentTimeMillis();
+        @Nullable
+        PageCacheEntry entry = entries.get(uri);
+        if (entry != null && entry.isExpired(now)) {
+            removeEntry(uri);
+            entry = null;
+        }
+
+        if (entry == null || (entry.isStale(now) && !allowStale)) {
+            missCount++;
+            return null;
+        }
+
+        if (entry.isStale(now)) {
+            staleHitCount++;
+            return new CachedPage(entry.getContent(), true);
+        }
+
+        hitCount++;
+        return new CachedPage(entry.getContent(), false);
+    }
+
+    /**
+     * Cache a page with the default time to live.
+     *
+     * @param uri     URI of the page
+     * @param content Rendered page
+     * @return Status if the page was admitted
+     */
+    public boolean put(@NotNull String uri, @NotNull String content) {
+        return put(uri, content, timeToLive);
+    }
+
+    /**
+     * Cache a page with its own time to live. If the cache is full, the page is only admitted if it was requested more
+     * often than all the least recently used pages it would evict, expired pages are always evicted. The page is fresh
+     * for its time to live and can be served stale for the maximum staleness afterwards.
+     *
+     * @param uri        URI of the page
+     * @param content    Rendered page
+     * @param timeToLive Time to live of the page in milliseconds
+     * @return Status if the page was admitted
+     */
+    public synchronized boolean put(@NotNull String uri, @NotNull String content, long timeToLive) {
+        long now = System.currentTimeMillis();
+        long weight = getWeight(uri, content);
+        if (weight > maximumWeight || timeToLive < 1) {
+            rejectionCount++;
+            return false;
+        }
+
+        // Replace an existing page in any case, its URI was admitted before
+        @Nullable
+        PageCacheEntry previousEntry = entries.get(uri);
+        long requiredWeight = weightedSize + weight - (previousEntry != null ? previousEntry.getWeight() : 0);
+
+        // Collect the victims in LRU order and check the admission before anything is evicted
+        @NotNull
+        List<String> victims = new ArrayList<>();
+        int candidateFrequency = frequencySketch.frequency(uri);
+        @NotNull
+        Iterator<Map.Entry<String, PageCacheEntry>> iterator = entries.entrySet().iterator();
+        while (requiredWeight > maximumWeight && iterator.hasNext()) {
+            @NotNull
+            Map.Entry<String, PageCacheEntry> victim = iterator.next();
+            if (victim.getKey().equals(uri)) {
+                continue;
+            }
+            if (previousEntry == null && !victim.getValue().isExpired(now) && frequencySketch.frequency(victim.getKey()) >= candidateFrequency) {
+                rejectionCount++;
+                return false;
+            }
+            victims.add(victim.getKey());
+            requiredWeight -= victim.getValue().getWeight();
+        }
+
+        for (String victim : victims) {
+            removeEntry(victim);
+            evictionCount++;
+        }
+
+        if (previousEntry != null) {
+            removeEntry(uri);
+        }
+        entries.put(uri, new PageCacheEntry(content, weight, now + timeToLive, now + timeToLive + maximumStaleness));
+        weightedSize += weight;
+        return true;
+    }
+
+    /**
+     * Remove the page of the URI from the cache.
+     *
+     * @param uri URI of the page
+     */
+    public synchronized void invalidate(@NotNull String uri) {
+        removeEntry(uri);
+    }
+
+    /**
+     * Remove all pages from the cache, for example because the server bundle changed. The statistics are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weightedSize = 0;
+    }
+
+    /**
+     * Get the number of cached pages.
+     *
+     * @return Number of cached pages
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Get the estimated memory of all cached pages in bytes.
+     *
+     * @return Memory of all cached pages
+     */
+    public synchronized long getWeightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Get the maximum memory of all pages in bytes.
+     *
+     * @return Maximum memory of all pages
+     */
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Get the default time to live of a page in milliseconds.
+     *
+     * @return Default time to live
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Get the time in milliseconds a page can be served stale after its time to live.
+     *
+     * @return Maximum staleness
+     */
+    public long getMaximumStaleness() {
+        return maximumStaleness;
+    }
+
+    /**
+     * Get the number of requests answered by the cache with a fresh page.
+     *
+     * @return Number of hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of requests answered by the cache with a stale page.
+     *
+     * @return Number of stale hits
+     */
+    public synchronized long getStaleHitCount() {
+        return staleHitCount;
+    }
+
+    /**
+     * Get the number of requests not answered by the cache.
+     *
+     * @return Number of misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the ratio of requests answered by the cache, with a fresh or a stale page.
+     *
+     * @return Hit rate between 0 and 1 or 0 if the cache was never used
+     */
+    public synchronized double getHitRate() {
+        long requestCount = hitCount + staleHitCount + missCount;
+        return requestCount == 0 ? 0 : (double) (hitCount + staleHitCount) / requestCount;
+    }
+
+    /**
+     * Get the number of pages that were evicted to make room for other pages.
+     *
+     * @return Number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Get the number of pages that were not admitted.
+     *
+     * @return Number of rejections
+     */
+    public synchronized long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    /**
+     * Get the estimated memory of a page in bytes. Strings are counted with two bytes per character.
+     *
+     * @param uri     URI of the page
+     * @param content Rendered page
+     * @return Estimated memory of the page
+     */
+    static long getWeight(@NotNull String uri, @NotNull String content) {
+        return ENTRY_OVERHEAD + 2L * (uri.length() + content.length());
+    }
+
+    /**
+     * Remove a page and update the memory of all cached pages.
+     *
+     * @param uri URI of the page
+     */
+    private void removeEntry(@NotNull String uri) {
+        @Nullable
+        PageCacheEntry entry = entries.remove(uri);
+        if (entry != null) {
+            weightedSize -= entry.getWeight();
+        }
+    }
+
+    /**
+     * The class CachedPage represents a page returned by the cache.
+     */
+    public static class CachedPage {
+
+        /**
+         * Rendered page.
+         */
+        @NotNull
+        private final String content;
+
+        /**
+         * Status if the page is stale and should be rendered again.
+         */
+        private final boolean stale;
+
+        /**
+         * Create a new cached page.
+         *
+         * @param content Rendered page
+         * @param stale   Status if the page is stale
+         */
+        CachedPage(@NotNull String content, boolean stale) {
+            this.content = content;
+            this.stale = stale;
+        }
+
+        /**
+         * Get the rendered page.
+         *
+         * @return Rendered page
+         */
+        @NotNull
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * Check if the page is stale and should be rendered again.
+         *
+         * @return Status of the check
+         */
+        public boolean isStale() {
+            return stale;
+        }
+    }
+
+    /**
+     * The class PageCacheEntry represents a cached page with its memory, freshness and expiration time.
+     */
+    private static class PageCacheEntry {
+
+        /**
+         * Rendered page.
+         */
+        @NotNull
+        private final String content;
+
+        /**
+         * Estimated memory of the page in bytes.
+         */
+        private final long weight;
+
+        /**
+         * Time in milliseconds when the page becomes stale.
+         */
+        private final long staleTime;
+
+        /**
+         * Time in milliseconds when the page expires.
+         */
+        private final long expirationTime;
+
+        /**
+         * Create a new cache entry.
+         *
+         * @param content        Rendered page
+         * @param weight         Estimated memory of the page in bytes
+         * @param staleTime      Time in milliseconds when the page becomes stale
+         * @param expirationTime Time in milliseconds when the page expires
+         */
+        PageCacheEntry(@NotNull String content, long weight, long staleTime, long expirationTime) {
+            this.content = content;
+            this.weight = weight;
+            this.staleTime = staleTime;
+            this.expirationTime = expirationTime;
+        }
+
+        /**
+         * Get the rendered page.
+         *
+         * @return Rendered page
+         */
+        @NotNull
+        String getContent() {
+            return content;
+        }
+
+        /**
+         * Get the estimated memory of the page in bytes.
+         *
+         * @return Memory of the page
+         */
+        long getWeight() {
+            return weight;
+        }
+
+        /**
+         * Check if the page is stale.
+         *
+         * @param now Current time in milliseconds
+         * @return Status of the check
+         */
+        boolean isStale(long now) {
+            return now >= staleTime;
+        }
+
+        /**
+         * Check if the page is expired.
+         *
+         * @param now Current time in milliseconds
+         * @return Status of the check
+         */
+        boolean isExpired(long now) {
+            return now >= expirationTime;
+        }
+    }
+}
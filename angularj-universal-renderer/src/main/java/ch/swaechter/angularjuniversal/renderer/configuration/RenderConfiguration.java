@@ -8,7 +8,9 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * This class is responsible for providing the whole render configuration.
@@ -60,24 +62,205 @@ public class RenderConfiguration {
     private final List<String> routes;
 
     /**
-     * Create a new render configuration with the given parameters.
+     * Number of render engines that are rendering in parallel.
+     */
+    @NotNull
+    private final Integer engines;
+
+    /**
+     * Minimum number of connections a render engine keeps open to its Node.js process.
+     */
+    @NotNull
+    private final Integer connectionPoolMinSize;
+
+    /**
+     * Maximum number of connections a render engine opens to its Node.js process.
+     */
+    @NotNull
+    private final Integer connectionPoolMaxSize;
+
+    /**
+     * Time in milliseconds after which an idle connection above the minimum pool size is closed.
+     */
+    @NotNull
+    private final Long connectionIdleTimeout;
+
+    /**
+     * Maximum number of requests in flight on a single connection to the Node.js process.
+     */
+    @NotNull
+    private final Integer pipelineDepth;
+
+    /**
+     * Status if the template is registered once per connection instead of being sent with every request.
+     */
+    @NotNull
+    private final Boolean templateRegistration;
+
+    /**
+     * Maximum memory of the page cache in bytes or 0 if rendered pages are not cached.
+     */
+    @NotNull
+    private final Long pageCacheSize;
+
+    /**
+     * Time to live of a cached page in milliseconds.
+     */
+    @NotNull
+    private final Long pageCacheTtl;
+
+    /**
+     * Time in milliseconds a cached page is served stale while it is rendered again in the background.
+     */
+    @NotNull
+    private final Long pageCacheMaxStale;
+
+    /**
+     * Format of the messages exchanged with the Node.js render server.
+     */
+    @NotNull
+    private final WireFormat wireFormat;
+
+    /**
+     * Default time in milliseconds a render request may take before it is abandoned or 0 for no limit.
+     */
+    @NotNull
+    private final Long renderTimeout;
+
+    /**
+     * Maximum number of render requests waiting for a render engine or 0 for no limit.
+     */
+    @NotNull
+    private final Integer renderQueueCapacity;
+
+    /**
+     * Maximum estimated wait in milliseconds of a new render request or 0 for no limit.
+     */
+    @NotNull
+    private final Long renderQueueMaxWait;
+
+    /**
+     * Status if the render server is started outside of the renderer instead of as Node.js process of each render engine.
+     */
+    @NotNull
+    private final Boolean externalRenderServer;
+
+    /**
+     * Consumer of the lines the Node.js process of each render engine prints to its standard output.
+     */
+    @NotNull
+    private final Consumer<String> nodeOutput;
+
+    /**
+     * Maximum time in milliseconds the renderer waits for accepted render requests when it is stopped.
+     */
+    @NotNull
+    private final Long shutdownTimeout;
+
+    /**
+     * Number of times each warm-up URI is rendered by each render engine before it takes traffic or 0 to skip the warm-up.
+     */
+    @NotNull
+    private final Integer warmUpIterations;
+
+    /**
+     * Sample URIs that are rendered during the warm-up in addition to the concrete routes.
+     */
+    @NotNull
+    private final List<String> warmUpUris;
+
+    /**
+     * Number of times a render that failed because of its render engine is retried.
+     */
+    @NotNull
+    private final Integer renderRetries;
+
+    /**
+     * Number of consecutive failures of a render engine that open its circuit breaker.
+     */
+    @NotNull
+    private final Integer circuitBreakerThreshold;
+
+    /**
+     * Time in milliseconds the circuit breaker of a render engine stays open before a trial render.
+     */
+    @NotNull
+    private final Long circuitBreakerOpenDuration;
+
+    /**
+     * Create a new render configuration based on the values of the given builder.
+     *
+     * @param builder  Render configuration builder with all values
+     * @param nodePort Port of the Node.js TCP socket used for the rendering communication
+     */
+    @Contract(pure = true)
+    private RenderConfiguration(@NotNull RenderConfigurationBuilder builder, @NotNull Integer nodePort) {
+        this.nodePath = builder.nodePath;
+        this.nodePort = nodePort;
+        this.serverBundleFile = builder.serverBundleFile;
+        this.templateContent = builder.templateContent;
+        this.liveReload = builder.liveReload;
+        this.charset = builder.charset;
+        this.routes = builder.routes;
+        this.engines = builder.engines;
+        this.connectionPoolMinSize = builder.connectionPoolMinSize;
+        this.connectionPoolMaxSize = builder.connectionPoolMaxSize;
+        this.connectionIdleTimeout = builder.connectionIdleTimeout;
+        this.pipelineDepth = builder.pipelineDepth;
+        this.templateRegistration = builder.templateRegistration;
+        this.pageCacheSize = builder.pageCacheSize;
+        this.pageCacheTtl = builder.pageCacheTtl;
+        this.pageCacheMaxStale = builder.pageCacheMaxStale;
+        this.wireFormat = builder.wireFormat;
+        this.renderTimeout = builder.renderTimeout;
+        this.renderQueueCapacity = builder.renderQueueCapacity;
+        this.renderQueueMaxWait = builder.renderQueueMaxWait;
+        this.externalRenderServer = builder.externalRenderServer;
+        this.nodeOutput = builder.nodeOutput;
+        this.shutdownTimeout = builder.shutdownTimeout;
+        this.warmUpIterations = builder.warmUpIterations;
+        this.warmUpUris = builder.warmUpUris;
+        this.renderRetries = builder.renderRetries;
+        this.circuitBreakerThreshold = builder.circuitBreakerThreshold;
+        this.circuitBreakerOpenDuration = builder.circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Create a copy of the given render configuration that uses another Node.js port.
      *
-     * @param nodePath         Node.js path or executable name that is used to start a Node.js path used for rendering
-     * @param nodePort         Port of the Node.js TCP socket used for the rendering communication
-     * @param serverBundleFile File path of the server bundle that will be loaded by the render engine
-     * @param templateContent  Content of the template that is used for rendering the application
-     * @param liveReload       Status if live reload is enabled or not
-     * @param routes           Routes of the application
+     * @param renderConfiguration Render configuration that will be copied
+     * @param nodePort            Port of the Node.js TCP socket used for the rendering communication
      */
     @Contract(pure = true)
-    private RenderConfiguration(@NotNull String nodePath, @NotNull Integer nodePort, @NotNull File serverBundleFile, @NotNull String templateContent, @NotNull Boolean liveReload, @NotNull Charset charset, @NotNull List<String> routes) {
-        this.nodePath = nodePath;
+    private RenderConfiguration(@NotNull RenderConfiguration renderConfiguration, @NotNull Integer nodePort) {
+        this.nodePath = renderConfiguration.nodePath;
         this.nodePort = nodePort;
-        this.serverBundleFile = serverBundleFile;
-        this.templateContent = templateContent;
-        this.liveReload = liveReload;
-        this.charset = charset;
-        this.routes = routes;
+        this.serverBundleFile = renderConfiguration.serverBundleFile;
+        this.templateContent = renderConfiguration.templateContent;
+        this.liveReload = renderConfiguration.liveReload;
+        this.charset = renderConfiguration.charset;
+        this.routes = renderConfiguration.routes;
+        this.engines = renderConfiguration.engines;
+        this.connectionPoolMinSize = renderConfiguration.connectionPoolMinSize;
+        this.connectionPoolMaxSize = renderConfiguration.connectionPoolMaxSize;
+        this.connectionIdleTimeout = renderConfiguration.connectionIdleTimeout;
+        this.pipelineDepth = renderConfiguration.pipelineDepth;
+        this.templateRegistration = renderConfiguration.templateRegistration;
+        this.pageCacheSize = renderConfiguration.pageCacheSize;
+        this.pageCacheTtl = renderConfiguration.pageCacheTtl;
+        this.pageCacheMaxStale = renderConfiguration.pageCacheMaxStale;
+        this.wireFormat = renderConfiguration.wireFormat;
+        this.renderTimeout = renderConfiguration.renderTimeout;
+        this.renderQueueCapacity = renderConfiguration.renderQueueCapacity;
+        this.renderQueueMaxWait = renderConfiguration.renderQueueMaxWait;
+        this.externalRenderServer = renderConfiguration.externalRenderServer;
+        this.nodeOutput = renderConfiguration.nodeOutput;
+        this.shutdownTimeout = renderConfiguration.shutdownTimeout;
+        this.warmUpIterations = renderConfiguration.warmUpIterations;
+        this.warmUpUris = renderConfiguration.warmUpUris;
+        this.renderRetries = renderConfiguration.renderRetries;
+        this.circuitBreakerThreshold = renderConfiguration.circuitBreakerThreshold;
+        this.circuitBreakerOpenDuration = renderConfiguration.circuitBreakerOpenDuration;
     }
 
     /**
@@ -157,6 +340,261 @@ public class RenderConfiguration {
         return routes;
     }
 
+    /**
+     * Get the number of render engines that are rendering in parallel. Each render engine uses its own port, counted
+     * upwards from the configured Node.js port.
+     *
+     * @return Number of render engines
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getEngines() {
+        return engines;
+    }
+
+    /**
+     * Get the minimum number of connections a render engine keeps open to its Node.js process. These connections are
+     * kept warm even if they are idle.
+     *
+     * @return Minimum number of connections
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getConnectionPoolMinSize() {
+        return connectionPoolMinSize;
+    }
+
+    /**
+     * Get the maximum number of connections a render engine opens to its Node.js process. This is also the maximum
+     * number of renders a render engine has in flight.
+     *
+     * @return Maximum number of connections
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getConnectionPoolMaxSize() {
+        return connectionPoolMaxSize;
+    }
+
+    /**
+     * Get the time in milliseconds after which an idle connection above the minimum pool size is closed.
+     *
+     * @return Idle timeout in milliseconds
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getConnectionIdleTimeout() {
+        return connectionIdleTimeout;
+    }
+
+    /**
+     * Get the maximum number of requests in flight on a single connection to the Node.js process. With a depth above
+     * one, requests are pipelined and the responses are matched to their requests by ID.
+     *
+     * @return Maximum number of requests in flight per connection
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getPipelineDepth() {
+        return pipelineDepth;
+    }
+
+    /**
+     * Get the status if the template is registered once per connection under its content hash, so the render requests
+     * only carry the hash instead of the whole template.
+     *
+     * @return Status of the template registration
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Boolean getTemplateRegistration() {
+        return templateRegistration;
+    }
+
+    /**
+     * Get the maximum memory of the page cache in bytes.
+     *
+     * @return Maximum memory of the page cache or 0 if the page cache is disabled
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getPageCacheSize() {
+        return pageCacheSize;
+    }
+
+    /**
+     * Get the time to live of a cached page in milliseconds.
+     *
+     * @return Time to live of a cached page
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getPageCacheTtl() {
+        return pageCacheTtl;
+    }
+
+    /**
+     * Get the time in milliseconds a cached page is served stale after its time to live while it is rendered again in
+     * the background.
+     *
+     * @return Maximum staleness of a cached page or 0 if stale pages are not served
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getPageCacheMaxStale() {
+        return pageCacheMaxStale;
+    }
+
+    /**
+     * Get the format of the messages exchanged with the Node.js render server.
+     *
+     * @return Format of the messages
+     */
+    @NotNull
+    @Contract(pure = true)
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Get the default time in milliseconds a render request may take before it is abandoned.
+     *
+     * @return Default render timeout in milliseconds or 0 for no limit
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getRenderTimeout() {
+        return renderTimeout;
+    }
+
+    /**
+     * Get the maximum number of render requests waiting for a render engine. Further requests are answered with the
+     * template instead of being rendered.
+     *
+     * @return Render queue capacity or 0 for no limit
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getRenderQueueCapacity() {
+        return renderQueueCapacity;
+    }
+
+    /**
+     * Get the maximum estimated wait in milliseconds of a new render request. Requests that would wait longer are
+     * answered with the template instead of being rendered.
+     *
+     * @return Maximum wait in milliseconds or 0 for no limit
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getRenderQueueMaxWait() {
+        return renderQueueMaxWait;
+    }
+
+    /**
+     * Get the status if the render server is started outside of the renderer. In this case no Node.js process is started
+     * and the render engines connect to the render server at the Node.js port of their engine.
+     *
+     * @return Status of the external render server
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Boolean getExternalRenderServer() {
+        return externalRenderServer;
+    }
+
+    /**
+     * Get the consumer of the lines the Node.js process of each render engine prints to its standard output. The ready
+     * line of the render server is not passed to it.
+     *
+     * @return Consumer of the Node.js output
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Consumer<String> getNodeOutput() {
+        return nodeOutput;
+    }
+
+    /**
+     * Get the maximum time in milliseconds the renderer waits for accepted render requests when it is stopped.
+     *
+     * @return Shutdown timeout in milliseconds
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getShutdownTimeout() {
+        return shutdownTimeout;
+    }
+
+    /**
+     * Get the number of times each warm-up URI is rendered by each render engine before it takes traffic.
+     *
+     * @return Number of warm-up iterations or 0 if the warm-up is disabled
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getWarmUpIterations() {
+        return warmUpIterations;
+    }
+
+    /**
+     * Get the sample URIs that are rendered during the warm-up in addition to the concrete routes.
+     *
+     * @return Sample URIs of the warm-up
+     */
+    @NotNull
+    @Contract(pure = true)
+    public List<String> getWarmUpUris() {
+        return warmUpUris;
+    }
+
+    /**
+     * Get the number of times a render that failed because of its render engine, for example because the Node.js
+     * process crashed, is retried.
+     *
+     * @return Number of retries
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getRenderRetries() {
+        return renderRetries;
+    }
+
+    /**
+     * Get the number of consecutive failures of a render engine that open its circuit breaker.
+     *
+     * @return Failure threshold or 0 if the circuit breaker is disabled
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Integer getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    /**
+     * Get the time in milliseconds the circuit breaker of a render engine stays open before a trial render.
+     *
+     * @return Open duration in milliseconds
+     */
+    @NotNull
+    @Contract(pure = true)
+    public Long getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Get a copy of the render configuration that uses another Node.js port. This is used to give each render engine
+     * of the renderer its own port.
+     *
+     * @param nodePort Port of the Node.js TCP socket used for the rendering communication
+     * @return Copy of the render configuration with the new port
+     */
+    @NotNull
+    @Contract(pure = true)
+    public RenderConfiguration withNodePort(@NotNull Integer nodePort) {
+        return new RenderConfiguration(this, nodePort);
+    }
+
     /**
      * This class is responsible for building a render configuration.
      *
@@ -206,6 +644,133 @@ public class RenderConfiguration {
         @NotNull
         private List<String> routes = Arrays.asList("/");
 
+        /**
+         * Number of render engines that are rendering in parallel.
+         */
+        @NotNull
+        private Integer engines = 1;
+
+        /**
+         * Minimum number of connections a render engine keeps open to its Node.js process.
+         */
+        @NotNull
+        private Integer connectionPoolMinSize = 1;
+
+        /**
+         * Maximum number of connections a render engine opens to its Node.js process.
+         */
+        @NotNull
+        private Integer connectionPoolMaxSize = 4;
+
+        /**
+         * Time in milliseconds after which an idle connection above the minimum pool size is closed.
+         */
+        @NotNull
+        private Long connectionIdleTimeout = 60000L;
+
+        /**
+         * Maximum number of requests in flight on a single connection to the Node.js process.
+         */
+        @NotNull
+        private Integer pipelineDepth = 1;
+
+        /**
+         * Status if the template is registered once per connection instead of being sent with every request.
+         */
+        @NotNull
+        private Boolean templateRegistration = false;
+
+        /**
+         * Maximum memory of the page cache in bytes or 0 if rendered pages are not cached.
+         */
+        @NotNull
+        private Long pageCacheSize = 0L;
+
+        /**
+         * Time to live of a cached page in milliseconds.
+         */
+        @NotNull
+        private Long pageCacheTtl = 300000L;
+
+        /**
+         * Time in milliseconds a cached page is served stale while it is rendered again in the background.
+         */
+        @NotNull
+        private Long pageCacheMaxStale = 0L;
+
+        /**
+         * Format of the messages exchanged with the Node.js render server.
+         */
+        @NotNull
+        private WireFormat wireFormat = WireFormat.JSON;
+
+        /**
+         * Default time in milliseconds a render request may take before it is abandoned or 0 for no limit.
+         */
+        @NotNull
+        private Long renderTimeout = 0L;
+
+        /**
+         * Maximum number of render requests waiting for a render engine or 0 for no limit.
+         */
+        @NotNull
+        private Integer renderQueueCapacity = 0;
+
+        /**
+         * Maximum estimated wait in milliseconds of a new render request or 0 for no limit.
+         */
+        @NotNull
+        private Long renderQueueMaxWait = 0L;
+
+        /**
+         * Status if the render server is started outside of the renderer instead of as Node.js process of each render engine.
+         */
+        @NotNull
+        private Boolean externalRenderServer = false;
+
+        /**
+         * Consumer of the lines the Node.js process of each render engine prints to its standard output.
+         */
+        @NotNull
+        private Consumer<String> nodeOutput = line -> {
+        };
+
+        /**
+         * Maximum time in milliseconds the renderer waits for accepted render requests when it is stopped.
+         */
+        @NotNull
+        private Long shutdownTimeout = 30000L;
+
+        /**
+         * Number of times each warm-up URI is rendered by each render engine before it takes traffic or 0 to skip the warm-up.
+         */
+        @NotNull
+        private Integer warmUpIterations = 0;
+
+        /**
+         * Sample URIs that are rendered during the warm-up in addition to the concrete routes.
+         */
+        @NotNull
+        private List<String> warmUpUris = Collections.emptyList();
+
+        /**
+         * Number of times a render that failed because of its render engine is retried.
+         */
+        @NotNull
+        private Integer renderRetries = 1;
+
+        /**
+         * Number of consecutive failures of a render engine that open its circuit breaker.
+         */
+        @NotNull
+        private Integer circuitBreakerThreshold = 5;
+
+        /**
+         * Time in milliseconds the circuit breaker of a render engine stays open before a trial render.
+         */
+        @NotNull
+        private Long circuitBreakerOpenDuration = 5000L;
+
         /**
          * Create a new render configuration builder that can be used to build the render configuration.
          *
@@ -260,6 +825,304 @@ public class RenderConfiguration {
             return this;
         }
 
+        /**
+         * Specify the number of render engines that are rendering in parallel. Each render engine uses its own port,
+         * counted upwards from the Node.js port. By default one render engine is used.
+         *
+         * @param engines Number of render engines
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder engines(int engines) {
+            if (engines < 1) {
+                throw new IllegalArgumentException("At least one render engine is required");
+            }
+            this.engines = engines;
+            return this;
+        }
+
+        /**
+         * Specify the size of the connection pool each render engine uses to talk to its Node.js process. The minimum
+         * number of connections is kept open even if idle, the maximum number limits the renders in flight. By default
+         * one to four connections are used.
+         *
+         * @param minSize Minimum number of connections
+         * @param maxSize Maximum number of connections
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_, _ -> this")
+        public RenderConfigurationBuilder connectionPool(int minSize, int maxSize) {
+            if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+                throw new IllegalArgumentException("The connection pool requires 0 <= minSize <= maxSize and maxSize >= 1");
+            }
+            this.connectionPoolMinSize = minSize;
+            this.connectionPoolMaxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Specify the time in milliseconds after which an idle connection above the minimum pool size is closed. By
+         * default idle connections are closed after one minute.
+         *
+         * @param connectionIdleTimeout Idle timeout in milliseconds
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder connectionIdleTimeout(long connectionIdleTimeout) {
+            if (connectionIdleTimeout < 1) {
+                throw new IllegalArgumentException("The connection idle timeout has to be positive");
+            }
+            this.connectionIdleTimeout = connectionIdleTimeout;
+            return this;
+        }
+
+        /**
+         * Specify the maximum number of requests in flight on a single connection to the Node.js process. With a depth
+         * above one, requests are written back-to-back and the responses are matched to their requests by ID in
+         * whatever order they arrive. This requires a render server that handles pipelined requests. By default one
+         * request at a time is sent over a connection.
+         *
+         * @param pipelineDepth Maximum number of requests in flight per connection
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder pipelineDepth(int pipelineDepth) {
+            if (pipelineDepth < 1) {
+                throw new IllegalArgumentException("The pipeline depth has to be at least one");
+            }
+            this.pipelineDepth = pipelineDepth;
+            return this;
+        }
+
+        /**
+         * Enable or disable the template registration. If enabled, the template is registered once per connection under
+         * its content hash and the render requests only carry the hash and the URL. This requires a render server that
+         * supports the registration. By default the template is sent with every request.
+         *
+         * @param templateRegistration Status of the template registration
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder templateRegistration(boolean templateRegistration) {
+            this.templateRegistration = templateRegistration;
+            return this;
+        }
+
+        /**
+         * Enable the page cache that keeps rendered pages by their URI. The cache is bounded by the estimated memory of
+         * the pages and only admits a page in place of others if it was requested more often than the pages it would
+         * evict. By default no pages are cached.
+         *
+         * @param maximumSize Maximum memory of the page cache in bytes or 0 to disable the page cache
+         * @param timeToLive  Time to live of a cached page in milliseconds
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_, _ -> this")
+        public RenderConfigurationBuilder pageCache(long maximumSize, long timeToLive) {
+            if (maximumSize < 0 || timeToLive < 1) {
+                throw new IllegalArgumentException("The page cache requires maximumSize >= 0 and a positive time to live");
+            }
+            this.pageCacheSize = maximumSize;
+            this.pageCacheTtl = timeToLive;
+            return this;
+        }
+
+        /**
+         * Enable the stale-while-revalidate mode of the page cache. After its time to live, a cached page is still
+         * returned at once for the given time while a single render refreshes it in the background. Afterwards, callers
+         * wait for a fresh render again. By default stale pages are not served.
+         *
+         * @param pageCacheMaxStale Maximum staleness of a cached page in milliseconds or 0 to disable the mode
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder pageCacheMaxStale(long pageCacheMaxStale) {
+            if (pageCacheMaxStale < 0) {
+                throw new IllegalArgumentException("The maximum staleness of the page cache can't be negative");
+            }
+            this.pageCacheMaxStale = pageCacheMaxStale;
+            return this;
+        }
+
+        /**
+         * Specify the format of the messages exchanged with the Node.js render server. The framed formats send the
+         * template and the page as raw UTF-8 bytes behind a length header instead of an escaped JSON string. They
+         * require a render server that supports the framing. By default each message is a line of JSON.
+         *
+         * @param wireFormat Format of the messages
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder wireFormat(@NotNull WireFormat wireFormat) {
+            this.wireFormat = wireFormat;
+            return this;
+        }
+
+        /**
+         * Set the default time a render request may take. A request that is still queued afterwards is dropped without
+         * being sent, a request that is still being rendered is cancelled on the render server. By default render
+         * requests never time out.
+         *
+         * @param renderTimeout Render timeout in milliseconds or 0 for no limit
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder renderTimeout(long renderTimeout) {
+            if (renderTimeout < 0) {
+                throw new IllegalArgumentException("The render timeout can't be negative");
+            }
+            this.renderTimeout = renderTimeout;
+            return this;
+        }
+
+        /**
+         * Bound the render queue, so the renderer sheds load instead of building up latency. A render request is
+         * answered at once with the unrendered template if the queue is full or if its estimated wait exceeds the
+         * maximum wait. The template boots the application on the client side, so the page still works. Requests for a
+         * page that is already queued or being rendered share that render and are never shed. By default the queue is
+         * unbounded.
+         *
+         * @param capacity    Maximum number of render requests waiting for a render engine or 0 for no limit
+         * @param maximumWait Maximum estimated wait of a new render request in milliseconds or 0 for no limit
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_, _ -> this")
+        public RenderConfigurationBuilder renderQueue(int capacity, long maximumWait) {
+            if (capacity < 0 || maximumWait < 0) {
+                throw new IllegalArgumentException("The render queue requires capacity >= 0 and maximumWait >= 0");
+            }
+            this.renderQueueCapacity = capacity;
+            this.renderQueueMaxWait = maximumWait;
+            return this;
+        }
+
+        /**
+         * Enable or disable the external render server. If enabled, the render engines don't start a Node.js process and
+         * connect to a render server that was started outside of the renderer, for example in another container or an
+         * in-process server for load tests. Each engine connects to its own port, starting at the Node.js port. By
+         * default each render engine starts its own Node.js process.
+         *
+         * @param externalRenderServer Status of the external render server
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder externalRenderServer(boolean externalRenderServer) {
+            this.externalRenderServer = externalRenderServer;
+            return this;
+        }
+
+        /**
+         * Pass each line the Node.js process of a render engine prints to its standard output to the given consumer,
+         * for example a logger of the application. The consumer is called from a thread of the Node.js process and
+         * must not block. The error output of the Node.js process is inherited by the Java process. By default the
+         * standard output is discarded.
+         *
+         * @param nodeOutput Consumer of the Node.js output
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder nodeOutput(@NotNull Consumer<String> nodeOutput) {
+            this.nodeOutput = nodeOutput;
+            return this;
+        }
+
+        /**
+         * Set the maximum time the renderer waits for accepted render requests when it is stopped. Queued requests and
+         * renders in progress are finished within this time, the ones that are still pending afterwards fail with a
+         * render exception and the render engines are terminated. By default the renderer waits 30 seconds.
+         *
+         * @param shutdownTimeout Shutdown timeout in milliseconds or 0 to fail all pending requests at once
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder shutdownTimeout(long shutdownTimeout) {
+            if (shutdownTimeout < 0) {
+                throw new IllegalArgumentException("The shutdown timeout can't be negative");
+            }
+            this.shutdownTimeout = shutdownTimeout;
+            return this;
+        }
+
+        /**
+         * Warm up the render engines before they take traffic. Each render engine renders every concrete route of the
+         * application and the given sample URIs the given number of times, all render engines in parallel. This pays
+         * for the JIT compilation of Node.js and the instantiation of the Angular modules, and the first render waits
+         * until Node.js accepts connections. The renderer passes render requests on only after the warm-up, the same
+         * applies to the render engines of a reloaded server bundle. By default there is no warm-up.
+         *
+         * @param iterations Number of times each URI is rendered by each render engine or 0 to skip the warm-up
+         * @param uris       Sample URIs that are rendered in addition to the concrete routes
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_, _ -> this")
+        public RenderConfigurationBuilder warmUp(int iterations, @NotNull List<String> uris) {
+            if (iterations < 0) {
+                throw new IllegalArgumentException("The number of warm-up iterations can't be negative");
+            }
+            this.warmUpIterations = iterations;
+            this.warmUpUris = uris;
+            return this;
+        }
+
+        /**
+         * Retry renders that failed because of their render engine, for example because the Node.js process crashed or
+         * refused the connection. A retried render is passed to the least loaded available render engine again. Renders
+         * that failed on the render server itself are never retried, as they would fail again. By default a render is
+         * retried once.
+         *
+         * @param renderRetries Number of retries or 0 to never retry
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_ -> this")
+        public RenderConfigurationBuilder renderRetries(int renderRetries) {
+            if (renderRetries < 0) {
+                throw new IllegalArgumentException("The number of render retries can't be negative");
+            }
+            this.renderRetries = renderRetries;
+            return this;
+        }
+
+        /**
+         * Open the circuit breaker of a render engine after the given number of consecutive failures to reach its
+         * render server or as soon its Node.js process exits. While the circuit breaker is open, the render engine is
+         * unavailable: The renderer passes the render requests to the other render engines and answers them with the
+         * unrendered template if no render engine is available, instead of letting them run into timeouts. After the
+         * open duration, a single trial render decides if the circuit breaker closes again. By default the circuit
+         * breaker opens after 5 failures for 5 seconds.
+         *
+         * @param failureThreshold Number of consecutive failures or 0 to disable the circuit breaker
+         * @param openDuration     Time in milliseconds the circuit breaker stays open before a trial render
+         * @return Current render configuration builder
+         */
+        @NotNull
+        @Contract(value = "_, _ -> this")
+        public RenderConfigurationBuilder circuitBreaker(int failureThreshold, long openDuration) {
+            if (failureThreshold < 0) {
+                throw new IllegalArgumentException("The failure threshold of the circuit breaker can't be negative");
+            }
+            if (openDuration <= 0) {
+                throw new IllegalArgumentException("The open duration of the circuit breaker has to be positive");
+            }
+            this.circuitBreakerThreshold = failureThreshold;
+            this.circuitBreakerOpenDuration = openDuration;
+            return this;
+        }
+
         /**
          * Build a new render configuration.
          *
@@ -267,7 +1130,7 @@ public class RenderConfiguration {
          */
         @NotNull
         public RenderConfiguration build() {
-            return new RenderConfiguration(nodePath, nodePort, serverBundleFile, templateContent, liveReload, charset, routes);
+            return new RenderConfiguration(this, nodePort);
         }
     }
 }
@@ -0,0 +1,24 @@
+package ch.swaechter.angularjuniversal.renderer.configuration;
+
+/**
+ * This enum represents the format of the messages exchanged with the Node.js render server.
+ *
+ * @author Simon Wächter
+ */
+public enum WireFormat {
+
+    /**
+     * Each message is a line of JSON, the page is sent as escaped JSON string.
+     */
+    JSON,
+
+    /**
+     * Each message is a frame with a length header, the metadata as JSON and the page as raw UTF-8 body.
+     */
+    FRAMED_JSON,
+
+    /**
+     * Each message is a frame with a length header, the metadata as CBOR and the page as raw UTF-8 body.
+     */
+    FRAMED_CBOR
+}
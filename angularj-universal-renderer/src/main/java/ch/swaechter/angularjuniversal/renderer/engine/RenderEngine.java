@@ -24,4 +24,26 @@ public interface RenderEngine {
      * @param renderConfiguration Render configuration with the all required information
      */
     void startWorking(@NotNull BlockingQueue<Optional<RenderRequest>> renderRequests, @NotNull RenderConfiguration renderConfiguration);
+
+    /**
+     * Check if the render engine is able to render at the moment. A render engine whose render server crashed or
+     * doesn't respond reports itself unavailable until it recovered, so the renderer passes the render requests to
+     * the other render engines. By default a render engine is always available.
+     *
+     * @return Status of the check
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Check if the render engine finished its start and is able to accept render requests, for example because its
+     * render server signalled that it is listening. The renderer waits for its render engines to become ready before
+     * they take traffic. By default a render engine is ready as soon it was created.
+     *
+     * @return Status of the check
+     */
+    default boolean isReady() {
+        return true;
+    }
 }
@@ -0,0 +1,14 @@
+package ch.swaechter.angularjuniversal.renderer.exception;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An Exception thrown when a render request was not rendered before its deadline
+ */
+public class RenderTimeoutException extends RenderException {
+
+    public RenderTimeoutException(@NotNull String errorMessage) {
+        super(errorMessage);
+    }
+
+}
@@ -0,0 +1,14 @@
+package ch.swaechter.angularjuniversal.renderer.exception;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An Exception thrown when a render request was not rendered because no render engine was available
+ */
+public class RenderUnavailableException extends RenderException {
+
+    public RenderUnavailableException(@NotNull String errorMessage) {
+        super(errorMessage);
+    }
+
+}
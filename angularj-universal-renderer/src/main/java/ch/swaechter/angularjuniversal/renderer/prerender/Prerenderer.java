@@ -0,0 +1,261 @@
+package ch.swaechter.angularjuniversal.renderer.prerender;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class pre-renders pages that are the same for every visitor into an output directory, so they can be served
+ * as static files without a render engine. The page of a URI is written to the index.html file of the directory with
+ * the path of the URI, for example /about to about/index.html. The pages are rendered by the renderer in the background
+ * priority class, so they are spread over all render engines and interactive requests keep their precedence.
+ *
+ * @author Simon Wächter
+ */
+public class Prerenderer {
+
+    /**
+     * Name of the file that contains the page of a directory.
+     */
+    @NotNull
+    private static final String INDEX_FILE_NAME = "index.html";
+
+    /**
+     * Name of the sitemap element that contains the URL of a page.
+     */
+    @NotNull
+    private static final String SITEMAP_LOCATION_ELEMENT = "loc";
+
+    /**
+     * Renderer that renders the pages.
+     */
+    @NotNull
+    private final Renderer renderer;
+
+    /**
+     * Render configuration with the template and the charset.
+     */
+    @NotNull
+    private final RenderConfiguration renderConfiguration;
+
+    /**
+     * Directory the pages are written to.
+     */
+    @NotNull
+    private final File outputDirectory;
+
+    /**
+     * Create a new pre-renderer that writes the pages rendered by the given renderer to the output directory.
+     *
+     * @param renderer            Renderer that renders the pages
+     * @param renderConfiguration Render configuration with the template and the charset
+     * @param outputDirectory     Directory the pages are written to
+     */
+    public Prerenderer(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration, @NotNull File outputDirectory) {
+        this.renderer = renderer;
+        this.renderConfiguration = renderConfiguration;
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Pre-render all pages at once and receive a future that is completed as soon all of them are written or failed.
+     * A page that fails doesn't affect the other ones.
+     *
+     * @param uris URIs of the pages
+     * @return Future with the written file of each page that was pre-rendered, in the order of the URIs
+     */
+    @NotNull
+    public CompletableFuture<Map<String, File>> prerender(@NotNull Collection<String> uris) {
+        @NotNull
+        Map<String, CompletableFuture<File>> futures = new LinkedHashMap<>();
+        for (String uri : uris) {
+            futures.put(uri, prerender(uri));
+        }
+
+        return CompletableFuture.allOf(futures.values().stream().map(future -> future.handle((file, throwable) -> file)).toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            @NotNull
+            Map<String, File> pageFiles = new LinkedHashMap<>();
+            futures.forEach((uri, future) -> {
+                if (!future.isCompletedExceptionally()) {
+                    pageFiles.put(uri, future.join());
+                }
+            });
+            return pageFiles;
+        });
+    }
+
+    /**
+     * Pre-render a single page. The page is written to a temporary file first that replaces the previous page
+     * atomically, so a page that is served in the meantime is never incomplete. The future fails if the URI can't be
+     * mapped to a file, if the render failed or if the renderer answered with the unrendered template because it shed
+     * the request.
+     *
+     * @param uri URI of the page
+     * @return Future with the written file of the page
+     */
+    @NotNull
+    public CompletableFuture<File> prerender(@NotNull String uri) {
+        @Nullable
+        File pageFile = getPageFile(outputDirectory, uri);
+        if (pageFile == null) {
+            @NotNull
+            CompletableFuture<File> future = new CompletableFuture<>();
+            future.completeExceptionally(new RenderException("The URI " + uri + " can't be pre-rendered to a file"));
+            return future;
+        }
+
+        // Write the page outside of the thread that completed the render, which could be an I/O thread
+        return renderer.addRenderRequest(uri, RenderRequest.NO_DEADLINE, RenderPriority.BACKGROUND).thenApplyAsync(content -> {
+            if (content.equals(renderConfiguration.getTemplateContent())) {
+                throw new CompletionException(new RenderException("The page " + uri + " was not rendered, because the renderer is overloaded"));
+            }
+
+            try {
+                writePage(pageFile, content);
+            } catch (IOException exception) {
+                throw new CompletionException(new RenderException(exception));
+            }
+            return pageFile;
+        });
+    }
+
+    /**
+     * Write the page to a temporary file and move it to its final location.
+     *
+     * @param pageFile File of the page
+     * @param content  Rendered page
+     * @throws IOException Exception in case the page can't be written
+     */
+    private void writePage(@NotNull File pageFile, @NotNull String content) throws IOException {
+        @NotNull
+        Path pageDirectory = pageFile.getParentFile().toPath();
+        Files.createDirectories(pageDirectory);
+
+        @NotNull
+        Path temporaryFile = Files.createTempFile(pageDirectory, INDEX_FILE_NAME, ".tmp");
+        try {
+            Files.write(temporaryFile, content.getBytes(renderConfiguration.getCharset()));
+            Files.move(temporaryFile, pageFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * Get the file of the page with the given URI in the output directory. The query and the fragment of the URI are
+     * ignored. URIs that are not absolute or that would leave the output directory have no file.
+     *
+     * @param outputDirectory Directory with the pre-rendered pages
+     * @param uri             URI of the page
+     * @return File of the page or null if the URI can't be mapped to a file
+     */
+    @Nullable
+    public static File getPageFile(@NotNull File outputDirectory, @NotNull String uri) {
+        @Nullable
+        String pagePath = getPagePath(uri);
+        return pagePath != null ? new File(outputDirectory, pagePath) : null;
+    }
+
+    /**
+     * Get the path of the page with the given URI relative to the output directory, separated by slashes, for example
+     * about/index.html for /about. This allows to locate pages that were pre-rendered into a resource directory.
+     *
+     * @param uri URI of the page
+     * @return Relative path of the page or null if the URI can't be mapped to a file
+     */
+    @Nullable
+    public static String getPagePath(@NotNull String uri) {
+        @NotNull
+        String path = uri.split("[?#]", 2)[0];
+        if (!path.startsWith("/")) {
+            return null;
+        }
+
+        @NotNull
+        StringBuilder pagePath = new StringBuilder();
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals(".") || segment.equals("..") || segment.indexOf('\\') >= 0 || segment.indexOf(':') >= 0) {
+                return null;
+            }
+            pagePath.append(segment).append('/');
+        }
+        return pagePath.append(INDEX_FILE_NAME).toString();
+    }
+
+    /**
+     * Get the URIs of all pages of a sitemap. Only the path of each URL is used, because the pages are served by this
+     * application. URLs with a query are skipped, as their pages usually depend on the visitor.
+     *
+     * @param inputStream Input stream of the sitemap, which is closed afterwards
+     * @return URIs of the pages in the order of the sitemap
+     * @throws IOException Exception in case the sitemap can't be read or parsed
+     */
+    @NotNull
+    public static List<String> getSitemapUris(@NotNull InputStream inputStream) throws IOException {
+        @NotNull
+        Document document;
+        try (InputStream sitemapInputStream = inputStream) {
+            // Sitemaps have no document type, so external entities are never resolved
+            @NotNull
+            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+            documentBuilderFactory.setNamespaceAware(true);
+            documentBuilderFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            @NotNull
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder.setErrorHandler(new DefaultHandler());
+            document = documentBuilder.parse(sitemapInputStream);
+        } catch (ParserConfigurationException | SAXException exception) {
+            throw new IOException("Unable to parse the sitemap", exception);
+        }
+
+        @NotNull
+        List<String> uris = new ArrayList<>();
+        @NotNull
+        NodeList locations = document.getElementsByTagNameNS("*", SITEMAP_LOCATION_ELEMENT);
+        for (int index = 0; index < locations.getLength(); index++) {
+            try {
+                @NotNull
+                URI url = new URI(locations.item(index).getTextContent().trim());
+                if (url.getRawQuery() != null) {
+                    continue;
+                }
+                @Nullable
+                String path = url.getRawPath();
+                uris.add(path == null || path.isEmpty() ? "/" : path);
+            } catch (URISyntaxException exception) {
+                throw new IOException("The sitemap contains the invalid URL " + locations.item(index).getTextContent(), exception);
+            }
+        }
+        return uris;
+    }
+}
@@ -0,0 +1,46 @@
+package ch.swaechter.angularjuniversal.renderer.request;
+
+/**
+ * This enum represents the lifecycle phases of a render request in their order. Each phase is recorded as soon it was
+ * reached, so the time between two phases shows where the time of a render went.
+ *
+ * @author Simon Wächter
+ */
+public enum RenderPhase {
+
+    /**
+     * The render request was created and queued by the renderer.
+     */
+    CREATED,
+
+    /**
+     * The renderer passed the render request to a render engine, after it waited in the render queue.
+     */
+    DISPATCHED,
+
+    /**
+     * The render engine acquired a connection to the render server, after it waited for a free slot or opened the
+     * connection.
+     */
+    CONNECTED,
+
+    /**
+     * The render engine serialized the request and passed it to the connection.
+     */
+    SENT,
+
+    /**
+     * The response of the render server was completely received, after the render server rendered the page.
+     */
+    RECEIVED,
+
+    /**
+     * The response was parsed.
+     */
+    PARSED,
+
+    /**
+     * The future of the render request was completed with the page or a problem.
+     */
+    COMPLETED
+}
@@ -0,0 +1,49 @@
+package ch.swaechter.angularjuniversal.renderer.request;
+
+/**
+ * This enum represents the priority class of a render request. The renderer serves the classes with weighted fairness:
+ * As long several classes wait, each one gets a share of the render engines according to its weight. A class that
+ * doesn't wait leaves its share to the others, so low priority requests use the spare capacity.
+ *
+ * @author Simon Wächter
+ */
+public enum RenderPriority {
+
+    /**
+     * Page requests of users who wait for the page.
+     */
+    INTERACTIVE(8),
+
+    /**
+     * Renders nobody waits for, like refreshing stale pages in the page cache or prerendering jobs.
+     */
+    BACKGROUND(2),
+
+    /**
+     * Page requests of search engine crawlers and other bots.
+     */
+    CRAWLER(1);
+
+    /**
+     * Weight of the priority class.
+     */
+    private final int weight;
+
+    /**
+     * Create a new priority class with the given weight.
+     *
+     * @param weight Weight of the priority class
+     */
+    RenderPriority(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Get the weight of the priority class, which is its share of the render engines relative to the other classes.
+     *
+     * @return Weight of the priority class
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -1,19 +1,35 @@
 package ch.swaechter.angularjuniversal.renderer.request;
 
+import ch.swaechter.angularjuniversal.renderer.exception.RenderTimeoutException;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 
 /**
  * This class represents a render request with a completable future that will contain the rendered content, a unique
- * UUID and the URI of the request.
+ * ID, the URI of the request, its priority class and an optional deadline. A render request whose future was completed
+ * by someone else, for example because it was cancelled, or whose deadline passed is abandoned and doesn't have to be
+ * rendered anymore. The timings of the request record when it reached each lifecycle phase.
  *
  * @author Simon Wächter
  */
 public class RenderRequest {
 
-    private static long lastId = 0L;
+    /**
+     * Last ID that was given to a render request. Render requests are created by several threads, so the ID has to be
+     * generated atomically to stay unique.
+     */
+    @NotNull
+    private static final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Deadline of a render request that never expires.
+     */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
 
     /**
      * Completable future that will contain the rendered content.
@@ -22,9 +38,9 @@ public class RenderRequest {
     private CompletableFuture<String> future = new CompletableFuture<>();
 
     /**
-     * Unique UUID of the request.
+     * Unique ID of the request.
      */
-    private long id = ++RenderRequest.lastId;
+    private final long id = RenderRequest.lastId.incrementAndGet();
 
     /**
      * URI of the request.
@@ -33,12 +49,67 @@ public class RenderRequest {
     private String uri;
 
     /**
-     * Create a new render request based on the given URI.
+     * Priority class of the request.
+     */
+    @NotNull
+    private final RenderPriority priority;
+
+    /**
+     * Time in milliseconds since the epoch when the render request expires. Requests that share the render can extend
+     * it, so it is the latest deadline of all of them.
+     */
+    @NotNull
+    private final AtomicLong deadline;
+
+    /**
+     * Timings of the lifecycle phases of the request.
+     */
+    @NotNull
+    private final RenderTimings timings = new RenderTimings();
+
+    /**
+     * Number of times the request was retried.
+     */
+    @NotNull
+    private final AtomicInteger retries = new AtomicInteger();
+
+    /**
+     * Handler that passes the request to a render engine again or null if the request can't be retried.
+     */
+    @Nullable
+    private volatile Predicate<RenderRequest> retryHandler;
+
+    /**
+     * Create a new render request based on the given URI that never expires.
      *
      * @param uri URI of the page request
      */
     public RenderRequest(@NotNull String uri) {
+        this(uri, NO_DEADLINE);
+    }
+
+    /**
+     * Create a new render request based on the given URI and deadline.
+     *
+     * @param uri      URI of the page request
+     * @param deadline Time in milliseconds since the epoch when the request expires or {@value #NO_DEADLINE}
+     */
+    public RenderRequest(@NotNull String uri, long deadline) {
+        this(uri, deadline, RenderPriority.INTERACTIVE);
+    }
+
+    /**
+     * Create a new render request based on the given URI, deadline and priority class.
+     *
+     * @param uri      URI of the page request
+     * @param deadline Time in milliseconds since the epoch when the request expires or {@value #NO_DEADLINE}
+     * @param priority Priority class of the request
+     */
+    public RenderRequest(@NotNull String uri, long deadline, @NotNull RenderPriority priority) {
         this.uri = uri;
+        this.deadline = new AtomicLong(deadline);
+        this.priority = priority;
+        this.timings.mark(RenderPhase.CREATED);
     }
 
     /**
@@ -52,9 +123,9 @@ public class RenderRequest {
     }
 
     /**
-     * Get the unique UUID of the render request.
+     * Get the unique ID of the render request.
      *
-     * @return Unique UUID of the render request
+     * @return Unique ID of the render request
      */
     public long getId() {
         return id;
@@ -69,4 +140,92 @@ public class RenderRequest {
     public String getUri() {
         return uri;
     }
+
+    /**
+     * Get the priority class of the render request.
+     *
+     * @return Priority class of the render request
+     */
+    @NotNull
+    public RenderPriority getPriority() {
+        return priority;
+    }
+
+    /**
+     * Get the timings of the lifecycle phases of the render request. They are complete as soon the future of the
+     * render request is completed.
+     *
+     * @return Timings of the render request
+     */
+    @NotNull
+    public RenderTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Get the deadline of the render request.
+     *
+     * @return Time in milliseconds since the epoch when the request expires or {@value #NO_DEADLINE}
+     */
+    public long getDeadline() {
+        return deadline.get();
+    }
+
+    /**
+     * Extend the deadline of the render request, an earlier deadline has no impact.
+     *
+     * @param deadline Time in milliseconds since the epoch when the request expires or {@value #NO_DEADLINE}
+     */
+    public void extendDeadline(long deadline) {
+        this.deadline.accumulateAndGet(deadline, Math::max);
+    }
+
+    /**
+     * Check if the render request was abandoned and doesn't have to be rendered anymore. This is the case if its
+     * future is already completed, for example because it was cancelled, or if its deadline passed. In the latter case
+     * the future is completed with a render timeout exception.
+     *
+     * @return Status of the check
+     */
+    public boolean isAbandoned() {
+        if (!future.isDone() && System.currentTimeMillis() >= deadline.get()) {
+            future.completeExceptionally(new RenderTimeoutException("The render request for " + uri + " passed its deadline"));
+        }
+        return future.isDone();
+    }
+
+    /**
+     * Get the number of times the render request was retried.
+     *
+     * @return Number of retries
+     */
+    public int getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Set the handler that passes the render request to a render engine again as soon it is retried.
+     *
+     * @param retryHandler Handler that returns the status if it accepted the retry or null to disable the retries
+     */
+    public void setRetryHandler(@Nullable Predicate<RenderRequest> retryHandler) {
+        this.retryHandler = retryHandler;
+    }
+
+    /**
+     * Retry the render request after its render engine failed for a reason that doesn't depend on the page, for example
+     * because the render server crashed. The retry counts, even if the handler doesn't accept it. A render engine has to
+     * complete the render request itself if it is not retried.
+     *
+     * @return Status if the render request is rendered again
+     */
+    public boolean retry() {
+        @Nullable
+        Predicate<RenderRequest> handler = retryHandler;
+        if (handler == null || isAbandoned()) {
+            return false;
+        }
+        retries.incrementAndGet();
+        return handler.test(this);
+    }
 }
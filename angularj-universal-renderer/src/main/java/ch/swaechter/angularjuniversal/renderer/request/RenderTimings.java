@@ -0,0 +1,176 @@
+package ch.swaechter.angularjuniversal.renderer.request;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records when a render request reached each of its lifecycle phases together with the size of the request
+ * and the response on the wire. The timestamps are taken from the monotonic clock of {@link System#nanoTime()}, so only
+ * the differences between them are meaningful. The phases are recorded by different threads, all of them are visible
+ * as soon the future of the render request is completed.
+ *
+ * @author Simon Wächter
+ */
+public class RenderTimings {
+
+    /**
+     * Timestamp in nanoseconds of each phase or 0 if the phase was not reached.
+     */
+    @NotNull
+    private final AtomicLongArray timestamps = new AtomicLongArray(RenderPhase.values().length);
+
+    /**
+     * Size of the encoded request in bytes or 0 if it was not sent.
+     */
+    @NotNull
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    /**
+     * Size of the encoded response in bytes or 0 if it was not received.
+     */
+    @NotNull
+    private final AtomicLong responseBytes = new AtomicLong();
+
+    /**
+     * Record the current time for the given phase. A phase that is reached again, for example because a request was
+     * sent again, is recorded with the latest time.
+     *
+     * @param phase Reached phase
+     */
+    public void mark(@NotNull RenderPhase phase) {
+        mark(phase, System.nanoTime());
+    }
+
+    /**
+     * Record the given time for the given phase, for example a time that was taken by another component.
+     *
+     * @param phase     Reached phase
+     * @param timestamp Timestamp in nanoseconds of {@link System#nanoTime()}
+     */
+    public void mark(@NotNull RenderPhase phase, long timestamp) {
+        timestamps.set(phase.ordinal(), timestamp);
+    }
+
+    /**
+     * Record the current time for the given phase, unless the phase was already recorded.
+     *
+     * @param phase Reached phase
+     */
+    public void markIfAbsent(@NotNull RenderPhase phase) {
+        timestamps.compareAndSet(phase.ordinal(), 0, System.nanoTime());
+    }
+
+    /**
+     * Get the timestamp of the given phase.
+     *
+     * @param phase Phase to check
+     * @return Timestamp in nanoseconds of {@link System#nanoTime()} or 0 if the phase was not reached
+     */
+    public long getTimestamp(@NotNull RenderPhase phase) {
+        return timestamps.get(phase.ordinal());
+    }
+
+    /**
+     * Check if the given phase was reached.
+     *
+     * @param phase Phase to check
+     * @return Status of the check
+     */
+    public boolean hasReached(@NotNull RenderPhase phase) {
+        return getTimestamp(phase) != 0;
+    }
+
+    /**
+     * Get the time between two phases.
+     *
+     * @param from Earlier phase
+     * @param to   Later phase
+     * @param unit Unit of the duration
+     * @return Duration in the given unit or -1 if one of the phases was not reached
+     */
+    public long getDuration(@NotNull RenderPhase from, @NotNull RenderPhase to, @NotNull TimeUnit unit) {
+        long start = getTimestamp(from);
+        long end = getTimestamp(to);
+        if (start == 0 || end == 0) {
+            return -1;
+        }
+        return unit.convert(end - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the time a phase took, which is the time from the previous reached phase to the given phase.
+     *
+     * @param phase Phase to measure
+     * @param unit  Unit of the duration
+     * @return Duration in the given unit or -1 if the phase or no previous phase was reached
+     */
+    public long getPhaseDuration(@NotNull RenderPhase phase, @NotNull TimeUnit unit) {
+        for (int index = phase.ordinal() - 1; index >= 0; index--) {
+            if (timestamps.get(index) != 0) {
+                return getDuration(RenderPhase.values()[index], phase, unit);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the size of the encoded request.
+     *
+     * @return Size in bytes or 0 if the request was not sent
+     */
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    /**
+     * Set the size of the encoded request.
+     *
+     * @param requestBytes Size in bytes
+     */
+    public void setRequestBytes(long requestBytes) {
+        this.requestBytes.set(requestBytes);
+    }
+
+    /**
+     * Get the size of the encoded response.
+     *
+     * @return Size in bytes or 0 if no response was received
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * Set the size of the encoded response.
+     *
+     * @param responseBytes Size in bytes
+     */
+    public void setResponseBytes(long responseBytes) {
+        this.responseBytes.set(responseBytes);
+    }
+
+    /**
+     * Get a summary with the duration of each reached phase in milliseconds and the sizes of the request and response,
+     * for example to log a slow render.
+     *
+     * @return Summary of the timings
+     */
+    @Override
+    @NotNull
+    public String toString() {
+        @NotNull
+        StringBuilder builder = new StringBuilder();
+        for (RenderPhase phase : RenderPhase.values()) {
+            long duration = getPhaseDuration(phase, TimeUnit.MICROSECONDS);
+            if (duration >= 0) {
+                builder.append(phase.name().toLowerCase(Locale.ROOT)).append('=').append(String.format(Locale.ROOT, "%.3f", duration / 1000.0)).append("ms ");
+            }
+        }
+        builder.append("request=").append(getRequestBytes()).append("B response=").append(getResponseBytes()).append('B');
+        return builder.toString();
+    }
+}
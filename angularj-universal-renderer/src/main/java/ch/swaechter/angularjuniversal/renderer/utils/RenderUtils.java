@@ -4,6 +4,10 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class provides several useful util functions for reading and caching the assets.
@@ -52,4 +56,88 @@ public class RenderUtils {
         }
         return file;
     }
+
+    /**
+     * Get the SHA-256 hash of a string as hexadecimal string. The hash is used to identify content like the template
+     * without comparing or transferring the whole content.
+     *
+     * @param content Content that will be hashed
+     * @param charset Charset used to encode the content
+     * @return Hexadecimal SHA-256 hash of the content
+     */
+    @NotNull
+    public static String getHash(@NotNull String content, @NotNull Charset charset) {
+        return toHexString(createMessageDigest().digest(content.getBytes(charset)));
+    }
+
+    /**
+     * Get the SHA-256 hash of the content of a file as hexadecimal string. The file is streamed, so even a large server
+     * bundle is not held in memory.
+     *
+     * @param file File that will be hashed
+     * @return Hexadecimal SHA-256 hash of the file content
+     * @throws IOException Exception in case the file can't be read
+     */
+    @NotNull
+    public static String getHash(@NotNull File file) throws IOException {
+        MessageDigest messageDigest = createMessageDigest();
+        try (InputStream inputStream = new FileInputStream(file)) {
+            byte[] buffer = new byte[8192];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, length);
+            }
+        }
+        return toHexString(messageDigest.digest());
+    }
+
+    /**
+     * Get the concrete routes, which are the routes without any wildcards or variables. These routes stand for a
+     * single page, so they can be rendered ahead of time.
+     *
+     * @param routes Routes of the application
+     * @return Concrete routes in their original order
+     */
+    @NotNull
+    public static List<String> getConcreteRoutes(@NotNull List<String> routes) {
+        @NotNull
+        List<String> concreteRoutes = new ArrayList<>();
+        for (String route : routes) {
+            if (route.indexOf('*') < 0 && route.indexOf('?') < 0 && route.indexOf('{') < 0) {
+                concreteRoutes.add(route);
+            }
+        }
+        return concreteRoutes;
+    }
+
+    /**
+     * Create a new SHA-256 message digest.
+     *
+     * @return SHA-256 message digest
+     */
+    @NotNull
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            // Every Java platform has to support SHA-256
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    /**
+     * Convert a hash to a hexadecimal string.
+     *
+     * @param hash Hash to convert
+     * @return Hexadecimal string of the hash
+     */
+    @NotNull
+    private static String toHexString(@NotNull byte[] hash) {
+        StringBuilder builder = new StringBuilder(hash.length * 2);
+        for (byte value : hash) {
+            builder.append(Character.forDigit((value >> 4) & 0xF, 16));
+            builder.append(Character.forDigit(value & 0xF, 16));
+        }
+        return builder.toString();
+    }
 }
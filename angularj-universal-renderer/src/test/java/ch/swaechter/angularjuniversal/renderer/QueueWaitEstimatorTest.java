@@ -0,0 +1,38 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This class is responsible for testing the estimation of the render queue wait.
+ *
+ * @author Simon Wächter
+ */
+public class QueueWaitEstimatorTest {
+
+    /**
+     * Test that the wait grows with the number of queued requests and the time between completed renders.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testEstimateWait() throws Exception {
+        QueueWaitEstimator queueWaitEstimator = new QueueWaitEstimator();
+        Assert.assertEquals(0, queueWaitEstimator.estimateWait(10));
+
+        queueWaitEstimator.renderStarted();
+        queueWaitEstimator.renderStarted();
+        Thread.sleep(20);
+        queueWaitEstimator.renderCompleted();
+        long singleWait = queueWaitEstimator.estimateWait(0);
+        Assert.assertTrue(singleWait >= 20);
+        Assert.assertTrue(queueWaitEstimator.estimateWait(9) >= 10 * singleWait - 10);
+
+        // An idle period is not counted as time between two renders
+        queueWaitEstimator.renderCompleted();
+        Thread.sleep(100);
+        queueWaitEstimator.renderStarted();
+        queueWaitEstimator.renderCompleted();
+        Assert.assertTrue(queueWaitEstimator.estimateWait(0) < singleWait + 50);
+    }
+}
@@ -0,0 +1,80 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * This class is responsible for testing the render queue with its priority classes.
+ *
+ * @author Simon Wächter
+ */
+public class RenderQueueTest {
+
+    /**
+     * Test that the priority classes are served according to their weights and that a lonely class gets all requests.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testWeightedFairness() throws Exception {
+        RenderQueue renderQueue = new RenderQueue(0);
+        for (int i = 0; i < 20; i++) {
+            renderQueue.offer(new RenderRequest("/user" + i, RenderRequest.NO_DEADLINE, RenderPriority.INTERACTIVE));
+            renderQueue.offer(new RenderRequest("/bot" + i, RenderRequest.NO_DEADLINE, RenderPriority.CRAWLER));
+        }
+        Assert.assertEquals(40, renderQueue.size());
+        Assert.assertEquals(20, renderQueue.sizeAhead(RenderPriority.INTERACTIVE));
+        Assert.assertEquals(40, renderQueue.sizeAhead(RenderPriority.CRAWLER));
+
+        // Each round of the summed weights serves each class according to its weight
+        Map<RenderPriority, Integer> counts = new EnumMap<>(RenderPriority.class);
+        int round = RenderPriority.INTERACTIVE.getWeight() + RenderPriority.CRAWLER.getWeight();
+        for (int i = 0; i < round; i++) {
+            counts.merge(renderQueue.take().get().getPriority(), 1, Integer::sum);
+        }
+        Assert.assertEquals(Integer.valueOf(RenderPriority.INTERACTIVE.getWeight()), counts.get(RenderPriority.INTERACTIVE));
+        Assert.assertEquals(Integer.valueOf(RenderPriority.CRAWLER.getWeight()), counts.get(RenderPriority.CRAWLER));
+
+        // Requests of a class are served in order and the crawlers get all slots as soon the users are served
+        int nextUser = RenderPriority.INTERACTIVE.getWeight();
+        int nextBot = RenderPriority.CRAWLER.getWeight();
+        while (renderQueue.size() > 0) {
+            RenderRequest renderRequest = renderQueue.take().get();
+            if (renderRequest.getPriority() == RenderPriority.INTERACTIVE) {
+                Assert.assertEquals("/user" + nextUser++, renderRequest.getUri());
+            } else {
+                Assert.assertEquals("/bot" + nextBot++, renderRequest.getUri());
+            }
+        }
+        Assert.assertEquals(20, nextUser);
+        Assert.assertEquals(20, nextBot);
+    }
+
+    /**
+     * Test that the render queue is bounded and that a closed queue is drained before the consumer stops.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testCapacityAndClose() throws Exception {
+        RenderQueue renderQueue = new RenderQueue(2);
+        Assert.assertTrue(renderQueue.offer(new RenderRequest("/page1")));
+        Assert.assertTrue(renderQueue.offer(new RenderRequest("/page2", RenderRequest.NO_DEADLINE, RenderPriority.BACKGROUND)));
+        Assert.assertFalse(renderQueue.offer(new RenderRequest("/page3")));
+
+        renderQueue.close();
+        Assert.assertEquals("/page1", renderQueue.take().get().getUri());
+        Assert.assertEquals("/page2", renderQueue.take().get().getUri());
+        Assert.assertFalse(renderQueue.take().isPresent());
+        renderQueue.awaitClosed();
+
+        // The queue is open again for the next consumer
+        Assert.assertTrue(renderQueue.offer(new RenderRequest("/page4")));
+        Assert.assertEquals("/page4", renderQueue.take().get().getUri());
+    }
+}
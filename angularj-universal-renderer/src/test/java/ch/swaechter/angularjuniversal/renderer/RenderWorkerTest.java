@@ -0,0 +1,50 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+/**
+ * This class is responsible for testing the outstanding request count of a render worker.
+ *
+ * @author Simon Wächter
+ */
+public class RenderWorkerTest {
+
+    /**
+     * Test that a render request stops counting as outstanding once it is completed or handed off to another worker,
+     * even if it is retried several times.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testOutstandingRequests() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").build();
+        RenderWorker failedWorker = new RenderWorker((renderRequests, configuration) -> {
+        }, renderConfiguration, 0);
+        RenderWorker otherWorker = new RenderWorker((renderRequests, configuration) -> {
+        }, renderConfiguration, 1);
+
+        // A handed off request only counts on the worker that renders it now
+        RenderRequest renderRequest = new RenderRequest("/");
+        Assert.assertTrue(failedWorker.addRenderRequest(renderRequest));
+        Assert.assertEquals(1, failedWorker.getOutstandingRequests());
+        failedWorker.handOffRenderRequest(renderRequest);
+        Assert.assertTrue(otherWorker.addRenderRequest(renderRequest));
+        Assert.assertEquals(0, failedWorker.getOutstandingRequests());
+        Assert.assertEquals(1, otherWorker.getOutstandingRequests());
+
+        // A request retried back onto the same worker counts only once
+        otherWorker.handOffRenderRequest(renderRequest);
+        Assert.assertTrue(otherWorker.addRenderRequest(renderRequest));
+        Assert.assertEquals(1, otherWorker.getOutstandingRequests());
+
+        // The completion releases the request on every worker it passed
+        renderRequest.getFuture().complete("Content");
+        Assert.assertEquals(0, failedWorker.getOutstandingRequests());
+        Assert.assertEquals(0, otherWorker.getOutstandingRequests());
+    }
+}
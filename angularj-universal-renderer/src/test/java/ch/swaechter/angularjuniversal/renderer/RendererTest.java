@@ -0,0 +1,808 @@
+package ch.swaechter.angularjuniversal.renderer;
+
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderException;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderTimeoutException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPhase;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import ch.swaechter.angularjuniversal.renderer.request.RenderTimings;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class is responsible for testing the renderer with a simple in-memory render engine.
+ *
+ * @author Simon Wächter
+ */
+public class RendererTest {
+
+    /**
+     * Test that all render engines of the renderer are used and each one gets its own port.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithMultipleEngines() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").engines(3).build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+
+        Assert.assertFalse(renderer.isRendererRunning());
+        renderer.startRenderer();
+        Assert.assertTrue(renderer.isRendererRunning());
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            futures.add(renderer.addRenderRequest("/page" + i));
+        }
+
+        Set<String> ports = new HashSet<>();
+        for (int i = 0; i < futures.size(); i++) {
+            String content = futures.get(i).get();
+            Assert.assertTrue(content.startsWith("/page" + i + "@"));
+            ports.add(content.substring(content.indexOf('@') + 1));
+        }
+        Assert.assertEquals(3, ports.size());
+        Assert.assertTrue(ports.contains("9090"));
+        Assert.assertTrue(ports.contains("9091"));
+        Assert.assertTrue(ports.contains("9092"));
+
+        renderer.stopRenderer();
+        Assert.assertFalse(renderer.isRendererRunning());
+    }
+
+    /**
+     * Test that cached pages are not rendered again.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithPageCache() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").pageCache(1024 * 1024, 60000).build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+        renderer.startRenderer();
+
+        Assert.assertEquals("/@9090", renderer.addRenderRequest("/").get());
+        Future<String> cachedFuture = renderer.addRenderRequest("/");
+        Assert.assertTrue(cachedFuture.isDone());
+        Assert.assertEquals("/@9090", cachedFuture.get());
+        Assert.assertEquals(1, renderer.getPageCache().getHitCount());
+        Assert.assertEquals(1, renderer.getPageCache().getMissCount());
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that concurrent requests for the same URI share a single render.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithCoalescedRequests() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+        renderer.startRenderer();
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(renderer.addRenderRequest("/"));
+        }
+        Future<String> otherFuture = renderer.addRenderRequest("/other");
+        Assert.assertEquals(2, renderer.getPendingRenderCount());
+
+        for (Future<String> future : futures) {
+            Assert.assertEquals("/@9090", future.get());
+        }
+        Assert.assertEquals("/other@9090", otherFuture.get());
+        Assert.assertEquals(9, renderer.getCoalescedRequestCount());
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that the completion listeners receive each render request with the timings of its phases.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithCompletionListener() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+        BlockingQueue<RenderRequest> completedRequests = new LinkedBlockingDeque<>();
+        renderer.addCompletionListener(completedRequests::add);
+        renderer.startRenderer();
+
+        Assert.assertEquals("/@9090", renderer.addRenderRequest("/").get());
+        RenderRequest renderRequest = completedRequests.poll(10, TimeUnit.SECONDS);
+        Assert.assertEquals("/", renderRequest.getUri());
+        RenderTimings timings = renderRequest.getTimings();
+        Assert.assertTrue(timings.getDuration(RenderPhase.CREATED, RenderPhase.DISPATCHED, TimeUnit.NANOSECONDS) >= 0);
+        Assert.assertTrue(timings.getDuration(RenderPhase.DISPATCHED, RenderPhase.COMPLETED, TimeUnit.MILLISECONDS) >= 20);
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that a stale page is returned at once while it is rendered again in the background.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithStalePages() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").pageCache(1024 * 1024, 1).pageCacheMaxStale(60000).build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+        renderer.startRenderer();
+
+        Assert.assertEquals("/@9090", renderer.addRenderRequest("/").get());
+        Thread.sleep(5);
+
+        // The stale page is returned without waiting and a single render is queued
+        Future<String> staleFuture = renderer.addRenderRequest("/");
+        Assert.assertTrue(staleFuture.isDone());
+        Assert.assertEquals("/@9090", staleFuture.get());
+        Assert.assertTrue(renderer.addRenderRequest("/").isDone());
+        Assert.assertEquals(2, renderer.getPageCache().getStaleHitCount());
+        Assert.assertEquals(1, renderer.getPendingRenderCount());
+        Assert.assertEquals(0, renderer.getCoalescedRequestCount());
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that a request fails as soon its deadline passes and the render is cancelled as soon all callers abandoned
+     * it.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithDeadlinesAndCancellation() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").renderTimeout(50).build();
+        HangingRenderEngine renderEngine = new HangingRenderEngine();
+        Renderer renderer = new Renderer(renderConfiguration, () -> renderEngine);
+        renderer.startRenderer();
+
+        // The configured render timeout applies and the render is abandoned
+        Future<String> timedOutFuture = renderer.addRenderRequest("/slow");
+        try {
+            timedOutFuture.get();
+            Assert.fail("The request should time out");
+        } catch (ExecutionException exception) {
+            Assert.assertTrue(exception.getCause() instanceof RenderTimeoutException);
+        }
+        RenderRequest timedOutRequest = renderEngine.takeRenderRequest();
+        for (int i = 0; i < 100 && renderer.getPendingRenderCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(timedOutRequest.getFuture().isCancelled());
+        Assert.assertEquals(0, renderer.getPendingRenderCount());
+
+        // Cancelling one of two callers keeps the render, cancelling both cancels it
+        CompletableFuture<String> future1 = renderer.addRenderRequest("/", RenderRequest.NO_DEADLINE);
+        CompletableFuture<String> future2 = renderer.addRenderRequest("/", RenderRequest.NO_DEADLINE);
+        RenderRequest renderRequest = renderEngine.takeRenderRequest();
+        future1.cancel(true);
+        Assert.assertFalse(renderRequest.getFuture().isDone());
+        future2.cancel(true);
+        Assert.assertTrue(renderRequest.getFuture().isCancelled());
+        Assert.assertEquals(0, renderer.getPendingRenderCount());
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that new requests are answered with the template as soon the render queue is full, while requests for a
+     * pending page still share its render.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithLoadShedding() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").connectionPool(1, 1).renderQueue(2, 0).build();
+        HangingRenderEngine renderEngine = new HangingRenderEngine();
+        Renderer renderer = new Renderer(renderConfiguration, () -> renderEngine);
+        renderer.startRenderer();
+
+        // The first request is rendered and occupies the only slot
+        CompletableFuture<String> future1 = renderer.addRenderRequest("/page1");
+        RenderRequest renderRequest1 = renderEngine.takeRenderRequest();
+
+        // Two requests fill the queue, further pages are shed but pending pages are still shared
+        CompletableFuture<String> future2 = renderer.addRenderRequest("/page2");
+        CompletableFuture<String> future3 = renderer.addRenderRequest("/page3");
+        Assert.assertEquals(2, renderer.getQueuedRequestCount());
+        CompletableFuture<String> shedFuture = renderer.addRenderRequest("/page4");
+        Assert.assertTrue(shedFuture.isDone());
+        Assert.assertEquals("<app-root></app-root>", shedFuture.get());
+        CompletableFuture<String> sharedFuture = renderer.addRenderRequest("/page3");
+        Assert.assertFalse(sharedFuture.isDone());
+        Assert.assertEquals(1, renderer.getShedRequestCount());
+        Assert.assertEquals(1, renderer.getCoalescedRequestCount());
+
+        // Completed renders free the slot for the queued requests
+        renderRequest1.getFuture().complete("page1");
+        Assert.assertEquals("page1", future1.get());
+        RenderRequest renderRequest2 = renderEngine.takeRenderRequest();
+        renderRequest2.getFuture().complete("page2");
+        Assert.assertEquals("page2", future2.get());
+        RenderRequest renderRequest3 = renderEngine.takeRenderRequest();
+        renderRequest3.getFuture().complete("page3");
+        Assert.assertEquals("page3", future3.get());
+        Assert.assertEquals("page3", sharedFuture.get());
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that concurrent requests that lose the race for the last queue slot get the template, while their render
+     * requests are neither completed with the template nor passed to the completion listeners, so they only count as
+     * shed. The page cache is disabled, so the callers don't share a derived future by accident.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithLoadSheddingWithoutPageCache() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").renderQueue(1, 0).build();
+        Renderer renderer = new Renderer(renderConfiguration, HangingRenderEngine::new);
+        Queue<RenderRequest> completedRequests = new ConcurrentLinkedQueue<>();
+        renderer.addCompletionListener(completedRequests::add);
+
+        // The renderer is not started, so the first request stays queued and all other ones are shed
+        int threads = 8;
+        int requestsPerThread = 200;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        Queue<CompletableFuture<String>> futures = new ConcurrentLinkedQueue<>();
+        List<Thread> requestThreads = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread * requestsPerThread;
+            requestThreads.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                    for (int i = 0; i < requestsPerThread; i++) {
+                        futures.add(renderer.addRenderRequest("/page" + (offset + i)));
+                    }
+                } catch (Exception exception) {
+                    throw new IllegalStateException(exception);
+                }
+            }));
+        }
+        requestThreads.forEach(Thread::start);
+        for (Thread requestThread : requestThreads) {
+            requestThread.join();
+        }
+
+        Assert.assertEquals(1, renderer.getQueuedRequestCount());
+        Assert.assertEquals(threads * requestsPerThread - 1, renderer.getShedRequestCount());
+        Assert.assertEquals(threads * requestsPerThread - 1, futures.stream().filter(CompletableFuture::isDone).count());
+        for (CompletableFuture<String> future : futures) {
+            if (future.isDone()) {
+                Assert.assertEquals("<app-root></app-root>", future.get());
+            }
+        }
+        Assert.assertTrue(completedRequests.isEmpty());
+        Assert.assertEquals(1, renderer.getPendingRenderCount());
+    }
+
+    /**
+     * Test that interactive requests are rendered before the crawler requests that were queued earlier.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithPriorities() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").connectionPool(1, 1).build();
+        HangingRenderEngine renderEngine = new HangingRenderEngine();
+        Renderer renderer = new Renderer(renderConfiguration, () -> renderEngine);
+        renderer.startRenderer();
+
+        renderer.addRenderRequest("/busy", RenderPriority.CRAWLER);
+        RenderRequest busyRequest = renderEngine.takeRenderRequest();
+        renderer.addRenderRequest("/crawler1", RenderPriority.CRAWLER);
+        renderer.addRenderRequest("/crawler2", RenderPriority.CRAWLER);
+        renderer.addRenderRequest("/user1", RenderPriority.INTERACTIVE);
+        renderer.addRenderRequest("/user2");
+
+        busyRequest.getFuture().complete("busy");
+        for (String uri : new String[]{"/user1", "/user2", "/crawler1", "/crawler2"}) {
+            RenderRequest renderRequest = renderEngine.takeRenderRequest();
+            Assert.assertEquals(uri, renderRequest.getUri());
+            renderRequest.getFuture().complete(uri);
+        }
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that a changed server bundle is picked up by new render engines on the other ports, while a touch without a
+     * content change doesn't reload anything.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithLiveReload() throws Exception {
+        File serverBundleFile = File.createTempFile("server", ".js");
+        serverBundleFile.deleteOnExit();
+        Files.write(serverBundleFile.toPath(), "version1".getBytes(StandardCharsets.UTF_8));
+
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, serverBundleFile, "<app-root></app-root>").liveReload(true).build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+        renderer.startRenderer();
+        Assert.assertEquals("/@9090", renderer.addRenderRequest("/").get());
+
+        Files.write(serverBundleFile.toPath(), "version2".getBytes(StandardCharsets.UTF_8));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (renderer.getReloadCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(1, renderer.getReloadCount());
+        Assert.assertTrue(renderer.isRendererRunning());
+        Assert.assertEquals("/@9091", renderer.addRenderRequest("/").get());
+
+        Assert.assertTrue(serverBundleFile.setLastModified(System.currentTimeMillis() + 5000));
+        Thread.sleep(1000);
+        Assert.assertEquals(1, renderer.getReloadCount());
+        Assert.assertEquals("/@9091", renderer.addRenderRequest("/").get());
+
+        renderer.stopRenderer();
+        Assert.assertFalse(renderer.isRendererRunning());
+    }
+
+    /**
+     * Test that a reload whose render engines don't become ready is counted as failed and the previous render engines
+     * stay in use.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithFailedReload() throws Exception {
+        File serverBundleFile = File.createTempFile("server", ".js");
+        serverBundleFile.deleteOnExit();
+        Files.write(serverBundleFile.toPath(), "version1".getBytes(StandardCharsets.UTF_8));
+
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, serverBundleFile, "<app-root></app-root>").liveReload(true).build();
+        AtomicBoolean started = new AtomicBoolean();
+        Renderer renderer = new Renderer(renderConfiguration, () -> started.getAndSet(true) ? new FailingRenderEngine() : new SleepingRenderEngine());
+        renderer.startRenderer();
+        Assert.assertEquals("/@9090", renderer.addRenderRequest("/").get());
+
+        Files.write(serverBundleFile.toPath(), "version2".getBytes(StandardCharsets.UTF_8));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (renderer.getFailedReloadCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(1, renderer.getFailedReloadCount());
+        Assert.assertEquals(0, renderer.getReloadCount());
+        Assert.assertEquals("/@9090", renderer.addRenderRequest("/").get());
+
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that stopping the renderer finishes the accepted render requests and answers new ones with the template.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithGracefulDrain() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").connectionPool(1, 1).shutdownTimeout(10000).build();
+        Renderer renderer = new Renderer(renderConfiguration, SleepingRenderEngine::new);
+        renderer.startRenderer();
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(renderer.addRenderRequest("/page" + i));
+        }
+        Thread stopThread = new Thread(renderer::stopRenderer);
+        stopThread.start();
+        while (renderer.isRendererRunning() && renderer.addRenderRequest("/late").getNow(null) == null) {
+            Thread.sleep(1);
+        }
+        stopThread.join(10000);
+
+        Assert.assertFalse(renderer.isRendererRunning());
+        for (int i = 0; i < futures.size(); i++) {
+            Assert.assertEquals("/page" + i + "@9090", futures.get(i).get(0, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Test that the renderer state can be checked while the renderer is drained, without waiting for the drain.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererStateDuringDrain() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").connectionPool(1, 1).shutdownTimeout(2000).build();
+        HangingRenderEngine renderEngine = new HangingRenderEngine();
+        Renderer renderer = new Renderer(renderConfiguration, () -> renderEngine);
+        renderer.startRenderer();
+
+        CompletableFuture<String> hangingFuture = renderer.addRenderRequest("/hanging", RenderRequest.NO_DEADLINE);
+        Assert.assertNotNull(renderEngine.takeRenderRequest());
+        Thread stopThread = new Thread(renderer::stopRenderer);
+        stopThread.start();
+        for (int i = 0; i < 100 && renderer.isRendererReady(); i++) {
+            Thread.sleep(10);
+        }
+
+        // The drain waits for the hanging render, but the state is answered at once
+        long startTime = System.currentTimeMillis();
+        Assert.assertTrue(renderer.isRendererRunning());
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 1000);
+        Assert.assertFalse(hangingFuture.isDone());
+
+        stopThread.join();
+        Assert.assertFalse(renderer.isRendererRunning());
+    }
+
+    /**
+     * Test that stopping the renderer fails the render requests that are still pending after the shutdown timeout and
+     * terminates the render engines.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithBoundedDrain() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").connectionPool(1, 1).shutdownTimeout(100).build();
+        HangingRenderEngine renderEngine = new HangingRenderEngine();
+        Renderer renderer = new Renderer(renderConfiguration, () -> renderEngine);
+        renderer.startRenderer();
+
+        Future<String> hangingFuture = renderer.addRenderRequest("/hanging");
+        Assert.assertNotNull(renderEngine.takeRenderRequest());
+        Future<String> queuedFuture = renderer.addRenderRequest("/queued");
+
+        long startTime = System.currentTimeMillis();
+        renderer.stopRenderer();
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+        Assert.assertFalse(renderer.isRendererRunning());
+
+        List<Future<String>> futures = Arrays.asList(hangingFuture, queuedFuture);
+        for (Future<String> future : futures) {
+            try {
+                future.get(0, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (ExecutionException exception) {
+                Assert.assertTrue(exception.getCause() instanceof RenderException);
+            }
+        }
+    }
+
+    /**
+     * Test that the render engines render the concrete routes and the sample URIs before the renderer takes traffic.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithWarmUp() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").engines(2).routes(Arrays.asList("/", "/home", "/blog/**")).warmUp(2, Collections.singletonList("/blog/first")).build();
+        Queue<String> renderedPages = new ConcurrentLinkedQueue<>();
+        Renderer renderer = new Renderer(renderConfiguration, () -> new RecordingRenderEngine(renderedPages));
+        Assert.assertNull(renderer.getStartStatus());
+        Assert.assertEquals(RenderStartStatus.READY, renderer.startRenderer());
+
+        for (String port : new String[]{"9090", "9091"}) {
+            Assert.assertEquals(3, Collections.frequency(renderedPages, "/@" + port));
+            Assert.assertEquals(2, Collections.frequency(renderedPages, "/home@" + port));
+            Assert.assertEquals(2, Collections.frequency(renderedPages, "/blog/first@" + port));
+        }
+        Assert.assertEquals(14, renderedPages.size());
+        Assert.assertEquals(0, renderer.getPendingRenderCount());
+
+        Assert.assertTrue(renderer.addRenderRequest("/home").get().startsWith("/home@"));
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that the requests of a crashed render engine are retried on another render engine and that the renderer
+     * routes around it as soon it reports itself unavailable.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithRetries() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").engines(2).renderRetries(1).build();
+        AtomicBoolean crashDetected = new AtomicBoolean();
+        Renderer renderer = new Renderer(renderConfiguration, () -> new CrashedRenderEngine(9090, crashDetected));
+        renderer.startRenderer();
+
+        List<Future<String>> futures = new ArrayList<>();
+        for (int index = 0; index < 10; index++) {
+            futures.add(renderer.addRenderRequest("/page" + index));
+        }
+        for (int index = 0; index < 10; index++) {
+            Assert.assertEquals("/page" + index + "@9091", futures.get(index).get(10, TimeUnit.SECONDS));
+        }
+        long retriedRequests = renderer.getRetriedRequestCount();
+        Assert.assertTrue(retriedRequests > 0);
+
+        crashDetected.set(true);
+        Assert.assertTrue(renderer.isRenderEngineAvailable());
+        for (int index = 0; index < 10; index++) {
+            Assert.assertEquals("/other" + index + "@9091", renderer.addRenderRequest("/other" + index).get(10, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(retriedRequests, renderer.getRetriedRequestCount());
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that the renderer answers with the template at once as long no render engine is available and that a render
+     * engine that fails without retries fails the request.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithUnavailableEngines() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").renderRetries(0).build();
+        AtomicBoolean crashDetected = new AtomicBoolean();
+        Renderer renderer = new Renderer(renderConfiguration, () -> new CrashedRenderEngine(9090, crashDetected));
+        renderer.startRenderer();
+
+        try {
+            renderer.addRenderRequest("/").get(10, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException exception) {
+            Assert.assertTrue(exception.getCause() instanceof RenderException);
+        }
+        Assert.assertEquals(0, renderer.getRetriedRequestCount());
+
+        crashDetected.set(true);
+        Assert.assertFalse(renderer.isRenderEngineAvailable());
+        CompletableFuture<String> future = renderer.addRenderRequest("/home");
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals("<app-root></app-root>", future.get());
+        Assert.assertEquals(1, renderer.getShedRequestCount());
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Test that the renderer only takes traffic after its render engines became ready and that it is not ready anymore
+     * after it was stopped.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithReadiness() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").engines(2).build();
+        Renderer renderer = new Renderer(renderConfiguration, () -> new StartingRenderEngine(300));
+        Assert.assertFalse(renderer.isRendererReady());
+        Assert.assertEquals(0, renderer.getReadyRenderEngineCount());
+
+        long startTime = System.currentTimeMillis();
+        Assert.assertEquals(RenderStartStatus.READY, renderer.startRenderer());
+        Assert.assertTrue(System.currentTimeMillis() - startTime >= 300);
+        Assert.assertEquals(RenderStartStatus.READY, renderer.getStartStatus());
+        Assert.assertTrue(renderer.isRendererReady());
+        Assert.assertEquals(2, renderer.getReadyRenderEngineCount());
+        Assert.assertTrue(renderer.addRenderRequest("/").get(10, TimeUnit.SECONDS).startsWith("/@"));
+
+        renderer.stopRenderer();
+        Assert.assertFalse(renderer.isRendererReady());
+        Assert.assertEquals(0, renderer.getReadyRenderEngineCount());
+    }
+
+    /**
+     * Test that the start doesn't wait for a render engine whose thread terminated during its start, for example
+     * because its Node.js process couldn't be started, and that its requests are shed instead of being queued.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testRendererWithFailedStart() throws Exception {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").build();
+        Renderer renderer = new Renderer(renderConfiguration, FailingRenderEngine::new);
+
+        long startTime = System.currentTimeMillis();
+        Assert.assertEquals(RenderStartStatus.ENGINE_TERMINATED, renderer.startRenderer());
+        Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+        Assert.assertTrue(renderer.isRendererRunning());
+        Assert.assertFalse(renderer.isRendererReady());
+        Assert.assertFalse(renderer.isRenderEngineAvailable());
+
+        CompletableFuture<String> future = renderer.addRenderRequest("/");
+        Assert.assertTrue(future.isDone());
+        Assert.assertEquals("<app-root></app-root>", future.get());
+        Assert.assertEquals(1, renderer.getShedRequestCount());
+
+        renderer.stopRenderer();
+        Assert.assertFalse(renderer.isRendererRunning());
+    }
+
+    /**
+     * Render engine that never completes a request, so the test is able to inspect them.
+     */
+    private static class HangingRenderEngine implements RenderEngine {
+
+        private final BlockingQueue<RenderRequest> takenRequests = new LinkedBlockingDeque<>();
+
+        @Override
+        public void startWorking(BlockingQueue<Optional<RenderRequest>> renderRequests, RenderConfiguration renderConfiguration) {
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    takenRequests.add(renderRequestItem.get());
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        RenderRequest takeRenderRequest() throws InterruptedException {
+            return takenRequests.poll(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Render engine that records each rendered page with the URI and the port it is working on.
+     */
+    private static class RecordingRenderEngine implements RenderEngine {
+
+        private final Queue<String> renderedPages;
+
+        RecordingRenderEngine(Queue<String> renderedPages) {
+            this.renderedPages = renderedPages;
+        }
+
+        @Override
+        public void startWorking(BlockingQueue<Optional<RenderRequest>> renderRequests, RenderConfiguration renderConfiguration) {
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    RenderRequest renderRequest = renderRequestItem.get();
+                    String content = renderRequest.getUri() + "@" + renderConfiguration.getNodePort();
+                    renderedPages.add(content);
+                    renderRequest.getFuture().complete(content);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Render engine that needs a moment for each request and returns the URI and the port it is working on.
+     */
+    private static class SleepingRenderEngine implements RenderEngine {
+
+        @Override
+        public void startWorking(BlockingQueue<Optional<RenderRequest>> renderRequests, RenderConfiguration renderConfiguration) {
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    Thread.sleep(20);
+                    RenderRequest renderRequest = renderRequestItem.get();
+                    renderRequest.getFuture().complete(renderRequest.getUri() + "@" + renderConfiguration.getNodePort());
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Render engine whose render server on the given port crashed, so its requests are retried. It reports itself
+     * unavailable as soon the crash was detected.
+     */
+    private static class CrashedRenderEngine implements RenderEngine {
+
+        private final int crashedPort;
+
+        private final AtomicBoolean crashDetected;
+
+        private volatile int nodePort;
+
+        CrashedRenderEngine(int crashedPort, AtomicBoolean crashDetected) {
+            this.crashedPort = crashedPort;
+            this.crashDetected = crashDetected;
+        }
+
+        @Override
+        public void startWorking(BlockingQueue<Optional<RenderRequest>> renderRequests, RenderConfiguration renderConfiguration) {
+            nodePort = renderConfiguration.getNodePort();
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    RenderRequest renderRequest = renderRequestItem.get();
+                    if (nodePort != crashedPort) {
+                        renderRequest.getFuture().complete(renderRequest.getUri() + "@" + nodePort);
+                    } else if (!renderRequest.retry()) {
+                        renderRequest.getFuture().completeExceptionally(new RenderException("The render server crashed"));
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return nodePort != crashedPort || !crashDetected.get();
+        }
+    }
+
+    /**
+     * Render engine that becomes ready a while after it started working and returns the URI and the port it is working
+     * on.
+     */
+    private static class StartingRenderEngine implements RenderEngine {
+
+        private final long startDuration;
+
+        private volatile long readyTime;
+
+        StartingRenderEngine(long startDuration) {
+            this.startDuration = startDuration;
+        }
+
+        @Override
+        public void startWorking(BlockingQueue<Optional<RenderRequest>> renderRequests, RenderConfiguration renderConfiguration) {
+            readyTime = System.currentTimeMillis() + startDuration;
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    RenderRequest renderRequest = renderRequestItem.get();
+                    renderRequest.getFuture().complete(renderRequest.getUri() + "@" + renderConfiguration.getNodePort());
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return readyTime != 0 && System.currentTimeMillis() >= readyTime;
+        }
+    }
+
+    /**
+     * Render engine whose start fails, so its thread terminates before it becomes ready.
+     */
+    private static class FailingRenderEngine implements RenderEngine {
+
+        @Override
+        public void startWorking(BlockingQueue<Optional<RenderRequest>> renderRequests, RenderConfiguration renderConfiguration) {
+            throw new IllegalStateException("The Node.js executable was not found");
+        }
+
+        @Override
+        public boolean isReady() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package ch.swaechter.angularjuniversal.renderer.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * This class is responsible for testing the page cache.
+ *
+ * @author Simon Wächter
+ */
+public class PageCacheTest {
+
+    /**
+     * Test the hit and miss statistics and the invalidation.
+     */
+    @Test
+    public void testHitsAndMisses() {
+        PageCache pageCache = new PageCache(1024 * 1024, 60000);
+        Assert.assertNull(pageCache.get("/"));
+        Assert.assertTrue(pageCache.put("/", "<p>Home</p>"));
+        Assert.assertEquals("<p>Home</p>", pageCache.get("/"));
+        Assert.assertEquals("<p>Home</p>", pageCache.get("/"));
+
+        Assert.assertEquals(2, pageCache.getHitCount());
+        Assert.assertEquals(1, pageCache.getMissCount());
+        Assert.assertEquals(2.0 / 3.0, pageCache.getHitRate(), 0.0001);
+        Assert.assertEquals(1, pageCache.getSize());
+        Assert.assertEquals(PageCache.getWeight("/", "<p>Home</p>"), pageCache.getWeightedSize());
+
+        pageCache.invalidate("/");
+        Assert.assertNull(pageCache.get("/"));
+        Assert.assertEquals(0, pageCache.getWeightedSize());
+    }
+
+    /**
+     * Test that a page expires after its time to live.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testTimeToLive() throws Exception {
+        PageCache pageCache = new PageCache(1024 * 1024, 60000);
+        pageCache.put("/short", "<p>Short</p>", 1);
+        pageCache.put("/long", "<p>Long</p>");
+        Thread.sleep(5);
+
+        Assert.assertNull(pageCache.get("/short"));
+        Assert.assertEquals("<p>Long</p>", pageCache.get("/long"));
+        Assert.assertEquals(1, pageCache.getSize());
+    }
+
+    /**
+     * Test that a stale page is only returned by the lookup until the maximum staleness is reached.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testMaximumStaleness() throws Exception {
+        PageCache pageCache = new PageCache(1024 * 1024, 1, 30);
+        pageCache.put("/", "<p>Home</p>");
+        Thread.sleep(5);
+
+        Assert.assertNull(pageCache.get("/"));
+        PageCache.CachedPage cachedPage = pageCache.lookup("/");
+        Assert.assertNotNull(cachedPage);
+        Assert.assertTrue(cachedPage.isStale());
+        Assert.assertEquals("<p>Home</p>", cachedPage.getContent());
+        Assert.assertEquals(1, pageCache.getStaleHitCount());
+
+        Thread.sleep(40);
+        Assert.assertNull(pageCache.lookup("/"));
+        Assert.assertEquals(0, pageCache.getSize());
+
+        pageCache.put("/", "<p>Fresh</p>");
+        Assert.assertFalse(pageCache.lookup("/").isStale());
+    }
+
+    /**
+     * Test that the cache stays within its memory bound and keeps the frequently requested pages.
+     */
+    @Test
+    public void testFrequencyAdmission() {
+        String content = new String(new char[1000]).replace('\0', 'x');
+        long pageWeight = PageCache.getWeight("/hot0", content);
+        PageCache pageCache = new PageCache(3 * pageWeight, 60000);
+
+        // Request the hot pages several times, then cache them
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 5; j++) {
+                pageCache.get("/hot" + i);
+            }
+            Assert.assertTrue(pageCache.put("/hot" + i, content));
+        }
+
+        // One-off pages are requested once and must not evict the hot pages
+        for (int i = 0; i < 100; i++) {
+            String uri = "/cold" + i;
+            Assert.assertNull(pageCache.get(uri));
+            Assert.assertFalse(pageCache.put(uri, content));
+        }
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNotNull(pageCache.get("/hot" + i));
+        }
+        Assert.assertEquals(100, pageCache.getRejectionCount());
+        Assert.assertTrue(pageCache.getWeightedSize() <= pageCache.getMaximumWeight());
+
+        // A page that became popular replaces the least recently used page
+        for (int i = 0; i < 10; i++) {
+            pageCache.get("/pop0");
+        }
+        Assert.assertTrue(pageCache.put("/pop0", content));
+        Assert.assertEquals(1, pageCache.getEvictionCount());
+        Assert.assertEquals(3, pageCache.getSize());
+        Assert.assertNull(pageCache.get("/hot0"));
+        Assert.assertTrue(pageCache.getWeightedSize() <= pageCache.getMaximumWeight());
+
+        // A page larger than the whole cache is never admitted
+        Assert.assertFalse(pageCache.put("/huge", content + content + content + content));
+    }
+}
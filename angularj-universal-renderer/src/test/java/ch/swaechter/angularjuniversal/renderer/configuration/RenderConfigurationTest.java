@@ -29,7 +29,7 @@ public class RenderConfigurationTest {
         List<String> routes = Arrays.asList("/", "/home", "/about");
         List<String> emptyroutes = Arrays.asList("/");
 
-        RenderConfiguration renderconfiguration1 = new RenderConfiguration.RenderConfigurationBuilder(nodePath, nodePort, serverbundle, templatecontent).liveReload(true).charset(charset).routes(routes).build();
+        RenderConfiguration renderconfiguration1 = new RenderConfiguration.RenderConfigurationBuilder(nodePath, nodePort, serverbundle, templatecontent).liveReload(true).charset(charset).routes(routes).engines(4).connectionPool(2, 8).connectionIdleTimeout(1000).pipelineDepth(3).templateRegistration(true).pageCache(1024, 5000).pageCacheMaxStale(10000).wireFormat(WireFormat.FRAMED_CBOR).renderTimeout(2000).renderQueue(100, 500).externalRenderServer(true).shutdownTimeout(5000).warmUp(3, Arrays.asList("/blog/first")).renderRetries(2).circuitBreaker(3, 1000).build();
         Assert.assertEquals(nodePath, renderconfiguration1.getNodePath());
         Assert.assertEquals(nodePort, renderconfiguration1.getNodePort());
         Assert.assertEquals(serverbundle, renderconfiguration1.getServerBundleFile());
@@ -37,6 +37,38 @@ public class RenderConfigurationTest {
         Assert.assertTrue(renderconfiguration1.getLiveReload());
         Assert.assertEquals(charset, renderconfiguration1.getCharset());
         Assert.assertEquals(routes, renderconfiguration1.getRoutes());
+        Assert.assertEquals(Integer.valueOf(4), renderconfiguration1.getEngines());
+        Assert.assertEquals(Integer.valueOf(2), renderconfiguration1.getConnectionPoolMinSize());
+        Assert.assertEquals(Integer.valueOf(8), renderconfiguration1.getConnectionPoolMaxSize());
+        Assert.assertEquals(Long.valueOf(1000), renderconfiguration1.getConnectionIdleTimeout());
+        Assert.assertEquals(Integer.valueOf(3), renderconfiguration1.getPipelineDepth());
+        Assert.assertTrue(renderconfiguration1.getTemplateRegistration());
+        Assert.assertEquals(Long.valueOf(1024), renderconfiguration1.getPageCacheSize());
+        Assert.assertEquals(Long.valueOf(5000), renderconfiguration1.getPageCacheTtl());
+        Assert.assertEquals(Long.valueOf(10000), renderconfiguration1.getPageCacheMaxStale());
+        Assert.assertEquals(WireFormat.FRAMED_CBOR, renderconfiguration1.getWireFormat());
+        Assert.assertEquals(Long.valueOf(2000), renderconfiguration1.getRenderTimeout());
+        Assert.assertEquals(Long.valueOf(5000), renderconfiguration1.getShutdownTimeout());
+        Assert.assertEquals(Integer.valueOf(3), renderconfiguration1.getWarmUpIterations());
+        Assert.assertEquals(Arrays.asList("/blog/first"), renderconfiguration1.getWarmUpUris());
+        Assert.assertEquals(Integer.valueOf(2), renderconfiguration1.getRenderRetries());
+        Assert.assertEquals(Integer.valueOf(3), renderconfiguration1.getCircuitBreakerThreshold());
+        Assert.assertEquals(Long.valueOf(1000), renderconfiguration1.getCircuitBreakerOpenDuration());
+        Assert.assertEquals(Integer.valueOf(100), renderconfiguration1.getRenderQueueCapacity());
+        Assert.assertEquals(Long.valueOf(500), renderconfiguration1.getRenderQueueMaxWait());
+        Assert.assertTrue(renderconfiguration1.getExternalRenderServer());
+
+        RenderConfiguration renderconfiguration3 = renderconfiguration1.withNodePort(nodePort + 3);
+        Assert.assertEquals(Integer.valueOf(nodePort + 3), renderconfiguration3.getNodePort());
+        Assert.assertEquals(templatecontent, renderconfiguration3.getTemplateContent());
+        Assert.assertEquals(routes, renderconfiguration3.getRoutes());
+        Assert.assertEquals(Integer.valueOf(4), renderconfiguration3.getEngines());
+        Assert.assertEquals(Integer.valueOf(8), renderconfiguration3.getConnectionPoolMaxSize());
+        Assert.assertTrue(renderconfiguration3.getTemplateRegistration());
+        Assert.assertEquals(WireFormat.FRAMED_CBOR, renderconfiguration3.getWireFormat());
+        Assert.assertTrue(renderconfiguration3.getExternalRenderServer());
+        Assert.assertEquals(Integer.valueOf(2), renderconfiguration3.getRenderRetries());
+        Assert.assertEquals(Integer.valueOf(3), renderconfiguration3.getCircuitBreakerThreshold());
 
         RenderConfiguration renderconfiguration2 = new RenderConfiguration.RenderConfigurationBuilder(nodePath, nodePort, serverbundle, templatecontent).build();
         Assert.assertEquals(nodePath, renderconfiguration2.getNodePath());
@@ -46,5 +78,25 @@ public class RenderConfigurationTest {
         Assert.assertFalse(renderconfiguration2.getLiveReload());
         Assert.assertEquals(charset, renderconfiguration2.getCharset());
         Assert.assertEquals(emptyroutes, renderconfiguration2.getRoutes());
+        Assert.assertEquals(Integer.valueOf(1), renderconfiguration2.getEngines());
+        Assert.assertEquals(Integer.valueOf(1), renderconfiguration2.getConnectionPoolMinSize());
+        Assert.assertEquals(Integer.valueOf(4), renderconfiguration2.getConnectionPoolMaxSize());
+        Assert.assertEquals(Long.valueOf(60000L), renderconfiguration2.getConnectionIdleTimeout());
+        Assert.assertEquals(Integer.valueOf(1), renderconfiguration2.getPipelineDepth());
+        Assert.assertFalse(renderconfiguration2.getTemplateRegistration());
+        Assert.assertEquals(Long.valueOf(0), renderconfiguration2.getPageCacheSize());
+        Assert.assertEquals(Long.valueOf(300000L), renderconfiguration2.getPageCacheTtl());
+        Assert.assertEquals(Long.valueOf(0), renderconfiguration2.getPageCacheMaxStale());
+        Assert.assertEquals(WireFormat.JSON, renderconfiguration2.getWireFormat());
+        Assert.assertEquals(Long.valueOf(0), renderconfiguration2.getRenderTimeout());
+        Assert.assertEquals(Long.valueOf(30000), renderconfiguration2.getShutdownTimeout());
+        Assert.assertEquals(Integer.valueOf(0), renderconfiguration2.getWarmUpIterations());
+        Assert.assertTrue(renderconfiguration2.getWarmUpUris().isEmpty());
+        Assert.assertEquals(Integer.valueOf(1), renderconfiguration2.getRenderRetries());
+        Assert.assertEquals(Integer.valueOf(5), renderconfiguration2.getCircuitBreakerThreshold());
+        Assert.assertEquals(Long.valueOf(5000), renderconfiguration2.getCircuitBreakerOpenDuration());
+        Assert.assertEquals(Integer.valueOf(0), renderconfiguration2.getRenderQueueCapacity());
+        Assert.assertEquals(Long.valueOf(0), renderconfiguration2.getRenderQueueMaxWait());
+        Assert.assertFalse(renderconfiguration2.getExternalRenderServer());
     }
 }
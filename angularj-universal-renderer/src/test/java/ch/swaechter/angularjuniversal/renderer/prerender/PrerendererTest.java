@@ -0,0 +1,116 @@
+package ch.swaechter.angularjuniversal.renderer.prerender;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.engine.RenderEngine;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This class is responsible for testing the pre-rendering of pages into an output directory.
+ *
+ * @author Simon Wächter
+ */
+public class PrerendererTest {
+
+    /**
+     * Test that the pages are written to the index files of their directories and that failed pages are skipped.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testPrerender() throws Exception {
+        File outputDirectory = Files.createTempDirectory("prerender").toFile();
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").engines(2).build();
+        RenderEngine renderEngine = (renderRequests, configuration) -> {
+            try {
+                while (true) {
+                    Optional<RenderRequest> renderRequestItem = renderRequests.take();
+                    if (!renderRequestItem.isPresent()) {
+                        return;
+                    }
+                    RenderRequest renderRequest = renderRequestItem.get();
+                    if (renderRequest.getUri().equals("/broken")) {
+                        renderRequest.getFuture().completeExceptionally(new RenderException("Broken page"));
+                    } else {
+                        renderRequest.getFuture().complete("<html>" + renderRequest.getUri() + "</html>");
+                    }
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        Renderer renderer = new Renderer(renderConfiguration, () -> renderEngine);
+        renderer.startRenderer();
+
+        Prerenderer prerenderer = new Prerenderer(renderer, renderConfiguration, outputDirectory);
+        Map<String, File> pageFiles = prerenderer.prerender(Arrays.asList("/", "/about", "/blog/first", "/broken", "/../secret")).get();
+        renderer.stopRenderer();
+
+        Assert.assertEquals(Arrays.asList("/", "/about", "/blog/first"), Arrays.asList(pageFiles.keySet().toArray()));
+        Assert.assertEquals(new File(outputDirectory, "index.html"), pageFiles.get("/"));
+        Assert.assertEquals("<html>/about</html>", new String(Files.readAllBytes(new File(outputDirectory, "about/index.html").toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals("<html>/blog/first</html>", new String(Files.readAllBytes(new File(outputDirectory, "blog/first/index.html").toPath()), StandardCharsets.UTF_8));
+        Assert.assertFalse(new File(outputDirectory, "broken/index.html").exists());
+
+        try {
+            prerenderer.prerender("/../secret").get();
+            Assert.fail();
+        } catch (ExecutionException exception) {
+            Assert.assertTrue(exception.getCause() instanceof RenderException);
+        }
+    }
+
+    /**
+     * Test the mapping of URIs to the files of their pages.
+     */
+    @Test
+    public void testPageFile() {
+        File outputDirectory = new File("pages");
+        Assert.assertEquals(new File(outputDirectory, "index.html"), Prerenderer.getPageFile(outputDirectory, "/"));
+        Assert.assertEquals(new File(outputDirectory, "about/index.html"), Prerenderer.getPageFile(outputDirectory, "/about/"));
+        Assert.assertEquals(new File(outputDirectory, "about/index.html"), Prerenderer.getPageFile(outputDirectory, "/about?tab=team#top"));
+        Assert.assertNull(Prerenderer.getPageFile(outputDirectory, "about"));
+        Assert.assertNull(Prerenderer.getPageFile(outputDirectory, "/blog/../../secret"));
+        Assert.assertNull(Prerenderer.getPageFile(outputDirectory, "/C:/secret"));
+        Assert.assertEquals("index.html", Prerenderer.getPagePath("/"));
+        Assert.assertEquals("blog/first/index.html", Prerenderer.getPagePath("//blog/first/"));
+        Assert.assertNull(Prerenderer.getPagePath("/blog/..\\secret"));
+    }
+
+    /**
+     * Test reading the URIs of a sitemap.
+     *
+     * @throws IOException Exception in case of an unexpected problem
+     */
+    @Test
+    public void testSitemapUris() throws IOException {
+        String sitemap = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n"
+            + "  <url><loc>https://example.com</loc></url>\n"
+            + "  <url><loc> https://example.com/about </loc><lastmod>2018-12-01</lastmod></url>\n"
+            + "  <url><loc>https://example.com/search?q=angular</loc></url>\n"
+            + "  <url><loc>https://example.com/blog/first</loc></url>\n"
+            + "</urlset>";
+        Assert.assertEquals(Arrays.asList("/", "/about", "/blog/first"), Prerenderer.getSitemapUris(new ByteArrayInputStream(sitemap.getBytes(StandardCharsets.UTF_8))));
+
+        try {
+            Prerenderer.getSitemapUris(new ByteArrayInputStream("<!DOCTYPE urlset [<!ENTITY x SYSTEM \"file:///etc/passwd\">]><urlset>&x;</urlset>".getBytes(StandardCharsets.UTF_8)));
+            Assert.fail();
+        } catch (IOException exception) {
+            Assert.assertTrue(exception.getMessage().contains("sitemap"));
+        }
+    }
+}
@@ -18,6 +18,30 @@ public class RenderRequestTest {
         RenderRequest renderrequest = new RenderRequest("/");
         Assert.assertNotNull(renderrequest.getFuture());
         Assert.assertEquals("/", renderrequest.getUri());
-        Assert.assertTrue(renderrequest.getUuid().length() > 0);
+        Assert.assertTrue(renderrequest.getId() > 0);
+        Assert.assertNotEquals(renderrequest.getId(), new RenderRequest("/").getId());
+    }
+
+    /**
+     * Test the deadline of the render request.
+     */
+    @Test
+    public void testRenderRequestDeadline() {
+        RenderRequest renderrequest1 = new RenderRequest("/");
+        Assert.assertEquals(RenderRequest.NO_DEADLINE, renderrequest1.getDeadline());
+        Assert.assertFalse(renderrequest1.isAbandoned());
+
+        RenderRequest renderrequest2 = new RenderRequest("/", System.currentTimeMillis() - 1);
+        renderrequest2.extendDeadline(System.currentTimeMillis() - 1000);
+        Assert.assertTrue(renderrequest2.isAbandoned());
+        Assert.assertTrue(renderrequest2.getFuture().isCompletedExceptionally());
+
+        long deadline = System.currentTimeMillis() + 60000;
+        RenderRequest renderrequest3 = new RenderRequest("/", System.currentTimeMillis() - 1);
+        renderrequest3.extendDeadline(deadline);
+        Assert.assertEquals(deadline, renderrequest3.getDeadline());
+        Assert.assertFalse(renderrequest3.isAbandoned());
+        renderrequest3.getFuture().cancel(false);
+        Assert.assertTrue(renderrequest3.isAbandoned());
     }
 }
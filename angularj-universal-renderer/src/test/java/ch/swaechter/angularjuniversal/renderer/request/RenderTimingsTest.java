@@ -0,0 +1,43 @@
+package ch.swaechter.angularjuniversal.renderer.request;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for testing the timings of the render request phases.
+ *
+ * @author Simon Wächter
+ */
+public class RenderTimingsTest {
+
+    /**
+     * Test the durations between the phases, including phases that were not reached.
+     */
+    @Test
+    public void testRenderTimings() {
+        RenderRequest renderRequest = new RenderRequest("/");
+        RenderTimings timings = renderRequest.getTimings();
+        Assert.assertTrue(timings.hasReached(RenderPhase.CREATED));
+        Assert.assertFalse(timings.hasReached(RenderPhase.DISPATCHED));
+        Assert.assertEquals(-1, timings.getDuration(RenderPhase.CREATED, RenderPhase.COMPLETED, TimeUnit.NANOSECONDS));
+
+        long created = timings.getTimestamp(RenderPhase.CREATED);
+        timings.mark(RenderPhase.DISPATCHED, created + 1_000_000);
+        timings.mark(RenderPhase.SENT, created + 3_000_000);
+        timings.markIfAbsent(RenderPhase.SENT);
+        timings.mark(RenderPhase.COMPLETED, created + 10_000_000);
+        timings.markIfAbsent(RenderPhase.COMPLETED);
+        timings.setRequestBytes(100);
+        timings.setResponseBytes(2000);
+
+        Assert.assertEquals(created + 3_000_000, timings.getTimestamp(RenderPhase.SENT));
+        Assert.assertEquals(10, timings.getDuration(RenderPhase.CREATED, RenderPhase.COMPLETED, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(1, timings.getPhaseDuration(RenderPhase.DISPATCHED, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(2, timings.getPhaseDuration(RenderPhase.SENT, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(-1, timings.getPhaseDuration(RenderPhase.CONNECTED, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(-1, timings.getPhaseDuration(RenderPhase.CREATED, TimeUnit.MILLISECONDS));
+        Assert.assertEquals("dispatched=1.000ms sent=2.000ms completed=7.000ms request=100B response=2000B", timings.toString());
+    }
+}
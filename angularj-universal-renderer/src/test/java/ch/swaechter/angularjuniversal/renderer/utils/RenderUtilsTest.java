@@ -10,6 +10,8 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * This class is responsible for testing the render utils.
@@ -46,4 +48,41 @@ public class RenderUtilsTest {
         byte[] data = Files.readAllBytes(Paths.get(result.getAbsolutePath()));
         Assert.assertEquals(content, new String(data, StandardCharsets.UTF_8));
     }
+
+    /**
+     * Test hashing a string.
+     */
+    @Test
+    public void testHash() {
+        String hash = RenderUtils.getHash("Example", StandardCharsets.UTF_8);
+        Assert.assertEquals(64, hash.length());
+        Assert.assertEquals("d029f87e3d80f8fd9b1be67c7426b4cc1ff47b4a9d0a8461c826a59d8c5eb6cd", hash);
+        Assert.assertEquals(hash, RenderUtils.getHash("Example", StandardCharsets.UTF_8));
+        Assert.assertNotEquals(hash, RenderUtils.getHash("Example 2", StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test hashing a file, which has the same hash as its content.
+     *
+     * @throws IOException Exception in case of an IO problem
+     */
+    @Test
+    public void testFileHash() throws IOException {
+        File file = File.createTempFile("serverbundle", ".js");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "Example".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(RenderUtils.getHash("Example", StandardCharsets.UTF_8), RenderUtils.getHash(file));
+
+        Files.write(file.toPath(), "Example 2".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(RenderUtils.getHash("Example 2", StandardCharsets.UTF_8), RenderUtils.getHash(file));
+    }
+
+    /**
+     * Test that only the routes without wildcards or variables are concrete.
+     */
+    @Test
+    public void testConcreteRoutes() {
+        List<String> routes = Arrays.asList("/", "/about", "/blog/**", "/user/{id}", "/page?", "/contact");
+        Assert.assertEquals(Arrays.asList("/", "/about", "/contact"), RenderUtils.getConcreteRoutes(routes));
+    }
 }
@@ -3,11 +3,20 @@ package ch.swaechter.angularjuniversal.springboot.starter;
 import ch.swaechter.angularjuniversal.renderer.Renderer;
 import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
 import ch.swaechter.angularjuniversal.renderer.engine.RenderEngineFactory;
+import ch.swaechter.angularjuniversal.renderer.prerender.Prerenderer;
 import ch.swaechter.angularjuniversal.renderer.utils.RenderUtils;
+import ch.swaechter.angularjuniversal.tcprenderer.NioRenderEngineFactory;
 import ch.swaechter.angularjuniversal.tcprenderer.TcpRenderEngineFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnEnabledEndpoint;
+import org.springframework.boot.actuate.autoconfigure.health.ConditionalOnEnabledHealthIndicator;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -20,7 +29,10 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This class serves as an entry point for the AngularJ Universal Spring Boot starter.
@@ -33,14 +45,19 @@ import java.util.List;
 public class AngularJUniversalAutoConfiguration {
 
     /**
-     * Get the render engine factory. At the moment the V8 implementation is used.
+     * Get the render engine factory. The TCP implementation is used, driven by asynchronous channels if I/O threads are
+     * configured.
      *
+     * @param properties Properties loaded by Spring Boot and used by this starter.
      * @return Render engine factory
      */
     @Bean
     @ConditionalOnMissingBean
     @NotNull
-    public RenderEngineFactory getRenderEngineFactory() {
+    public RenderEngineFactory getRenderEngineFactory(@NotNull AngularJUniversalProperties properties) {
+        if (properties.getNioThreads() > 0) {
+            return new NioRenderEngineFactory(properties.getNioThreads());
+        }
         return new TcpRenderEngineFactory();
     }
 
@@ -93,6 +110,21 @@ public class AngularJUniversalAutoConfiguration {
         // Build the render configuration builder
         RenderConfiguration.RenderConfigurationBuilder builder = new RenderConfiguration.RenderConfigurationBuilder(nodePath, nodePort, serverBundleFile, templateContent);
         builder.charset(properties.getCharset());
+        builder.engines(properties.getEngines());
+        builder.connectionPool(properties.getConnectionPoolMinSize(), properties.getConnectionPoolMaxSize());
+        builder.connectionIdleTimeout(properties.getConnectionIdleTimeout());
+        builder.pipelineDepth(properties.getPipelineDepth());
+        builder.templateRegistration(properties.getTemplateRegistration());
+        builder.externalRenderServer(properties.getExternalRenderServer());
+        builder.pageCache(properties.getPageCacheSize(), properties.getPageCacheTtl());
+        builder.pageCacheMaxStale(properties.getPageCacheMaxStale());
+        builder.wireFormat(properties.getWireFormat());
+        builder.renderTimeout(properties.getRenderTimeout());
+        builder.shutdownTimeout(properties.getShutdownTimeout());
+        builder.warmUp(properties.getWarmUpIterations(), properties.getWarmUpUris());
+        builder.renderQueue(properties.getRenderQueueCapacity(), properties.getRenderQueueMaxWait());
+        builder.renderRetries(properties.getRenderRetries());
+        builder.circuitBreaker(properties.getCircuitBreakerThreshold(), properties.getCircuitBreakerOpenDuration());
 
         // Check the routes
         @NotNull
@@ -108,21 +140,87 @@ public class AngularJUniversalAutoConfiguration {
     }
 
     /**
-     * Get the renderer.
+     * Get the renderer, which is started and stopped by its lifecycle.
      *
      * @param renderEngineFactory Injected render engine factory
      * @param renderConfiguration Injected render configuration
-     * @return Started renderer
+     * @return Renderer
      */
     @Bean
     @ConditionalOnMissingBean
     @NotNull
     public Renderer getRenderer(@NotNull RenderEngineFactory renderEngineFactory, @NotNull RenderConfiguration renderConfiguration) {
-        // Create the renderer
+        return new Renderer(renderConfiguration, renderEngineFactory);
+    }
+
+    /**
+     * Get the lifecycle of the renderer that starts it with the application context and drains it on shutdown.
+     *
+     * @param renderer         Injected renderer
+     * @param prerenderedPages Injected pre-rendered pages
+     * @return Lifecycle of the renderer
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @NotNull
+    public AngularJUniversalLifecycle getAngularJUniversalLifecycle(@NotNull Renderer renderer, @NotNull ObjectProvider<AngularJUniversalPrerenderedPages> prerenderedPages) {
+        return new AngularJUniversalLifecycle(renderer, prerenderedPages.getIfAvailable());
+    }
+
+    /**
+     * Get the pre-rendered pages. The concrete routes and the pages of the sitemap are served from the pages that were
+     * pre-rendered during the build and, as long a pre-render directory is configured, the remaining ones are
+     * pre-rendered after the start.
+     *
+     * @param properties          Properties loaded by Spring Boot and used by this starter.
+     * @param resourceLoader      Resource loader for accessing the sitemap and the pages
+     * @param renderer            Injected renderer
+     * @param renderConfiguration Injected render configuration
+     * @return Pre-rendered pages
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @NotNull
+    public AngularJUniversalPrerenderedPages getAngularJUniversalPrerenderedPages(@NotNull AngularJUniversalProperties properties, @NotNull ResourceLoader resourceLoader, @NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+        @NotNull
+        Set<String> uris = new LinkedHashSet<>(RenderUtils.getConcreteRoutes(renderConfiguration.getRoutes()));
+        if (!properties.getPrerenderSitemap().isEmpty()) {
+            try {
+                uris.addAll(Prerenderer.getSitemapUris(AngularJUniversalUtils.getInputStreamFromResource(resourceLoader, properties.getPrerenderSitemap())));
+            } catch (IOException exception) {
+                throw new RuntimeException("AngularJ Universal is unable to read the sitemap " + properties.getPrerenderSitemap(), exception);
+            }
+        }
+
+        @Nullable
+        Prerenderer prerenderer = null;
+        if (!properties.getPrerenderDirectory().isEmpty()) {
+            prerenderer = new Prerenderer(renderer, renderConfiguration, new File(properties.getPrerenderDirectory()));
+        }
+
         @NotNull
-        Renderer renderer = new Renderer(renderConfiguration, renderEngineFactory);
-        renderer.startRenderer();
-        return renderer;
+        AngularJUniversalPrerenderedPages prerenderedPages = new AngularJUniversalPrerenderedPages(renderer, prerenderer, new ArrayList<>(uris));
+        if (!properties.getPrerenderResourcePath().isEmpty()) {
+            try {
+                prerenderedPages.loadPages(resourceLoader, properties.getPrerenderResourcePath());
+            } catch (IOException exception) {
+                throw new RuntimeException("AngularJ Universal is unable to load the pre-rendered pages of " + properties.getPrerenderResourcePath(), exception);
+            }
+        }
+        return prerenderedPages;
+    }
+
+    /**
+     * Get the priority classifier that assigns the priority class of a page request by its headers.
+     *
+     * @param properties Properties loaded by Spring Boot and used by this starter.
+     * @return Priority classifier
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @NotNull
+    public RenderPriorityClassifier getRenderPriorityClassifier(@NotNull AngularJUniversalProperties properties) {
+        return new AngularJUniversalPriorityClassifier(properties.getPriorityHeader(), properties.getCrawlerUserAgents());
     }
 
     /**
@@ -130,14 +228,16 @@ public class AngularJUniversalAutoConfiguration {
      *
      * @param renderer            Injected renderer
      * @param renderConfiguration Injected render configuration
+     * @param priorityClassifier  Injected priority classifier
+     * @param prerenderedPages    Injected pre-rendered pages
      * @return View resolver
      */
     @Bean
     @NotNull
-    public ViewResolver getViewResolver(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+    public ViewResolver getViewResolver(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration, @NotNull RenderPriorityClassifier priorityClassifier, @NotNull ObjectProvider<AngularJUniversalPrerenderedPages> prerenderedPages) {
         // Create the view resolver
         @NotNull
-        AngularJUniversalViewResolver viewResolver = new AngularJUniversalViewResolver(renderer, renderConfiguration);
+        AngularJUniversalViewResolver viewResolver = new AngularJUniversalViewResolver(renderer, renderConfiguration, priorityClassifier, prerenderedPages.getIfAvailable());
         viewResolver.setOrder(0);
         return viewResolver;
     }
@@ -153,4 +253,73 @@ public class AngularJUniversalAutoConfiguration {
     public WebMvcConfigurer getWebMvcConfigurer(@NotNull RenderConfiguration renderConfiguration) {
         return new AngularJUniversalConfigurer(renderConfiguration);
     }
+
+    /**
+     * This class registers the Micrometer meters of the renderer, as long Micrometer is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class AngularJUniversalMetricsConfiguration {
+
+        /**
+         * Get the meter binder of the renderer.
+         *
+         * @param renderer            Injected renderer
+         * @param renderConfiguration Injected render configuration
+         * @return Meter binder of the renderer
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        @NotNull
+        public AngularJUniversalMetrics getAngularJUniversalMetrics(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+            return new AngularJUniversalMetrics(renderer, renderConfiguration);
+        }
+    }
+
+    /**
+     * This class registers the Actuator endpoint of the renderer, as long Actuator is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(Endpoint.class)
+    static class AngularJUniversalEndpointConfiguration {
+
+        /**
+         * Get the Actuator endpoint of the renderer.
+         *
+         * @param renderer            Injected renderer
+         * @param renderConfiguration Injected render configuration
+         * @return Actuator endpoint of the renderer
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnEnabledEndpoint
+        @NotNull
+        public AngularJUniversalEndpoint getAngularJUniversalEndpoint(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+            return new AngularJUniversalEndpoint(renderer, renderConfiguration);
+        }
+    }
+
+    /**
+     * This class registers the health indicator of the renderer, as long Actuator is on the classpath.
+     */
+    @Configuration
+    @ConditionalOnClass(HealthIndicator.class)
+    static class AngularJUniversalHealthConfiguration {
+
+        /**
+         * Get the health indicator of the renderer. The bean name makes the renderer appear as angularJUniversal in the
+         * health endpoint.
+         *
+         * @param renderer            Injected renderer
+         * @param renderConfiguration Injected render configuration
+         * @return Health indicator of the renderer
+         */
+        @Bean(name = "angularJUniversalHealthIndicator")
+        @ConditionalOnMissingBean(name = "angularJUniversalHealthIndicator")
+        @ConditionalOnEnabledHealthIndicator("angularjuniversal")
+        @NotNull
+        public AngularJUniversalHealthIndicator getAngularJUniversalHealthIndicator(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+            return new AngularJUniversalHealthIndicator(renderer, renderConfiguration);
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.cache.PageCache;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class provides the Actuator endpoint that summarizes the state of the renderer, its render queue and its page
+ * cache.
+ *
+ * @author Simon Wächter
+ */
+@Endpoint(id = "angularjuniversal")
+public class AngularJUniversalEndpoint {
+
+    /**
+     * Renderer to summarize.
+     */
+    @NotNull
+    private final Renderer renderer;
+
+    /**
+     * Render configuration of the renderer.
+     */
+    @NotNull
+    private final RenderConfiguration renderConfiguration;
+
+    /**
+     * Constructor with the renderer to summarize and its render configuration.
+     *
+     * @param renderer            Renderer to summarize
+     * @param renderConfiguration Render configuration of the renderer
+     */
+    public AngularJUniversalEndpoint(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+        this.renderer = renderer;
+        this.renderConfiguration = renderConfiguration;
+    }
+
+    /**
+     * Get a summary of the renderer state.
+     *
+     * @return Summary with the renderer, queue and page cache state
+     */
+    @ReadOperation
+    @NotNull
+    public Map<String, Object> getRendererState() {
+        @NotNull
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("running", renderer.isRendererRunning());
+        state.put("startStatus", renderer.getStartStatus());
+        state.put("engines", renderConfiguration.getEngines());
+        state.put("wireFormat", renderConfiguration.getWireFormat());
+        state.put("engineAvailable", renderer.isRenderEngineAvailable());
+        state.put("readyEngines", renderer.getReadyRenderEngineCount());
+        state.put("reloads", renderer.getReloadCount());
+        state.put("failedReloads", renderer.getFailedReloadCount());
+
+        @NotNull
+        Map<String, Object> queue = new LinkedHashMap<>();
+        queue.put("size", renderer.getQueuedRequestCount());
+        queue.put("capacity", renderConfiguration.getRenderQueueCapacity());
+        queue.put("estimatedWait", renderer.getEstimatedQueueWait());
+        queue.put("inFlight", renderer.getRenderInProgressCount());
+        queue.put("pendingRenders", renderer.getPendingRenderCount());
+        queue.put("coalescedRequests", renderer.getCoalescedRequestCount());
+        queue.put("shedRequests", renderer.getShedRequestCount());
+        queue.put("retriedRequests", renderer.getRetriedRequestCount());
+        state.put("queue", queue);
+
+        @Nullable
+        PageCache pageCache = renderer.getPageCache();
+        if (pageCache != null) {
+            @NotNull
+            Map<String, Object> cache = new LinkedHashMap<>();
+            cache.put("pages", pageCache.getSize());
+            cache.put("weightedSize", pageCache.getWeightedSize());
+            cache.put("maximumWeight", pageCache.getMaximumWeight());
+            cache.put("hitRate", pageCache.getHitRate());
+            cache.put("evictions", pageCache.getEvictionCount());
+            state.put("pageCache", cache);
+        }
+        return state;
+    }
+}
@@ -0,0 +1,67 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.RenderStartStatus;
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * This class provides the health of the renderer, so a load balancer only sends traffic to an application whose
+ * renderer is able to render pages. The renderer is up as soon at least one render engine is ready and available. It
+ * is out of service while it is starting, while it is being stopped and while all render engines are restarting or
+ * failing, which makes the health endpoint answer with the status 503. The status of the last start tells if the render
+ * engines became ready and finished the warm-up in time.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalHealthIndicator extends AbstractHealthIndicator {
+
+    /**
+     * Renderer whose health is checked.
+     */
+    @NotNull
+    private final Renderer renderer;
+
+    /**
+     * Render configuration of the renderer.
+     */
+    @NotNull
+    private final RenderConfiguration renderConfiguration;
+
+    /**
+     * Constructor with the renderer whose health is checked and its render configuration.
+     *
+     * @param renderer            Renderer whose health is checked
+     * @param renderConfiguration Render configuration of the renderer
+     */
+    public AngularJUniversalHealthIndicator(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+        super("The AngularJ Universal health check failed");
+        this.renderer = renderer;
+        this.renderConfiguration = renderConfiguration;
+    }
+
+    /**
+     * Check the health of the renderer. The check doesn't block, even while the renderer is being stopped.
+     *
+     * @param builder Builder of the health
+     */
+    @Override
+    protected void doHealthCheck(@NotNull Health.Builder builder) {
+        int readyEngines = renderer.getReadyRenderEngineCount();
+        if (readyEngines > 0) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+        builder.withDetail("engines", renderConfiguration.getEngines());
+        builder.withDetail("readyEngines", readyEngines);
+        @Nullable
+        RenderStartStatus startStatus = renderer.getStartStatus();
+        if (startStatus != null) {
+            builder.withDetail("startStatus", startStatus);
+        }
+    }
+}
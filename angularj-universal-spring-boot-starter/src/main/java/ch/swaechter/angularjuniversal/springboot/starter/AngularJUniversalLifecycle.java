@@ -0,0 +1,124 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.context.SmartLifecycle;
+
+/**
+ * This class ties the renderer to the lifecycle of the application context. The renderer is started as soon the
+ * context is refreshed and drained as soon the context is closed: It answers new requests with the template, finishes
+ * the accepted ones within the configured shutdown timeout and terminates its render engines. A rolling deploy doesn't
+ * drop render requests this way, because the web server is stopped after the lifecycle beans. If the pre-rendering is
+ * enabled, the pages are pre-rendered in the background as soon the renderer is started.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalLifecycle implements SmartLifecycle {
+
+    /**
+     * Phase of the renderer. It is lower than the default phase, so the renderer is started before and stopped after
+     * the components of the default phase that create render requests.
+     */
+    private static final int PHASE = 0;
+
+    /**
+     * Renderer whose lifecycle is managed.
+     */
+    @NotNull
+    private final Renderer renderer;
+
+    /**
+     * Pre-rendered pages or null if the pre-rendering is disabled.
+     */
+    @Nullable
+    private final AngularJUniversalPrerenderedPages prerenderedPages;
+
+    /**
+     * Create a new lifecycle for the given renderer.
+     *
+     * @param renderer Renderer whose lifecycle is managed
+     */
+    public AngularJUniversalLifecycle(@NotNull Renderer renderer) {
+        this(renderer, null);
+    }
+
+    /**
+     * Create a new lifecycle for the given renderer that pre-renders the pages after the start.
+     *
+     * @param renderer         Renderer whose lifecycle is managed
+     * @param prerenderedPages Pre-rendered pages or null if the pre-rendering is disabled
+     */
+    public AngularJUniversalLifecycle(@NotNull Renderer renderer, @Nullable AngularJUniversalPrerenderedPages prerenderedPages) {
+        this.renderer = renderer;
+        this.prerenderedPages = prerenderedPages;
+    }
+
+    /**
+     * Start the renderer and pre-render the pages in the background.
+     */
+    @Override
+    public void start() {
+        renderer.startRenderer();
+        if (prerenderedPages != null) {
+            prerenderedPages.prerender();
+        }
+    }
+
+    /**
+     * Stop the renderer and wait until it is drained.
+     */
+    @Override
+    public void stop() {
+        renderer.stopRenderer();
+    }
+
+    /**
+     * Stop the renderer in the background and notify the lifecycle processor as soon it is drained, so the other
+     * lifecycle beans of the same phase are stopped in the meantime.
+     *
+     * @param callback Callback that has to be called as soon the renderer is stopped
+     */
+    @Override
+    public void stop(@NotNull Runnable callback) {
+        @NotNull
+        Thread stopThread = new Thread(() -> {
+            try {
+                renderer.stopRenderer();
+            } finally {
+                callback.run();
+            }
+        }, "angularj-universal-shutdown");
+        stopThread.start();
+    }
+
+    /**
+     * Check if the renderer is running.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isRunning() {
+        return renderer.isRendererRunning();
+    }
+
+    /**
+     * Check if the renderer is started together with the application context, which is always the case.
+     *
+     * @return Status of the check
+     */
+    @Override
+    public boolean isAutoStartup() {
+        return true;
+    }
+
+    /**
+     * Get the phase of the renderer within the lifecycle.
+     *
+     * @return Phase of the renderer
+     */
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
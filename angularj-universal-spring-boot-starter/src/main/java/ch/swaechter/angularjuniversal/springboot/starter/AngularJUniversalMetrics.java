@@ -0,0 +1,179 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.cache.PageCache;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPhase;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import ch.swaechter.angularjuniversal.renderer.request.RenderTimings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class binds the Micrometer meters of the renderer: The size of the render queue, the renders in progress, the
+ * latency of the renders and their phases per route, the failures by cause and the page cache statistics. The latency
+ * is tagged with the matching route of the configuration instead of the URI, so the number of meters stays bounded.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalMetrics implements MeterBinder {
+
+    /**
+     * Prefix of all meter names.
+     */
+    @NotNull
+    private static final String PREFIX = "angularjuniversal.";
+
+    /**
+     * Route tag of a URI that matches no route of the configuration.
+     */
+    @NotNull
+    private static final String UNKNOWN_ROUTE = "UNKNOWN";
+
+    /**
+     * Renderer to instrument.
+     */
+    @NotNull
+    private final Renderer renderer;
+
+    /**
+     * Render configuration with the routes.
+     */
+    @NotNull
+    private final RenderConfiguration renderConfiguration;
+
+    /**
+     * Matcher of the routes.
+     */
+    @NotNull
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    /**
+     * Constructor with the renderer to instrument and its render configuration.
+     *
+     * @param renderer            Renderer to instrument
+     * @param renderConfiguration Render configuration with the routes
+     */
+    public AngularJUniversalMetrics(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+        this.renderer = renderer;
+        this.renderConfiguration = renderConfiguration;
+    }
+
+    /**
+     * Register all meters of the renderer and record each completed render request.
+     *
+     * @param registry Registry of the meters
+     */
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        Gauge.builder(PREFIX + "queue.size", renderer, Renderer::getQueuedRequestCount).description("Render requests waiting for a render engine").register(registry);
+        Gauge.builder(PREFIX + "renders.inflight", renderer, Renderer::getRenderInProgressCount).description("Render requests passed to a render engine but not completed yet").register(registry);
+        Gauge.builder(PREFIX + "renders.pending", renderer, Renderer::getPendingRenderCount).description("Distinct URIs that are queued or being rendered").register(registry);
+        Gauge.builder(PREFIX + "queue.wait.estimated", renderer, Renderer::getEstimatedQueueWait).description("Estimated wait of a new render request").baseUnit("milliseconds").register(registry);
+        FunctionCounter.builder(PREFIX + "requests.coalesced", renderer, Renderer::getCoalescedRequestCount).description("Render requests that shared an identical pending render").register(registry);
+        FunctionCounter.builder(PREFIX + "requests.shed", renderer, Renderer::getShedRequestCount).description("Render requests answered with the template because the render queue was overloaded or no render engine was available").register(registry);
+        FunctionCounter.builder(PREFIX + "requests.retried", renderer, Renderer::getRetriedRequestCount).description("Retries of render requests whose render engine failed").register(registry);
+
+        @Nullable
+        PageCache pageCache = renderer.getPageCache();
+        if (pageCache != null) {
+            FunctionCounter.builder(PREFIX + "pagecache.requests", pageCache, PageCache::getHitCount).tag("result", "hit").register(registry);
+            FunctionCounter.builder(PREFIX + "pagecache.requests", pageCache, PageCache::getStaleHitCount).tag("result", "stale").register(registry);
+            FunctionCounter.builder(PREFIX + "pagecache.requests", pageCache, PageCache::getMissCount).tag("result", "miss").register(registry);
+            FunctionCounter.builder(PREFIX + "pagecache.evictions", pageCache, PageCache::getEvictionCount).register(registry);
+            Gauge.builder(PREFIX + "pagecache.hit.ratio", pageCache, PageCache::getHitRate).register(registry);
+            Gauge.builder(PREFIX + "pagecache.size", pageCache, PageCache::getWeightedSize).baseUnit("bytes").register(registry);
+        }
+
+        renderer.addCompletionListener(renderRequest -> record(registry, renderRequest));
+    }
+
+    /**
+     * Record the latency, phases, sizes and outcome of a completed render request.
+     *
+     * @param registry      Registry of the meters
+     * @param renderRequest Completed render request
+     */
+    private void record(@NotNull MeterRegistry registry, @NotNull RenderRequest renderRequest) {
+        @NotNull
+        String route = getRoute(renderRequest.getUri());
+        @NotNull
+        String outcome = getOutcome(renderRequest);
+        @NotNull
+        RenderTimings timings = renderRequest.getTimings();
+
+        long duration = timings.getDuration(RenderPhase.CREATED, RenderPhase.COMPLETED, TimeUnit.NANOSECONDS);
+        if (duration >= 0) {
+            Timer.builder(PREFIX + "renders").description("Latency of the render requests from their creation to their completion")
+                .tags("route", route, "priority", renderRequest.getPriority().name(), "outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry)
+                .record(duration, TimeUnit.NANOSECONDS);
+        }
+
+        if (!"SUCCESS".equals(outcome)) {
+            Counter.builder(PREFIX + "renders.failures").description("Failed or abandoned render requests by cause").tags("route", route, "cause", outcome).register(registry).increment();
+            return;
+        }
+
+        for (RenderPhase phase : RenderPhase.values()) {
+            long phaseDuration = timings.getPhaseDuration(phase, TimeUnit.NANOSECONDS);
+            if (phaseDuration >= 0) {
+                Timer.builder(PREFIX + "renders.phase").description("Time of the render requests spent before reaching a phase").tag("phase", phase.name()).register(registry).record(phaseDuration, TimeUnit.NANOSECONDS);
+            }
+        }
+        DistributionSummary.builder(PREFIX + "renders.request.size").baseUnit("bytes").register(registry).record(timings.getRequestBytes());
+        DistributionSummary.builder(PREFIX + "renders.response.size").baseUnit("bytes").register(registry).record(timings.getResponseBytes());
+    }
+
+    /**
+     * Get the first route of the configuration that matches the URI.
+     *
+     * @param uri URI of the render request
+     * @return Matching route or {@value #UNKNOWN_ROUTE}
+     */
+    @NotNull
+    private String getRoute(@NotNull String uri) {
+        for (String route : renderConfiguration.getRoutes()) {
+            if (antPathMatcher.match(route, uri)) {
+                return route;
+            }
+        }
+        return UNKNOWN_ROUTE;
+    }
+
+    /**
+     * Get the outcome of a completed render request, which is the simple class name of the cause of a failure.
+     *
+     * @param renderRequest Completed render request
+     * @return SUCCESS, CANCELLED or the class name of the cause
+     */
+    @NotNull
+    private static String getOutcome(@NotNull RenderRequest renderRequest) {
+        if (renderRequest.getFuture().isCancelled()) {
+            return "CANCELLED";
+        }
+        try {
+            renderRequest.getFuture().join();
+            return "SUCCESS";
+        } catch (CancellationException exception) {
+            return "CANCELLED";
+        } catch (CompletionException exception) {
+            @NotNull
+            Throwable cause = exception.getCause() != null ? exception.getCause() : exception;
+            return cause.getClass().getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.prerender.Prerenderer;
+import ch.swaechter.angularjuniversal.renderer.utils.RenderUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class keeps track of the pages that were pre-rendered, so the view is able to serve them from disk. The pages
+ * are either pre-rendered during the build and shipped as resources or pre-rendered to the output directory after the
+ * start. Only the pages that were written by the current application are served from the output directory, files of a
+ * previous run are ignored. As soon the server bundle was reloaded, the pre-rendered pages are outdated and all pages
+ * are rendered on demand again.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalPrerenderedPages {
+
+    /**
+     * Renderer that renders the pages.
+     */
+    @NotNull
+    private final Renderer renderer;
+
+    /**
+     * Pre-renderer that writes the pages to the output directory or null if the pages are not pre-rendered at runtime.
+     */
+    @Nullable
+    private final Prerenderer prerenderer;
+
+    /**
+     * URIs of the pages that are pre-rendered.
+     */
+    @NotNull
+    private final List<String> uris;
+
+    /**
+     * Files of the pages that were pre-rendered by their URI.
+     */
+    @NotNull
+    private final ConcurrentMap<String, File> pages = new ConcurrentHashMap<>();
+
+    /**
+     * Files of the pages that were pre-rendered during the build by their URI.
+     */
+    @NotNull
+    private final ConcurrentMap<String, File> buildPages = new ConcurrentHashMap<>();
+
+    /**
+     * Number of server bundle reloads of the renderer when the pages were pre-rendered.
+     */
+    private volatile long reloadCount;
+
+    /**
+     * Create new pre-rendered pages for the given URIs.
+     *
+     * @param renderer    Renderer that renders the pages
+     * @param prerenderer Pre-renderer that writes the pages to the output directory or null to only serve the pages
+     *                    that were pre-rendered during the build
+     * @param uris        URIs of the pages that are pre-rendered
+     */
+    public AngularJUniversalPrerenderedPages(@NotNull Renderer renderer, @Nullable Prerenderer prerenderer, @NotNull List<String> uris) {
+        this.renderer = renderer;
+        this.prerenderer = prerenderer;
+        this.uris = uris;
+    }
+
+    /**
+     * Load the pages that were pre-rendered during the build from the resources, for example /about from
+     * prerendered/about/index.html. A page that is packaged in an archive is extracted to a temporary file, so it can
+     * be served from disk as well.
+     *
+     * @param resourceLoader Resource loader for accessing the pages
+     * @param resourcePath   Resource path of the directory with the pages
+     * @return Number of pages that were loaded
+     * @throws IOException Exception in case a page can't be extracted
+     */
+    public int loadPages(@NotNull ResourceLoader resourceLoader, @NotNull String resourcePath) throws IOException {
+        for (String uri : uris) {
+            @Nullable
+            String pagePath = Prerenderer.getPagePath(uri);
+            if (pagePath == null) {
+                continue;
+            }
+
+            @NotNull
+            Resource resource = resourceLoader.getResource("classpath:" + resourcePath + "/" + pagePath);
+            if (!resource.exists()) {
+                continue;
+            }
+            if (resource.isFile()) {
+                buildPages.put(uri, resource.getFile());
+            } else {
+                try (InputStream pageInputStream = resource.getInputStream()) {
+                    buildPages.put(uri, RenderUtils.createTemporaryFileFromInputStream("prerendered", ".html", pageInputStream));
+                }
+            }
+        }
+        return buildPages.size();
+    }
+
+    /**
+     * Pre-render all pages that were not pre-rendered during the build in the background. Each page is served from
+     * disk as soon it was written, pages that are not written yet or failed are rendered on demand.
+     */
+    public void prerender() {
+        reloadCount = renderer.getReloadCount();
+        pages.clear();
+        if (prerenderer == null) {
+            return;
+        }
+        for (String uri : uris) {
+            if (!buildPages.containsKey(uri)) {
+                prerenderer.prerender(uri).thenAccept(file -> pages.put(uri, file));
+            }
+        }
+    }
+
+    /**
+     * Get the file of a pre-rendered page.
+     *
+     * @param uri URI of the page
+     * @return File of the page or null if the page was not pre-rendered or is outdated
+     */
+    @Nullable
+    public File getPage(@NotNull String uri) {
+        if (renderer.getReloadCount() != reloadCount) {
+            return null;
+        }
+        @Nullable
+        File page = pages.get(uri);
+        return page != null ? page : buildPages.get(uri);
+    }
+
+    /**
+     * Get the number of pages that were pre-rendered.
+     *
+     * @return Number of pre-rendered pages
+     */
+    public int getPageCount() {
+        return pages.size() + buildPages.size();
+    }
+}
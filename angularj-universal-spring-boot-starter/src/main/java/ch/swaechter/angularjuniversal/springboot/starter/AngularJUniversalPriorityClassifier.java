@@ -0,0 +1,78 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * This class assigns the priority class of a page request based on its headers. An explicit priority header wins, for
+ * example set by an internal prerender job or a proxy. Otherwise requests whose User-Agent contains one of the crawler
+ * patterns are crawler requests and all others are interactive requests.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalPriorityClassifier implements RenderPriorityClassifier {
+
+    /**
+     * Name of the header with the priority class or null if the header is ignored.
+     */
+    @Nullable
+    private final String priorityHeader;
+
+    /**
+     * Lower case parts of the User-Agent that mark a crawler.
+     */
+    @NotNull
+    private final List<String> crawlerUserAgents;
+
+    /**
+     * Constructor with the priority header and the crawler patterns.
+     *
+     * @param priorityHeader    Name of the header with the priority class or null to ignore the header
+     * @param crawlerUserAgents Parts of the User-Agent that mark a crawler, compared without case
+     */
+    public AngularJUniversalPriorityClassifier(@Nullable String priorityHeader, @NotNull List<String> crawlerUserAgents) {
+        this.priorityHeader = priorityHeader != null && !priorityHeader.isEmpty() ? priorityHeader : null;
+        this.crawlerUserAgents = crawlerUserAgents.stream().map(userAgent -> userAgent.toLowerCase(Locale.ROOT)).collect(Collectors.toList());
+    }
+
+    /**
+     * Get the priority class of the page request. Unknown values of the priority header are ignored.
+     *
+     * @param request HTTP request of the page
+     * @return Priority class of the render request
+     */
+    @Override
+    @NotNull
+    public RenderPriority classify(@NotNull HttpServletRequest request) {
+        if (priorityHeader != null) {
+            @Nullable
+            String priority = request.getHeader(priorityHeader);
+            if (priority != null) {
+                for (RenderPriority renderPriority : RenderPriority.values()) {
+                    if (renderPriority.name().equalsIgnoreCase(priority.trim())) {
+                        return renderPriority;
+                    }
+                }
+            }
+        }
+
+        @Nullable
+        String userAgent = request.getHeader("User-Agent");
+        if (userAgent != null) {
+            @NotNull
+            String lowerCaseUserAgent = userAgent.toLowerCase(Locale.ROOT);
+            for (String crawlerUserAgent : crawlerUserAgents) {
+                if (lowerCaseUserAgent.contains(crawlerUserAgent)) {
+                    return RenderPriority.CRAWLER;
+                }
+            }
+        }
+        return RenderPriority.INTERACTIVE;
+    }
+}
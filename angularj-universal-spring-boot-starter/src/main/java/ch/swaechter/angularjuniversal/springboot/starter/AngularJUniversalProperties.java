@@ -1,10 +1,12 @@
 package ch.swaechter.angularjuniversal.springboot.starter;
 
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -52,6 +54,165 @@ public class AngularJUniversalProperties {
     @NotNull
     private List<String> routes = Arrays.asList("/");
 
+    /**
+     * Number of render engines that are rendering in parallel. Each render engine starts its own Node.js process on a
+     * port counted upwards from the Node.js port.
+     */
+    @NotNull
+    private Integer engines = 1;
+
+    /**
+     * Minimum number of connections each render engine keeps open to its Node.js process.
+     */
+    @NotNull
+    private Integer connectionpoolminsize = 1;
+
+    /**
+     * Maximum number of connections each render engine opens to its Node.js process.
+     */
+    @NotNull
+    private Integer connectionpoolmaxsize = 4;
+
+    /**
+     * Time in milliseconds after which an idle connection above the minimum pool size is closed.
+     */
+    @NotNull
+    private Long connectionidletimeout = 60000L;
+
+    /**
+     * Maximum number of requests in flight on a single connection. Values above one pipeline the requests.
+     */
+    @NotNull
+    private Integer pipelinedepth = 1;
+
+    /**
+     * Status if the template is registered once per connection instead of being sent with every request.
+     */
+    @NotNull
+    private Boolean templateregistration = false;
+
+    /**
+     * Maximum memory of the page cache in bytes or 0 if rendered pages are not cached.
+     */
+    @NotNull
+    private Long pagecachesize = 0L;
+
+    /**
+     * Time to live of a cached page in milliseconds.
+     */
+    @NotNull
+    private Long pagecachettl = 300000L;
+
+    /**
+     * Time in milliseconds a cached page is served stale while it is rendered again in the background.
+     */
+    @NotNull
+    private Long pagecachemaxstale = 0L;
+
+    /**
+     * Number of I/O threads of the asynchronous render engine or 0 to use the blocking render engine.
+     */
+    @NotNull
+    private Integer niothreads = 0;
+
+    /**
+     * Format of the messages exchanged with the Node.js render server.
+     */
+    @NotNull
+    private WireFormat wireformat = WireFormat.JSON;
+
+    /**
+     * Default time in milliseconds a render request may take or 0 for no limit.
+     */
+    @NotNull
+    private Long rendertimeout = 0L;
+
+    /**
+     * Maximum number of render requests waiting for a render engine or 0 for no limit.
+     */
+    @NotNull
+    private Integer renderqueuecapacity = 0;
+
+    /**
+     * Maximum estimated wait in milliseconds of a new render request or 0 for no limit.
+     */
+    @NotNull
+    private Long renderqueuemaxwait = 0L;
+
+    /**
+     * Name of the header that sets the priority class of a page request, for example by a prerender job or a proxy. An
+     * empty name ignores the header.
+     */
+    @NotNull
+    private String priorityheader = "X-Render-Priority";
+
+    /**
+     * Comma separated list with parts of the User-Agent that mark a crawler, whose page requests are rendered with the
+     * lowest priority.
+     */
+    @NotNull
+    private List<String> crawleruseragents = Arrays.asList("bot", "crawler", "spider", "slurp", "facebookexternalhit");
+
+    /**
+     * Status if the render server is started outside of the application instead of as Node.js process.
+     */
+    @NotNull
+    private Boolean externalrenderserver = false;
+
+    /**
+     * Maximum time in milliseconds the renderer waits for accepted render requests when it is stopped.
+     */
+    @NotNull
+    private Long shutdowntimeout = 30000L;
+
+    /**
+     * Number of times each warm-up URI is rendered by each render engine or 0 to skip the warm-up.
+     */
+    @NotNull
+    private Integer warmupiterations = 0;
+
+    /**
+     * Comma separated list with sample URIs that are rendered during the warm-up in addition to the concrete routes.
+     */
+    @NotNull
+    private List<String> warmupuris = new ArrayList<>();
+
+    /**
+     * Directory the concrete routes and the sitemap pages are pre-rendered to or empty to disable the pre-rendering.
+     */
+    @NotNull
+    private String prerenderdirectory = "";
+
+    /**
+     * Resource path of the sitemap whose pages are pre-rendered in addition to the concrete routes or empty for none.
+     */
+    @NotNull
+    private String prerendersitemap = "";
+
+    /**
+     * Resource path of the directory with the pages that were pre-rendered during the build or empty for none.
+     */
+    @NotNull
+    private String prerenderresourcepath = "/prerendered";
+
+    /**
+     * Number of times a render that failed because of its render engine is retried.
+     */
+    @NotNull
+    private Integer renderretries = 1;
+
+    /**
+     * Number of consecutive failures of a render engine that open its circuit breaker.
+     */
+    @NotNull
+    private Integer circuitbreakerthreshold = 5;
+
+    /**
+     * Time in milliseconds the circuit breaker of a render engine stays open before a trial render.
+     */
+    @NotNull
+    private Long circuitbreakeropenduration = 5000L;
+
     /**
      * Get the path or executable name of the Node.js executable.
      *
@@ -165,4 +326,498 @@ public class AngularJUniversalProperties {
     public void setRoutes(@NotNull List<String> routes) {
         this.routes = routes;
     }
+
+    /**
+     * Get the number of render engines that are rendering in parallel.
+     *
+     * @return Number of render engines
+     */
+    @NotNull
+    public Integer getEngines() {
+        return engines;
+    }
+
+    /**
+     * Set the number of render engines that are rendering in parallel.
+     *
+     * @param engines New number of render engines
+     */
+    public void setEngines(@NotNull Integer engines) {
+        this.engines = engines;
+    }
+
+    /**
+     * Get the minimum number of connections each render engine keeps open.
+     *
+     * @return Minimum number of connections
+     */
+    @NotNull
+    public Integer getConnectionPoolMinSize() {
+        return connectionpoolminsize;
+    }
+
+    /**
+     * Set the minimum number of connections each render engine keeps open.
+     *
+     * @param connectionpoolminsize New minimum number of connections
+     */
+    public void setConnectionPoolMinSize(@NotNull Integer connectionpoolminsize) {
+        this.connectionpoolminsize = connectionpoolminsize;
+    }
+
+    /**
+     * Get the maximum number of connections each render engine opens.
+     *
+     * @return Maximum number of connections
+     */
+    @NotNull
+    public Integer getConnectionPoolMaxSize() {
+        return connectionpoolmaxsize;
+    }
+
+    /**
+     * Set the maximum number of connections each render engine opens.
+     *
+     * @param connectionpoolmaxsize New maximum number of connections
+     */
+    public void setConnectionPoolMaxSize(@NotNull Integer connectionpoolmaxsize) {
+        this.connectionpoolmaxsize = connectionpoolmaxsize;
+    }
+
+    /**
+     * Get the time in milliseconds after which an idle connection is closed.
+     *
+     * @return Idle timeout in milliseconds
+     */
+    @NotNull
+    public Long getConnectionIdleTimeout() {
+        return connectionidletimeout;
+    }
+
+    /**
+     * Set the time in milliseconds after which an idle connection is closed.
+     *
+     * @param connectionidletimeout New idle timeout in milliseconds
+     */
+    public void setConnectionIdleTimeout(@NotNull Long connectionidletimeout) {
+        this.connectionidletimeout = connectionidletimeout;
+    }
+
+    /**
+     * Get the maximum number of requests in flight on a single connection.
+     *
+     * @return Maximum number of requests in flight per connection
+     */
+    @NotNull
+    public Integer getPipelineDepth() {
+        return pipelinedepth;
+    }
+
+    /**
+     * Set the maximum number of requests in flight on a single connection.
+     *
+     * @param pipelinedepth New maximum number of requests in flight per connection
+     */
+    public void setPipelineDepth(@NotNull Integer pipelinedepth) {
+        this.pipelinedepth = pipelinedepth;
+    }
+
+    /**
+     * Get the status if the template is registered once per connection.
+     *
+     * @return Status of the template registration
+     */
+    @NotNull
+    public Boolean getTemplateRegistration() {
+        return templateregistration;
+    }
+
+    /**
+     * Set the status if the template is registered once per connection.
+     *
+     * @param templateregistration New status of the template registration
+     */
+    public void setTemplateRegistration(@NotNull Boolean templateregistration) {
+        this.templateregistration = templateregistration;
+    }
+
+    /**
+     * Get the maximum memory of the page cache in bytes.
+     *
+     * @return Maximum memory of the page cache or 0 if the page cache is disabled
+     */
+    @NotNull
+    public Long getPageCacheSize() {
+        return pagecachesize;
+    }
+
+    /**
+     * Set the maximum memory of the page cache in bytes.
+     *
+     * @param pagecachesize New maximum memory of the page cache or 0 to disable the page cache
+     */
+    public void setPageCacheSize(@NotNull Long pagecachesize) {
+        this.pagecachesize = pagecachesize;
+    }
+
+    /**
+     * Get the time to live of a cached page in milliseconds.
+     *
+     * @return Time to live of a cached page
+     */
+    @NotNull
+    public Long getPageCacheTtl() {
+        return pagecachettl;
+    }
+
+    /**
+     * Set the time to live of a cached page in milliseconds.
+     *
+     * @param pagecachettl New time to live of a cached page
+     */
+    public void setPageCacheTtl(@NotNull Long pagecachettl) {
+        this.pagecachettl = pagecachettl;
+    }
+
+    /**
+     * Get the time in milliseconds a cached page is served stale while it is rendered again.
+     *
+     * @return Maximum staleness of a cached page or 0 if stale pages are not served
+     */
+    @NotNull
+    public Long getPageCacheMaxStale() {
+        return pagecachemaxstale;
+    }
+
+    /**
+     * Set the time in milliseconds a cached page is served stale while it is rendered again.
+     *
+     * @param pagecachemaxstale New maximum staleness of a cached page or 0 to disable the mode
+     */
+    public void setPageCacheMaxStale(@NotNull Long pagecachemaxstale) {
+        this.pagecachemaxstale = pagecachemaxstale;
+    }
+
+    /**
+     * Get the number of I/O threads of the asynchronous render engine.
+     *
+     * @return Number of I/O threads or 0 if the blocking render engine is used
+     */
+    @NotNull
+    public Integer getNioThreads() {
+        return niothreads;
+    }
+
+    /**
+     * Set the number of I/O threads of the asynchronous render engine.
+     *
+     * @param niothreads New number of I/O threads or 0 to use the blocking render engine
+     */
+    public void setNioThreads(@NotNull Integer niothreads) {
+        this.niothreads = niothreads;
+    }
+
+    /**
+     * Get the format of the messages exchanged with the Node.js render server.
+     *
+     * @return Format of the messages
+     */
+    @NotNull
+    public WireFormat getWireFormat() {
+        return wireformat;
+    }
+
+    /**
+     * Set the format of the messages exchanged with the Node.js render server.
+     *
+     * @param wireformat New format of the messages
+     */
+    public void setWireFormat(@NotNull WireFormat wireformat) {
+        this.wireformat = wireformat;
+    }
+
+    /**
+     * Get the default time in milliseconds a render request may take before it is abandoned.
+     *
+     * @return Render timeout in milliseconds or 0 for no limit
+     */
+    @NotNull
+    public Long getRenderTimeout() {
+        return rendertimeout;
+    }
+
+    /**
+     * Set the default time in milliseconds a render request may take before it is abandoned.
+     *
+     * @param rendertimeout Render timeout in milliseconds or 0 for no limit
+     */
+    public void setRenderTimeout(@NotNull Long rendertimeout) {
+        this.rendertimeout = rendertimeout;
+    }
+
+    /**
+     * Get the maximum number of render requests waiting for a render engine.
+     *
+     * @return Render queue capacity or 0 for no limit
+     */
+    @NotNull
+    public Integer getRenderQueueCapacity() {
+        return renderqueuecapacity;
+    }
+
+    /**
+     * Set the maximum number of render requests waiting for a render engine.
+     *
+     * @param renderqueuecapacity New render queue capacity or 0 for no limit
+     */
+    public void setRenderQueueCapacity(@NotNull Integer renderqueuecapacity) {
+        this.renderqueuecapacity = renderqueuecapacity;
+    }
+
+    /**
+     * Get the maximum estimated wait in milliseconds of a new render request.
+     *
+     * @return Maximum wait in milliseconds or 0 for no limit
+     */
+    @NotNull
+    public Long getRenderQueueMaxWait() {
+        return renderqueuemaxwait;
+    }
+
+    /**
+     * Set the maximum estimated wait in milliseconds of a new render request.
+     *
+     * @param renderqueuemaxwait New maximum wait in milliseconds or 0 for no limit
+     */
+    public void setRenderQueueMaxWait(@NotNull Long renderqueuemaxwait) {
+        this.renderqueuemaxwait = renderqueuemaxwait;
+    }
+
+    /**
+     * Get the name of the header that sets the priority class of a page request.
+     *
+     * @return Name of the header or an empty string to ignore the header
+     */
+    @NotNull
+    public String getPriorityHeader() {
+        return priorityheader;
+    }
+
+    /**
+     * Set the name of the header that sets the priority class of a page request.
+     *
+     * @param priorityheader New name of the header or an empty string to ignore the header
+     */
+    public void setPriorityHeader(@NotNull String priorityheader) {
+        this.priorityheader = priorityheader;
+    }
+
+    /**
+     * Get the parts of the User-Agent that mark a crawler.
+     *
+     * @return Parts of the User-Agent as list
+     */
+    @NotNull
+    public List<String> getCrawlerUserAgents() {
+        return crawleruseragents;
+    }
+
+    /**
+     * Set the parts of the User-Agent that mark a crawler.
+     *
+     * @param crawleruseragents New parts of the User-Agent as list
+     */
+    public void setCrawlerUserAgents(@NotNull List<String> crawleruseragents) {
+        this.crawleruseragents = crawleruseragents;
+    }
+
+    /**
+     * Get the status if the render server is started outside of the application.
+     *
+     * @return Status of the external render server
+     */
+    @NotNull
+    public Boolean getExternalRenderServer() {
+        return externalrenderserver;
+    }
+
+    /**
+     * Set the status if the render server is started outside of the application.
+     *
+     * @param externalrenderserver New status of the external render server
+     */
+    public void setExternalRenderServer(@NotNull Boolean externalrenderserver) {
+        this.externalrenderserver = externalrenderserver;
+    }
+
+    /**
+     * Get the maximum time in milliseconds the renderer waits for accepted render requests when it is stopped.
+     *
+     * @return Shutdown timeout in milliseconds
+     */
+    @NotNull
+    public Long getShutdownTimeout() {
+        return shutdowntimeout;
+    }
+
+    /**
+     * Set the maximum time in milliseconds the renderer waits for accepted render requests when it is stopped.
+     *
+     * @param shutdowntimeout Shutdown timeout in milliseconds or 0 to fail all pending requests at once
+     */
+    public void setShutdownTimeout(@NotNull Long shutdowntimeout) {
+        this.shutdowntimeout = shutdowntimeout;
+    }
+
+    /**
+     * Get the number of times each warm-up URI is rendered by each render engine before it takes traffic.
+     *
+     * @return Number of warm-up iterations or 0 if the warm-up is disabled
+     */
+    @NotNull
+    public Integer getWarmUpIterations() {
+        return warmupiterations;
+    }
+
+    /**
+     * Set the number of times each warm-up URI is rendered by each render engine before it takes traffic.
+     *
+     * @param warmupiterations Number of warm-up iterations or 0 to skip the warm-up
+     */
+    public void setWarmUpIterations(@NotNull Integer warmupiterations) {
+        this.warmupiterations = warmupiterations;
+    }
+
+    /**
+     * Get the sample URIs that are rendered during the warm-up in addition to the concrete routes.
+     *
+     * @return Sample URIs of the warm-up
+     */
+    @NotNull
+    public List<String> getWarmUpUris() {
+        return warmupuris;
+    }
+
+    /**
+     * Set the sample URIs that are rendered during the warm-up in addition to the concrete routes.
+     *
+     * @param warmupuris Sample URIs of the warm-up
+     */
+    public void setWarmUpUris(@NotNull List<String> warmupuris) {
+        this.warmupuris = warmupuris;
+    }
+
+    /**
+     * Get the directory the concrete routes and the sitemap pages are pre-rendered to.
+     *
+     * @return Pre-render directory or empty if the pre-rendering is disabled
+     */
+    @NotNull
+    public String getPrerenderDirectory() {
+        return prerenderdirectory;
+    }
+
+    /**
+     * Set the directory the concrete routes and the sitemap pages are pre-rendered to.
+     *
+     * @param prerenderdirectory Pre-render directory or empty to disable the pre-rendering
+     */
+    public void setPrerenderDirectory(@NotNull String prerenderdirectory) {
+        this.prerenderdirectory = prerenderdirectory;
+    }
+
+    /**
+     * Get the resource path of the sitemap whose pages are pre-rendered in addition to the concrete routes.
+     *
+     * @return Resource path of the sitemap or empty if there is none
+     */
+    @NotNull
+    public String getPrerenderSitemap() {
+        return prerendersitemap;
+    }
+
+    /**
+     * Set the resource path of the sitemap whose pages are pre-rendered in addition to the concrete routes.
+     *
+     * @param prerendersitemap Resource path of the sitemap or empty for none
+     */
+    public void setPrerenderSitemap(@NotNull String prerendersitemap) {
+        this.prerendersitemap = prerendersitemap;
+    }
+
+    /**
+     * Get the resource path of the directory with the pages that were pre-rendered during the build.
+     *
+     * @return Resource path of the pre-rendered pages or empty if there are none
+     */
+    @NotNull
+    public String getPrerenderResourcePath() {
+        return prerenderresourcepath;
+    }
+
+    /**
+     * Set the resource path of the directory with the pages that were pre-rendered during the build.
+     *
+     * @param prerenderresourcepath Resource path of the pre-rendered pages or empty for none
+     */
+    public void setPrerenderResourcePath(@NotNull String prerenderresourcepath) {
+        this.prerenderresourcepath = prerenderresourcepath;
+    }
+
+    /**
+     * Get the number of times a render that failed because of its render engine is retried.
+     *
+     * @return Number of retries
+     */
+    @NotNull
+    public Integer getRenderRetries() {
+        return renderretries;
+    }
+
+    /**
+     * Set the number of times a render that failed because of its render engine is retried.
+     *
+     * @param renderretries Number of retries or 0 to never retry
+     */
+    public void setRenderRetries(@NotNull Integer renderretries) {
+        this.renderretries = renderretries;
+    }
+
+    /**
+     * Get the number of consecutive failures of a render engine that open its circuit breaker.
+     *
+     * @return Failure threshold or 0 if the circuit breaker is disabled
+     */
+    @NotNull
+    public Integer getCircuitBreakerThreshold() {
+        return circuitbreakerthreshold;
+    }
+
+    /**
+     * Set the number of consecutive failures of a render engine that open its circuit breaker.
+     *
+     * @param circuitbreakerthreshold Failure threshold or 0 to disable the circuit breaker
+     */
+    public void setCircuitBreakerThreshold(@NotNull Integer circuitbreakerthreshold) {
+        this.circuitbreakerthreshold = circuitbreakerthreshold;
+    }
+
+    /**
+     * Get the time in milliseconds the circuit breaker of a render engine stays open before a trial render.
+     *
+     * @return Open duration in milliseconds
+     */
+    @NotNull
+    public Long getCircuitBreakerOpenDuration() {
+        return circuitbreakeropenduration;
+    }
+
+    /**
+     * Set the time in milliseconds the circuit breaker of a render engine stays open before a trial render.
+     *
+     * @param circuitbreakeropenduration Open duration in milliseconds
+     */
+    public void setCircuitBreakerOpenDuration(@NotNull Long circuitbreakeropenduration) {
+        this.circuitbreakeropenduration = circuitbreakeropenduration;
+    }
 }
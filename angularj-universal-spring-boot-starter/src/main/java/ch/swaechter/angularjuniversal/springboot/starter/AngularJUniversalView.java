@@ -2,16 +2,78 @@ package ch.swaechter.angularjuniversal.springboot.starter;
 
 import ch.swaechter.angularjuniversal.renderer.Renderer;
 import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderTimeoutException;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderUnavailableException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.web.servlet.view.AbstractTemplateView;
+import org.springframework.web.util.UrlPathHelper;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * This class is responsible for rendering a page request with the renderer. If the request supports asynchronous
+ * processing, the request thread is released while the page is rendered and the response is written as soon the
+ * render is completed. Pre-rendered pages are served from disk, without copying them through the heap if the connector
+ * supports sendfile.
+ *
+ * @author Simon Wächter
+ */
 public class AngularJUniversalView extends AbstractTemplateView {
 
+    /**
+     * Time in milliseconds the asynchronous processing of a request is kept open after the render timeout, so the
+     * deadline of the renderer always passes before the container times out the request.
+     */
+    private static final long ASYNC_TIMEOUT_MARGIN = 1000;
+
+    /**
+     * Request attribute of Tomcat that indicates that the connector is able to send files with sendfile.
+     */
+    @NotNull
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+    /**
+     * Request attribute of Tomcat with the path of the file to send.
+     */
+    @NotNull
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+    /**
+     * Request attribute of Tomcat with the start position of the file to send.
+     */
+    @NotNull
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+    /**
+     * Request attribute of Tomcat with the end position of the file to send.
+     */
+    @NotNull
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Helper to look up the pre-rendered pages by the path within the application, without the context path.
+     */
+    @NotNull
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
     /**
      * Renderer for rendering page requests.
      */
@@ -25,14 +87,53 @@ public class AngularJUniversalView extends AbstractTemplateView {
     private final RenderConfiguration renderConfiguration;
 
     /**
-     * Constructor with the new renderer and the properties for rendering page requests.
+     * Classifier that assigns the priority class of a page request.
+     */
+    @NotNull
+    private final RenderPriorityClassifier priorityClassifier;
+
+    /**
+     * Pre-rendered pages or null if the pre-rendering is disabled.
+     */
+    @Nullable
+    private final AngularJUniversalPrerenderedPages prerenderedPages;
+
+    /**
+     * Constructor with the new renderer and the properties for rendering page requests. All page requests are rendered
+     * as interactive requests.
      *
      * @param renderer            Renderer
      * @param renderConfiguration Render configuration
      */
     public AngularJUniversalView(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+        this(renderer, renderConfiguration, request -> RenderPriority.INTERACTIVE);
+    }
+
+    /**
+     * Constructor with the new renderer, the properties and the priority classifier for rendering page requests.
+     *
+     * @param renderer            Renderer
+     * @param renderConfiguration Render configuration
+     * @param priorityClassifier  Classifier that assigns the priority class of a page request
+     */
+    public AngularJUniversalView(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration, @NotNull RenderPriorityClassifier priorityClassifier) {
+        this(renderer, renderConfiguration, priorityClassifier, null);
+    }
+
+    /**
+     * Constructor with the new renderer, the properties, the priority classifier and the pre-rendered pages. Page
+     * requests for a pre-rendered page are served from disk, all other ones are rendered.
+     *
+     * @param renderer            Renderer
+     * @param renderConfiguration Render configuration
+     * @param priorityClassifier  Classifier that assigns the priority class of a page request
+     * @param prerenderedPages    Pre-rendered pages or null if the pre-rendering is disabled
+     */
+    public AngularJUniversalView(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration, @NotNull RenderPriorityClassifier priorityClassifier, @Nullable AngularJUniversalPrerenderedPages prerenderedPages) {
         this.renderer = renderer;
         this.renderConfiguration = renderConfiguration;
+        this.priorityClassifier = priorityClassifier;
+        this.prerenderedPages = prerenderedPages;
     }
 
     /**
@@ -46,7 +147,14 @@ public class AngularJUniversalView extends AbstractTemplateView {
     }
 
     /**
-     * Render the page request with the given renderer.
+     * Render the page request with the given renderer in the priority class of the request. If the request supports
+     * asynchronous processing, the request thread is released and the response is written by the thread that completes
+     * the render. If no render engine is available, the unrendered template is written. If the render passes its
+     * deadline, the request is answered with 503 Service Unavailable.
+     * <p>
+     * The asynchronous processing is started on the servlet request directly, because the view is rendered after the
+     * handler method returned, when the web async manager of Spring MVC and deferred results can't take over anymore.
+     * So the async request timeout of Spring MVC doesn't apply, the timeout is derived from the render timeout instead.
      *
      * @param map      Map with all values
      * @param request  HTTP request
@@ -57,9 +165,158 @@ public class AngularJUniversalView extends AbstractTemplateView {
     protected void renderMergedTemplateModel(@NotNull Map<String, Object> map, @NotNull HttpServletRequest request, @NotNull HttpServletResponse response) throws Exception {
         response.setCharacterEncoding(renderConfiguration.getCharset().name());
         response.setContentType("text/html");
+
+        // Serve a pre-rendered page from disk
+        if (prerenderedPages != null) {
+            @Nullable
+            File page = prerenderedPages.getPage(URL_PATH_HELPER.getPathWithinApplication(request));
+            if (page != null) {
+                writePage(request, response, page);
+                return;
+            }
+        }
+
+        @NotNull
+        CompletableFuture<String> future = renderer.addRenderRequest(request.getRequestURI(), priorityClassifier.classify(request));
+        if (!request.isAsyncSupported() || future.isDone()) {
+            try {
+                writeContent(response, future.get());
+            } catch (ExecutionException exception) {
+                if (!writeRenderFailure(request, response, exception.getCause())) {
+                    throw exception;
+                }
+            }
+            return;
+        }
+
+        // Release the request thread and write the response as soon the render is completed
+        @NotNull
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(getAsyncTimeout());
+        @NotNull
+        AtomicBoolean finished = new AtomicBoolean();
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                finished.set(true);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (finished.compareAndSet(false, true)) {
+                    // Nobody waits for the page anymore, so the render can be abandoned
+                    future.cancel(false);
+                    ((HttpServletResponse) event.getSuppliedResponse()).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    event.getAsyncContext().complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                finished.set(true);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        future.whenComplete((content, throwable) -> {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                if (throwable == null) {
+                    writeContent(response, content);
+                } else if (!writeRenderFailure(request, response, throwable instanceof CompletionException ? throwable.getCause() : throwable)) {
+                    logger.error("Unable to render the page " + request.getRequestURI(), throwable);
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } catch (IOException exception) {
+                logger.error("Unable to write the page " + request.getRequestURI(), exception);
+            } finally {
+                asyncContext.complete();
+            }
+        });
+    }
+
+    /**
+     * Get the timeout of the asynchronous processing of a request, which lasts a bit longer than the render timeout.
+     *
+     * @return Timeout in milliseconds or 0 if the render timeout is disabled, which means no timeout
+     */
+    private long getAsyncTimeout() {
+        long renderTimeout = renderConfiguration.getRenderTimeout();
+        return renderTimeout > 0 ? renderTimeout + ASYNC_TIMEOUT_MARGIN : 0;
+    }
+
+    /**
+     * Answer a page request whose render failed in an expected way. If no render engine is available, the unrendered
+     * template is written, so Angular renders the page on the client side. A render that passed its deadline is
+     * answered with 503 Service Unavailable, the same as a request the container timed out.
+     *
+     * @param request  HTTP request
+     * @param response HTTP response
+     * @param cause    Cause of the failed render
+     * @return Status if the failure was answered or has to be handled by the caller
+     * @throws IOException Exception in case of an IO problem
+     */
+    private boolean writeRenderFailure(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response, @Nullable Throwable cause) throws IOException {
+        if (cause instanceof RenderUnavailableException) {
+            writeContent(response, renderConfiguration.getTemplateContent());
+            return true;
+        }
+        if (cause instanceof RenderTimeoutException) {
+            logger.warn("The page " + request.getRequestURI() + " was not rendered in time");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write a pre-rendered page to the response. If the connector supports sendfile, the file is handed over to it and
+     * sent by the kernel after the request without copying it through the heap, otherwise the file is transferred to
+     * the output stream of the response by its channel.
+     *
+     * @param request  HTTP request
+     * @param response HTTP response
+     * @param page     File of the pre-rendered page
+     * @throws IOException Exception in case of an IO problem
+     */
+    private void writePage(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response, @NotNull File page) throws IOException {
+        try (FileChannel fileChannel = FileChannel.open(page.toPath(), StandardOpenOption.READ)) {
+            long size = fileChannel.size();
+            response.setContentLengthLong(size);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+                request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, page.getAbsolutePath());
+                request.setAttribute(SENDFILE_START_ATTRIBUTE, 0L);
+                request.setAttribute(SENDFILE_END_ATTRIBUTE, size);
+                return;
+            }
+
+            @NotNull
+            WritableByteChannel responseChannel = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += fileChannel.transferTo(position, size - position, responseChannel);
+            }
+        }
+    }
+
+    /**
+     * Write the rendered page to the response.
+     *
+     * @param response HTTP response
+     * @param content  Rendered page
+     * @throws IOException Exception in case of an IO problem
+     */
+    private void writeContent(@NotNull HttpServletResponse response, @Nullable String content) throws IOException {
         @NotNull
         PrintWriter writer = response.getWriter();
-        writer.println(renderer.addRenderRequest(request.getRequestURI()).get());
+        writer.println(content);
         writer.flush();
         writer.close();
     }
@@ -2,7 +2,9 @@ package ch.swaechter.angularjuniversal.springboot.starter;
 
 import ch.swaechter.angularjuniversal.renderer.Renderer;
 import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.web.servlet.view.AbstractTemplateViewResolver;
 import org.springframework.web.servlet.view.AbstractUrlBasedView;
@@ -29,15 +31,54 @@ public class AngularJUniversalViewResolver extends AbstractTemplateViewResolver
     private final RenderConfiguration renderConfiguration;
 
     /**
-     * Constructor with the renderer and properties that will be passed to the view.
+     * Classifier that will be passed to the view to assign the priority class of a page request.
+     */
+    @NotNull
+    private final RenderPriorityClassifier priorityClassifier;
+
+    /**
+     * Pre-rendered pages that will be passed to the view or null if the pre-rendering is disabled.
+     */
+    @Nullable
+    private final AngularJUniversalPrerenderedPages prerenderedPages;
+
+    /**
+     * Constructor with the renderer and properties that will be passed to the view. All page requests are rendered as
+     * interactive requests.
      *
      * @param renderer            Renderer
      * @param renderConfiguration Render configuration
      */
     public AngularJUniversalViewResolver(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration) {
+        this(renderer, renderConfiguration, request -> RenderPriority.INTERACTIVE);
+    }
+
+    /**
+     * Constructor with the renderer, properties and priority classifier that will be passed to the view.
+     *
+     * @param renderer            Renderer
+     * @param renderConfiguration Render configuration
+     * @param priorityClassifier  Classifier that assigns the priority class of a page request
+     */
+    public AngularJUniversalViewResolver(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration, @NotNull RenderPriorityClassifier priorityClassifier) {
+        this(renderer, renderConfiguration, priorityClassifier, null);
+    }
+
+    /**
+     * Constructor with the renderer, properties, priority classifier and pre-rendered pages that will be passed to the
+     * view.
+     *
+     * @param renderer            Renderer
+     * @param renderConfiguration Render configuration
+     * @param priorityClassifier  Classifier that assigns the priority class of a page request
+     * @param prerenderedPages    Pre-rendered pages or null if the pre-rendering is disabled
+     */
+    public AngularJUniversalViewResolver(@NotNull Renderer renderer, @NotNull RenderConfiguration renderConfiguration, @NotNull RenderPriorityClassifier priorityClassifier, @Nullable AngularJUniversalPrerenderedPages prerenderedPages) {
         setViewClass(requiredViewClass());
         this.renderer = renderer;
         this.renderConfiguration = renderConfiguration;
+        this.priorityClassifier = priorityClassifier;
+        this.prerenderedPages = prerenderedPages;
     }
 
     /**
@@ -80,6 +121,6 @@ public class AngularJUniversalViewResolver extends AbstractTemplateViewResolver
     @Override
     @NotNull
     public AbstractUrlBasedView buildView(@NotNull String uri) {
-        return new AngularJUniversalView(renderer, renderConfiguration);
+        return new AngularJUniversalView(renderer, renderConfiguration, priorityClassifier, prerenderedPages);
     }
 }
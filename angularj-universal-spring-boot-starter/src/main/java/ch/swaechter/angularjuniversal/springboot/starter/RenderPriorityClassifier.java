@@ -0,0 +1,25 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import org.jetbrains.annotations.NotNull;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * This interface is responsible for assigning a priority class to a page request. Provide an own bean to replace the
+ * default classifier.
+ *
+ * @author Simon Wächter
+ */
+@FunctionalInterface
+public interface RenderPriorityClassifier {
+
+    /**
+     * Get the priority class the page request is rendered with.
+     *
+     * @param request HTTP request of the page
+     * @return Priority class of the render request
+     */
+    @NotNull
+    RenderPriority classify(@NotNull HttpServletRequest request);
+}
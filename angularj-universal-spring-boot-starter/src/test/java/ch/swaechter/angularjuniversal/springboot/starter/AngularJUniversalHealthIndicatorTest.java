@@ -0,0 +1,43 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.RenderStartStatus;
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.File;
+
+/**
+ * This class is responsible for testing the health indicator of the renderer.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalHealthIndicatorTest {
+
+    /**
+     * Test that the renderer is out of service until a render engine is ready.
+     */
+    @Test
+    public void testAngularJUniversalHealthIndicator() {
+        RenderConfiguration renderConfiguration = new RenderConfiguration.RenderConfigurationBuilder("node", 9090, new File("server.js"), "<app-root></app-root>").engines(2).build();
+        Renderer renderer = Mockito.mock(Renderer.class);
+        AngularJUniversalHealthIndicator healthIndicator = new AngularJUniversalHealthIndicator(renderer, renderConfiguration);
+
+        Health health = healthIndicator.health();
+        Assert.assertEquals(Status.OUT_OF_SERVICE, health.getStatus());
+        Assert.assertEquals(2, health.getDetails().get("engines"));
+        Assert.assertEquals(0, health.getDetails().get("readyEngines"));
+        Assert.assertFalse(health.getDetails().containsKey("startStatus"));
+
+        Mockito.when(renderer.getReadyRenderEngineCount()).thenReturn(1);
+        Mockito.when(renderer.getStartStatus()).thenReturn(RenderStartStatus.WARM_UP_INCOMPLETE);
+        health = healthIndicator.health();
+        Assert.assertEquals(Status.UP, health.getStatus());
+        Assert.assertEquals(1, health.getDetails().get("readyEngines"));
+        Assert.assertEquals(RenderStartStatus.WARM_UP_INCOMPLETE, health.getDetails().get("startStatus"));
+    }
+}
@@ -0,0 +1,40 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is responsible for testing the lifecycle of the renderer.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalLifecycleTest {
+
+    /**
+     * Test that the lifecycle starts the renderer and drains it before it notifies the lifecycle processor.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testAngularJUniversalLifecycle() throws Exception {
+        Renderer renderer = Mockito.mock(Renderer.class);
+        AngularJUniversalLifecycle lifecycle = new AngularJUniversalLifecycle(renderer);
+        Assert.assertTrue(lifecycle.isAutoStartup());
+        Assert.assertTrue(lifecycle.getPhase() < Integer.MAX_VALUE);
+
+        lifecycle.start();
+        Mockito.verify(renderer).startRenderer();
+        Mockito.when(renderer.isRendererRunning()).thenReturn(true);
+        Assert.assertTrue(lifecycle.isRunning());
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        lifecycle.stop(stopped::countDown);
+        Assert.assertTrue(stopped.await(10, TimeUnit.SECONDS));
+        Mockito.verify(renderer).stopRenderer();
+    }
+}
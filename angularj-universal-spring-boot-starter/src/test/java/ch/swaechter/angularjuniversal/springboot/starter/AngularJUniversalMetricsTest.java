@@ -0,0 +1,103 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.cache.PageCache;
+import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPhase;
+import ch.swaechter.angularjuniversal.renderer.request.RenderRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This class is responsible for testing the meters and the Actuator endpoint of the renderer.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalMetricsTest {
+
+    /**
+     * Test the meters of the renderer state and of the completed render requests.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAngularJUniversalMetrics() {
+        PageCache pageCache = new PageCache(1024, 60000);
+        pageCache.put("/home", "Home");
+        pageCache.get("/home");
+        pageCache.get("/about");
+
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Mockito.when(renderer.getQueuedRequestCount()).thenReturn(3);
+        Mockito.when(renderer.getShedRequestCount()).thenReturn(2L);
+        Mockito.when(renderer.getRetriedRequestCount()).thenReturn(4L);
+        Mockito.when(renderer.getPageCache()).thenReturn(pageCache);
+
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getRoutes()).thenReturn(Arrays.asList("/home", "/blog/**"));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new AngularJUniversalMetrics(renderer, renderConfiguration).bindTo(registry);
+        ArgumentCaptor<Consumer<RenderRequest>> listener = ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(renderer).addCompletionListener(listener.capture());
+
+        Assert.assertEquals(3, registry.get("angularjuniversal.queue.size").gauge().value(), 0);
+        Assert.assertEquals(2, registry.get("angularjuniversal.requests.shed").functionCounter().count(), 0);
+        Assert.assertEquals(4, registry.get("angularjuniversal.requests.retried").functionCounter().count(), 0);
+        Assert.assertEquals(1, registry.get("angularjuniversal.pagecache.requests").tag("result", "hit").functionCounter().count(), 0);
+        Assert.assertEquals(1, registry.get("angularjuniversal.pagecache.requests").tag("result", "miss").functionCounter().count(), 0);
+        Assert.assertEquals(0.5, registry.get("angularjuniversal.pagecache.hit.ratio").gauge().value(), 0);
+
+        // A successful render is timed under its route and phases
+        RenderRequest renderRequest = new RenderRequest("/blog/2018/angular");
+        renderRequest.getTimings().mark(RenderPhase.DISPATCHED);
+        renderRequest.getTimings().setResponseBytes(2000);
+        renderRequest.getTimings().mark(RenderPhase.COMPLETED);
+        renderRequest.getFuture().complete("Blog");
+        listener.getValue().accept(renderRequest);
+        Assert.assertEquals(1, registry.get("angularjuniversal.renders").tags("route", "/blog/**", "outcome", "SUCCESS").timer().count());
+        Assert.assertEquals(1, registry.get("angularjuniversal.renders.phase").tag("phase", "DISPATCHED").timer().count());
+        Assert.assertEquals(2000, registry.get("angularjuniversal.renders.response.size").summary().totalAmount(), 0);
+
+        // A failed render is counted by its cause under a bounded route tag
+        RenderRequest failedRequest = new RenderRequest("/unknown/page");
+        failedRequest.getTimings().mark(RenderPhase.COMPLETED);
+        failedRequest.getFuture().completeExceptionally(new RenderException("Broken"));
+        listener.getValue().accept(failedRequest);
+        Assert.assertEquals(1, registry.get("angularjuniversal.renders").tags("route", "UNKNOWN", "outcome", "RenderException").timer().count());
+        Assert.assertEquals(1, registry.get("angularjuniversal.renders.failures").tag("cause", "RenderException").counter().count(), 0);
+        Assert.assertTrue(registry.get("angularjuniversal.renders").tag("route", "/blog/**").timer().totalTime(TimeUnit.NANOSECONDS) >= 0);
+    }
+
+    /**
+     * Test the summary of the Actuator endpoint.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAngularJUniversalEndpoint() {
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Mockito.when(renderer.isRendererRunning()).thenReturn(true);
+        Mockito.when(renderer.getQueuedRequestCount()).thenReturn(4);
+        Mockito.when(renderer.getRenderInProgressCount()).thenReturn(2);
+
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getRenderQueueCapacity()).thenReturn(100);
+
+        Map<String, Object> state = new AngularJUniversalEndpoint(renderer, renderConfiguration).getRendererState();
+        Assert.assertEquals(true, state.get("running"));
+        Assert.assertFalse(state.containsKey("pageCache"));
+
+        Map<String, Object> queue = (Map<String, Object>) state.get("queue");
+        Assert.assertEquals(4, queue.get("size"));
+        Assert.assertEquals(100, queue.get("capacity"));
+        Assert.assertEquals(2, queue.get("inFlight"));
+    }
+}
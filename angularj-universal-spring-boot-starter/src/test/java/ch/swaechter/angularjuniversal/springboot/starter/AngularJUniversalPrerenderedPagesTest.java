@@ -0,0 +1,68 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.Renderer;
+import ch.swaechter.angularjuniversal.renderer.prerender.Prerenderer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class is responsible for testing the pages that were pre-rendered during the build or after the start.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalPrerenderedPagesTest {
+
+    /**
+     * Test that the pages pre-rendered during the build are served from the resources, that only the remaining pages
+     * are pre-rendered after the start and that all pages are outdated after a reload of the server bundle.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testAngularJUniversalPrerenderedPages() throws Exception {
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Prerenderer prerenderer = Mockito.mock(Prerenderer.class);
+        File page = File.createTempFile("index", ".html");
+        page.deleteOnExit();
+        Mockito.when(prerenderer.prerender("/")).thenReturn(CompletableFuture.completedFuture(page));
+
+        AngularJUniversalPrerenderedPages prerenderedPages = new AngularJUniversalPrerenderedPages(renderer, prerenderer, Arrays.asList("/", "/about"));
+        Assert.assertEquals(1, prerenderedPages.loadPages(new DefaultResourceLoader(), "/prerendered"));
+        prerenderedPages.prerender();
+        Mockito.verify(prerenderer).prerender("/");
+        Mockito.verify(prerenderer, Mockito.never()).prerender("/about");
+
+        Assert.assertEquals(2, prerenderedPages.getPageCount());
+        Assert.assertEquals(page, prerenderedPages.getPage("/"));
+        File buildPage = prerenderedPages.getPage("/about");
+        Assert.assertNotNull(buildPage);
+        Assert.assertEquals("<html>About</html>", new String(Files.readAllBytes(buildPage.toPath()), StandardCharsets.UTF_8));
+
+        Mockito.when(renderer.getReloadCount()).thenReturn(1L);
+        Assert.assertNull(prerenderedPages.getPage("/"));
+        Assert.assertNull(prerenderedPages.getPage("/about"));
+    }
+
+    /**
+     * Test that the pages pre-rendered during the build are served without a pre-render directory.
+     *
+     * @throws Exception Exception in case of an unexpected problem
+     */
+    @Test
+    public void testAngularJUniversalBuildPages() throws Exception {
+        Renderer renderer = Mockito.mock(Renderer.class);
+        AngularJUniversalPrerenderedPages prerenderedPages = new AngularJUniversalPrerenderedPages(renderer, null, Arrays.asList("/", "/about"));
+        Assert.assertEquals(1, prerenderedPages.loadPages(new DefaultResourceLoader(), "/prerendered"));
+        prerenderedPages.prerender();
+        Assert.assertNull(prerenderedPages.getPage("/"));
+        Assert.assertNotNull(prerenderedPages.getPage("/about"));
+    }
+}
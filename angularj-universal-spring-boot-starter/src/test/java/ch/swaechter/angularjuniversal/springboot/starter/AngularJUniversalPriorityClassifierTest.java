@@ -0,0 +1,45 @@
+package ch.swaechter.angularjuniversal.springboot.starter;
+
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Arrays;
+
+/**
+ * This class is responsible for testing the priority classifier.
+ *
+ * @author Simon Wächter
+ */
+public class AngularJUniversalPriorityClassifierTest {
+
+    /**
+     * Test that the priority header wins over the User-Agent and that crawlers are detected without case.
+     */
+    @Test
+    public void testAngularJUniversalPriorityClassifier() {
+        AngularJUniversalPriorityClassifier classifier = new AngularJUniversalPriorityClassifier("X-Render-Priority", Arrays.asList("Googlebot", "spider"));
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        Assert.assertEquals(RenderPriority.INTERACTIVE, classifier.classify(request));
+
+        request.addHeader("User-Agent", "Mozilla/5.0 (compatible; googlebot/2.1; +http://www.google.com/bot.html)");
+        Assert.assertEquals(RenderPriority.CRAWLER, classifier.classify(request));
+
+        request.addHeader("X-Render-Priority", "background");
+        Assert.assertEquals(RenderPriority.BACKGROUND, classifier.classify(request));
+
+        MockHttpServletRequest unknownRequest = new MockHttpServletRequest();
+        unknownRequest.addHeader("X-Render-Priority", "urgent");
+        unknownRequest.addHeader("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64)");
+        Assert.assertEquals(RenderPriority.INTERACTIVE, classifier.classify(unknownRequest));
+
+        // Without a header name, the header is ignored
+        AngularJUniversalPriorityClassifier userAgentClassifier = new AngularJUniversalPriorityClassifier("", Arrays.asList("spider"));
+        MockHttpServletRequest spiderRequest = new MockHttpServletRequest();
+        spiderRequest.addHeader("X-Render-Priority", "interactive");
+        spiderRequest.addHeader("User-Agent", "Baiduspider");
+        Assert.assertEquals(RenderPriority.CRAWLER, userAgentClassifier.classify(spiderRequest));
+    }
+}
@@ -1,5 +1,6 @@
 package ch.swaechter.angularjuniversal.springboot.starter;
 
+import ch.swaechter.angularjuniversal.renderer.configuration.WireFormat;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -24,11 +25,44 @@ public class AngularJUniversalPropertiesTest {
         Assert.assertEquals("/public/index.html", properties.getIndexResourcePath());
         Assert.assertEquals("/server.js", properties.getServerBundleResourcePath());
         Assert.assertEquals(StandardCharsets.UTF_8, properties.getCharset());
+        Assert.assertEquals(Integer.valueOf(1), properties.getEngines());
+        Assert.assertEquals(Integer.valueOf(1), properties.getConnectionPoolMinSize());
+        Assert.assertEquals(Integer.valueOf(4), properties.getConnectionPoolMaxSize());
+        Assert.assertEquals(Long.valueOf(60000L), properties.getConnectionIdleTimeout());
+        Assert.assertFalse(properties.getTemplateRegistration());
+        Assert.assertEquals(Long.valueOf(0), properties.getPageCacheSize());
+        Assert.assertEquals(Long.valueOf(300000L), properties.getPageCacheTtl());
+        Assert.assertEquals(Long.valueOf(0), properties.getPageCacheMaxStale());
+        Assert.assertEquals(Integer.valueOf(0), properties.getNioThreads());
+        Assert.assertEquals(WireFormat.JSON, properties.getWireFormat());
+        Assert.assertEquals(Long.valueOf(0), properties.getRenderTimeout());
+        Assert.assertEquals(Long.valueOf(30000), properties.getShutdownTimeout());
+        Assert.assertEquals(Integer.valueOf(0), properties.getWarmUpIterations());
+        Assert.assertTrue(properties.getWarmUpUris().isEmpty());
+        Assert.assertEquals("", properties.getPrerenderDirectory());
+        Assert.assertEquals("", properties.getPrerenderSitemap());
+        Assert.assertEquals("/prerendered", properties.getPrerenderResourcePath());
+        Assert.assertEquals(Integer.valueOf(0), properties.getRenderQueueCapacity());
+        Assert.assertEquals(Long.valueOf(0), properties.getRenderQueueMaxWait());
+        Assert.assertEquals(Integer.valueOf(1), properties.getRenderRetries());
+        Assert.assertEquals(Integer.valueOf(5), properties.getCircuitBreakerThreshold());
+        Assert.assertEquals(Long.valueOf(5000), properties.getCircuitBreakerOpenDuration());
+        Assert.assertEquals("X-Render-Priority", properties.getPriorityHeader());
+        Assert.assertTrue(properties.getCrawlerUserAgents().contains("bot"));
+        Assert.assertFalse(properties.getExternalRenderServer());
 
         properties.setRoutes(Arrays.asList("/", "/home"));
         properties.setIndexResourcePath("/other/public/index.html");
         properties.setServerBundleResourcePath("/other.server.js");
         properties.setCharset(StandardCharsets.ISO_8859_1);
+        properties.setEngines(4);
+        properties.setTemplateRegistration(true);
+        properties.setWireFormat(WireFormat.FRAMED_CBOR);
+        properties.setRenderQueueCapacity(100);
+        properties.setRenderQueueMaxWait(500L);
+        properties.setPriorityHeader("X-Prerender");
+        properties.setCrawlerUserAgents(Arrays.asList("googlebot"));
+        properties.setExternalRenderServer(true);
 
         Assert.assertEquals(2, properties.getRoutes().size());
         Assert.assertEquals("/", properties.getRoutes().get(0));
@@ -36,5 +70,13 @@ public class AngularJUniversalPropertiesTest {
         Assert.assertEquals("/other/public/index.html", properties.getIndexResourcePath());
         Assert.assertEquals("/other.server.js", properties.getServerBundleResourcePath());
         Assert.assertEquals(StandardCharsets.ISO_8859_1, properties.getCharset());
+        Assert.assertEquals(Integer.valueOf(4), properties.getEngines());
+        Assert.assertTrue(properties.getTemplateRegistration());
+        Assert.assertEquals(WireFormat.FRAMED_CBOR, properties.getWireFormat());
+        Assert.assertEquals(Integer.valueOf(100), properties.getRenderQueueCapacity());
+        Assert.assertEquals(Long.valueOf(500), properties.getRenderQueueMaxWait());
+        Assert.assertEquals("X-Prerender", properties.getPriorityHeader());
+        Assert.assertEquals(Arrays.asList("googlebot"), properties.getCrawlerUserAgents());
+        Assert.assertTrue(properties.getExternalRenderServer());
     }
 }
@@ -2,16 +2,22 @@ package ch.swaechter.angularjuniversal.springboot.starter;
 
 import ch.swaechter.angularjuniversal.renderer.Renderer;
 import ch.swaechter.angularjuniversal.renderer.configuration.RenderConfiguration;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderTimeoutException;
+import ch.swaechter.angularjuniversal.renderer.exception.RenderUnavailableException;
+import ch.swaechter.angularjuniversal.renderer.request.RenderPriority;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * This class is responsible for testing the view.
@@ -31,7 +37,7 @@ public class AngularJUniversalViewTest {
         future.complete("Hallo Welt! Hello world! Здравствуй, мир!");
 
         Renderer renderer = Mockito.mock(Renderer.class);
-        Mockito.when(renderer.addRenderRequest(Mockito.anyString())).thenReturn(future);
+        Mockito.when(renderer.addRenderRequest(Mockito.anyString(), Mockito.any(RenderPriority.class))).thenReturn(future);
 
         RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
         Mockito.when(renderConfiguration.getCharset()).thenReturn(StandardCharsets.UTF_8);
@@ -48,4 +54,174 @@ public class AngularJUniversalViewTest {
         Assert.assertEquals("text/html", response.getContentType());
         Assert.assertEquals(response.getContentAsString(), future.get() + System.lineSeparator());
     }
+
+    /**
+     * Test that the view renders the page request in the priority class of the classifier.
+     *
+     * @throws Exception Exception in case of an unexpected problem.
+     */
+    @Test
+    public void testPrioritizedAngularJUniversalView() throws Exception {
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Mockito.when(renderer.addRenderRequest(Mockito.anyString(), Mockito.any(RenderPriority.class))).thenReturn(CompletableFuture.completedFuture("Hello crawler!"));
+
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getCharset()).thenReturn(StandardCharsets.UTF_8);
+
+        AngularJUniversalView view = new AngularJUniversalView(renderer, renderConfiguration, request -> RenderPriority.CRAWLER);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/home");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), request, response);
+        Mockito.verify(renderer).addRenderRequest("/home", RenderPriority.CRAWLER);
+        Assert.assertEquals("Hello crawler!" + System.lineSeparator(), response.getContentAsString());
+    }
+
+    /**
+     * Test that the view releases the request thread and writes the response as soon the render is completed.
+     *
+     * @throws Exception Exception in case of an unexpected problem.
+     */
+    @Test
+    public void testAsyncAngularJUniversalView() throws Exception {
+        CompletableFuture<String> future = new CompletableFuture<>();
+
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Mockito.when(renderer.addRenderRequest(Mockito.anyString(), Mockito.any(RenderPriority.class))).thenReturn(future);
+
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getCharset()).thenReturn(StandardCharsets.UTF_8);
+
+        AngularJUniversalView view = new AngularJUniversalView(renderer, renderConfiguration);
+
+        Map<String, Object> map = new HashMap<>();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(map, request, response);
+        Assert.assertTrue(request.isAsyncStarted());
+        Assert.assertEquals("", response.getContentAsString());
+
+        future.complete("Hello world!");
+        Assert.assertFalse(request.isAsyncStarted());
+        Assert.assertEquals("Hello world!" + System.lineSeparator(), response.getContentAsString());
+    }
+
+    /**
+     * Test that the view answers with the unrendered template if no render engine is available, both for a render that
+     * failed at once and for one that failed later on.
+     *
+     * @throws Exception Exception in case of an unexpected problem.
+     */
+    @Test
+    public void testUnavailableAngularJUniversalView() throws Exception {
+        CompletableFuture<String> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new RenderUnavailableException("No render engine is available"));
+        CompletableFuture<String> future = new CompletableFuture<>();
+
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Mockito.when(renderer.addRenderRequest(Mockito.anyString(), Mockito.any(RenderPriority.class))).thenReturn(failedFuture, future);
+
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getCharset()).thenReturn(StandardCharsets.UTF_8);
+        Mockito.when(renderConfiguration.getTemplateContent()).thenReturn("<app-root></app-root>");
+
+        AngularJUniversalView view = new AngularJUniversalView(renderer, renderConfiguration);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), new MockHttpServletRequest(), response);
+        Assert.assertEquals("<app-root></app-root>" + System.lineSeparator(), response.getContentAsString());
+
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest();
+        asyncRequest.setAsyncSupported(true);
+        MockHttpServletResponse asyncResponse = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), asyncRequest, asyncResponse);
+        future.completeExceptionally(new CompletionException(new RenderUnavailableException("No render engine is available")));
+        Assert.assertEquals(200, asyncResponse.getStatus());
+        Assert.assertEquals("<app-root></app-root>" + System.lineSeparator(), asyncResponse.getContentAsString());
+    }
+
+    /**
+     * Test that the view answers a render that passed its deadline with 503 Service Unavailable, both for a render that
+     * failed at once and for one that failed later on, and that the asynchronous processing outlasts the render
+     * timeout.
+     *
+     * @throws Exception Exception in case of an unexpected problem.
+     */
+    @Test
+    public void testTimedOutAngularJUniversalView() throws Exception {
+        CompletableFuture<String> failedFuture = new CompletableFuture<>();
+        failedFuture.completeExceptionally(new RenderTimeoutException("The render request passed its deadline"));
+        CompletableFuture<String> future = new CompletableFuture<>();
+
+        Renderer renderer = Mockito.mock(Renderer.class);
+        Mockito.when(renderer.addRenderRequest(Mockito.anyString(), Mockito.any(RenderPriority.class))).thenReturn(failedFuture, future);
+
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getCharset()).thenReturn(StandardCharsets.UTF_8);
+        Mockito.when(renderConfiguration.getRenderTimeout()).thenReturn(60000L);
+
+        AngularJUniversalView view = new AngularJUniversalView(renderer, renderConfiguration);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), new MockHttpServletRequest(), response);
+        Assert.assertEquals(503, response.getStatus());
+
+        MockHttpServletRequest asyncRequest = new MockHttpServletRequest();
+        asyncRequest.setAsyncSupported(true);
+        MockHttpServletResponse asyncResponse = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), asyncRequest, asyncResponse);
+        Assert.assertTrue(asyncRequest.getAsyncContext().getTimeout() > 60000L);
+
+        future.completeExceptionally(new CompletionException(new RenderTimeoutException("The render request passed its deadline")));
+        Assert.assertFalse(asyncRequest.isAsyncStarted());
+        Assert.assertEquals(503, asyncResponse.getStatus());
+    }
+
+    /**
+     * Test that the view serves a pre-rendered page from disk instead of rendering it, either by transferring the file
+     * to the response or by handing it over to the sendfile support of the connector, also under a context path.
+     *
+     * @throws Exception Exception in case of an unexpected problem.
+     */
+    @Test
+    public void testPrerenderedAngularJUniversalView() throws Exception {
+        File page = File.createTempFile("index", ".html");
+        page.deleteOnExit();
+        Files.write(page.toPath(), "<html>About</html>".getBytes(StandardCharsets.UTF_8));
+
+        Renderer renderer = Mockito.mock(Renderer.class);
+        RenderConfiguration renderConfiguration = Mockito.mock(RenderConfiguration.class);
+        Mockito.when(renderConfiguration.getCharset()).thenReturn(StandardCharsets.UTF_8);
+        AngularJUniversalPrerenderedPages prerenderedPages = Mockito.mock(AngularJUniversalPrerenderedPages.class);
+        Mockito.when(prerenderedPages.getPage("/about")).thenReturn(page);
+
+        AngularJUniversalView view = new AngularJUniversalView(renderer, renderConfiguration, request -> RenderPriority.INTERACTIVE, prerenderedPages);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/about");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), request, response);
+        Assert.assertEquals("<html>About</html>", response.getContentAsString());
+        Assert.assertEquals(18, response.getContentLength());
+        Assert.assertEquals("text/html", response.getContentType());
+
+        MockHttpServletRequest sendfileRequest = new MockHttpServletRequest("GET", "/about");
+        sendfileRequest.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse sendfileResponse = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), sendfileRequest, sendfileResponse);
+        Assert.assertEquals(page.getAbsolutePath(), sendfileRequest.getAttribute("org.apache.tomcat.sendfile.filename"));
+        Assert.assertEquals(0L, sendfileRequest.getAttribute("org.apache.tomcat.sendfile.start"));
+        Assert.assertEquals(18L, sendfileRequest.getAttribute("org.apache.tomcat.sendfile.end"));
+        Assert.assertEquals(18, sendfileResponse.getContentLength());
+        Assert.assertEquals("", sendfileResponse.getContentAsString());
+
+        // The page is looked up without the context path
+        MockHttpServletRequest contextPathRequest = new MockHttpServletRequest("GET", "/app/about");
+        contextPathRequest.setContextPath("/app");
+        MockHttpServletResponse contextPathResponse = new MockHttpServletResponse();
+        view.renderMergedTemplateModel(new HashMap<>(), contextPathRequest, contextPathResponse);
+        Assert.assertEquals("<html>About</html>", contextPathResponse.getContentAsString());
+
+        Mockito.verifyZeroInteractions(renderer);
+    }
 }